@@ -0,0 +1,105 @@
+package Demo;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import NEO.Fixed8;
+import NEO.Helper;
+import NEO.UInt160;
+import NEO.UInt256;
+import NEO.Core.Block;
+import NEO.Core.Blockchain;
+import NEO.Core.ContractTransaction;
+import NEO.Core.TransactionAttribute;
+import NEO.Core.TransactionAttributeUsage;
+import NEO.Core.TransactionInput;
+import NEO.Core.TransactionOutput;
+import NEO.Core.Scripts.Program;
+import NEO.IO.BinaryWriter;
+import NEO.IO.Serializable;
+
+/**
+ * Block 反序列化吞吐量测试
+ *
+ * 以测试网1000高度区块的区块头为模板，构造包含一笔MinerTransaction和若干笔
+ * ContractTransaction(1个描述属性/2个输入/2个输出/1个签名脚本)的区块，统计每秒可解码的区块数。
+ *
+ * 用法: BlockDecodeBenchmark [每个区块的交易数] [解码次数]
+ */
+public class BlockDecodeBenchmark {
+	private static final String HEADER_SAMPLE = "00000000e36a0b74514cf5433ef8afdd64f52f5f149be7b68ffea2a30635e608aa3547cd419524c8559a59d5b9eb379c9b28ddadf212d5a26b840af9c03c63a59cb80f25f2220458e8030000a37e53ca9d1515ec59e75d652b5d3827bf04c165bbe9ef95cca4bf5501fd450140c252df98bc3a569154a00f408a8d70ec03d74dbaf9f41342ea7a6b26153be6b0ac56bf2cca48b79b981847c6f0d28f37e29da7444aa20cbc6f6c5e197166110d4050fbc4d36b74a5b0f826192bff34b9875287f352e5f1bc2d5ad7cf8de184504678113ba4638867c13adb971fb245df7aa858b7d63141f4d3d67f0e67a015a3c54066b7daf7bc24aeb97dcf46cafd0c5fb7a2e17fbb0ec354eacbe4044c99e971166069b731e57f0572cff4db48434da861b827410b4e0bd15f69c83081bd659b2440d2a93db8fa70fb7d9805db56db4704f5e241713035b8d082b7af735e0c556a9af515c3f7e8269e1505cfbc7381037c811645ddcfa38468669b7832df9ae34f524023b8a8e8fd98bce09e994c941de939d08cf51f61a0c851aa1e48852ebf3df1fef4d7c125019aeb68d3fc0c52d0924d5c40532796b6cd1b4dfeaff5b6f006b960f1552102486fd15702c4490a26703112a5cc1d0923fd697a33406bd5a1c00e0013b09a7021024c7b7fb6c310fccf1ba33b082519d82964ea93868d676662d4a59ad548df0e7d2102aaec38470f6aad0042c6e877cfd8087d2676b0f516fddd362801b9bd3936399e2103b209fd4f53a7170ea4444e0cb0a6bb6a53c2bd016926989cf85f9b0fba17a70c2103b8d9d5771d8f513aa0869b9cc8d50986403b78c6da36890638c3d46a5adce04a2102ca0e27697b9c248f6f16e085fd0061e26f44da85b58ee835c110caa5ec3ba5542102df48f60e8f3e01c48ff40b9b7f1310d7a8b2a193188befe1c2e3df740e89509357ae010000a37e53ca00000000";
+
+	public static void main(String[] args) throws Exception {
+		int txCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		byte[] raw = buildBlock(txCount);
+		System.out.println(String.format("block size=%d bytes, transactions=%d", raw.length, txCount + 1));
+
+		// 预热
+		for (int i = 0; i < rounds / 4; i++) {
+			Serializable.from(raw, Block.class);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			Serializable.from(raw, Block.class);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("decoded %d blocks in %.3fs: %.1f blocks/s, %.0f tx/s",
+				rounds, seconds, rounds / seconds, rounds * (txCount + 1) / seconds));
+	}
+
+	static byte[] buildBlock(int txCount) throws Exception {
+		Block template = Serializable.from(Helper.hexToBytes(HEADER_SAMPLE), Block.class);
+		Random random = new Random(1000);
+		try (ByteArrayOutputStream ms = new ByteArrayOutputStream()) {
+			try (BinaryWriter writer = new BinaryWriter(ms)) {
+				template.serializeUnsigned(writer);
+				writer.writeByte((byte)1);
+				writer.writeSerializable(template.script);
+				writer.writeVarInt(txCount + 1);
+				// MinerTransaction: type, version, nonce, attributes, inputs, outputs, scripts
+				writer.writeByte((byte)0);
+				writer.writeByte((byte)0);
+				writer.writeInt(random.nextInt());
+				writer.write(new byte[4]);
+				for (int i = 0; i < txCount; i++) {
+					writer.write(randomTransaction(random).toArray());
+				}
+				writer.flush();
+				return ms.toByteArray();
+			}
+		}
+	}
+
+	static ContractTransaction randomTransaction(Random random) {
+		ContractTransaction tx = new ContractTransaction();
+		TransactionAttribute attr = new TransactionAttribute();
+		attr.usage = TransactionAttributeUsage.Description;
+		attr.data = randomBytes(random, 20);
+		tx.attributes = new TransactionAttribute[] { attr };
+		tx.inputs = new TransactionInput[2];
+		for (int i = 0; i < tx.inputs.length; i++) {
+			tx.inputs[i] = new TransactionInput();
+			tx.inputs[i].prevHash = new UInt256(randomBytes(random, 32));
+			tx.inputs[i].prevIndex = (short)i;
+		}
+		tx.outputs = new TransactionOutput[2];
+		for (int i = 0; i < tx.outputs.length; i++) {
+			tx.outputs[i] = new TransactionOutput();
+			tx.outputs[i].assetId = Blockchain.UtilityToken;
+			tx.outputs[i].value = Fixed8.fromLong(random.nextInt(1000) + 1);
+			tx.outputs[i].scriptHash = new UInt160(randomBytes(random, 20));
+		}
+		Program script = new Program();
+		script.parameter = randomBytes(random, 65);
+		script.code = randomBytes(random, 35);
+		tx.scripts = new Program[] { script };
+		return tx;
+	}
+
+	private static byte[] randomBytes(Random random, int length) {
+		byte[] data = new byte[length];
+		random.nextBytes(data);
+		return data;
+	}
+}
@@ -0,0 +1,63 @@
+package Demo;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import NEO.Cryptography.Digest;
+
+/**
+ * Digest 吞吐量对比测试
+ *
+ * 对比每次调用MessageDigest.getInstance(旧实现)与线程缓存实例+合并hash256/hash160的吞吐量，
+ * 分别测试交易大小(默认250字节)的数据和Merkle节点大小(64字节)的数据。
+ *
+ * 用法: DigestBenchmark [数据字节数] [迭代次数]
+ */
+public class DigestBenchmark {
+	public static void main(String[] args) throws Exception {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 250;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		Random random = new Random(4);
+		for (int length : new int[] { size, 64 }) {
+			byte[] data = new byte[length];
+			random.nextBytes(data);
+			System.out.println(String.format("input=%d bytes", length));
+			run("hash256 getInstance", rounds, () -> legacyHash256(data));
+			run("hash256 cached", rounds, () -> Digest.hash256(data));
+			run("hash160 getInstance", rounds, () -> legacyHash160(data));
+			run("hash160 cached", rounds, () -> Digest.hash160(data));
+		}
+	}
+
+	private static void run(String name, int rounds, Runnable op) {
+		// 预热后取多轮中的最好成绩，减少JIT编译时机带来的误差
+		for (int i = 0; i < rounds; i++) {
+			op.run();
+		}
+		double best = 0;
+		for (int n = 0; n < 3; n++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < rounds; i++) {
+				op.run();
+			}
+			best = Math.max(best, rounds / ((System.nanoTime() - start) / 1e9));
+		}
+		System.out.println(String.format("  %-20s %.0f ops/s", name, best));
+	}
+
+	private static byte[] legacyHash256(byte[] value) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(MessageDigest.getInstance("SHA-256").digest(value));
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private static byte[] legacyHash160(byte[] value) {
+		try {
+			return MessageDigest.getInstance("RipeMD160").digest(MessageDigest.getInstance("SHA-256").digest(value));
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package Demo;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import com.alibaba.fastjson.JSON;
+
+import NEO.Helper;
+import NEO.IO.Json.JObject;
+import NEO.IO.Json.JsonParser;
+
+/**
+ * JSON 解析吞吐量测试
+ *
+ * 分别以getblock的两种响应为样本：原始格式(result为区块的十六进制字符串)和详细格式(result为区块的JSON对象，
+ * 每笔交易包含vin/vout/scripts等字段)。对比原JObject.parse(见LegacyJsonParser)、现JObject.parse(String)、
+ * JObject.parse(Reader)与fastjson的速度，以及用JsonParser只读取id、跳过result的速度。
+ *
+ * 用法: JsonParseBenchmark [每个区块的交易数] [解析次数]
+ */
+public class JsonParseBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int txCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+		String raw = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"" + Helper.toHexString(BlockDecodeBenchmark.buildBlock(txCount)) + "\"}";
+		String verbose = verboseBlock(txCount);
+		run("getblock raw", raw, rounds);
+		run("getblock verbose", verbose, rounds);
+	}
+
+	private static void run(String name, String json, int rounds) throws Exception {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		System.out.println(String.format("%s: %d bytes", name, bytes.length));
+		measure("  legacy parse(String) ", rounds, () -> LegacyJsonParser.parse(json));
+		measure("  legacy parse(Reader) ", rounds, () -> LegacyJsonParser.parse(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)));
+		measure("  JObject.parse(String)", rounds, () -> JObject.parse(json));
+		measure("  JObject.parse(Reader)", rounds, () -> JObject.parse(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)));
+		measure("  fastjson JSON.parse  ", rounds, () -> JSON.parse(json));
+		measure("  JsonParser(id only)  ", rounds, () -> readId(json));
+	}
+
+	/**
+	 * 用拉取式接口只读取id，跳过result
+	 */
+	private static double readId(String json) throws Exception {
+		double id = -1;
+		try (JsonParser parser = new JsonParser(json)) {
+			parser.next();
+			while (parser.next() == JsonParser.Token.NAME) {
+				if (parser.name().equals("id")) {
+					parser.next();
+					id = parser.number();
+				} else {
+					parser.skipValue();
+				}
+			}
+		}
+		return id;
+	}
+
+	private interface Task {
+		void run() throws Exception;
+	}
+
+	private static void measure(String name, int rounds, Task task) throws Exception {
+		// 预热
+		for (int i = 0; i < rounds / 4 + 1; i++) {
+			task.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			task.run();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%s %8.1f parses/s %8.3f ms/parse", name, rounds / seconds, seconds * 1000 / rounds));
+	}
+
+	/**
+	 * 按getblock详细格式构造响应
+	 */
+	static String verboseBlock(int txCount) {
+		Random random = new Random(1000);
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{");
+		sb.append("\"hash\":\"0x").append(hex(random, 32)).append("\",");
+		sb.append("\"size\":").append(txCount * 300).append(",\"version\":0,");
+		sb.append("\"previousblockhash\":\"0x").append(hex(random, 32)).append("\",");
+		sb.append("\"merkleroot\":\"0x").append(hex(random, 32)).append("\",");
+		sb.append("\"time\":1496987423,\"index\":1000,\"nonce\":\"").append(hex(random, 8)).append("\",");
+		sb.append("\"nextconsensus\":\"AdyQbbn6ENjqWDa5JNYMwN3ikNcA4JeZdk\",");
+		sb.append("\"script\":{\"invocation\":\"").append(hex(random, 260)).append("\",\"verification\":\"").append(hex(random, 240)).append("\"},");
+		sb.append("\"tx\":[");
+		for (int i = 0; i < txCount; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"txid\":\"0x").append(hex(random, 32)).append("\",\"size\":262,\"type\":\"ContractTransaction\",\"version\":0,");
+			sb.append("\"attributes\":[{\"usage\":\"Description\",\"data\":\"").append(hex(random, 20)).append("\"}],");
+			sb.append("\"vin\":[");
+			for (int j = 0; j < 2; j++) {
+				sb.append(j > 0 ? "," : "").append("{\"txid\":\"0x").append(hex(random, 32)).append("\",\"vout\":").append(j).append('}');
+			}
+			sb.append("],\"vout\":[");
+			for (int j = 0; j < 2; j++) {
+				sb.append(j > 0 ? "," : "").append("{\"n\":").append(j)
+					.append(",\"asset\":\"0x602c79718b16e442de58778e148d0b1084e3b2dffd5de6b7b16cee7969282de7\",\"value\":\"")
+					.append(random.nextInt(1000) + 1).append(".12345678\",\"address\":\"AdyQbbn6ENjqWDa5JNYMwN3ikNcA4JeZdk\"}");
+			}
+			sb.append("],\"sys_fee\":\"0\",\"net_fee\":\"0.001\",");
+			sb.append("\"scripts\":[{\"invocation\":\"").append(hex(random, 65)).append("\",\"verification\":\"").append(hex(random, 35)).append("\"}]}");
+		}
+		sb.append("],\"confirmations\":1234567,\"nextblockhash\":\"0x").append(hex(random, 32)).append("\"}}");
+		return sb.toString();
+	}
+
+	private static String hex(Random random, int length) {
+		byte[] data = new byte[length];
+		random.nextBytes(data);
+		return Helper.toHexString(data);
+	}
+}
@@ -0,0 +1,219 @@
+package Demo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 原JObject.parse的实现副本，仅供JsonParseBenchmark对比使用
+ *
+ * 保持原有的逐字符mark/reset读取方式，以及每个节点都分配HashMap的内存布局。
+ */
+class LegacyJsonParser {
+
+	static class Node {
+		final Map<String, Node> properties = new HashMap<String, Node>();
+	}
+
+	static class ArrayNode extends Node {
+		final List<Node> items = new ArrayList<Node>();
+	}
+
+	static class StringNode extends Node {
+		final String value;
+
+		StringNode(String value) {
+			this.value = value;
+		}
+	}
+
+	static class NumberNode extends Node {
+		final double value;
+
+		NumberNode(double value) {
+			this.value = value;
+		}
+	}
+
+	static class BooleanNode extends Node {
+		final boolean value;
+
+		BooleanNode(boolean value) {
+			this.value = value;
+		}
+	}
+
+	static Node parse(String value) {
+		try {
+			return parse(new StringReader(value));
+		} catch (IOException ex) {
+			throw new IllegalArgumentException(ex);
+		}
+	}
+
+	static Node parse(Reader reader) throws IOException {
+		BufferedReader r = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+		skipSpace(r);
+		r.mark(1);
+		int firstChar = r.read();
+		if (firstChar == '\"' || firstChar == '\'') {
+			r.reset();
+			return parseString(r);
+		}
+		if (firstChar == '[') {
+			r.reset();
+			return parseArray(r);
+		}
+		if ((firstChar >= '0' && firstChar <= '9') || firstChar == '-') {
+			r.reset();
+			return parseNumber(r);
+		}
+		if (firstChar == 't' || firstChar == 'f') {
+			r.reset();
+			return parseBoolean(r);
+		}
+		if (firstChar == 'n') {
+			r.reset();
+			return parseNull(r);
+		}
+		if (firstChar != '{') throw new IOException();
+		skipSpace(r);
+		Node obj = new Node();
+		while (true) {
+			r.mark(1);
+			int c = r.read();
+			if (c == '}') {
+				break;
+			}
+			if (c != ',') {
+				r.reset();
+			}
+			skipSpace(r);
+			String name = parseString(r).value;
+			skipSpace(r);
+			if (r.read() != ':') {
+				throw new IOException();
+			}
+			Node value = parse(r);
+			obj.properties.put(name, value);
+			skipSpace(r);
+		}
+		return obj;
+	}
+
+	private static Node parseNull(Reader reader) throws IOException {
+		char firstChar = (char)reader.read();
+		if (firstChar == 'n') {
+			int c2 = reader.read();
+			int c3 = reader.read();
+			int c4 = reader.read();
+			if (c2 == 'u' && c3 == 'l' && c4 == 'l') {
+				return null;
+			}
+		}
+		throw new IllegalArgumentException();
+	}
+
+	private static ArrayNode parseArray(BufferedReader reader) throws IOException {
+		skipSpace(reader);
+		if (reader.read() != '[') {
+			throw new IOException();
+		}
+		skipSpace(reader);
+		ArrayNode array = new ArrayNode();
+		while (true) {
+			reader.mark(1);
+			int c = reader.read();
+			if (c == ']') {
+				break;
+			}
+			if (c != ',') {
+				reader.reset();
+			}
+			Node obj = parse(reader);
+			array.items.add(obj);
+			skipSpace(reader);
+		}
+		return array;
+	}
+
+	private static StringNode parseString(BufferedReader reader) throws IOException {
+		skipSpace(reader);
+		char[] buffer = new char[4];
+		int firstChar = reader.read();
+		if (firstChar != '\"' && firstChar != '\'') throw new IOException();
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			int c = reader.read();
+			if (c == 65535) {
+				throw new IOException();
+			}
+			if (c == firstChar) {
+				break;
+			}
+			if (c == '\\') {
+				c = (char)reader.read();
+				if (c == 'u') {
+					reader.read(buffer, 0, 4);
+					c = Integer.valueOf(new String(buffer), 16);
+				}
+			}
+			sb.append((char)c);
+		}
+		return new StringNode(sb.toString());
+	}
+
+	private static NumberNode parseNumber(BufferedReader reader) throws IOException {
+		skipSpace(reader);
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			reader.mark(1);
+			int c = reader.read();
+			if (c >= '0' && c <= '9' || c == '.' || c == '-') {
+				sb.append((char)c);
+			} else {
+				reader.reset();
+				break;
+			}
+		}
+		return new NumberNode(Double.parseDouble(sb.toString()));
+	}
+
+	private static BooleanNode parseBoolean(BufferedReader reader) throws IOException {
+		skipSpace(reader);
+		int firstChar = reader.read();
+		if (firstChar == 't') {
+			int c2 = reader.read();
+			int c3 = reader.read();
+			int c4 = reader.read();
+			if (c2 == 'r' && c3 == 'u' && c4 == 'e') {
+				return new BooleanNode(true);
+			}
+		} else if (firstChar == 'f') {
+			int c2 = reader.read();
+			int c3 = reader.read();
+			int c4 = reader.read();
+			int c5 = reader.read();
+			if (c2 == 'a' && c3 == 'l' && c4 == 's' && c5 == 'e') {
+				return new BooleanNode(false);
+			}
+		}
+		throw new IOException();
+	}
+
+	private static void skipSpace(BufferedReader reader) throws IOException {
+		while (true) {
+			reader.mark(1);
+			int c = reader.read();
+			if (c != ' ' && c != '\r' && c != '\n') {
+				reader.reset();
+				return;
+			}
+		}
+	}
+}
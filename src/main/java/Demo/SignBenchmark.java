@@ -0,0 +1,65 @@
+package Demo;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+
+import NEO.Core.ContractTransaction;
+import NEO.Cryptography.Digest;
+import NEO.Cryptography.ECC;
+import NEO.Wallets.Account;
+
+/**
+ * 交易签名吞吐量测试
+ *
+ * 对比每次签名都新建ECDSASigner和私钥参数(旧实现)、账户签名引擎逐笔签名、以及signAll并行签名。
+ *
+ * 用法: SignBenchmark [交易数]
+ */
+public class SignBenchmark {
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		Random random = new Random(7);
+		Account account = new Account(ECC.generateKey());
+		List<ContractTransaction> txs = new ArrayList<ContractTransaction>();
+		for (int i = 0; i < count; i++) {
+			txs.add(BlockDecodeBenchmark.randomTransaction(random));
+		}
+		// 预热
+		for (int i = 0; i < Math.min(count, 2000); i++) {
+			legacySign(txs.get(i).getHashData(), account.privateKey);
+			account.signer().sign(txs.get(i));
+		}
+
+		long start = System.nanoTime();
+		for (ContractTransaction tx : txs) {
+			legacySign(tx.getHashData(), account.privateKey);
+		}
+		report("legacy", count, start);
+
+		start = System.nanoTime();
+		for (ContractTransaction tx : txs) {
+			account.signer().sign(tx);
+		}
+		report("signer", count, start);
+
+		start = System.nanoTime();
+		account.signer().signAll(txs);
+		report("signAll", count, start);
+	}
+
+	private static void report(String name, int count, long start) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%-8s %d signatures in %.3fs: %.0f sig/s", name, count, seconds, count / seconds));
+	}
+
+	private static BigInteger[] legacySign(byte[] data, byte[] privateKey) {
+		ECDSASigner signer = new ECDSASigner();
+		signer.init(true, new ECPrivateKeyParameters(new BigInteger(1, privateKey), ECC.secp256r1));
+		return signer.generateSignature(Digest.sha256(data));
+	}
+}
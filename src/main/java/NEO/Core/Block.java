@@ -1,7 +1,5 @@
 package NEO.Core;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.function.Function;
@@ -9,6 +7,8 @@ import java.util.function.Function;
 import NEO.UInt160;
 import NEO.UInt256;
 import NEO.Core.Scripts.Program;
+import NEO.Core.Scripts.ScriptVerifier;
+import NEO.Cryptography.MerkleProof;
 import NEO.Cryptography.MerkleTree;
 import NEO.IO.BinaryReader;
 import NEO.IO.BinaryWriter;
@@ -60,6 +60,10 @@ public class Block extends Inventory {
      *  交易列表，当列表中交易的数量为0时，该Block对象表示一个区块头
      */
     public Transaction[] transactions;
+    /**
+     *  反序列化时读取的字节数，本地构造的区块为-1
+     */
+    private int size = -1;
 
     /**
      *  该区块的区块头
@@ -97,22 +101,17 @@ public class Block extends Inventory {
      *  反序列化
      *  <param name="reader">数据来源</param>
      * @throws IOException 
-     * @throws IllegalAccessException 
-     * @throws InstantiationException 
      */
     @Override 
     public void deserialize(BinaryReader reader) throws IOException {
+        long start = reader.position();
     	// 未签名
         deserializeUnsigned(reader);
         // 填充值
         if (reader.readByte() != 1)
         	throw new IOException();
         // 脚本
-        try {
-			script = reader.readSerializable(Program.class);
-		} catch (InstantiationException | IllegalAccessException ex) {
-        	throw new IOException(ex);
-		}
+        script = reader.readSerializable(Program::new);
         // 交易
         transactions = new Transaction[(int) reader.readVarInt(0x10000)];
         //transactions = new Transaction[reader.readInt()]; // Code of unknown history
@@ -128,22 +127,26 @@ public class Block extends Inventory {
                 throw new IOException();
             }
         }
+        size = (int)(reader.position() - start);
+    }
+
+    /**
+     *  区块的字节数：反序列化得到的区块返回读取的字节数，不再序列化；本地构造的区块每次序列化计算
+     */
+    public int size() {
+        return size >= 0 ? size : toArray().length;
     }
 
     @Override 
     public void deserializeUnsigned(BinaryReader reader) throws IOException {
-        try {
-            version = reader.readInt();
-            prevBlock = reader.readSerializable(UInt256.class);
-            merkleRoot = reader.readSerializable(UInt256.class);
-            timestamp = reader.readInt();
-            height = reader.readInt();
-            consensusData = Long.valueOf(reader.readLong());
-			nextMiner = reader.readSerializable(UInt160.class);
-	        transactions = new Transaction[0];
-		} catch (InstantiationException | IllegalAccessException ex) {
-        	throw new IOException(ex);
-		}
+        version = reader.readInt();
+        prevBlock = reader.readSerializable(UInt256::new);
+        merkleRoot = reader.readSerializable(UInt256::new);
+        timestamp = reader.readInt();
+        height = reader.readInt();
+        consensusData = reader.readLong();
+        nextMiner = reader.readSerializable(UInt160::new);
+        transactions = new Transaction[0];
     }
     
     @Override 
@@ -190,30 +193,31 @@ public class Block extends Inventory {
 
     public static Block fromTrimmedData(byte[] data, int index, Function<UInt256, Transaction> txSelector) throws IOException {
         Block block = new Block();
-        try (ByteArrayInputStream ms = new ByteArrayInputStream(data, index, data.length - index)) {
-	        try (BinaryReader reader = new BinaryReader(ms)) {
-	        	// 未签名的
-	        	block.deserializeUnsigned(reader);
-	        	// 填充值
-	        	reader.readByte(); 
-	        	// 脚本
-	        	block.script = reader.readSerializable(Program.class);
-	        	// 交易
-	        	if (txSelector == null) {
-	        		block.transactions = new Transaction[0];
-	        	} else {
-		        	block.transactions = new Transaction[(int)reader.readVarInt(0x10000000)];
-		        	for (int i = 0; i < block.transactions.length; i++) {
-		        		block.transactions[i] = txSelector.apply(reader.readSerializable(UInt256.class));
-		        	}
+        try (BinaryReader reader = new BinaryReader(data, index, data.length - index)) {
+        	// 未签名的
+        	block.deserializeUnsigned(reader);
+        	// 填充值
+        	reader.readByte(); 
+        	// 脚本
+        	block.script = reader.readSerializable(Program::new);
+        	// 交易
+        	if (txSelector == null) {
+        		block.transactions = new Transaction[0];
+        	} else {
+	        	block.transactions = new Transaction[(int)reader.readVarInt(0x10000000)];
+	        	for (int i = 0; i < block.transactions.length; i++) {
+	        		block.transactions[i] = txSelector.apply(reader.readSerializable(UInt256::new));
 	        	}
-	        } catch (InstantiationException | IllegalAccessException ex) {
-				throw new IOException(ex);
-			}
+        	}
         }
         return block;
     }
 
+    @Override
+    public Program[] getScripts() {
+        return new Program[] { script };
+    }
+
     /**
      * 获取验证脚本
      */
@@ -238,7 +242,25 @@ public class Block extends Inventory {
      * 根据区块中所有交易的Hash生成MerkleRoot
      */
     public void rebuildMerkleRoot() {
-        merkleRoot = MerkleTree.computeRoot(Arrays.stream(transactions).map(p -> p.hash()).toArray(UInt256[]::new));
+        merkleRoot = MerkleTree.computeRoot(transactionHashes());
+        invalidateHash();
+    }
+
+    /**
+     * 生成指定交易在该区块中的包含证明，可用区块头中的merkleRoot验证
+     * 
+     * @return 返回包含证明，交易不在该区块中时返回null
+     */
+    public MerkleProof getMerkleProof(UInt256 txid) {
+        return new MerkleTree(transactionHashes()).getProof(txid);
+    }
+
+    private UInt256[] transactionHashes() {
+        UInt256[] hashes = new UInt256[transactions.length];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = transactions[i].hash();
+        }
+        return hashes;
     }
 
     public JObject json() {
@@ -261,15 +283,12 @@ public class Block extends Inventory {
      *  <returns>返回只包含区块头和交易Hash的字节数组</returns>
      */
     public byte[] trim() {
-        try (ByteArrayOutputStream ms = new ByteArrayOutputStream()) {
-	        try (BinaryWriter writer = new BinaryWriter(ms)) {
-	            serializeUnsigned(writer);
-	            writer.writeByte((byte)1); 
-	            writer.writeSerializable(script);
-	            writer.writeSerializableArray(Arrays.stream(transactions).map(p -> p.hash()).toArray(Serializable[]::new));
-	            writer.flush();
-	            return ms.toByteArray();
-	        }
+        try (BinaryWriter writer = BinaryWriter.acquire()) {
+            serializeUnsigned(writer);
+            writer.writeByte((byte)1); 
+            writer.writeSerializable(script);
+            writer.writeSerializableArray(Arrays.stream(transactions).map(p -> p.hash()).toArray(Serializable[]::new));
+            return writer.toArray();
         } catch (IOException ex) {
         	throw new UnsupportedOperationException(ex);
 		}
@@ -290,6 +309,12 @@ public class Block extends Inventory {
      * @return
      */
     public boolean verify(boolean completely) {
+    	if (!verifySignature()) {
+    		return false;
+    	}
+    	if (completely) {
+    		return ScriptVerifier.verifyAll(Arrays.asList(transactions));
+    	}
     	return true;
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import org.bouncycastle.math.ec.ECPoint;
@@ -42,13 +43,13 @@ public abstract class Blockchain implements AutoCloseable {
      *  后备记账人列表
      */
     public static final ECPoint[] STANDBY_MINERS = {
-        ECC.secp256r1.getCurve().decodePoint(Helper.hexToBytes("0327da12b5c40200e9f65569476bbff2218da4f32548ff43b6387ec1416a231ee8")),
-        ECC.secp256r1.getCurve().decodePoint(Helper.hexToBytes("026ce35b29147ad09e4afe4ec4a7319095f08198fa8babbe3c56e970b143528d22")),
-        ECC.secp256r1.getCurve().decodePoint(Helper.hexToBytes("0209e7fd41dfb5c2f8dc72eb30358ac100ea8c72da18847befe06eade68cebfcb9")),
-        ECC.secp256r1.getCurve().decodePoint(Helper.hexToBytes("039dafd8571a641058ccc832c5e2111ea39b09c0bde36050914384f7a48bce9bf9")),
-        ECC.secp256r1.getCurve().decodePoint(Helper.hexToBytes("038dddc06ce687677a53d54f096d2591ba2302068cf123c1f2d75c2dddc5425579")),
-        ECC.secp256r1.getCurve().decodePoint(Helper.hexToBytes("02d02b1873a0863cd042cc717da31cea0d7cf9db32b74d4c72c01b0011503e2e22")),
-        ECC.secp256r1.getCurve().decodePoint(Helper.hexToBytes("034ff5ceeac41acf22cd5ed2da17a6df4dd8358fcb2bfb1a43208ad0feaab2746b")),
+        ECC.decodePoint(Helper.hexToBytes("0327da12b5c40200e9f65569476bbff2218da4f32548ff43b6387ec1416a231ee8")),
+        ECC.decodePoint(Helper.hexToBytes("026ce35b29147ad09e4afe4ec4a7319095f08198fa8babbe3c56e970b143528d22")),
+        ECC.decodePoint(Helper.hexToBytes("0209e7fd41dfb5c2f8dc72eb30358ac100ea8c72da18847befe06eade68cebfcb9")),
+        ECC.decodePoint(Helper.hexToBytes("039dafd8571a641058ccc832c5e2111ea39b09c0bde36050914384f7a48bce9bf9")),
+        ECC.decodePoint(Helper.hexToBytes("038dddc06ce687677a53d54f096d2591ba2302068cf123c1f2d75c2dddc5425579")),
+        ECC.decodePoint(Helper.hexToBytes("02d02b1873a0863cd042cc717da31cea0d7cf9db32b74d4c72c01b0011503e2e22")),
+        ECC.decodePoint(Helper.hexToBytes("034ff5ceeac41acf22cd5ed2da17a6df4dd8358fcb2bfb1a43208ad0feaab2746b")),
     };
 
     /**
@@ -184,6 +185,21 @@ public abstract class Blockchain implements AutoCloseable {
         return getBlock(getBlockHash(height));
     }
 
+    /**
+     *  异步获取指定高度的区块，远程实现可以同时发出多个请求；默认实现在调用线程中同步获取
+     *  <param name="height">区块高度</param>
+     *  <returns>返回对应的区块信息</returns>
+     */
+    public CompletableFuture<Block> getBlockAsync(int height) {
+        CompletableFuture<Block> future = new CompletableFuture<Block>();
+        try {
+            future.complete(getBlock(height));
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
     /**
      *  根据指定的散列值，返回对应的区块信息
      *  <param name="hash">散列值</param>
@@ -295,6 +311,21 @@ public abstract class Blockchain implements AutoCloseable {
         return getTransaction(hash, height);
     }
 
+    /**
+     *  异步获取指定的交易，默认实现在调用线程中同步获取
+     *  <param name="hash">散列值</param>
+     *  <returns>返回对应的交易信息</returns>
+     */
+    public CompletableFuture<Transaction> getTransactionAsync(UInt256 hash) {
+        CompletableFuture<Transaction> future = new CompletableFuture<Transaction>();
+        try {
+            future.complete(getTransaction(hash));
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
     /**
      *  根据指定的散列值，返回对应的交易信息与该交易所在区块的高度
      *  <param name="hash">交易散列值</param>
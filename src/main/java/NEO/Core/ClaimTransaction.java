@@ -23,7 +23,7 @@ public class ClaimTransaction extends Transaction{
     @Override
     protected void deserializeExclusiveData(BinaryReader reader) throws IOException {
         try {
-            claims = reader.readSerializableArray(TransactionInput.class);
+            claims = reader.readSerializableArray(TransactionInput::new, TransactionInput[]::new);
         }
         catch (Exception e) {
             throw new IOException();
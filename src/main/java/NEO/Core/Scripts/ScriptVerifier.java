@@ -0,0 +1,212 @@
+package NEO.Core.Scripts;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+
+import NEO.UInt160;
+import NEO.Core.Signable;
+import NEO.Cryptography.Digest;
+import NEO.Cryptography.ECC;
+
+/**
+ *  标准签名合约和多方签名合约的脚本验证
+ *
+ *  只识别Contract.createSignatureRedeemScript和createMultiSigRedeemScript生成的脚本，
+ *  其它脚本需要完整的虚拟机，这里一律视为验证失败。
+ *  批量验证时先在调用线程中取得待验证的脚本Hash(可能需要查询区块链)，再在ForkJoin公共池中并行验证签名。
+ */
+public final class ScriptVerifier {
+    private ScriptVerifier() {
+    }
+
+    /**
+     *  验证单个可签名对象的所有脚本
+     *  <param name="signable">要验证的数据</param>
+     *  <returns>返回所有脚本是否都验证通过</returns>
+     */
+    public static boolean verify(Signable signable) {
+        List<Check> checks = new ArrayList<Check>();
+        return prepare(signable, checks) && checks.stream().allMatch(Check::verify);
+    }
+
+    /**
+     *  并行验证多个可签名对象，例如一个区块中的全部交易
+     *  <param name="signables">要验证的数据</param>
+     *  <returns>返回所有脚本是否都验证通过</returns>
+     */
+    public static boolean verifyAll(Collection<? extends Signable> signables) {
+        List<Check> checks = new ArrayList<Check>();
+        for (Signable signable : signables) {
+            if (!prepare(signable, checks)) {
+                return false;
+            }
+        }
+        return checks.parallelStream().allMatch(Check::verify);
+    }
+
+    /**
+     *  验证ECDSA签名
+     *  <param name="message">待签名数据的SHA256</param>
+     *  <param name="signature">64字节的r||s</param>
+     *  <param name="pubkey">压缩格式的公钥</param>
+     */
+    public static boolean verifySignature(byte[] message, byte[] signature, byte[] pubkey) {
+        if (signature.length != 64) {
+            return false;
+        }
+        ECPublicKeyParameters key;
+        try {
+            // ECC缓存已解码的公钥，同一个ECPoint实例可以复用BouncyCastle在点上缓存的预计算结果
+            key = new ECPublicKeyParameters(ECC.decodePoint(pubkey), ECC.secp256r1);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+        ECDSASigner signer = new ECDSASigner();
+        signer.init(false, key);
+        byte[] r = new byte[32];
+        byte[] s = new byte[32];
+        System.arraycopy(signature, 0, r, 0, 32);
+        System.arraycopy(signature, 32, s, 0, 32);
+        return signer.verifySignature(message, new BigInteger(1, r), new BigInteger(1, s));
+    }
+
+    private static boolean prepare(Signable signable, List<Check> checks) {
+        UInt160[] hashes;
+        try {
+            hashes = signable.getScriptHashesForVerifying();
+        } catch (RuntimeException ex) {
+            // 引用的交易查询不到，或者查询时节点出错
+            return false;
+        }
+        Program[] scripts = signable.getScripts();
+        if (scripts == null || hashes.length != scripts.length) {
+            return false;
+        }
+        byte[] message = Digest.sha256(signable.getHashData());
+        for (int i = 0; i < scripts.length; i++) {
+            if (scripts[i] == null || scripts[i].code == null || scripts[i].parameter == null) {
+                return false;
+            }
+            if (!hashes[i].equals(Program.toScriptHash(scripts[i].code))) {
+                return false;
+            }
+            checks.add(new Check(message, scripts[i]));
+        }
+        return true;
+    }
+
+    /**
+     *  一个脚本的验证任务
+     */
+    private static class Check {
+        private final byte[] message;
+        private final Program script;
+
+        Check(byte[] message, Program script) {
+            this.message = message;
+            this.script = script;
+        }
+
+        boolean verify() {
+            try {
+                List<byte[]> signatures = readPushes(script.parameter, 0, script.parameter.length);
+                byte[] code = script.code;
+                if (code.length == 35 && code[0] == 33 && code[34] == ScriptOp.OP_CHECKSIG.getByte()) {
+                    byte[] pubkey = new byte[33];
+                    System.arraycopy(code, 1, pubkey, 0, 33);
+                    return signatures.size() == 1 && verifySignature(message, signatures.get(0), pubkey);
+                }
+                if (code.length > 0 && code[code.length - 1] == ScriptOp.OP_CHECKMULTISIG.getByte()) {
+                    return verifyMultiSig(signatures, readPushes(code, 0, code.length - 1));
+                }
+                return false;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        /**
+         *  按顺序匹配签名和公钥，公钥不能重复使用
+         */
+        private boolean verifyMultiSig(List<byte[]> signatures, List<byte[]> items) {
+            if (items.size() < 3) {
+                return false;
+            }
+            long m = toNumber(items.get(0));
+            long n = toNumber(items.get(items.size() - 1));
+            if (n != items.size() - 2 || m < 1 || m > n || signatures.size() != m) {
+                return false;
+            }
+            int i = 0, j = 1;
+            while (i < m && j <= n) {
+                if (verifySignature(message, signatures.get(i), items.get(j))) {
+                    i++;
+                }
+                j++;
+                if (m - i > n - j + 1) {
+                    return false;
+                }
+            }
+            return i == m;
+        }
+    }
+
+    /**
+     *  解析只包含压栈指令的脚本，OP_1~OP_16解析为一个字节的数值
+     */
+    private static List<byte[]> readPushes(byte[] script, int offset, int end) throws IOException {
+        List<byte[]> items = new ArrayList<byte[]>();
+        ByteBuffer buffer = ByteBuffer.wrap(script, offset, end - offset).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            int op = Byte.toUnsignedInt(buffer.get());
+            int length;
+            if (op >= ScriptOp.OP_PUSHBYTES1.getByte() && op <= ScriptOp.OP_PUSHBYTES75.getByte()) {
+                length = op;
+            } else if (op == ScriptOp.OP_PUSHDATA1.getByte()) {
+                length = Byte.toUnsignedInt(get(buffer, 1).get());
+            } else if (op == ScriptOp.OP_PUSHDATA2.getByte()) {
+                length = Short.toUnsignedInt(get(buffer, 2).getShort());
+            } else if (op == ScriptOp.OP_PUSHDATA4.getByte()) {
+                length = get(buffer, 4).getInt();
+            } else if (op >= ScriptOp.OP_1.getByte() && op <= ScriptOp.OP_16.getByte()) {
+                items.add(new byte[] { (byte)(op - ScriptOp.OP_1.getByte() + 1) });
+                continue;
+            } else {
+                throw new IOException();
+            }
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException();
+            }
+            byte[] item = new byte[length];
+            buffer.get(item);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static ByteBuffer get(ByteBuffer buffer, int length) throws IOException {
+        if (buffer.remaining() < length) {
+            throw new IOException();
+        }
+        return buffer;
+    }
+
+    private static long toNumber(byte[] value) {
+        if (value.length == 0 || value.length > 8) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = value.length - 1; i >= 0; i--) {
+            number = (number << 8) | Byte.toUnsignedLong(value[i]);
+        }
+        return number;
+    }
+}
@@ -1,16 +1,10 @@
 package NEO.Core;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.math.BigInteger;
-
-import NEO.Cryptography.ECC;
-import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
-import org.bouncycastle.crypto.signers.ECDSASigner;
-import org.bouncycastle.util.BigIntegers;
 
 import NEO.UInt160;
-import NEO.Cryptography.*;
+import NEO.Core.Scripts.Program;
+import NEO.Core.Scripts.ScriptVerifier;
 import NEO.IO.*;
 import NEO.Wallets.Account;
 
@@ -37,30 +31,26 @@ public interface Signable extends Serializable {
      *  <returns>返回需要校验的脚本Hash值</returns>
      */
     UInt160[] getScriptHashesForVerifying();
+
+    /**
+     *  获得用于验证的脚本，与getScriptHashesForVerifying()一一对应
+     */
+    Program[] getScripts();
     
     default byte[] getHashData() {
-    	try (ByteArrayOutputStream ms = new ByteArrayOutputStream()) {
-	    	try (BinaryWriter writer = new BinaryWriter(ms)) {
-	            serializeUnsigned(writer);
-	            writer.flush();
-	            return ms.toByteArray();
-	        }
+    	try (BinaryWriter writer = BinaryWriter.acquire()) {
+            serializeUnsigned(writer);
+            return writer.toArray();
     	} catch (IOException ex) {
     		throw new UnsupportedOperationException(ex);
     	}
     }
     
     default byte[] sign(Account account) {
-    	ECDSASigner signer = new ECDSASigner();
-    	signer.init(true, new ECPrivateKeyParameters(new BigInteger(1, account.privateKey), ECC.secp256r1));
-    	BigInteger[] bi = signer.generateSignature(Digest.sha256(getHashData()));
-    	byte[] signature = new byte[64];
-    	System.arraycopy(BigIntegers.asUnsignedByteArray(32, bi[0]), 0, signature, 0, 32);
-    	System.arraycopy(BigIntegers.asUnsignedByteArray(32, bi[1]), 0, signature, 32, 32);
-    	return signature;
+    	return account.signer().sign(this);
     }
     
     default boolean verifySignature() {
-    	return true;
+    	return ScriptVerifier.verify(this);
     }
 }
@@ -3,6 +3,7 @@ package NEO.Core;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Supplier;
 import java.util.stream.*;
 
 import NEO.*;
@@ -48,6 +49,39 @@ public abstract class Transaction extends Inventory {
 	 * 验证脚本
 	 */
 	public Program[] scripts = new Program[0];
+	/**
+	 * 反序列化时读取的字节数，本地构造的交易为-1
+	 */
+	private int size = -1;
+	
+	/**
+	 * 交易类型(字节值) -> 构造函数
+	 */
+	private static final Supplier<? extends Transaction>[] factories = newFactoryTable();
+	
+	static {
+		register(TransactionType.MinerTransaction, MinerTransaction::new);
+		register(TransactionType.IssueTransaction, IssueTransaction::new);
+		register(TransactionType.ClaimTransaction, ClaimTransaction::new);
+		register(TransactionType.DataFile, DataFileTransaction::new);
+		register(TransactionType.EnrollmentTransaction, EnrollmentTransaction::new);
+		register(TransactionType.RegisterTransaction, RegisterTransaction::new);
+		register(TransactionType.ContractTransaction, ContractTransaction::new);
+		register(TransactionType.RecordTransaction, RecordTransaction::new);
+		register(TransactionType.StateUpdateTransaction, StateUpdateTransaction::new);
+		register(TransactionType.DestroyTransaction, DestroyTransaction::new);
+		register(TransactionType.PublishTransaction, PublishTransaction::new);
+		register(TransactionType.InvocationTransaction, InvocationTransaction::new);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static Supplier<? extends Transaction>[] newFactoryTable() {
+		return (Supplier<? extends Transaction>[])new Supplier<?>[256];
+	}
+	
+	private static void register(TransactionType type, Supplier<? extends Transaction> factory) {
+		factories[Byte.toUnsignedInt(type.value())] = factory;
+	}
 	
 	protected Transaction(TransactionType type) {
 		this.type = type;
@@ -55,14 +89,19 @@ public abstract class Transaction extends Inventory {
 	
 	@Override
 	public void deserialize(BinaryReader reader) throws IOException {
+		long start = reader.position();
 		deserializeUnsigned(reader);
-		try {
-			scripts = reader.readSerializableArray(Program.class);
-		} catch (InstantiationException | IllegalAccessException ex) {
-			throw new RuntimeException(ex);
-		}
+		scripts = reader.readSerializableArray(Program::new, Program[]::new);
+		size = (int)(reader.position() - start);
 		onDeserialized();
 	}
+	
+	/**
+	 * 交易的字节数：反序列化得到的交易返回读取的字节数，不再序列化；本地构造的交易每次序列化计算
+	 */
+	public int size() {
+		return size >= 0 ? size : toArray().length;
+	}
 	@Override
 	public void deserializeUnsigned(BinaryReader reader) throws IOException {
         if (type.value() != reader.readByte()) { // type
@@ -72,23 +111,19 @@ public abstract class Transaction extends Inventory {
 	}
 
 	private void deserializeUnsignedWithoutType(BinaryReader reader) throws IOException {
-        try {
-            version = reader.readByte();
-            deserializeExclusiveData(reader);
-			attributes = reader.readSerializableArray(TransactionAttribute.class, MaxTransactionAttributes);
-	        inputs = reader.readSerializableArray(TransactionInput.class);
-	        TransactionInput[] inputs_all = getAllInputs().toArray(TransactionInput[]::new);
-	        for (int i = 1; i < inputs_all.length; i++) {
-	            for (int j = 0; j < i; j++) {
-	                if (inputs_all[i].prevHash == inputs_all[j].prevHash && inputs_all[i].prevIndex == inputs_all[j].prevIndex) {
-	                    throw new IOException();
-	                }
-	            }
-	        }
-	        outputs = reader.readSerializableArray(TransactionOutput.class);
-		} catch (InstantiationException | IllegalAccessException ex) {
-			throw new IOException(ex);
-		}
+        version = reader.readByte();
+        deserializeExclusiveData(reader);
+        attributes = reader.readSerializableArray(TransactionAttribute::new, TransactionAttribute[]::new, MaxTransactionAttributes);
+        inputs = reader.readSerializableArray(TransactionInput::new, TransactionInput[]::new);
+        TransactionInput[] inputs_all = getAllInputs().toArray(TransactionInput[]::new);
+        for (int i = 1; i < inputs_all.length; i++) {
+            for (int j = 0; j < i; j++) {
+                if (inputs_all[i].prevHash == inputs_all[j].prevHash && inputs_all[i].prevIndex == inputs_all[j].prevIndex) {
+                    throw new IOException();
+                }
+            }
+        }
+        outputs = reader.readSerializableArray(TransactionOutput::new, TransactionOutput[]::new);
 	}
 	
 	protected void deserializeExclusiveData(BinaryReader reader) throws IOException {
@@ -141,24 +176,22 @@ public abstract class Transaction extends Inventory {
 	}
 	
 	public static Transaction deserializeFrom(byte[] value, int offset) throws IOException {
-		try (ByteArrayInputStream ms = new ByteArrayInputStream(value, offset, value.length - offset)) {
-			try (BinaryReader reader = new BinaryReader(ms)) {
-				return deserializeFrom(reader);
-			}
+		try (BinaryReader reader = new BinaryReader(value, offset, value.length - offset)) {
+			return deserializeFrom(reader);
 		}
 	}
 
 	public static Transaction deserializeFrom(BinaryReader reader) throws IOException {
-        try {
-            TransactionType type = TransactionType.valueOf(reader.readByte());
-            String typeName = "NEO.Core." + type.toString();
-            Transaction transaction = (Transaction)Class.forName(typeName).newInstance();
-            transaction.deserializeUnsignedWithoutType(reader);
-			transaction.scripts = reader.readSerializableArray(Program.class);
-			return transaction;
-		} catch (ClassNotFoundException | InstantiationException | IllegalAccessException ex) {
-			throw new IOException(ex);
-		}
+		long start = reader.position();
+        Supplier<? extends Transaction> factory = factories[Byte.toUnsignedInt(reader.readByte())];
+        if (factory == null) {
+        	throw new IOException();
+        }
+        Transaction transaction = factory.get();
+        transaction.deserializeUnsignedWithoutType(reader);
+        transaction.scripts = reader.readSerializableArray(Program::new, Program[]::new);
+        transaction.size = (int)(reader.position() - start);
+        return transaction;
 	}
 	
 	public Stream<TransactionInput> getAllInputs() {
@@ -169,6 +202,11 @@ public abstract class Transaction extends Inventory {
 		return Arrays.stream(outputs);
 	}
 	
+	@Override
+	public Program[] getScripts() {
+		return scripts;
+	}
+
 	/**
 	 * 获取验证脚本
 	 */
@@ -300,7 +338,7 @@ public abstract class Transaction extends Inventory {
 	 */
 	@Override
 	public boolean verify() {
-		return true;
+		return verifySignature();
 	}
 
 	public boolean verify(Transaction[] mempool) {
@@ -347,7 +385,6 @@ public abstract class Transaction extends Inventory {
 		}
 		if (Arrays.stream(attributes).filter(p -> p.usage == TransactionAttributeUsage.ECDH02 || p.usage == TransactionAttributeUsage.ECDH03).count() > 1)
 			return false;
-		//return this.VerifyScripts();
-		return true;
+		return verifySignature();
 	}
 }
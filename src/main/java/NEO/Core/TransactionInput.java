@@ -48,12 +48,9 @@ public class TransactionInput implements Serializable {
 	 */
     @Override
 	public void deserialize(BinaryReader reader) throws IOException {
-		try {
-			prevHash = reader.readSerializable(UInt256.class);
-			prevIndex = reader.readShort();
-//			prevIndex = (short) reader.readVarInt();
-		} catch (InstantiationException | IllegalAccessException e) {
-		}
+		prevHash = reader.readSerializable(UInt256::new);
+		prevIndex = reader.readShort();
+//		prevIndex = (short) reader.readVarInt();
 	}
 	@Override
 	public void serialize(BinaryWriter writer) throws IOException {
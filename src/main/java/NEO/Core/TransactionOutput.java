@@ -36,13 +36,9 @@ public class TransactionOutput implements Serializable {
 	
 	@Override
 	public void deserialize(BinaryReader reader) throws IOException {
-		try {
-			assetId = reader.readSerializable(UInt256.class);
-			value = reader.readSerializable(Fixed8.class);
-			scriptHash = reader.readSerializable(UInt160.class);
-		} catch (InstantiationException | IllegalAccessException e) {
-			throw new IOException();
-		}
+		assetId = reader.readSerializable(UInt256::new);
+		value = reader.readSerializable(Fixed8::new);
+		scriptHash = reader.readSerializable(UInt160::new);
 	}
 
     public JObject json(int index) {
@@ -1,65 +1,132 @@
 package NEO.Cryptography;
 
-import java.math.BigInteger;
+import java.util.Arrays;
 
+/**
+ *  base58编解码
+ *
+ *  大整数按32位一组存放在int[]中，每次除以(或乘以)58^5，一次处理5个字符，不使用BigInteger。
+ *  25字节的地址只需要7组、7轮运算。
+ */
 public class Base58 {
     /**
      *  base58编码的字母表
      */
     public static final String ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
-    private static final BigInteger BASE = BigInteger.valueOf(ALPHABET.length());
-    
+    private static final char[] DIGITS = ALPHABET.toCharArray();
+    private static final int[] INDEXES = new int[128];
+    private static final long MASK = 0xffffffffL;
+    /**
+     *  58^5 < 2^30，一组余数/乘数可以放进long中与一个32位分组运算而不溢出
+     */
+    private static final int CHUNK_DIGITS = 5;
+    private static final long CHUNK = 58L * 58 * 58 * 58 * 58;
+
+    static {
+        Arrays.fill(INDEXES, -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            INDEXES[DIGITS[i]] = i;
+        }
+    }
+
     /**
      *  解码
      *  @param input 要解码的字符串
      *  @return 返回解码后的字节数组
      */
     public static byte[] decode(String input) {
-        BigInteger bi = BigInteger.ZERO;
-        //for (int i = input.length() - 1; i >= 0; i--) {
-        //    int index = ALPHABET.indexOf(input.charAt(i));
-        //    if (index == -1) {
-        //        throw new IllegalArgumentException();
-        //    }
-        //    bi = bi.add(BASE.pow(input.length() - 1 - i).multiply(BigInteger.valueOf(index)));
-        //}
-        for (int i = 0; i < input.length(); i++) {
-            int index = ALPHABET.indexOf(input.charAt(i));
-            if (index == -1) {
-                throw new IllegalArgumentException();
+        int zeros = 0;
+        while (zeros < input.length() && input.charAt(zeros) == DIGITS[0]) {
+            zeros++;
+        }
+        int length = input.length() - zeros;
+        // 每个字符不超过6位
+        int[] limbs = new int[length * 6 / 32 + 1];
+        int i = zeros;
+        int n = length % CHUNK_DIGITS == 0 ? CHUNK_DIGITS : length % CHUNK_DIGITS;
+        while (i < input.length()) {
+            long value = 0;
+            long multiplier = 1;
+            for (int k = 0; k < n; k++) {
+                value = value * 58 + digit(input.charAt(i + k));
+                multiplier *= 58;
+            }
+            long carry = value;
+            for (int j = limbs.length - 1; j >= 0; j--) {
+                long product = (limbs[j] & MASK) * multiplier + carry;
+                limbs[j] = (int)product;
+                carry = product >>> 32;
             }
-            bi = bi.multiply(BASE).add(BigInteger.valueOf(index));
+            i += n;
+            n = CHUNK_DIGITS;
+        }
+        int start = 0;
+        while (start < limbs.length * 4 && byteAt(limbs, start) == 0) {
+            start++;
+        }
+        byte[] result = new byte[zeros + limbs.length * 4 - start];
+        for (int j = zeros; j < result.length; j++) {
+            result[j] = byteAt(limbs, start + j - zeros);
         }
-        byte[] bytes = bi.toByteArray();
-        boolean stripSignByte = bytes.length > 1 && bytes[0] == 0 && bytes[1] < 0;
-        int leadingZeros = 0;
-        for (; leadingZeros < input.length() && input.charAt(leadingZeros) == ALPHABET.charAt(0); leadingZeros++);
-        byte[] tmp = new byte[bytes.length - (stripSignByte ? 1 : 0) + leadingZeros];
-        System.arraycopy(bytes, stripSignByte ? 1 : 0, tmp, leadingZeros, tmp.length - leadingZeros);
-        return tmp;
+        return result;
     }
 
     /**
      *  编码
+     *
+     *  每个前导零字节编码为一个'1'。全零输入只输出这些'1'，空数组编码为空字符串，可以由decode还原；
+     *  基于BigInteger的旧版本对全零输入会多输出一个'1'(空数组为"1"，一个零字节为"11")。
      *  @param input 要编码的字节数组
      *  @return 返回编码后的字符串
      */
     public static String encode(byte[] input) {
-        BigInteger value = new BigInteger(1, input);
-        StringBuilder sb = new StringBuilder();
-        while (value.compareTo(BASE) >= 0) {
-        	BigInteger[] r = value.divideAndRemainder(BASE);
-            sb.insert(0, ALPHABET.charAt(r[1].intValue()));
-            value = r[0];
+        int zeros = 0;
+        while (zeros < input.length && input[zeros] == 0) {
+            zeros++;
         }
-        sb.insert(0, ALPHABET.charAt(value.intValue()));
-        for (byte b : input) {
-            if (b == 0) {
-                sb.insert(0, ALPHABET.charAt(0));
-            } else {
-                break;
+        int length = input.length - zeros;
+        int[] limbs = new int[(length + 3) / 4];
+        for (int i = 0; i < length; i++) {
+            int shift = (length - 1 - i) % 4 * 8;
+            limbs[limbs.length - 1 - (length - 1 - i) / 4] |= (input[zeros + i] & 0xff) << shift;
+        }
+        // log(256)/log(58) < 1.38，另外最后一组可能多出4个0
+        char[] output = new char[zeros + length * 138 / 100 + CHUNK_DIGITS + 1];
+        int position = output.length;
+        int start = 0;
+        while (start < limbs.length) {
+            long remainder = 0;
+            for (int j = start; j < limbs.length; j++) {
+                long current = (remainder << 32) | (limbs[j] & MASK);
+                limbs[j] = (int)(current / CHUNK);
+                remainder = current % CHUNK;
+            }
+            while (start < limbs.length && limbs[start] == 0) {
+                start++;
+            }
+            for (int k = 0; k < CHUNK_DIGITS; k++) {
+                output[--position] = DIGITS[(int)(remainder % 58)];
+                remainder /= 58;
             }
         }
-        return sb.toString();
+        while (position < output.length && output[position] == DIGITS[0]) {
+            position++;
+        }
+        for (int i = 0; i < zeros; i++) {
+            output[--position] = DIGITS[0];
+        }
+        return new String(output, position, output.length - position);
+    }
+
+    private static int digit(char c) {
+        int index = c < 128 ? INDEXES[c] : -1;
+        if (index == -1) {
+            throw new IllegalArgumentException();
+        }
+        return index;
+    }
+
+    private static byte byteAt(int[] limbs, int index) {
+        return (byte)(limbs[index / 4] >>> ((3 - index % 4) * 8));
     }
 }
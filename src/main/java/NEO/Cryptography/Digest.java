@@ -1,46 +1,122 @@
 package NEO.Cryptography;
 
+import java.nio.ByteBuffer;
 import java.security.*;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
+/**
+ *  摘要算法，每个线程缓存自己的MessageDigest实例，避免每次调用都查找Provider。
+ *  offset/length和ByteBuffer重载直接对原数据计算摘要，不拷贝。
+ */
 public class Digest {
 	static {
 		Security.addProvider(new BouncyCastleProvider());
 	}
-	
+
+	private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> getInstance("SHA-256"));
+	private static final ThreadLocal<MessageDigest> RIPEMD160 = ThreadLocal.withInitial(() -> getInstance("RipeMD160"));
+	// hash256/hash160第一轮SHA256的输出缓冲区，避免中间结果分配
+	private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[32]);
+
 	public static byte[] hash160(byte[] value) {
-		return ripemd160(sha256(value));
+		return hash160(value, 0, value.length);
 	}
-	
+
+	public static byte[] hash160(byte[] value, int offset, int length) {
+		MessageDigest sha256 = SHA256.get();
+		sha256.update(value, offset, length);
+		return ripemd160Of(sha256);
+	}
+
+	public static byte[] hash160(ByteBuffer value) {
+		MessageDigest sha256 = SHA256.get();
+		sha256.update(value.duplicate());
+		return ripemd160Of(sha256);
+	}
+
 	public static byte[] hash256(byte[] value) {
-		return sha256(sha256(value));
+		return hash256(value, 0, value.length);
+	}
+
+	public static byte[] hash256(byte[] value, int offset, int length) {
+		MessageDigest sha256 = SHA256.get();
+		sha256.update(value, offset, length);
+		return sha256Of(sha256);
 	}
-	
+
+	public static byte[] hash256(ByteBuffer value) {
+		MessageDigest sha256 = SHA256.get();
+		sha256.update(value.duplicate());
+		return sha256Of(sha256);
+	}
+
 	public static byte[] ripemd160(byte[] value) {
+		return RIPEMD160.get().digest(value);
+	}
+
+	public static byte[] sha256(byte[] value) {
+		return SHA256.get().digest(value);
+	}
+
+	public static byte[] sha256(byte[] value, int offset, int length) {
+		MessageDigest md = SHA256.get();
+		md.update(value, offset, length);
+		return md.digest();
+	}
+
+	/**
+	 *  计算缓冲区position到limit之间数据的摘要，不改变缓冲区的position
+	 */
+	public static byte[] sha256(ByteBuffer value) {
+		MessageDigest md = SHA256.get();
+		md.update(value.duplicate());
+		return md.digest();
+	}
+
+	/**
+	 *  计算data[left, left+32)与data[right, right+32)拼接后的hash256，结果写入output[outputOffset, outputOffset+32)。
+	 *  输入读取完毕后才写出结果，因此output可以与输入重叠。
+	 */
+	static void hash256Pair(byte[] data, int left, int right, byte[] output, int outputOffset) {
+		MessageDigest sha256 = SHA256.get();
+		byte[] scratch = SCRATCH.get();
+		sha256.update(data, left, 32);
+		sha256.update(data, right, 32);
+		finish(sha256, scratch);
+		sha256.update(scratch);
 		try {
-			MessageDigest md = MessageDigest.getInstance("RipeMD160");
-			return md.digest(value);
-		} catch (NoSuchAlgorithmException ex) {
+			sha256.digest(output, outputOffset, 32);
+		} catch (DigestException ex) {
 			throw new RuntimeException(ex);
 		}
 	}
-	
-	public static byte[] sha256(byte[] value) {
+
+	private static byte[] sha256Of(MessageDigest sha256) {
+		byte[] scratch = SCRATCH.get();
+		finish(sha256, scratch);
+		return sha256.digest(scratch);
+	}
+
+	private static byte[] ripemd160Of(MessageDigest sha256) {
+		byte[] scratch = SCRATCH.get();
+		finish(sha256, scratch);
+		return RIPEMD160.get().digest(scratch);
+	}
+
+	private static void finish(MessageDigest md, byte[] output) {
 		try {
-			MessageDigest md = MessageDigest.getInstance("SHA-256");
-			return md.digest(value);
-		} catch (NoSuchAlgorithmException ex) {
+			md.digest(output, 0, output.length);
+		} catch (DigestException ex) {
 			throw new RuntimeException(ex);
 		}
 	}
-	
-	public static byte[] sha256(byte[] value, int offset, int length) {
-		if (offset != 0 || length != value.length) {
-			byte[] array = new byte[length];
-			System.arraycopy(value, offset, array, 0, length);
-			value = array;
+
+	private static MessageDigest getInstance(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new RuntimeException(ex);
 		}
-		return sha256(value);
 	}
 }
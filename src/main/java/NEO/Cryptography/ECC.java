@@ -2,28 +2,37 @@ package NEO.Cryptography;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.*;
-import java.util.IllformedLocaleException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import NEO.IO.BinaryReader;
 import org.apache.commons.lang3.ArrayUtils;
 import org.bouncycastle.asn1.x9.*;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
 import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECFieldElement;
 import org.bouncycastle.math.ec.ECPoint;
 
 import NEO.Helper;
-import org.bouncycastle.math.ec.custom.sec.SecP256K1FieldElement;
 import org.bouncycastle.math.ec.custom.sec.SecP256R1Curve;
-import org.bouncycastle.math.ec.custom.sec.SecP256R1FieldElement;
 import org.bouncycastle.math.ec.custom.sec.SecP256R1Point;
 
 public class ECC {
-	private static final X9ECParameters secp256r1nc = ECNamedCurveTable.getByName("secp256r1");
+	// 使用BouncyCastle针对secp256r1优化的曲线实现，域运算(包括解压公钥时的开平方)不经过BigInteger
+	private static final X9ECParameters secp256r1nc = CustomNamedCurves.getByName("secp256r1");
 	public static final ECDomainParameters secp256r1 = new ECDomainParameters(secp256r1nc.getCurve(), secp256r1nc.getG(), secp256r1nc.getN(), secp256r1nc.getH(), secp256r1nc.getSeed());
 
-	public static final ECCurve secp256R1 = new SecP256R1Curve();
+	public static final ECCurve secp256R1 = secp256r1.getCurve();
+
+	private static final int MAX_CACHED_POINTS = 4096;
+	/**
+	 *  压缩格式公钥到已解码点的缓存，发行人、记账人等公钥在区块中反复出现，只解压一次
+	 */
+	private static final Map<ByteBuffer, ECPoint> points = new ConcurrentHashMap<ByteBuffer, ECPoint>();
 
 	public static int compare(ECPoint a, ECPoint b) {
 		if (a == b) {
@@ -70,64 +79,40 @@ public class ECC {
 		return data;
 	}
 
-	private static ECPoint decompressPoint(int yTilde, BigInteger X1, SecP256R1Curve curve) throws IllformedLocaleException {
-		SecP256R1FieldElement x = new SecP256R1FieldElement(X1);
-		ECFieldElement alpha = x.multiply(x.square().add(curve.getA())).add(curve.getB());
-		ECFieldElement beta = alpha.sqrt();
-
-		if (beta == null)
-			throw new IllegalArgumentException();
-
-		BigInteger betaValue = beta.toBigInteger();
-		int bit0 = betaValue.mod(BigInteger.valueOf(2)).intValue() == 0 ? 0 : 1;
-
-		if (bit0 != yTilde) {
-			beta = new SecP256R1FieldElement(curve.getQ().subtract(betaValue));
+	/**
+	 *  解码secp256r1曲线上的点。压缩格式的结果会被缓存并共享，
+	 *  返回的点记住了自己的压缩编码，getEncoded(true)只需拷贝字节
+	 *  <param name="encoded">编码后的点</param>
+	 */
+	public static ECPoint decodePoint(byte[] encoded) {
+		if (encoded.length != 33 || (encoded[0] != 0x02 && encoded[0] != 0x03)) {
+			return secp256R1.decodePoint(encoded);
 		}
-
-		return new SecP256R1Point(curve, x, beta);
+		ECPoint point = points.get(ByteBuffer.wrap(encoded));
+		if (point == null) {
+			ECPoint decoded = secp256R1.decodePoint(encoded);
+			point = new EncodedPoint(secp256R1, decoded.getAffineXCoord(), decoded.getAffineYCoord(), encoded.clone());
+			if (points.size() >= MAX_CACHED_POINTS) {
+				// 随意淘汰一项，常用的公钥很快会被重新加入
+				Iterator<ByteBuffer> iterator = points.keySet().iterator();
+				if (iterator.hasNext()) {
+					points.remove(iterator.next());
+				}
+			}
+			ECPoint existing = points.putIfAbsent(ByteBuffer.wrap(((EncodedPoint)point).encoded), point);
+			if (existing != null) {
+				point = existing;
+			}
+		}
+		return point;
 	}
 
 	public static ECPoint decodePoint(byte[] encoded, SecP256R1Curve curve) throws IOException {
-		ECPoint p = null;
-		int expectedLength = (curve.getQ().bitLength() + 7) / 8;
-		switch (encoded[0]) {
-			case 0x00:
-				if (encoded.length != 1)
-					throw new IOException();
-				p = curve.getInfinity();
-				break;
-			case 0x02:
-			case 0x03:
-				if (encoded.length != (expectedLength + 1))
-					throw new IOException();
-				int yTilde = encoded[0] & 1;
-				byte[] temp1 = new byte[encoded.length];
-				System.arraycopy(encoded, 1, temp1, 1, encoded.length - 1);
-				ArrayUtils.reverse(temp1);
-				BigInteger X1 = new BigInteger(temp1);
-				p = decompressPoint(yTilde, X1, curve);
-				break;
-			case 0x04:
-			case 0x06:
-			case 0x07:
-				if (encoded.length != (2 * expectedLength + 1))
-					throw new IOException();
-				byte[] temp2 = new byte[expectedLength + 1];
-				System.arraycopy(encoded, 1, temp2, 1, expectedLength);
-				ArrayUtils.reverse(temp2);
-				BigInteger X2 = new BigInteger(temp2);
-
-				temp2 = new byte[encoded.length - expectedLength];
-				System.arraycopy(encoded, expectedLength + 1, temp2, 1, encoded.length - expectedLength - 1);
-				BigInteger Y2 = new BigInteger(temp2);
-
-				p = new SecP256R1Point(curve, new SecP256K1FieldElement(X2), new SecP256K1FieldElement(Y2), true);
-				break;
-			default:
-				throw new IOException();
+		try {
+			return curve.equals(secp256R1) ? decodePoint(encoded) : curve.decodePoint(encoded);
+		} catch (IllegalArgumentException ex) {
+			throw new IOException(ex);
 		}
-		return p;
 	}
 
 	public static ECPoint deserializeFrom(BinaryReader reader, SecP256R1Curve curve) throws IOException {
@@ -158,4 +143,22 @@ public class ECC {
 		return Helper.toHexString(p.getEncoded(true));
 	}
 
+	/**
+	 *  保存了压缩编码的点，运算结果仍是普通的SecP256R1Point
+	 */
+	private static final class EncodedPoint extends SecP256R1Point {
+		private final byte[] encoded;
+
+		@SuppressWarnings("deprecation")
+		EncodedPoint(ECCurve curve, ECFieldElement x, ECFieldElement y, byte[] encoded) {
+			super(curve, x, y, true);
+			this.encoded = encoded;
+		}
+
+		@Override
+		public byte[] getEncoded(boolean compressed) {
+			return compressed ? encoded.clone() : super.getEncoded(false);
+		}
+	}
+
 }
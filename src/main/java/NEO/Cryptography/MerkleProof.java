@@ -0,0 +1,35 @@
+package NEO.Cryptography;
+
+import NEO.UInt256;
+
+/**
+ *  哈希树包含证明，轻客户端只需区块头中的merkleRoot即可验证某笔交易是否包含在区块中
+ */
+public class MerkleProof {
+    /**
+     *  被证明的叶子节点
+     */
+    public final UInt256 hash;
+    /**
+     *  叶子节点在树中的位置，决定每一层与兄弟节点拼接的左右顺序
+     */
+    public final int index;
+    /**
+     *  从叶子层到根节点下一层的兄弟节点
+     */
+    public final UInt256[] path;
+
+    public MerkleProof(UInt256 hash, int index, UInt256[] path) {
+        this.hash = hash;
+        this.index = index;
+        this.path = path;
+    }
+
+    /**
+     *  验证该证明是否与给定的根节点一致
+     *  <param name="root">区块头中的merkleRoot</param>
+     */
+    public boolean verify(UInt256 root) {
+        return MerkleTree.verify(root, hash, index, path);
+    }
+}
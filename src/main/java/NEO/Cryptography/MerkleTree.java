@@ -1,13 +1,98 @@
 package NEO.Cryptography;
 
 import java.util.Arrays;
+import java.util.stream.IntStream;
 
 import NEO.UInt256;
 
 /**
  *  哈希树
+ *
+ *  所有节点按层存放在连续的byte[n*32]中，逐层迭代计算，节点数为奇数时最后一个节点与自身配对。
+ *  构造实例时保留每一层的节点，可以为任意叶子节点生成包含证明。
  */
 public class MerkleTree {
+    /**
+     *  一层中需要计算的节点对数达到此值时并行计算
+     */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    private final byte[][] levels;
+
+    /**
+     *  构造完整的哈希树
+     *  <param name="hashes">叶子节点列表</param>
+     */
+    public MerkleTree(UInt256[] hashes) {
+        if (hashes.length == 0) {
+            throw new IllegalArgumentException();
+        }
+        int depth = 1;
+        for (int count = hashes.length; count > 1; count = (count + 1) / 2) {
+            depth++;
+        }
+        levels = new byte[depth][];
+        levels[0] = flatten(hashes);
+        for (int i = 1; i < depth; i++) {
+            int count = levels[i - 1].length / 32;
+            levels[i] = new byte[(count + 1) / 2 * 32];
+            computeLevel(levels[i - 1], count, levels[i], (count + 1) / 2 >= PARALLEL_THRESHOLD);
+        }
+    }
+
+    /**
+     *  叶子节点数量
+     */
+    public int size() {
+        return levels[0].length / 32;
+    }
+
+    /**
+     *  树的层数，包含叶子层和根节点
+     */
+    public int depth() {
+        return levels.length;
+    }
+
+    public UInt256 root() {
+        return new UInt256(Arrays.copyOf(levels[levels.length - 1], 32));
+    }
+
+    /**
+     *  为指定的叶子节点生成包含证明
+     *  <param name="hash">叶子节点，通常为交易Hash</param>
+     *  <returns>返回包含证明，如果树中不存在该节点则返回null</returns>
+     */
+    public MerkleProof getProof(UInt256 hash) {
+        byte[] leaves = levels[0];
+        byte[] value = hash.toArray();
+        for (int i = 0; i < leaves.length / 32; i++) {
+            if (equals(leaves, i * 32, value)) {
+                return getProof(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     *  为指定位置的叶子节点生成包含证明
+     *  <param name="index">叶子节点的位置</param>
+     */
+    public MerkleProof getProof(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        UInt256[] path = new UInt256[levels.length - 1];
+        int position = index;
+        for (int i = 0; i < path.length; i++) {
+            int last = levels[i].length / 32 - 1;
+            int sibling = Math.min(position ^ 1, last);
+            path[i] = new UInt256(Arrays.copyOfRange(levels[i], sibling * 32, sibling * 32 + 32));
+            position >>= 1;
+        }
+        return new MerkleProof(new UInt256(Arrays.copyOfRange(levels[0], index * 32, index * 32 + 32)), index, path);
+    }
+
     /**
      *  计算根节点的值
      *  <param name="hashes">子节点列表</param>
@@ -20,29 +105,75 @@ public class MerkleTree {
         if (hashes.length == 1) {
             return hashes[0];
         }
-        return new UInt256(computeRoot(Arrays.stream(hashes).map(p -> p.toArray()).toArray(byte[][]::new)));
+        byte[] buffer = flatten(hashes);
+        byte[] spare = null;
+        int count = hashes.length;
+        while (count > 1) {
+            int pairs = (count + 1) / 2;
+            if (pairs >= PARALLEL_THRESHOLD) {
+                // 并行计算时不能原地覆盖尚未读取的节点，在两块缓冲区之间交替
+                if (spare == null) {
+                    spare = new byte[pairs * 32];
+                }
+                computeLevel(buffer, count, spare, true);
+                byte[] temp = buffer;
+                buffer = spare;
+                spare = temp;
+            } else {
+                computeLevel(buffer, count, buffer, false);
+            }
+            count = pairs;
+        }
+        return new UInt256(Arrays.copyOf(buffer, 32));
     }
 
-    private static byte[] computeRoot(byte[][] hashes) {
-        if (hashes.length == 0) {
-            throw new IllegalArgumentException(); 
+    static boolean verify(UInt256 root, UInt256 hash, int index, UInt256[] path) {
+        byte[] buffer = new byte[64];
+        System.arraycopy(hash.toArray(), 0, buffer, 0, 32);
+        int position = index;
+        for (UInt256 sibling : path) {
+            System.arraycopy(sibling.toArray(), 0, buffer, 32, 32);
+            if ((position & 1) == 0) {
+                Digest.hash256Pair(buffer, 0, 32, buffer, 0);
+            } else {
+                Digest.hash256Pair(buffer, 32, 0, buffer, 0);
+            }
+            position >>= 1;
         }
-        if (hashes.length == 1) {
-            return hashes[0];
+        return position == 0 && equals(buffer, 0, root.toArray());
+    }
+
+    private static void computeLevel(byte[] source, int count, byte[] target, boolean parallel) {
+        int pairs = (count + 1) / 2;
+        if (parallel) {
+            IntStream.range(0, pairs).parallel().forEach(i -> hashPair(source, count, target, i));
+        } else {
+            for (int i = 0; i < pairs; i++) {
+                hashPair(source, count, target, i);
+            }
         }
-        if (hashes.length % 2 == 1) {
-        	byte[][] temp = new byte[hashes.length + 1][];
-        	System.arraycopy(hashes, 0, temp, 0, hashes.length);
-        	temp[temp.length - 1] = hashes[hashes.length - 1];
-        	hashes = temp;
+    }
+
+    private static void hashPair(byte[] source, int count, byte[] target, int i) {
+        int left = i * 2;
+        int right = Math.min(left + 1, count - 1);
+        Digest.hash256Pair(source, left * 32, right * 32, target, i * 32);
+    }
+
+    private static byte[] flatten(UInt256[] hashes) {
+        byte[] buffer = new byte[hashes.length * 32];
+        for (int i = 0; i < hashes.length; i++) {
+            System.arraycopy(hashes[i].toArray(), 0, buffer, i * 32, 32);
         }
-        byte[][] hashes_new = new byte[hashes.length / 2][];
-        for (int i = 0; i < hashes_new.length; i++) {
-        	byte[] buffer = new byte[hashes[i * 2].length + hashes[i * 2 + 1].length];
-        	System.arraycopy(hashes[i * 2], 0, buffer, 0, hashes[i * 2].length);
-        	System.arraycopy(hashes[i * 2 + 1], 0, buffer, hashes[i * 2].length, hashes[i * 2 + 1].length);
-            hashes_new[i] = Digest.hash256(buffer);
+        return buffer;
+    }
+
+    private static boolean equals(byte[] buffer, int offset, byte[] value) {
+        for (int i = 0; i < 32; i++) {
+            if (buffer[offset + i] != value[i]) {
+                return false;
+            }
         }
-        return computeRoot(hashes_new);
+        return true;
     }
 }
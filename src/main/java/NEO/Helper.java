@@ -2,6 +2,7 @@ package NEO;
 
 import NEO.Core.Scripts.Program;
 
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
@@ -11,6 +12,23 @@ import java.util.Date;
  * 
  */
 public class Helper {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    /**
+     *  ASCII字符到半字节值的查找表，非十六进制字符为-1
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
     /**
      * 以十进制格式显示byte 数组，中间以空格分隔。
      * @param bs
@@ -33,6 +51,10 @@ public class Helper {
     }
     
     public static byte[] hexToBytes(String value) {
+        return hexToBytes((CharSequence) value);
+    }
+
+    public static byte[] hexToBytes(CharSequence value) {
         if (value == null || value.length() == 0) {
             return new byte[0];
         }
@@ -41,23 +63,92 @@ public class Helper {
         }
         byte[] result = new byte[value.length() / 2];
         for (int i = 0; i < result.length; i++) {
-            result[i] = (byte) Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16);
+            result[i] = (byte) (hexValue(value.charAt(i * 2)) << 4 | hexValue(value.charAt(i * 2 + 1)));
         }
         return result;
     }
-    
+
+    /**
+     *  将十六进制字符串解码为逆序的字节数组，用于解析以大端显示的UInt256/UInt160
+     */
+    public static byte[] hexToBytesReversed(CharSequence value) {
+        if (value.length() % 2 == 1) {
+            throw new IllegalArgumentException();
+        }
+        byte[] result = new byte[value.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            result[result.length - 1 - i] = (byte) (hexValue(value.charAt(i * 2)) << 4 | hexValue(value.charAt(i * 2 + 1)));
+        }
+        return result;
+    }
+
+    /**
+     *  将十六进制字符解码后直接写入缓冲区
+     *  <param name="value">十六进制字符</param>
+     *  <param name="target">写入的缓冲区，从其当前position开始写</param>
+     */
+    public static void hexToBuffer(CharSequence value, ByteBuffer target) {
+        if (value.length() % 2 == 1) {
+            throw new IllegalArgumentException();
+        }
+        for (int i = 0; i < value.length(); i += 2) {
+            target.put((byte) (hexValue(value.charAt(i)) << 4 | hexValue(value.charAt(i + 1))));
+        }
+    }
+
+    /**
+     *  将ASCII编码的十六进制数据(例如HTTP响应中的原始字节)解码后直接写入缓冲区
+     *  <param name="value">ASCII编码的十六进制数据</param>
+     *  <param name="offset">起始位置</param>
+     *  <param name="length">字符数，必须为偶数</param>
+     *  <param name="target">写入的缓冲区，从其当前position开始写</param>
+     */
+    public static void hexToBuffer(byte[] value, int offset, int length, ByteBuffer target) {
+        if (length % 2 == 1) {
+            throw new IllegalArgumentException();
+        }
+        for (int i = offset; i < offset + length; i += 2) {
+            target.put((byte) (hexValue((char) value[i]) << 4 | hexValue((char) value[i + 1])));
+        }
+    }
+
     public static String toHexString(byte[] value) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : value) {
-            int v = Byte.toUnsignedInt(b);
-            sb.append(Integer.toHexString(v >>> 4));
-            sb.append(Integer.toHexString(v & 0x0f));
+        return toHexString(value, 0, value.length);
+    }
+
+    public static String toHexString(byte[] value, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int v = value[offset + i] & 0xff;
+            chars[i * 2] = HEX_DIGITS[v >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[v & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     *  按逆序输出十六进制字符串，用于以大端显示UInt256/UInt160，不需要先拷贝出逆序数组
+     */
+    public static String toReversedHexString(byte[] value) {
+        char[] chars = new char[value.length * 2];
+        for (int i = 0; i < value.length; i++) {
+            int v = value[value.length - 1 - i] & 0xff;
+            chars[i * 2] = HEX_DIGITS[v >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[v & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    private static int hexValue(char c) {
+        int v = c < 128 ? HEX_VALUES[c] : -1;
+        if (v < 0) {
+            throw new IllegalArgumentException();
         }
-        return sb.toString();
+        return v;
     }
 
     public static String reverse(String value) {
-    	return toHexString(reverse(hexToBytes(value)));
+    	return toReversedHexString(hexToBytes(value));
     }
 
     public static byte[] removePrevZero(byte[] bt) {
@@ -3,64 +3,131 @@ package NEO.IO;
 import java.io.*;
 import java.lang.reflect.Array;
 import java.nio.*;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 import org.bouncycastle.math.ec.ECPoint;
 
 import NEO.Cryptography.ECC;
 
+/**
+ * Little-endian reader over either an InputStream or a ByteBuffer. The ByteBuffer
+ * mode (heap, direct or MappedByteBuffer) decodes straight from the source buffer.
+ */
 public class BinaryReader implements AutoCloseable {
 	private DataInputStream reader;
+	private CountingInputStream counter;
+	private ByteBuffer source;
 	private byte[] array = new byte[8];
 	private ByteBuffer buffer = ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
 	
 	public BinaryReader(InputStream stream) {
-		this.reader = new DataInputStream(stream);
+		this.counter = new CountingInputStream(stream);
+		this.reader = new DataInputStream(counter);
+	}
+
+	/**
+	 *  从缓冲区的当前位置开始读取，不会改变传入缓冲区本身的position
+	 *  <param name="source">数据来源</param>
+	 */
+	public BinaryReader(ByteBuffer source) {
+		this.source = source.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	public BinaryReader(byte[] value, int offset, int length) {
+		this(ByteBuffer.wrap(value, offset, length));
 	}
 
 	@Override
 	public void close() throws IOException {
-		reader.close();
+		if (reader != null) {
+			reader.close();
+		}
 	}
 	
 	public void mark(int readlimit) {
-		reader.mark(readlimit);
+		if (source != null) {
+			source.mark();
+		} else {
+			reader.mark(readlimit);
+		}
 	}
 	
 	public void reset() throws IOException {
-		reader.reset();
+		if (source != null) {
+			try {
+				source.reset();
+			} catch (InvalidMarkException ex) {
+				throw new IOException(ex);
+			}
+		} else {
+			reader.reset();
+		}
+	}
+
+	/**
+	 *  已经读取的字节数(ByteBuffer模式下为相对于起始位置的偏移)
+	 */
+	public long position() {
+		if (source == null) {
+			return counter.count;
+		}
+		return source.position();
+	}
+
+	public void skip(int count) throws IOException {
+		if (source != null) {
+			require(count);
+			source.position(source.position() + count);
+		} else {
+			reader.skipBytes(count);
+		}
 	}
 	
 
 	public void read(byte[] buffer) throws IOException {
-		reader.readFully(buffer);
+		read(buffer, 0, buffer.length);
 	}
 	
 	public void read(byte[] buffer, int index, int length) throws IOException {
-		reader.readFully(buffer, index, length);
+		if (source != null) {
+			require(length);
+			source.get(buffer, index, length);
+		} else {
+			reader.readFully(buffer, index, length);
+		}
 	}
 	
 	public boolean readBoolean() throws IOException {
-		return reader.readBoolean();
+		return readByte() != 0;
 	}
 	
 	public byte readByte() throws IOException {
+		if (source != null) {
+			require(1);
+			return source.get();
+		}
 		return reader.readByte();
 	}
 	
 	public byte[] readBytes(int count) throws IOException {
 		byte[] buffer = new byte[count];
-		reader.readFully(buffer);
+		read(buffer);
 		return buffer;
 	}
 	
 	public double readDouble() throws IOException {
+		if (source != null) {
+			require(8);
+			return source.getDouble();
+		}
 		reader.readFully(array, 0, 8);
 		return buffer.getDouble(0);
 	}
 	
 	public ECPoint readECPoint() throws IOException {
 		byte[] encoded;
-		byte fb = reader.readByte();
+		byte fb = readByte();
 		switch (fb)
 		{
 		case 0x00:
@@ -70,17 +137,17 @@ public class BinaryReader implements AutoCloseable {
 		case 0x03:
 			encoded = new byte[33];
 			encoded[0] = fb;
-			reader.readFully(encoded, 1, 32);
+			read(encoded, 1, 32);
 			break;
 		case 0x04:
 			encoded = new byte[65];
 			encoded[0] = fb;
-			reader.readFully(encoded, 1, 64);
+			read(encoded, 1, 64);
 			break;
 		default:
 			throw new IOException();
 		}
-		return ECC.secp256r1.getCurve().decodePoint(encoded);
+		return ECC.decodePoint(encoded);
 	}
 	
 	public String readFixedString(int length) throws IOException {
@@ -91,22 +158,40 @@ public class BinaryReader implements AutoCloseable {
 	}
 	
 	public float readFloat() throws IOException {
+		if (source != null) {
+			require(4);
+			return source.getFloat();
+		}
 		reader.readFully(array, 0, 4);
 		return buffer.getFloat(0);
 	}
 	
 	public int readInt() throws IOException {
+		if (source != null) {
+			require(4);
+			return source.getInt();
+		}
 		reader.readFully(array, 0, 4);
 		return buffer.getInt(0);
 	}
 	
 	public long readLong() throws IOException {
+		if (source != null) {
+			require(8);
+			return source.getLong();
+		}
 		reader.readFully(array, 0, 8);
 		return buffer.getLong(0);
 	}
 	
 	public <T extends Serializable> T readSerializable(Class<T> t) throws InstantiationException, IllegalAccessException, IOException {
-		T obj = t.newInstance();
+		T obj = SerializableFactory.of(t).newInstance();
+		obj.deserialize(this);
+		return obj;
+	}
+	
+	public <T extends Serializable> T readSerializable(Supplier<T> factory) throws IOException {
+		T obj = factory.get();
 		obj.deserialize(this);
 		return obj;
 	}
@@ -116,15 +201,33 @@ public class BinaryReader implements AutoCloseable {
 	}
 	
 	public <T extends Serializable> T[] readSerializableArray(Class<T> t, int max) throws InstantiationException, IllegalAccessException, IOException {
+		SerializableFactory<T> factory = SerializableFactory.of(t);
 		T[] array = (T[])Array.newInstance(t, (int)readVarInt(max));
 		for (int i = 0; i < array.length; i++) {
-			array[i] = t.newInstance();
+			array[i] = factory.newInstance();
+			array[i].deserialize(this);
+		}
+		return array;
+	}
+	
+	public <T extends Serializable> T[] readSerializableArray(Supplier<T> factory, IntFunction<T[]> generator) throws IOException {
+		return readSerializableArray(factory, generator, 0x10000000);
+	}
+	
+	public <T extends Serializable> T[] readSerializableArray(Supplier<T> factory, IntFunction<T[]> generator, int max) throws IOException {
+		T[] array = generator.apply((int)readVarInt(max));
+		for (int i = 0; i < array.length; i++) {
+			array[i] = factory.get();
 			array[i].deserialize(this);
 		}
 		return array;
 	}
 	
 	public short readShort() throws IOException {
+		if (source != null) {
+			require(2);
+			return source.getShort();
+		}
 		reader.readFully(array, 0, 2);
 		return buffer.getShort(0);
 	}
@@ -162,4 +265,59 @@ public class BinaryReader implements AutoCloseable {
 	public String readVarString() throws IOException {
 		return new String(readVarBytes(), "UTF-8");
 	}
+	
+	private void require(int count) throws EOFException {
+		if (count < 0 || source.remaining() < count) {
+			throw new EOFException();
+		}
+	}
+
+	/**
+	 *  记录读取的字节数，reset时恢复到mark时的值
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		long count = 0;
+		private long marked = 0;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+			in.mark(readlimit);
+			marked = count;
+		}
+
+		@Override
+		public synchronized void reset() throws IOException {
+			in.reset();
+			count = marked;
+		}
+	}
 }
@@ -2,50 +2,133 @@ package NEO.IO;
 
 import java.io.*;
 import java.nio.*;
+import java.util.Arrays;
 
 import org.bouncycastle.math.ec.ECPoint;
 
+/**
+ * Little-endian writer over either an OutputStream, or a growable in-memory buffer
+ * that serializes directly into a byte array. In-memory writers obtained from
+ * {@link #acquire()} are reused per thread.
+ */
 public class BinaryWriter implements AutoCloseable {
+	private static final int INITIAL_CAPACITY = 256;
+	private static final int MAX_POOLED_CAPACITY = 1 << 20;
+	private static final ThreadLocal<BinaryWriter> pool = ThreadLocal.withInitial(BinaryWriter::new);
+
 	private DataOutputStream writer;
 	private byte[] array = new byte[8];
 	private ByteBuffer buffer = ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
+	private byte[] bytes;
+	private int count;
+	private boolean acquired;
 	
 	public BinaryWriter(OutputStream stream) {
 		this.writer = new DataOutputStream(stream);
 	}
 	
+	/**
+	 *  写入可自动扩容的内存缓冲区，通过toArray()取得结果
+	 */
+	public BinaryWriter() {
+		this.bytes = new byte[INITIAL_CAPACITY];
+	}
+	
+	/**
+	 *  获取当前线程可复用的内存写入器，使用完毕后close()归还。
+	 *  如果当前线程的写入器正在使用中(嵌套序列化)，返回一个新的写入器。
+	 */
+	public static BinaryWriter acquire() {
+		BinaryWriter w = pool.get();
+		if (w.acquired) {
+			return new BinaryWriter();
+		}
+		w.acquired = true;
+		w.count = 0;
+		return w;
+	}
+	
 	@Override
 	public void close() throws IOException {
-		writer.close();
+		if (writer != null) {
+			writer.close();
+		} else if (acquired) {
+			acquired = false;
+			if (bytes.length > MAX_POOLED_CAPACITY) {
+				bytes = new byte[INITIAL_CAPACITY];
+			}
+		}
 	}
 	
 	public void flush() throws IOException {
-		writer.flush();
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+	
+	/**
+	 *  已写入的字节数，仅内存模式可用
+	 */
+	public int size() {
+		if (writer != null) {
+			throw new UnsupportedOperationException();
+		}
+		return count;
+	}
+	
+	/**
+	 *  返回已写入数据的拷贝，仅内存模式可用
+	 */
+	public byte[] toArray() {
+		if (writer != null) {
+			throw new UnsupportedOperationException();
+		}
+		return Arrays.copyOf(bytes, count);
+	}
+	
+	/**
+	 *  返回已写入数据的只读视图(不拷贝)，在下一次写入或close()之前有效，仅内存模式可用
+	 */
+	public ByteBuffer toByteBuffer() {
+		if (writer != null) {
+			throw new UnsupportedOperationException();
+		}
+		return ByteBuffer.wrap(bytes, 0, count).asReadOnlyBuffer();
 	}
 	
 	public void write(byte[] buffer) throws IOException {
-		writer.write(buffer);
+		write(buffer, 0, buffer.length);
 	}
 
 	public void write(byte[] buffer, int index, int length) throws IOException {
-		writer.write(buffer, index, length);
+		if (writer != null) {
+			writer.write(buffer, index, length);
+			return;
+		}
+		ensure(length);
+		System.arraycopy(buffer, index, bytes, count, length);
+		count += length;
 	}
 	
 	public void writeBoolean(boolean v) throws IOException {
-		writer.writeBoolean(v);
+		writeByte(v ? (byte)1 : (byte)0);
 	}
 	
 	public void writeByte(byte v) throws IOException {
-		writer.writeByte(v);
+		if (writer != null) {
+			writer.writeByte(v);
+			return;
+		}
+		ensure(1);
+		bytes[count++] = v;
 	}
 	
 	public void writeDouble(double v) throws IOException {
-		buffer.putDouble(0, v);
-		writer.write(array, 0, 8);
+		writeLong(Double.doubleToRawLongBits(v));
 	}
 	
 	public void writeECPoint(ECPoint v) throws IOException {
-		writer.write(v.getEncoded(true));
+		write(v.getEncoded(true));
 	}
 	
 	public void writeFixedString(String v, int length) throws IOException {
@@ -59,25 +142,39 @@ public class BinaryWriter implements AutoCloseable {
 		if (bytes.length > length) {
 			throw new IllegalArgumentException();
 		}
-		writer.write(bytes);
+		write(bytes);
 		if (bytes.length < length) {
-			writer.write(new byte[length - bytes.length]);
+			write(new byte[length - bytes.length]);
 		}
 	}
 	
 	public void writeFloat(float v) throws IOException {
-		buffer.putFloat(0, v);
-		writer.write(array, 0, 4);
+		writeInt(Float.floatToRawIntBits(v));
 	}
 	
 	public void writeInt(int v) throws IOException {
-		buffer.putInt(0, v);
-		writer.write(array, 0, 4);
+		if (writer != null) {
+			buffer.putInt(0, v);
+			writer.write(array, 0, 4);
+			return;
+		}
+		ensure(4);
+		bytes[count++] = (byte)v;
+		bytes[count++] = (byte)(v >>> 8);
+		bytes[count++] = (byte)(v >>> 16);
+		bytes[count++] = (byte)(v >>> 24);
 	}
 	
 	public void writeLong(long v) throws IOException {
-		buffer.putLong(0, v);
-		writer.write(array, 0, 8);
+		if (writer != null) {
+			buffer.putLong(0, v);
+			writer.write(array, 0, 8);
+			return;
+		}
+		ensure(8);
+		for (int i = 0; i < 8; i++) {
+			bytes[count++] = (byte)(v >>> (i * 8));
+		}
 	}
 	
 	public void writeSerializable(Serializable v) throws IOException {
@@ -99,13 +196,19 @@ public class BinaryWriter implements AutoCloseable {
 	}
 	
 	public void writeShort(short v) throws IOException {
-		buffer.putShort(0, v);
-		writer.write(array, 0, 2);
+		if (writer != null) {
+			buffer.putShort(0, v);
+			writer.write(array, 0, 2);
+			return;
+		}
+		ensure(2);
+		bytes[count++] = (byte)v;
+		bytes[count++] = (byte)(v >>> 8);
 	}
 	
 	public void writeVarBytes(byte[] v) throws IOException {
 		writeVarInt(v.length);
-		writer.write(v);
+		write(v);
 	}
 	
 	public void writeVarInt(long v) throws IOException {
@@ -129,4 +232,10 @@ public class BinaryWriter implements AutoCloseable {
 	public void writeVarString(String v) throws IOException {
 		writeVarBytes(v.getBytes("UTF-8"));
 	}
+	
+	private void ensure(int length) {
+		if (count + length > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, count + length));
+		}
+	}
 }
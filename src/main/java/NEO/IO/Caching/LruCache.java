@@ -0,0 +1,140 @@
+package NEO.IO.Caching;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ *  按权重(例如序列化后的字节数)限制大小的LRU缓存，线程安全
+ *
+ *  @param <K> 键
+ *  @param <V> 值
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+    private final ToIntFunction<V> weigher;
+    private final long maxWeight;
+    private long weight = 0;
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     *  <param name="maxWeight">所有值的权重之和的上限</param>
+     *  <param name="weigher">计算值的权重</param>
+     */
+    public LruCache(long maxWeight, ToIntFunction<V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     *  查找缓存，并计入命中或未命中次数
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     *  加入缓存，权重超过上限的值不会被缓存；加入后按最近最少使用的顺序淘汰，直到总权重不超过上限
+     */
+    public void put(K key, V value) {
+        int w = weigher.applyAsInt(value);
+        if (w > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            Entry<V> old = map.put(key, new Entry<V>(value, w));
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += w;
+            Iterator<Entry<V>> iterator = map.values().iterator();
+            while (weight > maxWeight) {
+                Entry<V> eldest = iterator.next();
+                iterator.remove();
+                weight -= eldest.weight;
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     *  查找缓存，不计入命中或未命中次数
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = map.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = map.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        weight -= entry.weight;
+        return entry.value;
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     *  当前所有值的权重之和
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     *  命中率，还没有查找过时为0
+     */
+    public synchronized double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("size=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d", map.size(), weight, maxWeight, hits, misses, evictions);
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final int weight;
+
+        Entry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
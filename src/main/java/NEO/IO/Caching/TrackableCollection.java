@@ -27,12 +27,12 @@ public class TrackableCollection<TKey, TItem extends ITrackable<TKey>> extends A
     }
     
     public boolean remove(TItem key) {
-    	TItem item = map.get(key);
+    	TItem item = map.get(key.key());
     	if (item == null) {
     		return false;
     	}
         if (item.getTrackState() == TrackState.Added) {
-            map.remove(key);
+            map.remove(key.key());
         } else {
         	item.setTrackState(TrackState.Deleted);
         }
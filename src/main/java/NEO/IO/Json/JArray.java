@@ -1,6 +1,5 @@
 package NEO.IO.Json;
 
-import java.io.*;
 import java.util.*;
 
 public class JArray extends JObject implements List<JObject> {
@@ -101,29 +100,6 @@ public class JArray extends JObject implements List<JObject> {
 		return items.listIterator(index);
 	}
 
-    static JArray parseArray(BufferedReader reader) throws IOException {
-        skipSpace(reader);
-        if (reader.read() != '[') {
-        	throw new IOException();
-        }
-        skipSpace(reader);
-        JArray array = new JArray();
-        while (true) {
-        	reader.mark(1);
-        	int c = reader.read();
-        	if (c == ']') {
-        		break;
-        	}
-        	if (c != ',') {
-        		reader.reset();
-        	}
-            JObject obj = JObject.parse(reader);
-            array.items.add(obj);
-            skipSpace(reader);
-        }
-        return array;
-    }
-    
     @Override
     public JObject remove(int index) {
     	return items.remove(index);
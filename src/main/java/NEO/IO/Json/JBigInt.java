@@ -1,7 +1,5 @@
 package NEO.IO.Json;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.math.BigInteger;
 
 public class JBigInt extends JObject{
@@ -46,22 +44,6 @@ public class JBigInt extends JObject{
         return false;
     }
 
-    static JBigInt parseNumber(BufferedReader reader) throws IOException {
-        skipSpace(reader);
-        StringBuilder sb = new StringBuilder();
-        while (true) {
-        	reader.mark(1);
-            int c = reader.read();
-            if (c >= '0' && c <= '9' || c == '.' || c == '-') {
-                sb.append((char)c);
-            } else {
-            	reader.reset();
-                break;
-            }
-        }
-        return new JBigInt(sb.toString());
-    }
-
     @Override
     public String toString() {
         return asString();
@@ -1,7 +1,5 @@
 package NEO.IO.Json;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 
 public class JNumber extends JObject {
     private double _value;
@@ -45,22 +43,6 @@ public class JNumber extends JObject {
         return false;
     }
 
-    static JNumber parseNumber(BufferedReader reader) throws IOException {
-        skipSpace(reader);
-        StringBuilder sb = new StringBuilder();
-        while (true) {
-        	reader.mark(1);
-            int c = reader.read();
-            if (c >= '0' && c <= '9' || c == '.' || c == '-') {
-                sb.append((char)c);
-            } else {
-            	reader.reset();
-                break;
-            }
-        }
-        return new JNumber(Double.parseDouble(sb.toString()));
-    }
-
     @Override
     public String toString() {
         return asString();
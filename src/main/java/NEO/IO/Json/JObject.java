@@ -2,22 +2,75 @@ package NEO.IO.Json;
 
 import java.io.*;
 import java.util.*;
-import java.util.Map.Entry;
 
 public class JObject {
     public static final JObject NULL = null;
-    private Map<String, JObject> properties = new HashMap<String, JObject>();
+    private static final int INDEX_THRESHOLD = 8;
+
+    // 属性按插入顺序保存在数组中，属性较多时才建立索引；JArray、JString等子类不分配任何属性存储
+    private String[] names;
+    private JObject[] values;
+    private int count;
+    private Map<String, Integer> index;
     
     public int size() {
-    	return properties.size();
+    	return count;
     }
 
     public JObject get(String name) {
-        return properties.get(name);
+        int i = indexOf(name);
+        return i < 0 ? null : values[i];
     }
 
     public void set(String name, JObject value) {
-        properties.put(name, value);
+        int i = indexOf(name);
+        if (i >= 0) {
+            values[i] = value;
+            return;
+        }
+        if (names == null) {
+            names = new String[4];
+            values = new JObject[4];
+        } else if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+        names[count] = name;
+        values[count] = value;
+        if (index != null) {
+            index.put(name, count);
+        } else if (count == INDEX_THRESHOLD) {
+            index = new HashMap<String, Integer>();
+            for (int j = 0; j <= count; j++) {
+                index.put(names[j], j);
+            }
+        }
+        count++;
+    }
+
+    /**
+     *  按插入顺序返回属性名
+     */
+    public List<String> propertyNames() {
+        return names == null ? Collections.<String>emptyList() : Collections.unmodifiableList(Arrays.asList(names).subList(0, count));
+    }
+
+    private int indexOf(String name) {
+        if (index != null) {
+            Integer i = index.get(name);
+            return i == null ? -1 : i;
+        }
+        for (int i = 0; i < count; i++) {
+            if (names[i] == name) {
+                return i;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public boolean asBoolean() {
@@ -68,109 +121,50 @@ public class JObject {
     }
 
     public boolean containsProperty(String key) {
-        return properties.containsKey(key);
+        return indexOf(key) >= 0;
     }
 
-    public static JObject parse(Reader reader2) throws IOException {
-    	BufferedReader r = reader2 instanceof BufferedReader ? (BufferedReader)reader2 : new BufferedReader(reader2);
-        skipSpace(r);
-        r.mark(1);
-        int firstChar = r.read();
-        if (firstChar == '\"' || firstChar == '\'') {
-        	r.reset();
-            return JString.parseString(r);
-        }
-        if (firstChar == '[') {
-        	r.reset();
-            return JArray.parseArray(r);
-        }
-        if ((firstChar >= '0' && firstChar <= '9') || firstChar == '-') {
-        	r.reset();
-            return JNumber.parseNumber(r);
-        }
-        if (firstChar == 't' || firstChar == 'f') {
-        	r.reset();
-            return JBoolean.parseBoolean(r);
-        }
-        if (firstChar == 'n') {
-        	r.reset();
-            return parseNull(r);
-        }
-        if (firstChar != '{') throw new IOException();
-        skipSpace(r);
-        JObject obj = new JObject();
-        while (true) {
-        	r.mark(1);
-        	int c = r.read();
-        	if (c == '}') {
-        		break;
-        	}
-            if (c != ',') {
-            	r.reset();
-            }
-            skipSpace(r);
-            String name = JString.parseString(r).value();
-            skipSpace(r);
-            if (r.read() != ':') {
-            	throw new IOException();
-            }
-            JObject value = parse(r);
-            obj.properties.put(name, value);
-            skipSpace(r);
-        }
-        return obj;
+    /**
+     *  解析JSON，Reader不需要是BufferedReader
+     */
+    public static JObject parse(Reader reader) throws IOException {
+        return new JsonParser(reader).readValue();
+    }
+
+    /**
+     *  解析JSON对象，只保留指定的顶层属性，其余属性的内容被跳过，不会创建对象
+     *  <param name="reader">数据来源</param>
+     *  <param name="fields">要保留的属性名</param>
+     */
+    public static JObject parse(Reader reader, String... fields) throws IOException {
+        return new JsonParser(reader).readObject(new HashSet<String>(Arrays.asList(fields)));
     }
 
     public static JObject parse(String value) {
-        StringReader reader = new StringReader(value);
         try {
-			return parse(reader);
+			return new JsonParser(value).readValue();
 		} catch (IOException ex) {
 			throw new IllegalArgumentException(ex);
 		}
     }
 
-    static JObject parseNull(Reader reader) throws IOException {
-        char firstChar = (char)reader.read();
-        if (firstChar == 'n') {
-            int c2 = reader.read();
-            int c3 = reader.read();
-            int c4 = reader.read();
-            if (c2 == 'u' && c3 == 'l' && c4 == 'l') {
-                return null;
-            }
-        }
-        throw new IllegalArgumentException();
-    }
-
-    protected static void skipSpace(BufferedReader reader) throws IOException {
-    	while (true) {
-    		reader.mark(1);
-    		int c = reader.read();
-    		if (c != ' ' && c != '\r' && c != '\n') {
-    			reader.reset();
-    			return;
-    		}
-    	}
-    }
-
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append('{');
-        for (Entry<String, JObject> pair : properties.entrySet()) {
+        for (int i = 0; i < count; i++) {
             sb.append('"');
-            sb.append(pair.getKey());
+            sb.append(names[i]);
             sb.append('"');
             sb.append(':');
-            if (pair.getValue() == null) {
+            if (values[i] == null) {
                 sb.append("null");
             } else {
-                sb.append(pair.getValue());
+                sb.append(values[i]);
             }
             sb.append(',');
         }
-        if (properties.size() == 0) {
+        if (count == 0) {
             sb.append('}');
         } else {
             sb.setCharAt(sb.length() - 1, '}');
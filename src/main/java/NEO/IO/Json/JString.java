@@ -1,6 +1,5 @@
 package NEO.IO.Json;
 
-import java.io.*;
 import java.util.*;
 
 public class JString extends JObject {
@@ -52,32 +51,6 @@ public class JString extends JObject {
         return false;
     }
 
-    static JString parseString(BufferedReader reader) throws IOException {
-        skipSpace(reader);
-        char[] buffer = new char[4];
-        int firstChar = reader.read();
-        if (firstChar != '\"' && firstChar != '\'') throw new IOException();
-        StringBuilder sb = new StringBuilder();
-        while (true) {
-            int c = reader.read();
-            if (c == 65535) {
-            	throw new IOException();
-            }
-            if (c == firstChar) {
-            	break;
-            }
-            if (c == '\\') {
-                c = (char)reader.read();
-                if (c == 'u') {
-                    reader.read(buffer, 0, 4);
-                    c = Integer.valueOf(new String(buffer), 16);
-                }
-            }
-            sb.append((char)c);
-        }
-        return new JString(sb.toString());
-    }
-
     @Override
     public String toString() {
     	return "\"" + _value.replaceAll("\"", "\\\"") + "\"";
@@ -0,0 +1,588 @@
+package NEO.IO.Json;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ *  JSON拉取式解析器
+ *
+ *  从char[]缓冲区中逐个读取记号，不使用mark/reset；不需要的子树可以用skipValue跳过而不创建任何对象。
+ *  属性名经过一个小的缓存复用String，数值在需要时才转换：不超过2^53的整数和小数使用JNumber，更大的整数使用JBigInt，不会丢失精度。
+ *
+ *  用法：
+ *  <pre>
+ *  try (JsonParser parser = new JsonParser(reader)) {
+ *      parser.next();                      // START_OBJECT
+ *      while (parser.next() == Token.NAME) {
+ *          if (parser.name().equals("result")) {
+ *              JObject result = parser.readValue();
+ *          } else {
+ *              parser.skipValue();
+ *          }
+ *      }
+ *  }
+ *  </pre>
+ */
+public class JsonParser implements AutoCloseable {
+    public enum Token {
+        START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, NAME, STRING, NUMBER, TRUE, FALSE, NULL, END
+    }
+
+    private static final int MAX_DEPTH = 512;
+    private static final int NAME_CACHE_SIZE = 256;
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position, limit;
+    private final StringBuilder scratch = new StringBuilder();
+    private final String[] nameCache = new String[NAME_CACHE_SIZE];
+
+    private boolean[] objects = new boolean[16];
+    private int depth = 0;
+    private boolean afterValue = false;
+    private boolean expectValue = false;
+
+    private Token current;
+    private String name;
+    private String text;
+    private boolean integral;
+
+    /**
+     *  从Reader中读取，内部有缓冲，不需要再包装为BufferedReader
+     */
+    public JsonParser(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[8192];
+    }
+
+    public JsonParser(String json) {
+        this(new StringReader(json));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     *  当前记号
+     */
+    public Token current() {
+        return current;
+    }
+
+    /**
+     *  当前所在的嵌套层数，START_OBJECT/START_ARRAY之后加一
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     *  最近读取的属性名
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     *  当前STRING记号的值，或NUMBER记号的原文
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     *  当前NUMBER记号是否为整数(不含小数点和指数)
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    public double number() {
+        if (current != Token.NUMBER) {
+            throw new IllegalStateException();
+        }
+        return Double.parseDouble(text);
+    }
+
+    /**
+     *  读取下一个记号
+     *  <returns>返回记号，最外层的值读取完毕后返回END</returns>
+     */
+    public Token next() throws IOException {
+        int c = skipSpace();
+        if (depth > 0 && !expectValue) {
+            boolean object = objects[depth - 1];
+            if (afterValue) {
+                if (c == ',') {
+                    afterValue = false;
+                    c = skipSpace();
+                } else if (c == (object ? '}' : ']')) {
+                    return close(object);
+                } else {
+                    throw syntaxError(c);
+                }
+            } else if (c == (object ? '}' : ']')) {
+                return close(object);
+            }
+            if (object) {
+                if (c != '"' && c != '\'') {
+                    throw syntaxError(c);
+                }
+                name = readName(c);
+                c = skipSpace();
+                if (c != ':') {
+                    throw syntaxError(c);
+                }
+                expectValue = true;
+                return current = Token.NAME;
+            }
+        }
+        if (depth == 0 && afterValue) {
+            if (c == -1) {
+                return current = Token.END;
+            }
+            throw syntaxError(c);
+        }
+        expectValue = false;
+        switch (c) {
+        case '{':
+            return open(true);
+        case '[':
+            return open(false);
+        case '"':
+        case '\'':
+            text = readString(c);
+            afterValue = true;
+            return current = Token.STRING;
+        case 't':
+            expectLiteral("rue");
+            afterValue = true;
+            return current = Token.TRUE;
+        case 'f':
+            expectLiteral("alse");
+            afterValue = true;
+            return current = Token.FALSE;
+        case 'n':
+            expectLiteral("ull");
+            afterValue = true;
+            return current = Token.NULL;
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                readNumber(c);
+                afterValue = true;
+                return current = Token.NUMBER;
+            }
+            throw syntaxError(c);
+        }
+    }
+
+    /**
+     *  跳过一个值：当前记号为NAME时跳过其后的值，为START_OBJECT/START_ARRAY时跳到对应的结束记号，其它情况不做任何事
+     */
+    public void skipValue() throws IOException {
+        if (current == Token.NAME) {
+            int c = skipSpace();
+            if (c == '{' || c == '[') {
+                expectValue = false;
+                push(c == '{');
+                current = c == '{' ? Token.START_OBJECT : Token.START_ARRAY;
+            } else if (c == '"' || c == '\'') {
+                expectValue = false;
+                skipString(c);
+                afterValue = true;
+                text = null;
+                current = Token.STRING;
+                return;
+            } else {
+                if (c != -1) {
+                    position--;
+                }
+                next();
+                return;
+            }
+        }
+        if (current != Token.START_OBJECT && current != Token.START_ARRAY) {
+            return;
+        }
+        // 跳过的子树不创建字符串
+        int target = depth - 1;
+        while (depth > target) {
+            int c = skipSpace();
+            switch (c) {
+            case -1:
+                throw new EOFException();
+            case '{':
+            case '[':
+                push(c == '{');
+                break;
+            case '}':
+            case ']':
+                depth--;
+                break;
+            case '"':
+            case '\'':
+                skipString(c);
+                break;
+            default:
+                break;
+            }
+        }
+        afterValue = true;
+        expectValue = false;
+        current = objects[depth] ? Token.END_OBJECT : Token.END_ARRAY;
+    }
+
+    /**
+     *  读取一个完整的值：当前记号为NAME或还没有读取任何记号时读取下一个值，为START_OBJECT/START_ARRAY或标量时以其为起点
+     */
+    public JObject readValue() throws IOException {
+        if (current == null || current == Token.NAME || current == Token.END_OBJECT || current == Token.END_ARRAY) {
+            next();
+        }
+        return value();
+    }
+
+    /**
+     *  读取对象，只保留指定的属性，其余属性直接跳过
+     *  <param name="fields">要保留的属性名</param>
+     */
+    public JObject readObject(Set<String> fields) throws IOException {
+        if (current == null || current == Token.NAME) {
+            next();
+        }
+        if (current != Token.START_OBJECT) {
+            throw new IOException("Expected object");
+        }
+        JObject obj = new JObject();
+        while (next() == Token.NAME) {
+            String key = name;
+            if (fields.contains(key)) {
+                next();
+                obj.set(key, value());
+            } else {
+                skipValue();
+            }
+        }
+        return obj;
+    }
+
+    private JObject value() throws IOException {
+        switch (current) {
+        case START_OBJECT:
+            JObject obj = new JObject();
+            while (next() == Token.NAME) {
+                String key = name;
+                next();
+                obj.set(key, value());
+            }
+            return obj;
+        case START_ARRAY:
+            JArray array = new JArray();
+            while (next() != Token.END_ARRAY) {
+                array.add(value());
+            }
+            return array;
+        case STRING:
+            return new JString(text);
+        case NUMBER:
+            return toNumber();
+        case TRUE:
+            return new JBoolean(true);
+        case FALSE:
+            return new JBoolean(false);
+        case NULL:
+            return JObject.NULL;
+        default:
+            throw new IOException("Unexpected " + current);
+        }
+    }
+
+    private JObject toNumber() {
+        if (integral) {
+            int digits = text.length() - (text.charAt(0) == '-' ? 1 : 0);
+            if (digits <= 18) {
+                long value = Long.parseLong(text);
+                if (value <= MAX_EXACT_INTEGER && value >= -MAX_EXACT_INTEGER) {
+                    return new JNumber(value);
+                }
+            }
+            return new JBigInt(text);
+        }
+        return new JNumber(Double.parseDouble(text));
+    }
+
+    private Token open(boolean object) throws IOException {
+        push(object);
+        afterValue = false;
+        return current = object ? Token.START_OBJECT : Token.START_ARRAY;
+    }
+
+    private void push(boolean object) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IOException("JSON nested too deeply");
+        }
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+        }
+        objects[depth++] = object;
+    }
+
+    private Token close(boolean object) {
+        depth--;
+        afterValue = true;
+        return current = object ? Token.END_OBJECT : Token.END_ARRAY;
+    }
+
+    private int skipSpace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position++];
+            if (c != ' ' && c != '\r' && c != '\n' && c != '\t') {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    /**
+     *  读取属性名，较短的属性名从缓存中复用
+     */
+    private String readName(int quote) throws IOException {
+        int start = position;
+        int hash = 0;
+        for (int i = start; i < limit; i++) {
+            char c = buffer[i];
+            if (c == quote) {
+                int length = i - start;
+                position = i + 1;
+                if (length > 32) {
+                    return new String(buffer, start, length);
+                }
+                int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+                String cached = nameCache[slot];
+                if (cached != null && cached.length() == length && matches(cached, start)) {
+                    return cached;
+                }
+                return nameCache[slot] = new String(buffer, start, length);
+            }
+            if (c == '\\') {
+                break;
+            }
+            hash = 31 * hash + c;
+        }
+        return readString(quote);
+    }
+
+    private boolean matches(String s, int start) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  读取字符串的剩余部分，起始的引号已经读取；没有转义且不跨越缓冲区时直接从缓冲区创建String
+     */
+    private String readString(int quote) throws IOException {
+        int start = position;
+        for (int i = start; i < limit; i++) {
+            char c = buffer[i];
+            if (c == quote) {
+                position = i + 1;
+                return new String(buffer, start, i - start);
+            }
+            if (c == '\\') {
+                break;
+            }
+        }
+        scratch.setLength(0);
+        while (true) {
+            int begin = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == quote || c == '\\') {
+                    break;
+                }
+                position++;
+            }
+            scratch.append(buffer, begin, position - begin);
+            if (position == limit) {
+                if (!fill()) {
+                    throw new EOFException();
+                }
+                continue;
+            }
+            char c = buffer[position++];
+            if (c == quote) {
+                return scratch.toString();
+            }
+            scratch.append(readEscape());
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case 'b': return '\b';
+        case 'f': return '\f';
+        case 'n': return '\n';
+        case 'r': return '\r';
+        case 't': return '\t';
+        case 'u':
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+                int d = Character.digit(read(), 16);
+                if (d < 0) {
+                    throw new IOException("Invalid unicode escape");
+                }
+                code = (code << 4) | d;
+            }
+            return (char)code;
+        case -1:
+            throw new EOFException();
+        default:
+            return (char)c;
+        }
+    }
+
+    private void skipString(int quote) throws IOException {
+        while (true) {
+            int c = read();
+            if (c == quote) {
+                return;
+            }
+            if (c == '\\') {
+                c = read();
+            }
+            if (c == -1) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private void readNumber(int first) throws IOException {
+        int start = position - 1;
+        int end = start + 1;
+        while (end < limit && isNumberChar(buffer[end])) {
+            end++;
+        }
+        if (end < limit) {
+            position = end;
+            text = new String(buffer, start, end - start);
+        } else {
+            // 数字跨越缓冲区
+            scratch.setLength(0);
+            scratch.append(buffer, start, end - start);
+            position = end;
+            while (true) {
+                if (position == limit && !fill()) {
+                    break;
+                }
+                char c = buffer[position];
+                if (!isNumberChar(c)) {
+                    break;
+                }
+                scratch.append(c);
+                position++;
+            }
+            text = scratch.toString();
+        }
+        integral = checkNumber(text);
+    }
+
+    /**
+     *  检查数值的格式：-?数字+(.数字+)?([eE][+-]?数字+)?
+     *  <returns>返回是否为整数</returns>
+     */
+    private static boolean checkNumber(String text) throws IOException {
+        int i = 0;
+        int n = text.length();
+        if (text.charAt(i) == '-') {
+            i++;
+        }
+        int digits = i;
+        while (i < n && isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i == digits) {
+            throw invalidNumber(text);
+        }
+        boolean isIntegral = true;
+        if (i < n && text.charAt(i) == '.') {
+            isIntegral = false;
+            digits = ++i;
+            while (i < n && isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == digits) {
+                throw invalidNumber(text);
+            }
+        }
+        if (i < n && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            isIntegral = false;
+            i++;
+            if (i < n && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            digits = i;
+            while (i < n && isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == digits) {
+                throw invalidNumber(text);
+            }
+        }
+        if (i != n) {
+            throw invalidNumber(text);
+        }
+        return isIntegral;
+    }
+
+    private static IOException invalidNumber(String text) {
+        return new IOException("Invalid JSON: malformed number '" + text + "'");
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            int c = read();
+            if (c != rest.charAt(i)) {
+                throw syntaxError(c);
+            }
+        }
+    }
+
+    private static IOException syntaxError(int c) {
+        return c == -1 ? new EOFException() : new IOException("Invalid JSON: unexpected '" + (char)c + "'");
+    }
+}
@@ -1,6 +1,7 @@
 package NEO.IO;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  *  为序列化提供一个接口
@@ -21,22 +22,21 @@ public interface Serializable {
     void serialize(BinaryWriter writer) throws IOException;
 
     default byte[] toArray() {
-        try (ByteArrayOutputStream ms = new ByteArrayOutputStream()) {
-	        try (BinaryWriter writer = new BinaryWriter(ms)) {
-	            serialize(writer);
-	            writer.flush();
-	            return ms.toByteArray();
-	        }
+        try (BinaryWriter writer = BinaryWriter.acquire()) {
+            serialize(writer);
+            return writer.toArray();
         } catch (IOException ex) {
 			throw new UnsupportedOperationException(ex);
 		}
     }
     
     static <T extends Serializable> T from(byte[] value, Class<T> t) throws InstantiationException, IllegalAccessException {
-    	try (ByteArrayInputStream ms = new ByteArrayInputStream(value)) {
-    		try (BinaryReader reader = new BinaryReader(ms)) {
-    			return reader.readSerializable(t);
-    		}
+    	return from(ByteBuffer.wrap(value), t);
+    }
+    
+    static <T extends Serializable> T from(ByteBuffer value, Class<T> t) throws InstantiationException, IllegalAccessException {
+    	try (BinaryReader reader = new BinaryReader(value)) {
+    		return reader.readSerializable(t);
     	} catch (IOException ex) {
 			throw new IllegalArgumentException(ex);
 		}
@@ -0,0 +1,74 @@
+package NEO.IO;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+/**
+ *  Serializable构造工厂，每个类型的无参构造函数只解析一次并绑定为Supplier，
+ *  避免每个对象都经过Class.newInstance
+ */
+final class SerializableFactory<T> {
+	private static final ClassValue<SerializableFactory<?>> FACTORIES = new ClassValue<SerializableFactory<?>>() {
+		@Override
+		protected SerializableFactory<?> computeValue(Class<?> type) {
+			return new SerializableFactory<>(type);
+		}
+	};
+
+	private final Class<T> type;
+	private final Supplier<T> constructor;
+
+	private SerializableFactory(Class<T> type) {
+		this.type = type;
+		this.constructor = bind(type);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> SerializableFactory<T> of(Class<T> type) {
+		return (SerializableFactory<T>) FACTORIES.get(type);
+	}
+
+	T newInstance() throws InstantiationException {
+		if (constructor == null) {
+			throw new InstantiationException(type.getName());
+		}
+		return constructor.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Supplier<T> bind(Class<T> type) {
+		if (Modifier.isAbstract(type.getModifiers())) {
+			return null;
+		}
+		Constructor<T> ctor;
+		try {
+			ctor = type.getDeclaredConstructor();
+		} catch (NoSuchMethodException ex) {
+			return null;
+		}
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			MethodHandle handle = lookup.unreflectConstructor(ctor);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+					MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+					handle, MethodType.methodType(type));
+			return (Supplier<T>) site.getTarget().invokeExact();
+		} catch (Throwable ex) {
+			// 非public的类型无法生成lambda，退回到缓存的构造器
+			ctor.setAccessible(true);
+			return () -> {
+				try {
+					return ctor.newInstance();
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalStateException(e);
+				}
+			};
+		}
+	}
+}
@@ -2,6 +2,7 @@ package NEO.Implementations.Blockchain.RPC;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import NEO.*;
@@ -35,6 +36,12 @@ public class RpcBlockchain extends Blockchain
 		return rpc.getBlock(height);
 	}
 	
+	@Override
+	public CompletableFuture<Block> getBlockAsync(int height)
+	{
+		return rpc.getBlockAsync(height);
+	}
+	
 	@Override
 	public Block getBlock(UInt256 hash) throws RpcException, IOException
 	{
@@ -52,6 +59,12 @@ public class RpcBlockchain extends Blockchain
 	{
 		return rpc.getRawTransaction(hash);
 	}
+	
+	@Override
+	public CompletableFuture<Transaction> getTransactionAsync(UInt256 hash)
+	{
+		return rpc.getRawTransactionAsync(hash);
+	}
 
 	@Override
 	public int height() throws RpcException, IOException
@@ -0,0 +1,378 @@
+package NEO.Implementations.Blockchains.Caching;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import NEO.Fixed8;
+import NEO.Out;
+import NEO.UInt256;
+import NEO.Core.Block;
+import NEO.Core.Blockchain;
+import NEO.Core.BlockchainAbility;
+import NEO.Core.Claimable;
+import NEO.Core.RegisterTransaction;
+import NEO.Core.Transaction;
+import NEO.Core.TransactionOutput;
+import NEO.Core.Vote;
+import NEO.IO.Caching.LruCache;
+
+/**
+ *  为远程区块链实现增加本地缓存
+ *
+ *  已确认的区块、区块头和交易不会再改变(dBFT共识下区块一经确认即为最终状态)，按散列值缓存在内存中，
+ *  缓存大小以字节数计算(使用反序列化时记录的大小，不再次序列化)。同一散列值的并发请求只向节点发送一次，其余请求等待同一结果。
+ *  未花费输出、区块高度等会变化的数据不缓存，直接转发给被包装的实例；查询不到(返回null)的结果也不缓存。
+ *  按高度取得的区块(钱包同步时顺序读取，每个区块只用一次)只记录高度与散列值的对应关系，不放入区块缓存，
+ *  以免顺序扫描把按散列值反复查询的区块挤出缓存。
+ */
+public class CachingBlockchain extends Blockchain {
+    /**
+     *  默认的缓存大小，64MB
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    private static final int MAX_BLOCK_HASHES = 65536;
+
+    private final Blockchain inner;
+    private final LruCache<UInt256, Transaction> transactions;
+    private final LruCache<UInt256, Block> blocks;
+    private final LruCache<UInt256, Block> headers;
+    private final LruCache<Integer, UInt256> blockHashes;
+    private final Map<UInt256, CompletableFuture<Transaction>> loadingTransactions = new ConcurrentHashMap<UInt256, CompletableFuture<Transaction>>();
+    private final Map<UInt256, CompletableFuture<Block>> loadingBlocks = new ConcurrentHashMap<UInt256, CompletableFuture<Block>>();
+    private final Map<UInt256, CompletableFuture<Block>> loadingHeaders = new ConcurrentHashMap<UInt256, CompletableFuture<Block>>();
+    private final Map<Integer, CompletableFuture<Block>> loadingHeights = new ConcurrentHashMap<Integer, CompletableFuture<Block>>();
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    public CachingBlockchain(Blockchain inner) {
+        this(inner, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     *  <param name="inner">被包装的区块链实例</param>
+     *  <param name="maxBytes">缓存的总字节数，交易占1/2，区块占3/8，区块头占1/8</param>
+     */
+    public CachingBlockchain(Blockchain inner, long maxBytes) {
+        if (inner == null) {
+            throw new NullPointerException();
+        }
+        this.inner = inner;
+        this.transactions = new LruCache<UInt256, Transaction>(maxBytes / 2, Transaction::size);
+        this.blocks = new LruCache<UInt256, Block>(maxBytes * 3 / 8, Block::size);
+        this.headers = new LruCache<UInt256, Block>(maxBytes / 8, Block::size);
+        this.blockHashes = new LruCache<Integer, UInt256>(MAX_BLOCK_HASHES, p -> 1);
+    }
+
+    public Blockchain inner() {
+        return inner;
+    }
+
+    public LruCache<UInt256, Transaction> transactionCache() {
+        return transactions;
+    }
+
+    public LruCache<UInt256, Block> blockCache() {
+        return blocks;
+    }
+
+    public LruCache<UInt256, Block> headerCache() {
+        return headers;
+    }
+
+    /**
+     *  等待其它线程正在进行的同一请求、没有再次发送的请求数
+     */
+    public long deduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CachingBlockchain [transactions: " + transactions + "; blocks: " + blocks + "; headers: " + headers + "; deduplicated=" + deduplicated.get() + "]";
+    }
+
+    @Override
+    public Transaction getTransaction(UInt256 hash) throws Exception {
+        return load(transactions, loadingTransactions, hash, () -> inner.getTransaction(hash));
+    }
+
+    @Override
+    public CompletableFuture<Transaction> getTransactionAsync(UInt256 hash) {
+        return loadAsync(transactions, loadingTransactions, hash, () -> inner.getTransactionAsync(hash));
+    }
+
+    @Override
+    public Transaction getTransaction(UInt256 hash, Out<Integer> height) {
+        return inner.getTransaction(hash, height);
+    }
+
+    @Override
+    public Block getBlock(UInt256 hash) throws Exception {
+        return load(blocks, loadingBlocks, hash, () -> inner.getBlock(hash));
+    }
+
+    @Override
+    public Block getBlock(int height) throws Exception {
+        Block block = cachedBlock(height);
+        if (block != null) {
+            return block;
+        }
+        block = load(null, loadingHeights, height, () -> inner.getBlock(height));
+        if (block != null) {
+            blockHashes.put(height, block.hash());
+        }
+        return block;
+    }
+
+    @Override
+    public CompletableFuture<Block> getBlockAsync(int height) {
+        Block block = cachedBlock(height);
+        if (block != null) {
+            return CompletableFuture.completedFuture(block);
+        }
+        return loadAsync(null, loadingHeights, height, () -> inner.getBlockAsync(height).thenApply(p -> {
+            if (p != null) {
+                blockHashes.put(height, p.hash());
+            }
+            return p;
+        }));
+    }
+
+    @Override
+    public Block getHeader(UInt256 hash) throws Exception {
+        Block block = blocks.peek(hash);
+        if (block != null) {
+            return block.header();
+        }
+        return load(headers, loadingHeaders, hash, () -> inner.getHeader(hash));
+    }
+
+    @Override
+    public UInt256 getBlockHash(int height) throws Exception {
+        UInt256 hash = blockHashes.get(height);
+        if (hash == null) {
+            hash = inner.getBlockHash(height);
+            if (hash != null) {
+                blockHashes.put(height, hash);
+            }
+        }
+        return hash;
+    }
+
+    private Block cachedBlock(int height) {
+        UInt256 hash = blockHashes.peek(height);
+        return hash == null ? null : blocks.get(hash);
+    }
+
+    private interface Loader<V> {
+        V load() throws Exception;
+    }
+
+    /**
+     *  查找缓存，未命中时在当前线程中加载；同一个键正在由其它线程加载时等待其结果
+     *  <param name="cache">缓存，为null时只合并并发的请求</param>
+     */
+    private <K, V> V load(LruCache<K, V> cache, Map<K, CompletableFuture<V>> loading, K key, Loader<V> loader) throws Exception {
+        V value = cache == null ? null : cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            try {
+                return existing.get();
+            } catch (ExecutionException ex) {
+                throw ex.getCause() instanceof Exception ? (Exception)ex.getCause() : ex;
+            }
+        }
+        try {
+            // 在检查缓存和登记请求之间，其它线程可能已经加载完成
+            value = cache == null ? null : cache.peek(key);
+            if (value == null) {
+                value = loader.load();
+                if (value != null && cache != null) {
+                    cache.put(key, value);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (Exception | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private <K, V> CompletableFuture<V> loadAsync(LruCache<K, V> cache, Map<K, CompletableFuture<V>> loading, K key, Supplier<CompletableFuture<V>> loader) {
+        V value = cache == null ? null : cache.get(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            return existing;
+        }
+        value = cache == null ? null : cache.peek(key);
+        if (value != null) {
+            loading.remove(key, future);
+            future.complete(value);
+            return future;
+        }
+        CompletableFuture<V> request;
+        try {
+            request = loader.get();
+        } catch (RuntimeException ex) {
+            request = new CompletableFuture<V>();
+            request.completeExceptionally(ex);
+        }
+        request.whenComplete((result, ex) -> {
+            if (result != null && cache != null) {
+                cache.put(key, result);
+            }
+            loading.remove(key, future);
+            if (ex != null) {
+                future.completeExceptionally(ex);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
+    // 以下接口的结果会变化或不常用，直接转发
+
+    @Override
+    public EnumSet<BlockchainAbility> ability() {
+        return inner.ability();
+    }
+
+    @Override
+    public UInt256 currentBlockHash() throws Exception {
+        return inner.currentBlockHash();
+    }
+
+    @Override
+    public UInt256 currentHeaderHash() throws Exception {
+        return inner.currentHeaderHash();
+    }
+
+    @Override
+    public int headerHeight() throws Exception {
+        return inner.headerHeight();
+    }
+
+    @Override
+    public int height() throws Exception {
+        return inner.height();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return inner.isReadOnly();
+    }
+
+    // 与被包装的远程实现一致，不接受本地添加的区块
+    @Override
+    protected boolean addBlock(Block block) {
+        return false;
+    }
+
+    @Override
+    protected void addHeaders(Iterable<Block> headers) {
+    }
+
+    @Override
+    public void close() {
+        inner.close();
+    }
+
+    @Override
+    public boolean containsAsset(UInt256 hash) {
+        return inner.containsAsset(hash);
+    }
+
+    @Override
+    public boolean containsBlock(UInt256 hash) {
+        return blocks.peek(hash) != null || inner.containsBlock(hash);
+    }
+
+    @Override
+    public boolean containsTransaction(UInt256 hash) {
+        return transactions.peek(hash) != null || inner.containsTransaction(hash);
+    }
+
+    @Override
+    public boolean containsUnspent(UInt256 hash, int index) throws Exception {
+        return inner.containsUnspent(hash, index);
+    }
+
+    @Override
+    public Stream<RegisterTransaction> getAssets() {
+        return inner.getAssets();
+    }
+
+    @Override
+    public UInt256[] getLeafHeaderHashes() {
+        return inner.getLeafHeaderHashes();
+    }
+
+    @Override
+    public Block getNextBlock(UInt256 hash) {
+        return inner.getNextBlock(hash);
+    }
+
+    @Override
+    public UInt256 getNextBlockHash(UInt256 hash) {
+        return inner.getNextBlockHash(hash);
+    }
+
+    @Override
+    public Fixed8 getQuantityIssued(UInt256 asset_id) {
+        return inner.getQuantityIssued(asset_id);
+    }
+
+    @Override
+    public long getSysFeeAmount(UInt256 hash) {
+        return inner.getSysFeeAmount(hash);
+    }
+
+    @Override
+    public Map<Short, Claimable> getUnclaimed(UInt256 hash) {
+        return inner.getUnclaimed(hash);
+    }
+
+    @Override
+    public TransactionOutput getUnspent(UInt256 hash, int index) throws Exception {
+        return inner.getUnspent(hash, index);
+    }
+
+    @Override
+    public Stream<Vote> getVotes(Stream<Transaction> others) {
+        return inner.getVotes(others);
+    }
+
+    @Override
+    public boolean isDoubleSpend(Transaction tx) {
+        return inner.isDoubleSpend(tx);
+    }
+
+    @Override
+    public int getBlockHeightFromDb() throws Exception {
+        return inner.getBlockHeightFromDb();
+    }
+
+    @Override
+    public Block getBlockFromDb(int height) throws Exception {
+        return inner.getBlockFromDb(height);
+    }
+}
@@ -2,6 +2,7 @@ package NEO.Implementations.Blockchains.Rest;
 
 import java.util.EnumSet;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import NEO.Fixed8;
@@ -36,6 +37,11 @@ public class RestBlockchain extends Blockchain {
 		return rest.getBlock(height);
 	}
 	
+	@Override
+	public CompletableFuture<Block> getBlockAsync(int height) {
+		return rest.getBlockAsync(height);
+	}
+	
 	public int getBlockHeightFromDb() throws Exception {
 		return rest.getBlockHeightFromDb();
 	}
@@ -53,6 +59,11 @@ public class RestBlockchain extends Blockchain {
 	public Transaction getTransaction(UInt256 hash) throws Exception {
 		return rest.getRawTransaction(hash.toString());
     }
+    
+    @Override
+	public CompletableFuture<Transaction> getTransactionAsync(UInt256 hash) {
+		return rest.getRawTransactionAsync(hash);
+    }
 
     @Override
 	public UInt256 currentBlockHash() throws Exception {
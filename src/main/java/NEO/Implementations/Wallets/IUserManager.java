@@ -4,11 +4,14 @@ import java.util.Map;
 
 import NEO.Fixed8;
 import NEO.UInt160;
+import NEO.Core.Block;
 import NEO.Core.SignatureContext;
 import NEO.Core.Transaction;
 import NEO.Wallets.Account;
 import NEO.Wallets.Coin;
 import NEO.Wallets.CoinException;
+import NEO.Wallets.CoinSelector;
+import NEO.Wallets.ConfirmationTracker;
 import NEO.Wallets.Contract;
 
 public interface IUserManager {
@@ -17,10 +20,20 @@ public interface IUserManager {
 	
 	public void close();
 	
+	public void notifyNewBlock(Block block);
+	
+	public void setWriteBehind(int maxBlocks, long maxDelayMillis);
+	
+	public void flush();
+	
+	public ConfirmationTracker confirmations();
+	
 	public Account createAccount();
 	
 	public Account createAccount(byte[] privateKey);
 	
+	public Account[] createAccounts(int count);
+	
 	public Contract getContract(String address);
 	
 	public Account[] getAccounts();
@@ -33,6 +46,10 @@ public interface IUserManager {
 	
 	public <T extends Transaction> T makeTransaction(T tx, Fixed8 fee, UInt160 from) throws CoinException;
 	
+	public <T extends Transaction> T makeTransaction(T tx, Fixed8 fee, UInt160 from, CoinSelector selector) throws CoinException;
+	
+	public void setCoinSelector(CoinSelector selector);
+	
     public boolean saveTransaction(Transaction tx);
 
     public boolean sign(SignatureContext context);
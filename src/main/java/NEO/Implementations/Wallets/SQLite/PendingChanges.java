@@ -0,0 +1,118 @@
+package NEO.Implementations.Wallets.SQLite;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import NEO.UInt256;
+import NEO.Core.TransactionInput;
+
+/**
+ *  尚未写入数据库的钱包变更
+ *
+ *  连续多个区块的变更在内存中合并：同一个coin先增加后修改只保留增加的最新状态，先增加后删除则互相抵消；
+ *  同一笔交易只保留最后一次的记录。写入时和Height在同一个事务中提交，Height是已经写入的区块之后的下一个高度，
+ *  程序中断后从这个高度重新同步，不会遗漏或重复应用区块。
+ */
+class PendingChanges {
+	private final Map<UInt256, Transaction> transactions = new LinkedHashMap<UInt256, Transaction>();
+	private final Map<TransactionInput, Coin> added = new LinkedHashMap<TransactionInput, Coin>();
+	private final Map<TransactionInput, Coin> changed = new LinkedHashMap<TransactionInput, Coin>();
+	private final Map<TransactionInput, Coin> deleted = new LinkedHashMap<TransactionInput, Coin>();
+	private int height = -1;
+	private int blocks = 0;
+	private long since = 0;
+
+	public void addTransaction(UInt256 hash, Transaction entity) {
+		transactions.put(hash, entity);
+	}
+
+	public void addCoin(TransactionInput key, Coin entity) {
+		added.put(key, entity);
+	}
+
+	public void changeCoin(TransactionInput key, Coin entity) {
+		Coin coin = added.get(key);
+		if (coin != null) {
+			coin.state = entity.state;
+		} else {
+			changed.put(key, entity);
+		}
+	}
+
+	public void deleteCoin(TransactionInput key, Coin entity) {
+		if (added.remove(key) != null) {
+			return;
+		}
+		changed.remove(key);
+		deleted.put(key, entity);
+	}
+
+	/**
+	 *  记录一个区块处理完成
+	 *  <param name="nextHeight">下一个要处理的区块高度</param>
+	 */
+	public void endBlock(int nextHeight) {
+		if (blocks == 0) {
+			since = System.currentTimeMillis();
+		}
+		height = nextHeight;
+		blocks++;
+	}
+
+	/**
+	 *  合并了多少个区块
+	 */
+	public int blocks() {
+		return blocks;
+	}
+
+	/**
+	 *  第一个区块加入后经过的毫秒数
+	 */
+	public long age() {
+		return blocks == 0 ? 0 : System.currentTimeMillis() - since;
+	}
+
+	/**
+	 *  是否有coin或交易的变更，只推进了高度时为false
+	 */
+	public boolean hasData() {
+		return !transactions.isEmpty() || !added.isEmpty() || !changed.isEmpty() || !deleted.isEmpty();
+	}
+
+	public boolean isEmpty() {
+		return blocks == 0 && !hasData();
+	}
+
+	/**
+	 *  在一个事务中写入所有变更
+	 *  <param name="writeHeight">是否同时写入Height</param>
+	 */
+	public void writeTo(WalletDataContext ctx, boolean writeHeight) {
+		ctx.transaction(() -> {
+			for (Transaction entity : transactions.values()) {
+				ctx.insertOrUpdate(entity);
+			}
+			ctx.insert(added.values().toArray(new Coin[added.size()]));
+			ctx.update(changed.values().toArray(new Coin[changed.size()]));
+			ctx.delete(deleted.values().toArray(new Coin[deleted.size()]));
+			if (writeHeight && height >= 0) {
+				Key key = new Key();
+				key.name = "Height";
+				key.value = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(height).array();
+				ctx.insertOrUpdate(key);
+			}
+		});
+	}
+
+	public void clear() {
+		transactions.clear();
+		added.clear();
+		changed.clear();
+		deleted.clear();
+		height = -1;
+		blocks = 0;
+	}
+}
@@ -1,13 +1,13 @@
 package NEO.Implementations.Wallets.SQLite;
 
 import java.io.File;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.sql.Date;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -18,12 +18,21 @@ import NEO.UInt256;
 import NEO.Core.Block;
 import NEO.Core.TransactionInput;
 import NEO.Core.TransactionType;
+import NEO.Cryptography.ECC;
 import NEO.IO.Serializable;
 import NEO.Implementations.Wallets.IUserManager;
 import NEO.Wallets.CoinState;
 import NEO.Wallets.Wallet;
 
 public class UserWallet extends Wallet implements IUserManager {
+	// 打开和关闭数据库连接时使用的锁，不与钱包或延迟写入的锁嵌套
+	private static final Object contextLock = new Object();
+	// 父类的构造函数中就会访问数据库，所以不能在声明处初始化
+	private volatile WalletDataContext context;
+	private final PendingChanges pending = new PendingChanges();
+	private volatile int flushBlocks = 1;
+	private volatile long flushMillis = 0;
+	private ScheduledExecutorService flusher;
 
     protected UserWallet(String path, String password, boolean create) throws BadPaddingException, IllegalBlockSizeException {
         super(path, password, create);
@@ -55,22 +64,158 @@ public class UserWallet extends Wallet implements IUserManager {
     
     @Override
     protected void buildDatabase() {
-    	File file = new File(dbPath());
-    	file.delete();
+    	closeContext();
+    	new File(dbPath()).delete();
+    	new File(dbPath() + "-wal").delete();
+    	new File(dbPath() + "-shm").delete();
+    }
+
+    /**
+     * 钱包的数据库连接，第一次使用时打开，钱包关闭时释放
+     * 
+     * 打开后不需要加锁，延迟写入的线程持有pending时也可以调用
+     */
+    private WalletDataContext context() {
+    	WalletDataContext ctx = context;
+    	if (ctx == null) {
+    		synchronized (contextLock) {
+    			ctx = context;
+    			if (ctx == null) {
+    				context = ctx = WalletDataContext.open(dbPath());
+    			}
+    		}
+    	}
+    	return ctx;
+    }
+
+    private void closeContext() {
+    	synchronized (contextLock) {
+    		if (context != null) {
+    			context.close();
+    			context = null;
+    		}
+    	}
+    }
+
+    @Override
+    public void close() {
+    	try {
+    		super.close();
+    		flush();
+    	} finally {
+    		synchronized (this) {
+    			if (flusher != null) {
+    				flusher.shutdownNow();
+    				flusher = null;
+    			}
+    		}
+    		closeContext();
+    	}
+    }
+
+    /**
+     * 设置同步区块时的延迟写入
+     * 
+     * 连续多个区块的coin和交易变更在内存中合并，每maxBlocks个区块或第一个区块处理后maxDelayMillis毫秒，
+     * 连同Height在一个事务中写入数据库。程序中断时丢失的只是尚未写入的区块，重新打开钱包后从已写入的高度重新同步。
+     * 默认每个区块写入一次
+     * 
+     * @param maxBlocks 最多合并的区块数
+     * @param maxDelayMillis 变更在内存中保留的最长时间，0表示不按时间写入
+     */
+    public void setWriteBehind(int maxBlocks, long maxDelayMillis) {
+    	if (maxBlocks <= 0 || maxDelayMillis < 0) {
+    		throw new IllegalArgumentException();
+    	}
+    	synchronized (this) {
+    		this.flushBlocks = maxBlocks;
+    		this.flushMillis = maxDelayMillis;
+    		if (flusher != null) {
+    			flusher.shutdownNow();
+    			flusher = null;
+    		}
+    		if (maxDelayMillis > 0) {
+    			// 追上最新区块后不再有新的区块触发写入，由定时任务写入剩余的变更
+    			flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    				Thread thread = new Thread(r, "UserWallet.Flush");
+    				thread.setDaemon(true);
+    				return thread;
+    			});
+    			flusher.scheduleWithFixedDelay(() -> {
+    				synchronized (pending) {
+    					if (pending.age() >= maxDelayMillis) {
+    						flush(false);
+    					}
+    				}
+    			}, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+    		}
+    	}
+    	// 写入时要取得pending的锁，不能在持有钱包的锁时进行
+    	flush();
+    }
+
+    /**
+     * 立即写入延迟写入中尚未写入数据库的变更
+     */
+    public void flush() {
+    	flush(true);
+    }
+
+    /**
+     * @param force 为false时，没有延迟写入并且只推进了高度时不写入(与逐个区块写入时的行为一致)
+     */
+    private void flush(boolean force) {
+    	synchronized (pending) {
+    		if (pending.isEmpty()) {
+    			return;
+    		}
+    		if (force || pending.hasData() || flushBlocks > 1 || flushMillis > 0) {
+    			pending.writeTo(context(), true);
+    		}
+    		pending.clear();
+    	}
     }
 
     /**
      * 创建账户/合约
+     * 
+     * 先在内存中加入账户和合约(在accounts上同步)，再在事务中写入数据库，
+     * 与deleteAccount先取得accounts、再写数据库的加锁顺序一致
      */
     @Override
     public NEO.Wallets.Account createAccount(byte[] privateKey)  {
-    	// account
     	NEO.Wallets.Account account = super.createAccount(privateKey);
-        onCreateAccount(account);
-        // contract
-        addContract(NEO.Wallets.Contract.createSignatureContract(account.publicKey));
+    	NEO.Wallets.Contract contract = NEO.Wallets.Contract.createSignatureContract(account.publicKey);
+    	super.addContract(contract);
+    	context().transaction(() -> {
+    		onCreateAccount(account);
+    		onAddContract(contract);
+    	});
         return account;
     }
+
+    /**
+     * 在一个事务中创建多个账户/合约
+     */
+    @Override
+    public NEO.Wallets.Account[] createAccounts(int count) {
+    	NEO.Wallets.Account[] accounts = new NEO.Wallets.Account[count];
+    	NEO.Wallets.Contract[] contracts = new NEO.Wallets.Contract[count];
+    	for (int i = 0; i < count; i++) {
+    		byte[] privateKey = ECC.generateKey();
+    		accounts[i] = super.createAccount(privateKey);
+    		Arrays.fill(privateKey, (byte) 0);
+    		contracts[i] = NEO.Wallets.Contract.createSignatureContract(accounts[i].publicKey);
+    		super.addContract(contracts[i]);
+    	}
+    	context().transaction(() -> {
+    		for (int i = 0; i < count; i++) {
+    			onCreateAccount(accounts[i]);
+    			onAddContract(contracts[i]);
+    		}
+    	});
+    	return accounts;
+    }
     
 	private void onCreateAccount(NEO.Wallets.Account account) {
         byte[] decryptedPrivateKey = new byte[96];
@@ -79,58 +224,57 @@ public class UserWallet extends Wallet implements IUserManager {
     	Account entity = new Account();
     	entity.privateKeyEncrypted = encryptPrivateKey(decryptedPrivateKey);
     	entity.publicKeyHash = account.publicKeyHash.toArray();
-       
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-        	ctx.insertOrUpdate(entity);
-        }
+        context().insertOrUpdate(entity);
     	 Arrays.fill(decryptedPrivateKey, (byte)0);
     }
     
     @Override
     public void addContract(NEO.Wallets.Contract contract) {
         super.addContract(contract);
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-        	Contract entity = new Contract();
-        	entity.scriptHash = contract.scriptHash().toArray();
-        	entity.publicKeyHash = contract.publicKeyHash.toArray();
-        	entity.rawData = contract.toArray();
-        	ctx.insertOrUpdate(entity);
-        }
+        onAddContract(contract);
+    }
+
+    private void onAddContract(NEO.Wallets.Contract contract) {
+        Contract entity = new Contract();
+        entity.scriptHash = contract.scriptHash().toArray();
+        entity.publicKeyHash = contract.publicKeyHash.toArray();
+        entity.rawData = contract.toArray();
+        context().insertOrUpdate(entity);
     }
 
     @Override
     public boolean deleteAccount(UInt160 publicKeyHash) {
-        boolean flag = super.deleteAccount(publicKeyHash);
-        if (flag) {
-            try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-            	ctx.deleteAccount(publicKeyHash);
+        synchronized (locker) {
+            boolean flag = super.deleteAccount(publicKeyHash);
+            if (flag) {
+                context().deleteAccount(publicKeyHash);
             }
+            return flag;
         }
-        return flag;
     }
     
     @Override
     public boolean deleteContract(UInt160 scriptHash) {
-        boolean flag = super.deleteContract(scriptHash);
-        if (flag) {
-            try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-            	ctx.deleteContract(scriptHash);
+        synchronized (locker) {
+            boolean flag = super.deleteContract(scriptHash);
+            if (flag) {
+                context().deleteContract(scriptHash);
             }
+            return flag;
         }
-        return flag;
     }
 
     @Override
     public NEO.Wallets.Coin[] findUnspentCoins(UInt256 asset_id, Fixed8 amount) {
-    	NEO.Wallets.Coin[] coins = findUnspentCoins(Arrays.stream(findUnspentCoins()).filter(p -> getContract(p.scriptHash).isStandard()), asset_id, amount);
+    	NEO.Wallets.Coin[] coins = findUnspentCoins(Arrays.stream(findUnspentCoins(asset_id)).filter(p -> getContract(p.scriptHash).isStandard()), asset_id, amount);
     	if (coins == null) coins = super.findUnspentCoins(asset_id, amount);
         return coins;
     }
 
     @Override
     protected NEO.Wallets.Account[] loadAccounts() {
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-        	Account[] entities = ctx.getAccounts();
+        try {
+        	Account[] entities = context().getAccounts();
         	NEO.Wallets.Account[] accounts = new NEO.Wallets.Account[entities.length];
         	for (int i = 0; i < accounts.length; i++) {
         		byte[] decryptedPrivateKey = decryptPrivateKey(entities[i].privateKeyEncrypted);
@@ -145,8 +289,8 @@ public class UserWallet extends Wallet implements IUserManager {
     
     @Override
     public NEO.Wallets.Contract[] loadContracts() {
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-        	Contract[] entities = ctx.getContracts();
+        try {
+        	Contract[] entities = context().getContracts();
         	NEO.Wallets.Contract[] contracts = new NEO.Wallets.Contract[entities.length];
         	for (int i = 0; i < contracts.length; i++) {
         		contracts[i] = Serializable.from(entities[i].rawData, NEO.Wallets.Contract.class);
@@ -159,60 +303,55 @@ public class UserWallet extends Wallet implements IUserManager {
 
     @Override
     protected NEO.Wallets.Coin[] loadCoins() {
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-        	Coin[] entities = ctx.getCoins();
-        	NEO.Wallets.Coin[] coins = new NEO.Wallets.Coin[entities.length];
-        	for (int i = 0; i < coins.length; i++) {
-        		coins[i] = new NEO.Wallets.Coin();
-        		coins[i].input = new TransactionInput();
-        		coins[i].input.prevHash = new UInt256(entities[i].txid);
-        		coins[i].input.prevIndex = (short)entities[i].index;
-        		coins[i].assetId = new UInt256(entities[i].assetId);
-        		coins[i].value = new Fixed8(entities[i].value);
-        		coins[i].scriptHash = new UInt160(entities[i].scriptHash);
-        		coins[i].setState(CoinState.values()[entities[i].state]);
-        	}
-        	return coins;
+        Coin[] entities = context().getCoins();
+        NEO.Wallets.Coin[] coins = new NEO.Wallets.Coin[entities.length];
+        for (int i = 0; i < coins.length; i++) {
+        	coins[i] = new NEO.Wallets.Coin();
+        	coins[i].input = new TransactionInput();
+        	coins[i].input.prevHash = new UInt256(entities[i].txid);
+        	coins[i].input.prevIndex = (short)entities[i].index;
+        	coins[i].assetId = new UInt256(entities[i].assetId);
+        	coins[i].value = new Fixed8(entities[i].value);
+        	coins[i].scriptHash = new UInt160(entities[i].scriptHash);
+        	coins[i].setState(CoinState.values()[entities[i].state]);
         }
+        return coins;
     }
 
     @Override
     protected byte[] loadStoredData(String name) {
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-            Key entity = ctx.getKey(name);
-            if (entity == null) return null;
-            return entity.value;
-        }
+        Key entity = context().getKey(name);
+        if (entity == null) return null;
+        return entity.value;
     }
 
     public Map<NEO.Core.Transaction,Integer> LoadTransactions() {
     	Map<NEO.Core.Transaction, Integer> txMap = new HashMap<NEO.Core.Transaction, Integer>();
-    	try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-    		Transaction[] trans  = ctx.getTransaction();
-        	for (int i = 0; i < trans.length; i++) {
-        		try {
-        			byte type = trans[i].type;
-        			if(TransactionType.RegisterTransaction.value() == type) {
-        				NEO.Core.Transaction tx = Serializable.from(trans[i].rawData, NEO.Core.RegisterTransaction.class);
-        				txMap.put(tx, trans[i].height);
-        			} else if(TransactionType.IssueTransaction.value() == type) {
-        				NEO.Core.Transaction tx = Serializable.from(trans[i].rawData, NEO.Core.IssueTransaction.class);
-        				txMap.put(tx, trans[i].height);
-        			} else if(TransactionType.ContractTransaction.value() == type) {
-        				NEO.Core.Transaction tx = Serializable.from(trans[i].rawData, NEO.Core.ContractTransaction.class);
-        				txMap.put(tx, trans[i].height);
-        			}
-				} catch (Exception e) {
-					String errMsg = String.format("Failed to LoadTx,tx.type:%s,height:%s,errMsg:%s",trans[i].type,trans[i].height,e.getMessage());
-					throw new RuntimeException(errMsg, e);
-				}
-        	}
-        	return txMap;
+    	flush();
+    	Transaction[] trans  = context().getTransaction();
+    	for (int i = 0; i < trans.length; i++) {
+    		try {
+    			byte type = trans[i].type;
+    			if(TransactionType.RegisterTransaction.value() == type) {
+    				NEO.Core.Transaction tx = Serializable.from(trans[i].rawData, NEO.Core.RegisterTransaction.class);
+    				txMap.put(tx, trans[i].height);
+    			} else if(TransactionType.IssueTransaction.value() == type) {
+    				NEO.Core.Transaction tx = Serializable.from(trans[i].rawData, NEO.Core.IssueTransaction.class);
+    				txMap.put(tx, trans[i].height);
+    			} else if(TransactionType.ContractTransaction.value() == type) {
+    				NEO.Core.Transaction tx = Serializable.from(trans[i].rawData, NEO.Core.ContractTransaction.class);
+    				txMap.put(tx, trans[i].height);
+    			}
+			} catch (Exception e) {
+				String errMsg = String.format("Failed to LoadTx,tx.type:%s,height:%s,errMsg:%s",trans[i].type,trans[i].height,e.getMessage());
+				throw new RuntimeException(errMsg, e);
+			}
     	}
+    	return txMap;
     }
     
-    private void onCoinsChanged(WalletDataContext ctx, NEO.Wallets.Coin[] added, NEO.Wallets.Coin[] changed, NEO.Wallets.Coin[] deleted) {
-    	ctx.insert(Arrays.stream(added).map(p -> {
+    private void onCoinsChanged(NEO.Wallets.Coin[] added, NEO.Wallets.Coin[] changed, NEO.Wallets.Coin[] deleted) {
+    	for (NEO.Wallets.Coin p : added) {
     		Coin entity = new Coin();
     		entity.txid = p.input.prevHash.toArray();
     		entity.index = Short.toUnsignedInt(p.input.prevIndex);
@@ -221,84 +360,78 @@ public class UserWallet extends Wallet implements IUserManager {
     		entity.scriptHash = p.scriptHash.toArray();
 //    		entity.state = CoinState.Unspent.ordinal();
     		entity.state = p.getState().ordinal();
-    		return entity;
-    	}).toArray(Coin[]::new));
-    	ctx.update(Arrays.stream(changed).map(p -> {
+    		pending.addCoin(p.input, entity);
+    	}
+    	for (NEO.Wallets.Coin p : changed) {
     		Coin entity = new Coin();
     		entity.txid = p.input.prevHash.toArray();
     		entity.index = Short.toUnsignedInt(p.input.prevIndex);
     		entity.state = p.getState().ordinal();
-    		return entity;
-    	}).toArray(Coin[]::new));
-    	ctx.delete(Arrays.stream(deleted).map(p -> {
+    		pending.changeCoin(p.input, entity);
+    	}
+    	for (NEO.Wallets.Coin p : deleted) {
     		Coin entity = new Coin();
     		entity.txid = p.input.prevHash.toArray();
     		entity.index = Short.toUnsignedInt(p.input.prevIndex);
-    		return entity;
-    	}).toArray(Coin[]::new));
+    		pending.deleteCoin(p.input, entity);
+    	}
     }
 
     @Override
     protected void onProcessNewBlock(Block block, NEO.Wallets.Coin[] added, NEO.Wallets.Coin[] changed, NEO.Wallets.Coin[] deleted) {
-    	ArrayList<NEO.Core.Transaction> tx_changed = new ArrayList<NEO.Core.Transaction>();
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-        	ctx.beginTransaction();
-        	// 更新入库tx
-            for (NEO.Core.Transaction tx : block.transactions) {
-            	if (isWalletTransaction(tx)) {
-            		tx_changed.add(tx);
-            		Transaction entity = new Transaction();
-            		entity.hash = tx.hash().toArray();
-            		entity.type = tx.type.value();
-            		entity.rawData = tx.toArray();
-            		entity.height = block.height;
-            		entity.time = new Date(block.timestamp * 1000);
-            		ctx.insertOrUpdate(entity);
-            	}
-            }
-            // 更新入库coin
-            onCoinsChanged(ctx, added, changed, deleted);
-            // 更新入库height
-            if (tx_changed.size() > 0 || added.length > 0 || changed.length > 0 || deleted.length > 0) {
-            	saveStoredData(ctx, "Height", ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(getWalletHeight()).array());
-	            ctx.commit();
-            }
-        }
+    	synchronized (pending) {
+    		// 更新入库tx
+    		for (NEO.Core.Transaction tx : block.transactions) {
+    			if (isWalletTransaction(tx)) {
+    				Transaction entity = new Transaction();
+    				entity.hash = tx.hash().toArray();
+    				entity.type = tx.type.value();
+    				entity.rawData = tx.toArray();
+    				entity.height = block.height;
+    				entity.time = new Date(block.timestamp * 1000);
+    				pending.addTransaction(tx.hash(), entity);
+    			}
+    		}
+    		// 更新入库coin
+    		onCoinsChanged(added, changed, deleted);
+    		// 更新入库height，写入后从下一个区块继续同步
+    		pending.endBlock(block.height + 1);
+    		if (pending.blocks() >= flushBlocks || (flushMillis > 0 && pending.age() >= flushMillis)) {
+    			flush(false);
+    		}
+    	}
     }
 
     @Override
     protected void onSaveTransaction(NEO.Core.Transaction tx, NEO.Wallets.Coin[] added, NEO.Wallets.Coin[] changed) {
-        Transaction tx_changed = null;
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-        	// 更新入库tx
-        	ctx.beginTransaction();
-        	if(tx != null) {
-	        	tx_changed = new Transaction();
-	        	tx_changed.hash = tx.hash().toArray();
-	        	tx_changed.type = tx.type.value();
-	        	tx_changed.rawData = tx.toArray();
-	        	tx_changed.height = -1;
-	        	tx_changed.time = new Date(System.currentTimeMillis());
-	    		ctx.insertOrUpdate(tx_changed);
-        	}
-    		// 更新入库coin
-            onCoinsChanged(ctx, added, changed, new NEO.Wallets.Coin[0]);
-            ctx.commit();
-        }
+    	synchronized (pending) {
+    		// 更新入库tx
+    		if (tx != null) {
+    			Transaction entity = new Transaction();
+    			entity.hash = tx.hash().toArray();
+    			entity.type = tx.type.value();
+    			entity.rawData = tx.toArray();
+    			entity.height = -1;
+    			entity.time = new Date(System.currentTimeMillis());
+    			pending.addTransaction(tx.hash(), entity);
+    		}
+    		// 更新入库coin，与尚未写入的区块变更一起立即写入
+    		onCoinsChanged(added, changed, new NEO.Wallets.Coin[0]);
+    		flush();
+    	}
     }
 
     @Override
     public void rebuild() {
         synchronized (locker) {
+            flush();
             super.rebuild();
         }
     }
 
     @Override
     protected void saveStoredData(String name, byte[] value) {
-        try (WalletDataContext ctx = new WalletDataContext(dbPath())) {
-            saveStoredData(ctx, name, value);
-        }
+        saveStoredData(context(), name, value);
     }
 
     private static void saveStoredData(WalletDataContext ctx, String name, byte[] value) {
@@ -6,8 +6,21 @@ import java.util.*;
 
 import NEO.UInt160;
 
+/**
+ *  钱包数据库的连接
+ *
+ *  同一个钱包文件只打开一个连接，由open()取得、close()释放，最后一个使用者释放时才真正关闭。
+ *  连接使用WAL日志和synchronous=NORMAL，语句在第一次使用时编译并缓存，直到连接关闭。
+ *  所有操作都在同一把锁下执行，transaction()中的多个操作作为一个事务提交。
+ */
 class WalletDataContext implements AutoCloseable {
-	private Connection connection;
+	private static final Map<String, WalletDataContext> contexts = new HashMap<String, WalletDataContext>();
+	
+	private final String key;
+	private final Connection connection;
+	private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+	private int references = 0;
+	private int transactionDepth = 0;
 	
 	static {
 		try {
@@ -17,12 +30,17 @@ class WalletDataContext implements AutoCloseable {
 		}
 	}
 
-    public WalletDataContext(String filename) {
+    private WalletDataContext(String key, String filename) {
+    	this.key = key;
     	File file = new File(filename);
     	boolean creating = !file.exists();
     	filename = filename.replace('\\', '/');
     	try {
     		connection = DriverManager.getConnection("jdbc:sqlite:" + filename);
+    		try (Statement statement = connection.createStatement()) {
+    			statement.execute("PRAGMA journal_mode=WAL");
+    			statement.execute("PRAGMA synchronous=NORMAL");
+    		}
 		} catch (SQLException ex) {
     		throw new RuntimeException(ex);
 		}
@@ -31,34 +49,93 @@ class WalletDataContext implements AutoCloseable {
     	}
     }
     
-    public void beginTransaction() {
-    	try {
-			connection.setAutoCommit(false);
-		} catch (SQLException ex) {
-    		throw new RuntimeException(ex);
-		}
+    /**
+     *  取得钱包文件的连接，文件不存在时创建数据库；使用完后调用close()释放
+     */
+    public static WalletDataContext open(String filename) {
+    	String key = new File(filename).getAbsolutePath();
+    	synchronized (contexts) {
+    		WalletDataContext ctx = contexts.get(key);
+    		if (ctx == null) {
+    			ctx = new WalletDataContext(key, filename);
+    			contexts.put(key, ctx);
+    		}
+    		ctx.references++;
+    		return ctx;
+    	}
     }
     
+    /**
+     *  释放一次open()取得的连接，没有其它使用者时关闭连接和缓存的语句
+     */
     @Override
     public void close() {
-    	try {
-    		connection.close();
-		} catch (SQLException ex) {
-    		throw new RuntimeException(ex);
-		}
+    	synchronized (contexts) {
+    		if (references == 0 || --references > 0) {
+    			return;
+    		}
+    		contexts.remove(key);
+    	}
+    	synchronized (this) {
+    		try {
+    			for (PreparedStatement statement : statements.values()) {
+    				statement.close();
+    			}
+    			statements.clear();
+    			connection.close();
+    		} catch (SQLException ex) {
+    			throw new RuntimeException(ex);
+    		}
+    	}
     }
     
-    public void commit() {
+    /**
+     *  在一个事务中执行，发生异常时回滚；嵌套调用时并入外层事务
+     */
+    public synchronized void transaction(Runnable action) {
+    	if (transactionDepth > 0) {
+    		transactionDepth++;
+    		try {
+    			action.run();
+    		} finally {
+    			transactionDepth--;
+    		}
+    		return;
+    	}
     	try {
-    		connection.commit();
+    		connection.setAutoCommit(false);
+    		transactionDepth = 1;
+    		boolean committed = false;
+    		try {
+    			action.run();
+    			connection.commit();
+    			committed = true;
+    		} finally {
+    			transactionDepth = 0;
+    			if (!committed) {
+    				connection.rollback();
+    			}
+    			connection.setAutoCommit(true);
+    		}
 		} catch (SQLException ex) {
     		throw new RuntimeException(ex);
 		}
     }
+    
+    /**
+     *  取得缓存的语句，第一次使用时编译
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+    	PreparedStatement statement = statements.get(sql);
+    	if (statement == null) {
+    		statement = connection.prepareStatement(sql);
+    		statements.put(sql, statement);
+    	}
+    	return statement;
+    }
 
     private void createModel() {
-    	try {
-			Statement statement = connection.createStatement();
+    	try (Statement statement = connection.createStatement()) {
 			statement.executeUpdate("CREATE TABLE [Key] ([Name] VarChar NOT NULL CONSTRAINT [PK_Key] PRIMARY KEY, [Value] VarBinary NOT NULL)");
 			statement.executeUpdate("CREATE TABLE [Account] ([PrivateKeyEncrypted] VarBinary NOT NULL, [PublicKeyHash] Binary NOT NULL CONSTRAINT [PK_Account] PRIMARY KEY)");
 			statement.executeUpdate("CREATE TABLE [Contract] ([ScriptHash] Binary NOT NULL CONSTRAINT [PK_Contract] PRIMARY KEY, [PublicKeyHash] Binary NOT NULL, [RawData] VarBinary NOT NULL, CONSTRAINT [FK_Contract_Account_PublicKeyHash] FOREIGN KEY ([PublicKeyHash]) REFERENCES [Account] ([PublicKeyHash]) ON DELETE CASCADE)");
@@ -74,12 +151,12 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void delete(Coin[] coins) {
+    public synchronized void delete(Coin[] coins) {
     	if (coins.length == 0) {
     		return;
     	}
     	try {
-    		PreparedStatement statement = connection.prepareStatement("DELETE FROM [Coin] WHERE [TxId] = ? AND [Index] = ?");
+    		PreparedStatement statement = prepare("DELETE FROM [Coin] WHERE [TxId] = ? AND [Index] = ?");
     		for (Coin coin : coins) {
     			statement.setBytes(1, coin.txid);
     			statement.setInt(2, coin.index);
@@ -91,9 +168,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void deleteAccount(UInt160 publicKeyHash) {
+    public synchronized void deleteAccount(UInt160 publicKeyHash) {
     	try {
-    		PreparedStatement statement = connection.prepareStatement("DELETE FROM [Account] WHERE [PublicKeyHash] = ?");
+    		PreparedStatement statement = prepare("DELETE FROM [Account] WHERE [PublicKeyHash] = ?");
     		statement.setBytes(1, publicKeyHash.toArray());
     		statement.executeUpdate();
 		} catch (SQLException ex) {
@@ -101,9 +178,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void deleteContract(UInt160 scriptHash) {
+    public synchronized void deleteContract(UInt160 scriptHash) {
     	try {
-    		PreparedStatement statement = connection.prepareStatement("DELETE FROM [Contract] WHERE [ScriptHash] = ?");
+    		PreparedStatement statement = prepare("DELETE FROM [Contract] WHERE [ScriptHash] = ?");
     		statement.setBytes(1, scriptHash.toArray());
     		statement.executeUpdate();
 		} catch (SQLException ex) {
@@ -111,11 +188,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public Account[] getAccounts() {
-    	try {
+    public synchronized Account[] getAccounts() {
+    	try (ResultSet result = prepare("SELECT * FROM [Account]").executeQuery()) {
     		ArrayList<Account> accounts = new ArrayList<Account>();
-			Statement statement = connection.createStatement();
-			ResultSet result = statement.executeQuery("SELECT * FROM [Account]");
 			while (result.next()) {
 				Account account = new Account();
 				account.privateKeyEncrypted = result.getBytes("PrivateKeyEncrypted");
@@ -128,11 +203,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public Coin[] getCoins() {
-    	try {
+    public synchronized Coin[] getCoins() {
+    	try (ResultSet result = prepare("SELECT * FROM [Coin]").executeQuery()) {
     		ArrayList<Coin> coins = new ArrayList<Coin>();
-			Statement statement = connection.createStatement();
-			ResultSet result = statement.executeQuery("SELECT * FROM [Coin]");
 			while (result.next()) {
 				Coin coin = new Coin();
 				coin.txid = result.getBytes("TxId");
@@ -149,11 +222,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public Contract[] getContracts() {
-    	try {
+    public synchronized Contract[] getContracts() {
+    	try (ResultSet result = prepare("SELECT * FROM [Contract]").executeQuery()) {
     		ArrayList<Contract> contracts = new ArrayList<Contract>();
-			Statement statement = connection.createStatement();
-			ResultSet result = statement.executeQuery("SELECT * FROM [Contract]");
 			while (result.next()) {
 				Contract contract = new Contract();
 				contract.scriptHash = result.getBytes("ScriptHash");
@@ -167,26 +238,25 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public Key getKey(String name) {
+    public synchronized Key getKey(String name) {
     	try {
-    		PreparedStatement statement = connection.prepareStatement("SELECT * FROM [Key] WHERE [Name] = ?");
+    		PreparedStatement statement = prepare("SELECT * FROM [Key] WHERE [Name] = ?");
     		statement.setString(1, name);
-    		ResultSet result = statement.executeQuery();
-			if (!result.next()) return null;
-			Key key = new Key();
-			key.name = result.getString("Name");
-			key.value = result.getBytes("Value");
-			return key;
+    		try (ResultSet result = statement.executeQuery()) {
+    			if (!result.next()) return null;
+    			Key key = new Key();
+    			key.name = result.getString("Name");
+    			key.value = result.getBytes("Value");
+    			return key;
+    		}
 		} catch (SQLException ex) {
     		throw new RuntimeException(ex);
 		}
     }
     
-    public Transaction[] getTransaction() {
-    	try {
+    public synchronized Transaction[] getTransaction() {
+    	try (ResultSet result = prepare("SELECT * FROM [Transaction]").executeQuery()) {
     		ArrayList<Transaction> trans = new ArrayList<Transaction>();
-			Statement statement = connection.createStatement();
-			ResultSet result = statement.executeQuery("SELECT * FROM [Transaction]");
 			while (result.next()) {
 				Transaction tran = new Transaction();
 				tran.hash = result.getBytes("Hash");
@@ -202,12 +272,12 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void insert(Coin[] coins) {
+    public synchronized void insert(Coin[] coins) {
     	if (coins.length == 0) {
     		return;
     	}
     	try {
-    		PreparedStatement statement = connection.prepareStatement("INSERT INTO [Coin] ([TxId], [Index], [AssetId], [ScriptHash], [State], [Value]) VALUES (?, ?, ?, ?, ?, ?)");
+    		PreparedStatement statement = prepare("INSERT OR REPLACE INTO [Coin] ([TxId], [Index], [AssetId], [ScriptHash], [State], [Value]) VALUES (?, ?, ?, ?, ?, ?)");
     		for (Coin coin : coins) {
     			statement.setBytes(1, coin.txid);
     			statement.setInt(2, coin.index);
@@ -223,9 +293,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void insertOrUpdate(Account account) {
+    public synchronized void insertOrUpdate(Account account) {
     	try {
-    		PreparedStatement statement = connection.prepareStatement("INSERT OR REPLACE INTO [Account] ([PublicKeyHash], [PrivateKeyEncrypted]) VALUES (?, ?)");
+    		PreparedStatement statement = prepare("INSERT OR REPLACE INTO [Account] ([PublicKeyHash], [PrivateKeyEncrypted]) VALUES (?, ?)");
     		statement.setBytes(1, account.publicKeyHash);
     		statement.setBytes(2, account.privateKeyEncrypted);
     		statement.executeUpdate();
@@ -234,9 +304,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void insertOrUpdate(Contract contract) {
+    public synchronized void insertOrUpdate(Contract contract) {
     	try {
-    		PreparedStatement statement = connection.prepareStatement("INSERT OR REPLACE INTO [Contract] ([ScriptHash], [PublicKeyHash], [RawData]) VALUES (?, ?, ?)");
+    		PreparedStatement statement = prepare("INSERT OR REPLACE INTO [Contract] ([ScriptHash], [PublicKeyHash], [RawData]) VALUES (?, ?, ?)");
     		statement.setBytes(1, contract.scriptHash);
     		statement.setBytes(2, contract.publicKeyHash);
     		statement.setBytes(3, contract.rawData);
@@ -246,9 +316,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void insertOrUpdate(Key key) {
+    public synchronized void insertOrUpdate(Key key) {
     	try {
-    		PreparedStatement statement = connection.prepareStatement("INSERT OR REPLACE INTO [Key] ([Name], [Value]) VALUES (?, ?)");
+    		PreparedStatement statement = prepare("INSERT OR REPLACE INTO [Key] ([Name], [Value]) VALUES (?, ?)");
     		statement.setString(1, key.name);
     		statement.setBytes(2, key.value);
     		statement.executeUpdate();
@@ -257,9 +327,9 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void insertOrUpdate(Transaction transaction) {
+    public synchronized void insertOrUpdate(Transaction transaction) {
     	try {
-    		PreparedStatement statement = connection.prepareStatement("INSERT OR REPLACE INTO [Transaction] ([Hash], [Height], [RawData], [Time], [Type]) VALUES (?, ?, ?, ?, ?)");
+    		PreparedStatement statement = prepare("INSERT OR REPLACE INTO [Transaction] ([Hash], [Height], [RawData], [Time], [Type]) VALUES (?, ?, ?, ?, ?)");
     		statement.setBytes(1, transaction.hash);
     		if (transaction.height == -1)
     			statement.setNull(2, Types.INTEGER);
@@ -274,20 +344,12 @@ class WalletDataContext implements AutoCloseable {
 		}
     }
     
-    public void rollback() {
-    	try {
-    		connection.rollback();
-		} catch (SQLException ex) {
-    		throw new RuntimeException(ex);
-		}
-    }
-    
-    public void update(Coin[] coins) {
+    public synchronized void update(Coin[] coins) {
     	if (coins.length == 0) {
     		return;
     	}
     	try {
-    		PreparedStatement statement = connection.prepareStatement("UPDATE [Coin] SET [State] = ? WHERE [TxId] = ? AND [Index] = ?");
+    		PreparedStatement statement = prepare("UPDATE [Coin] SET [State] = ? WHERE [TxId] = ? AND [Index] = ?");
     		for (Coin coin : coins) {
     			statement.setInt(1, coin.state);
     			statement.setBytes(2, coin.txid);
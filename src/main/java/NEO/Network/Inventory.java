@@ -7,14 +7,39 @@ import NEO.Cryptography.Digest;
 public abstract class Inventory implements Signable {
     //[NonSerialized]
     private UInt256 _hash = null;
+    //[NonSerialized]
+    private byte[] _hashData = null;
     
     public UInt256 hash() {
         if (_hash == null) {
-			_hash = new UInt256(Digest.hash256(getHashData()));
+			_hash = new UInt256(Digest.hash256(hashData()));
         }
         return _hash;
     }
 
+    /**
+     *  未签名数据只序列化一次，多方签名和计算Hash时共用
+     */
+    @Override
+    public byte[] getHashData() {
+        return hashData().clone();
+    }
+
+    private byte[] hashData() {
+        if (_hashData == null) {
+            _hashData = Signable.super.getHashData();
+        }
+        return _hashData;
+    }
+
+    /**
+     *  修改了未签名部分的字段后调用，清除缓存的Hash和待签名数据
+     */
+    public void invalidateHash() {
+        _hash = null;
+        _hashData = null;
+    }
+
     public abstract InventoryType inventoryType();
 
     public abstract boolean verify();
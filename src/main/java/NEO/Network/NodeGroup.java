@@ -0,0 +1,389 @@
+package NEO.Network;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ *  多个节点组成的节点组
+ *
+ *  读请求发往延迟(EWMA)最低的健康节点，超过该节点延迟的p95仍未返回时向次优节点发送一个对冲请求，先返回者胜出；
+ *  网络错误时依次改用其它节点。写请求先发往首选节点，只有在连接阶段失败(请求一定没有送达)时才改用其它节点，
+ *  请求发出后的错误(例如读超时)直接抛给调用者，以免节点已经接受的交易被重复发送。
+ *  连续失败的节点被暂时剔除，剔除时间从5秒起每次加倍，最长1分钟，期满或健康检查成功后恢复。
+ *  节点返回的业务错误(例如交易不存在)不视为节点故障，直接抛给调用者。
+ *
+ *  @param <N> 节点类型，例如RpcNode、RestNode
+ */
+public class NodeGroup<N> {
+    /**
+     *  对节点的一次调用
+     */
+    public interface Call<N, T> {
+        T call(N node) throws Exception;
+    }
+
+    static final int FAILURES_BEFORE_EJECT = 3;
+    static final long MIN_EJECT_MILLIS = 5000;
+    static final long MAX_EJECT_MILLIS = 60000;
+    private static final int SAMPLE_COUNT = 128;
+    private static final int MIN_SAMPLES_FOR_HEDGE = 8;
+    private static final double EWMA_ALPHA = 0.2;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(daemonFactory("NodeGroup-"));
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemonFactory("NodeGroup.HealthCheck-"));
+
+    private final List<Endpoint> endpoints;
+    private final Predicate<Throwable> transportError;
+    private final Predicate<Throwable> connectError;
+    private volatile int preferred = 0;
+    private volatile boolean hedging = true;
+    private volatile long defaultHedgeDelay = 1000;
+    private ScheduledFuture<?> healthCheck;
+
+    /**
+     *  <param name="nodes">节点列表，第一个为默认的首选节点</param>
+     *  <param name="transportError">判断异常是否为网络错误，只有网络错误才会改用其它节点并计入节点故障</param>
+     */
+    public NodeGroup(List<N> nodes, Predicate<Throwable> transportError) {
+        this(nodes, transportError, NodeGroup::isConnectFailure);
+    }
+
+    /**
+     *  <param name="nodes">节点列表，第一个为默认的首选节点</param>
+     *  <param name="transportError">判断异常是否为网络错误，只有网络错误才会改用其它节点并计入节点故障</param>
+     *  <param name="connectError">判断异常是否发生在请求发出之前，只有这样的错误才会让写请求改用其它节点</param>
+     */
+    public NodeGroup(List<N> nodes, Predicate<Throwable> transportError, Predicate<Throwable> connectError) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        List<Endpoint> list = new ArrayList<Endpoint>();
+        for (int i = 0; i < nodes.size(); i++) {
+            list.add(new Endpoint(nodes.get(i), i));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+        this.transportError = transportError;
+        this.connectError = connectError;
+    }
+
+    /**
+     *  异常或其原因是否为建立连接时的错误：连接被拒绝、主机不存在或不可达、连接超时
+     */
+    public static boolean isConnectFailure(Throwable ex) {
+        for (Throwable p = ex; p != null; p = p.getCause()) {
+            if (p instanceof ConnectException || p instanceof UnknownHostException || p instanceof NoRouteToHostException) {
+                return true;
+            }
+            // HttpURLConnection的连接超时与读超时是同一个异常类型，只能按消息区分
+            if (p instanceof SocketTimeoutException && "connect timed out".equals(p.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    public N node(int index) {
+        return endpoints.get(index).node;
+    }
+
+    /**
+     *  设置写请求的首选节点
+     */
+    public void setPreferred(int index) {
+        if (index < 0 || index >= endpoints.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.preferred = index;
+    }
+
+    /**
+     *  是否发送对冲请求，默认为true
+     */
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     *  节点的延迟样本不足时使用的对冲延迟，单位毫秒
+     */
+    public void setDefaultHedgeDelay(long millis) {
+        this.defaultHedgeDelay = millis;
+    }
+
+    /**
+     *  节点当前是否健康(未被剔除)
+     */
+    public boolean isHealthy(int index) {
+        return endpoints.get(index).isHealthy(System.currentTimeMillis());
+    }
+
+    /**
+     *  节点延迟的指数加权平均值，单位毫秒，还没有成功的请求时为-1
+     */
+    public double latency(int index) {
+        return endpoints.get(index).ewma();
+    }
+
+    /**
+     *  执行读请求
+     *  <param name="call">对节点的调用，可能在多个节点上执行</param>
+     *  <returns>返回最先成功的结果</returns>
+     */
+    public <T> T read(Call<N, T> call) throws Exception {
+        List<Endpoint> order = rank();
+        BlockingQueue<Result<T>> results = new LinkedBlockingQueue<Result<T>>();
+        List<Endpoint> running = new ArrayList<Endpoint>();
+        long start = System.currentTimeMillis();
+        long hedgeAt = -1;
+        int next = 0;
+        Exception last = null;
+        while (true) {
+            if (running.isEmpty()) {
+                if (next >= order.size()) {
+                    throw last;
+                }
+                // 失败后改用的节点同样在其p95延迟后对冲
+                Endpoint endpoint = order.get(next++);
+                submit(endpoint, call, results);
+                running.add(endpoint);
+                hedgeAt = hedging && next < order.size() ? System.currentTimeMillis() + endpoint.hedgeDelay(defaultHedgeDelay) : -1;
+            }
+            Result<T> result;
+            if (hedgeAt >= 0) {
+                long wait = hedgeAt - System.currentTimeMillis();
+                result = wait > 0 ? results.poll(wait, TimeUnit.MILLISECONDS) : null;
+                if (result == null) {
+                    hedgeAt = -1;
+                    Endpoint endpoint = order.get(next++);
+                    submit(endpoint, call, results);
+                    running.add(endpoint);
+                    continue;
+                }
+            } else {
+                result = results.take();
+            }
+            running.remove(result.endpoint);
+            if (result.error == null) {
+                // 被对冲请求超过的节点至少有这么慢，避免它因为没有延迟数据而继续排在前面
+                long elapsed = System.currentTimeMillis() - start;
+                for (Endpoint endpoint : running) {
+                    endpoint.slowerThan(elapsed);
+                }
+                return result.value;
+            }
+            if (result.error instanceof Error) {
+                // Error不是节点的问题，原样抛出，不再尝试其它节点
+                throw (Error)result.error;
+            }
+            if (!(result.error instanceof Exception)) {
+                throw new ExecutionException(result.error);
+            }
+            Exception error = (Exception)result.error;
+            if (!transportError.test(error)) {
+                throw error;
+            }
+            last = error;
+        }
+    }
+
+    /**
+     *  执行写请求，先发往首选节点，连接失败时依次改用其它节点
+     *  <param name="call">对节点的调用</param>
+     */
+    public <T> T write(Call<N, T> call) throws Exception {
+        List<Endpoint> order = rank();
+        Endpoint first = endpoints.get(preferred);
+        if (first.isHealthy(System.currentTimeMillis())) {
+            order.remove(first);
+            order.add(0, first);
+        }
+        Exception last = null;
+        for (Endpoint endpoint : order) {
+            try {
+                return endpoint.execute(call, transportError);
+            } catch (Exception ex) {
+                // 请求可能已经被节点接受，再发往其它节点会重复
+                if (!connectError.test(ex)) {
+                    throw ex;
+                }
+                last = ex;
+            }
+        }
+        throw last;
+    }
+
+    /**
+     *  定期对所有节点执行探测请求，更新延迟并恢复已经正常的节点
+     *  <param name="probe">探测请求，例如查询区块高度</param>
+     *  <param name="interval">间隔</param>
+     *  <param name="unit">时间单位</param>
+     */
+    public synchronized void startHealthCheck(Call<N, ?> probe, long interval, TimeUnit unit) {
+        stopHealthCheck();
+        healthCheck = scheduler.scheduleWithFixedDelay(() -> {
+            for (Endpoint endpoint : endpoints) {
+                executor.execute(() -> {
+                    try {
+                        endpoint.execute(probe, transportError);
+                    } catch (Exception ex) {
+                    }
+                });
+            }
+        }, 0, interval, unit);
+    }
+
+    public synchronized void stopHealthCheck() {
+        if (healthCheck != null) {
+            healthCheck.cancel(false);
+            healthCheck = null;
+        }
+    }
+
+    /**
+     *  健康的节点按延迟从低到高排列，没有延迟数据的节点优先尝试；被剔除的节点排在最后，作为最后的选择
+     */
+    private List<Endpoint> rank() {
+        long now = System.currentTimeMillis();
+        double[] keys = new double[endpoints.size()];
+        for (Endpoint endpoint : endpoints) {
+            keys[endpoint.index] = endpoint.isHealthy(now) ? endpoint.ewma() : Double.MAX_VALUE;
+        }
+        List<Endpoint> list = new ArrayList<Endpoint>(endpoints);
+        list.sort(Comparator.<Endpoint>comparingDouble(p -> keys[p.index]).thenComparingInt(p -> p.index));
+        return list;
+    }
+
+    private <T> void submit(Endpoint endpoint, Call<N, T> call, BlockingQueue<Result<T>> results) {
+        executor.execute(() -> {
+            try {
+                results.add(new Result<T>(endpoint, endpoint.execute(call, transportError), null));
+            } catch (Throwable ex) {
+                // 任何异常都要放入结果，否则read会一直等待
+                results.add(new Result<T>(endpoint, null, ex));
+            }
+        });
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private class Result<T> {
+        final Endpoint endpoint;
+        final T value;
+        final Throwable error;
+
+        Result(Endpoint endpoint, T value, Throwable error) {
+            this.endpoint = endpoint;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    /**
+     *  一个节点及其统计数据
+     */
+    private class Endpoint {
+        final N node;
+        final int index;
+        private double ewma = -1;
+        private final long[] samples = new long[SAMPLE_COUNT];
+        private int sampleCount = 0;
+        private int sampleIndex = 0;
+        private int failures = 0;
+        private long ejectedUntil = 0;
+        private long ejectMillis = MIN_EJECT_MILLIS;
+
+        Endpoint(N node, int index) {
+            this.node = node;
+            this.index = index;
+        }
+
+        <T> T execute(Call<N, T> call, Predicate<Throwable> transportError) throws Exception {
+            long start = System.nanoTime();
+            try {
+                T value = call.call(node);
+                succeeded((System.nanoTime() - start) / 1000000);
+                return value;
+            } catch (Exception ex) {
+                if (transportError.test(ex)) {
+                    failed();
+                } else {
+                    succeeded((System.nanoTime() - start) / 1000000);
+                }
+                throw ex;
+            }
+        }
+
+        synchronized double ewma() {
+            return ewma;
+        }
+
+        synchronized boolean isHealthy(long now) {
+            return now >= ejectedUntil;
+        }
+
+        synchronized long hedgeDelay(long defaultDelay) {
+            if (sampleCount < MIN_SAMPLES_FOR_HEDGE) {
+                return defaultDelay;
+            }
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            return Math.max(sorted[(int)Math.ceil(sorted.length * 0.95) - 1], 1);
+        }
+
+        /**
+         *  请求已经进行了millis毫秒仍未返回，只更新平均延迟，不计入p95样本
+         */
+        synchronized void slowerThan(long millis) {
+            if (ewma < millis) {
+                ewma = ewma < 0 ? millis : EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * ewma;
+            }
+        }
+
+        private synchronized void succeeded(long millis) {
+            ewma = ewma < 0 ? millis : EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * ewma;
+            samples[sampleIndex] = millis;
+            sampleIndex = (sampleIndex + 1) % SAMPLE_COUNT;
+            sampleCount = Math.min(sampleCount + 1, SAMPLE_COUNT);
+            failures = 0;
+            ejectedUntil = 0;
+            ejectMillis = MIN_EJECT_MILLIS;
+        }
+
+        private synchronized void failed() {
+            if (++failures >= FAILURES_BEFORE_EJECT) {
+                ejectedUntil = System.currentTimeMillis() + ejectMillis;
+                ejectMillis = Math.min(ejectMillis * 2, MAX_EJECT_MILLIS);
+                failures = 0;
+            }
+        }
+    }
+}
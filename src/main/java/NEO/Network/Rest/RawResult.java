@@ -0,0 +1,365 @@
+package NEO.Network.Rest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 以流的方式解析节点返回的结果，Result字段的十六进制字符串直接解码为字节，不经过String。
+ *
+ * 与Result相比，一次区块查询不再同时持有响应体、响应字符串、十六进制字符串和字节数组，只保留解码后的字节。
+ * 响应带有Content-Length时按其一半预先分配结果数组，不需要扩容；长度未知时(分块传输)按1.5倍扩容。
+ * Result不是十六进制字符串时(例如错误信息)保存在ResultText中，Result为null。
+ */
+public class RawResult {
+	public String Action;
+	public long Error;
+	public String Desc;
+	public ByteBuffer Result;
+	public String ResultText;
+	public String Version;
+
+	/**
+	 * 作为RestHttp.ResponseHandler使用，可以利用响应的Content-Length
+	 */
+	public static final RestHttp.ResponseHandler<RawResult> HANDLER = new RestHttp.ResponseHandler<RawResult>() {
+		@Override
+		public RawResult handle(InputStream stream) throws IOException {
+			return read(stream);
+		}
+
+		@Override
+		public RawResult handle(InputStream stream, long length) throws IOException {
+			return read(stream, length);
+		}
+	};
+
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private final InputStream stream;
+	private final long length;
+	private final byte[] buffer = new byte[8192];
+	private int position = 0, limit = 0;
+	// 十六进制字符串中首个字母的大小写，0表示还没有出现字母
+	private int letterCase = 0;
+	// 大小写与letterCase不同的字母位置，只在大小写混用时分配
+	private BitSet otherCase;
+
+	private RawResult(InputStream stream, long length) {
+		this.stream = stream;
+		this.length = length;
+	}
+
+	/**
+	 * 从响应体中读取结果
+	 */
+	public static RawResult read(InputStream stream) throws IOException {
+		return read(stream, -1);
+	}
+
+	/**
+	 * 从响应体中读取结果
+	 * 
+	 * @param stream 响应体
+	 * @param length 响应体的字节数，用于预先分配结果数组，未知时为-1
+	 */
+	public static RawResult read(InputStream stream, long length) throws IOException {
+		RawResult result = new RawResult(stream, length);
+		result.readObject();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "Result [Action=" + Action + ", Error=" + Error + ", Desc="
+				+ Desc + ", Result=" + (Result != null ? "<" + Result.remaining() + " bytes>" : ResultText) + ", Version=" + Version + "]";
+	}
+
+	private void readObject() throws IOException {
+		expect('{');
+		int c = next();
+		if (c == '}') {
+			return;
+		}
+		while (true) {
+			if (c != '"') {
+				throw syntaxError(c);
+			}
+			String key = readString();
+			expect(':');
+			int first = next();
+			switch (key) {
+			case "Action":
+				Action = readStringValue(first);
+				break;
+			case "Desc":
+				Desc = readStringValue(first);
+				break;
+			case "Version":
+				Version = readStringValue(first);
+				break;
+			case "Error":
+				Error = readLong(first);
+				break;
+			case "Result":
+				if (first == '"') {
+					readHex();
+				} else {
+					skipValue(first);
+				}
+				break;
+			default:
+				skipValue(first);
+				break;
+			}
+			c = next();
+			if (c == '}') {
+				return;
+			}
+			if (c != ',') {
+				throw syntaxError(c);
+			}
+			c = next();
+		}
+	}
+
+	/**
+	 * 读取十六进制字符串，每两个字符直接写入结果数组
+	 */
+	private void readHex() throws IOException {
+		// 十六进制字符串不会超过响应体的长度，解码后的字节数不超过其一半
+		byte[] bytes = new byte[length > 0 ? (int)Math.max(Math.min(length / 2, MAX_ARRAY_SIZE), 16) : 4096];
+		int count = 0;
+		while (true) {
+			int high = read();
+			if (high == '"') {
+				Result = ByteBuffer.wrap(bytes, 0, count);
+				return;
+			}
+			int low = read();
+			int h = Character.digit(high, 16), l = Character.digit(low, 16);
+			if (h < 0 || l < 0) {
+				// 不是十六进制，还原已读的字符后按普通字符串读取剩余部分
+				StringBuilder sb = new StringBuilder(count * 2 + 16);
+				for (int i = 0; i < count; i++) {
+					sb.append(hexChar((bytes[i] >> 4) & 0xf, i * 2)).append(hexChar(bytes[i] & 0xf, i * 2 + 1));
+				}
+				unread(2);
+				ResultText = sb.append(readString()).toString();
+				return;
+			}
+			if (h > 9) {
+				recordCase(high, count * 2);
+			}
+			if (l > 9) {
+				recordCase(low, count * 2 + 1);
+			}
+			if (count == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length + (bytes.length >> 1));
+			}
+			bytes[count++] = (byte)((h << 4) | l);
+		}
+	}
+
+	/**
+	 * 记录十六进制字母的大小写，以便不是十六进制时按原样还原
+	 */
+	private void recordCase(int c, int index) {
+		int current = c < 'a' ? 'A' : 'a';
+		if (letterCase == 0) {
+			letterCase = current;
+		} else if (current != letterCase) {
+			if (otherCase == null) {
+				otherCase = new BitSet();
+			}
+			otherCase.set(index);
+		}
+	}
+
+	private char hexChar(int digit, int index) {
+		if (digit < 10) {
+			return (char)('0' + digit);
+		}
+		int base = otherCase != null && otherCase.get(index) ? 'A' + 'a' - letterCase : letterCase;
+		return (char)(base + digit - 10);
+	}
+
+	private String readStringValue(int first) throws IOException {
+		if (first == '"') {
+			return readString();
+		}
+		if (first == 'n') {
+			expectLiteral("ull");
+			return null;
+		}
+		// 数字等其它简单值按原文保存
+		StringBuilder sb = new StringBuilder();
+		sb.appendCodePoint(first);
+		sb.append(readToken());
+		return sb.toString();
+	}
+
+	private long readLong(int first) throws IOException {
+		String token = (char)first + readToken();
+		try {
+			return (long)Double.parseDouble(token);
+		} catch (NumberFormatException ex) {
+			throw new IOException("Invalid number: " + token);
+		}
+	}
+
+	/**
+	 * 读取字符串的剩余部分，起始的引号已经读取
+	 */
+	private String readString() throws IOException {
+		byte[] bytes = new byte[64];
+		int count = 0;
+		StringBuilder sb = null;
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				break;
+			}
+			if (c == '\\') {
+				// 遇到转义时先把已读的UTF-8字节转换为字符
+				if (sb == null) {
+					sb = new StringBuilder();
+				}
+				sb.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+				count = 0;
+				c = read();
+				switch (c) {
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					int code = 0;
+					for (int i = 0; i < 4; i++) {
+						int d = Character.digit(read(), 16);
+						if (d < 0) {
+							throw new IOException("Invalid escape");
+						}
+						code = (code << 4) | d;
+					}
+					sb.append((char)code);
+					break;
+				default:
+					sb.append((char)c);
+					break;
+				}
+				continue;
+			}
+			if (count == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length << 1);
+			}
+			bytes[count++] = (byte)c;
+		}
+		String tail = new String(bytes, 0, count, StandardCharsets.UTF_8);
+		return sb == null ? tail : sb.append(tail).toString();
+	}
+
+	/**
+	 * 读取数字或true/false/null的剩余部分
+	 */
+	private String readToken() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			int c = read();
+			if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+				unread(1);
+				return sb.toString();
+			}
+			sb.append((char)c);
+		}
+	}
+
+	private void skipValue(int first) throws IOException {
+		if (first == '"') {
+			skipString();
+			return;
+		}
+		if (first != '{' && first != '[') {
+			readToken();
+			return;
+		}
+		int depth = 1;
+		while (depth > 0) {
+			int c = read();
+			if (c == '"') {
+				skipString();
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				depth--;
+			}
+		}
+	}
+
+	private void skipString() throws IOException {
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				return;
+			}
+			if (c == '\\') {
+				read();
+			}
+		}
+	}
+
+	private void expect(char expected) throws IOException {
+		int c = next();
+		if (c != expected) {
+			throw syntaxError(c);
+		}
+	}
+
+	private void expectLiteral(String rest) throws IOException {
+		for (int i = 0; i < rest.length(); i++) {
+			int c = read();
+			if (c != rest.charAt(i)) {
+				throw syntaxError(c);
+			}
+		}
+	}
+
+	private static IOException syntaxError(int c) {
+		return new IOException("Invalid JSON: unexpected " + (c < 0 ? "end of stream" : "'" + (char)c + "'"));
+	}
+
+	/**
+	 * 跳过空白后读取一个字节
+	 */
+	private int next() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c == ' ' || c == '\t' || c == '\r' || c == '\n');
+		return c;
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			// 保留最后两个字节以便unread
+			int keep = Math.min(limit, 2);
+			System.arraycopy(buffer, limit - keep, buffer, 0, keep);
+			int n = stream.read(buffer, keep, buffer.length - keep);
+			if (n <= 0) {
+				throw new EOFException();
+			}
+			position = keep;
+			limit = keep + n;
+		}
+		return buffer[position++] & 0xff;
+	}
+
+	private void unread(int count) {
+		position -= count;
+	}
+}
@@ -29,7 +29,8 @@ public class RestClient {
 		} catch (KeyManagementException | NoSuchAlgorithmException
 				| NoSuchProviderException | IOException e) {
 			e.printStackTrace();
-			throw new RestException("Invalid url:"+e.getMessage());
+			// 保留原因，RestNodeGroup据此判断交易是否可能已经发出
+			throw new RestException("Invalid url:"+e.getMessage(), e);
 		}
 	}
 	
@@ -46,6 +47,21 @@ public class RestClient {
 		}
 	}
 	
+	/**
+	 * 以流的方式读取交易，Result为交易的字节
+	 */
+	public RawResult getTransactionRaw(String authType, String accessToken, String txid) throws RestException {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("auth_type", authType);
+		params.put("access_token", accessToken);
+		params.put("raw", "1");
+		try {
+			return RestHttp.get(url + Consts.Url_get_transaction + txid, params, RawResult.HANDLER);
+		} catch (IOException e) {
+			throw new RestException("Invalid url:"+e.getMessage());
+		}
+	}
+	
 	public String getAsset(String authType, String accessToken, String assetid) throws RestException {
 		Map<String, String> params = new HashMap<String, String>();
 		params.put("auth_type", authType);
@@ -83,6 +99,33 @@ public class RestClient {
 		}
 	}
 	
+	/**
+	 * 以流的方式读取区块，Result为区块的字节
+	 */
+	public RawResult getBlockRaw(String authType, String accessToken, int height) throws RestException {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("auth_type", authType);
+		params.put("access_token", accessToken);
+		params.put("raw", "1");
+		try {
+			return RestHttp.get(url + Consts.Url_get_block_By_Height + height, params, RawResult.HANDLER);
+		} catch (IOException e) {
+			throw new RestException("Invalid url:"+e.getMessage());
+		}
+	}
+	
+	public RawResult getBlockRaw(String authType, String accessToken, String hash) throws RestException {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("auth_type", authType);
+		params.put("access_token", accessToken);
+		params.put("raw", "1");
+		try {
+			return RestHttp.get(url + Consts.Url_get_block_By_Hash + hash, params, RawResult.HANDLER);
+		} catch (IOException e) {
+			throw new RestException("Invalid url:"+e.getMessage());
+		}
+	}
+	
 	public String getBlock(String authType, String accessToken, String hash) throws RestException {
 		Map<String, String> params = new HashMap<String, String>();
 		params.put("auth_type", authType);
@@ -163,6 +206,15 @@ public class RestClient {
 	}
 	
 	
+	public RawResult getBlockFromDbRaw(int height) throws RestException {
+		try {
+			return RestHttp.get(url + Consts.Url_get_block + height, null, RawResult.HANDLER);
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new RestException("Invalid url:"+e.getMessage());
+		}
+	}
+	
 	public String sendToIssService(String data) throws RestException {
 		try {
 			return RestHttp.post(url + Consts.Url_send_to_issService, data);
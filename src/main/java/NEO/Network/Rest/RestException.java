@@ -6,4 +6,8 @@ public class RestException extends Exception {
 	public RestException(String message) {
 		super(message);
 	}
+
+	public RestException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
\ No newline at end of file
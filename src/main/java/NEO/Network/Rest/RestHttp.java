@@ -1,15 +1,15 @@
 package NEO.Network.Rest;
 
-import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -19,6 +19,14 @@ import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
@@ -31,133 +39,291 @@ import com.alibaba.fastjson.JSON;
 /**
  * Rest Http 连接类
  * 
+ * 所有请求共用JDK的keep-alive连接缓存：响应体读完后不调用disconnect()，连接会被放回缓存复用；
+ * https请求共用同一个SSLSocketFactory，因此可以复用TLS会话。每个主机同时进行的请求数受maxConnections限制。
+ * 异步请求提交到共用的后台线程池中执行，同时进行的异步请求数同样不超过maxConnections，其余请求排队等待，不占用线程。
+ * 缓存中每个主机保留的空闲连接数由JDK的系统属性http.maxConnections决定(默认5)，这里不修改，需要时由应用程序自行设置。
+ * 
  * @author 12146
  *
  */
 public class RestHttp {
     private static final String DEFAULT_CHARSET = "UTF-8";
-    
+    /**
+     * 超过此大小的读缓冲区用完后不保留
+     */
+    private static final int MAX_RETAINED_BUFFER = 8 << 20;
+
+    /**
+     * POST和GET请求默认的连接超时和读超时，单位毫秒
+     */
+    public static final int POST_TIMEOUT = 10000;
+    public static final int GET_TIMEOUT = 50000;
+
+    // 小于0时使用每个请求自己的超时
+    private static volatile int connectTimeout = -1;
+    private static volatile int readTimeout = -1;
+    private static volatile int maxConnections = 8;
+    private static final Map<String, HostLimit> hosts = new ConcurrentHashMap<String, HostLimit>();
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[8192]);
+    private static SSLSocketFactory sslSocketFactory;
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * 每个主机的并发限制，可以调整大小；调小时正在进行的请求不受影响，释放后才允许新的请求
+     */
+    private static final class HostLimit extends Semaphore {
+        private static final long serialVersionUID = 1L;
+        private int max;
+
+        HostLimit(int max) {
+            super(max);
+            this.max = max;
+        }
+
+        synchronized void resize(int newMax) {
+            if (newMax > max) {
+                release(newMax - max);
+            } else if (newMax < max) {
+                reducePermits(max - newMax);
+            }
+            max = newMax;
+        }
+
+        synchronized int max() {
+            return max;
+        }
+    }
+
+    /**
+     * 处理响应体
+     */
+    public interface ResponseHandler<T> {
+        T handle(InputStream stream) throws IOException;
+
+        /**
+         * 响应头带有Content-Length时可据此预先分配内存
+         * 
+         * @param stream 响应体
+         * @param length 响应头中的Content-Length，未知时为-1
+         */
+        default T handle(InputStream stream, long length) throws IOException {
+            return handle(stream);
+        }
+    }
+
+    /**
+     * 设置每个主机同时进行的最大请求数，以及后台线程池的线程数
+     */
+    public static void setMaxConnections(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException();
+        }
+        maxConnections = max;
+        // 调整已有的限制，而不是替换：正在进行的请求仍然占用原来的许可
+        for (HostLimit limit : hosts.values()) {
+            limit.resize(max);
+        }
+        synchronized (RestHttp.class) {
+            if (executor != null) {
+                if (max > executor.getMaximumPoolSize()) {
+                    executor.setMaximumPoolSize(max);
+                    executor.setCorePoolSize(max);
+                } else {
+                    executor.setCorePoolSize(max);
+                    executor.setMaximumPoolSize(max);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在后台线程池中执行阻塞的请求
+     * 
+     * @param task 要执行的请求，抛出的异常包装为CompletionException
+     * @return 请求结果
+     */
+    public static <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        executor().execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 设置所有请求的连接超时和读超时，单位毫秒，0表示不超时；小于0时恢复每个请求自己的超时
+     * (POST为POST_TIMEOUT，GET为GET_TIMEOUT，RpcClient不超时)
+     */
+    public static void setTimeouts(int connect, int read) {
+        connectTimeout = connect;
+        readTimeout = read;
+    }
+
+    /**
+     * 发送请求并由handler读取响应体，超时使用请求方法的默认值
+     */
+    public static <T> T execute(String method, String url, byte[] body, ResponseHandler<T> handler) throws IOException {
+        return execute(method, url, body, "GET".equals(method) ? GET_TIMEOUT : POST_TIMEOUT, handler);
+    }
+
+    /**
+     * 发送请求并由handler读取响应体，handler未读完的数据会被丢弃，以便连接可以复用
+     * 
+     * @param method 请求方法
+     * @param url
+     * @param body 请求体，为null时不发送
+     * @param timeout 连接超时和读超时，单位毫秒，0表示不超时；setTimeouts设置的值优先
+     * @param handler
+     * @return handler的返回值
+     * @throws IOException
+     */
+    public static <T> T execute(String method, String url, byte[] body, int timeout, ResponseHandler<T> handler) throws IOException {
+        URL u = new URL(url);
+        HostLimit permits = hosts.computeIfAbsent(u.getHost() + ":" + u.getPort(), p -> new HostLimit(maxConnections));
+        int max = maxConnections;
+        if (permits.max() != max) {
+            // 与setMaxConnections同时创建的限制可能使用了旧的值
+            permits.resize(max);
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        try {
+            HttpURLConnection http = (HttpURLConnection) u.openConnection();
+            int connect = connectTimeout, read = readTimeout;
+            http.setConnectTimeout(connect < 0 ? timeout : connect);
+            http.setReadTimeout(read < 0 ? timeout : read);
+            http.setRequestMethod(method);
+            http.setRequestProperty("Content-Type","application/json");
+            if (http instanceof HttpsURLConnection) {
+                ((HttpsURLConnection)http).setSSLSocketFactory(sslSocketFactory());
+            }
+            if (body != null) {
+                http.setDoOutput(true);
+                http.setFixedLengthStreamingMode(body.length);
+                try (OutputStream out = http.getOutputStream()) {
+                    out.write(body);
+                }
+            }
+            int code = http.getResponseCode();
+            if (code >= 400) {
+                try (InputStream es = http.getErrorStream()) {
+                    drain(es);
+                }
+                throw new IOException("Server returned HTTP response code: " + code + " for URL: " + url);
+            }
+            try (InputStream is = http.getInputStream()) {
+                T result = handler.handle(is, http.getContentLengthLong());
+                drain(is);
+                return result;
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 以字节形式读取完整的响应体，读缓冲区按线程复用
+     */
+    public static String readString(InputStream stream) throws IOException {
+        byte[] buffer = buffers.get();
+        int count = 0;
+        int n;
+        while ((n = stream.read(buffer, count, buffer.length - count)) != -1) {
+            count += n;
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+        }
+        buffers.set(buffer.length > MAX_RETAINED_BUFFER ? new byte[8192] : buffer);
+        return new String(buffer, 0, count, DEFAULT_CHARSET);
+    }
+
     /**
      * Post请求
      * 
      * @param url
      * @param params
-     * @param https
+     * @param https 保留参数，是否使用https由url决定
      * @return
      * @throws IOException
      * @throws NoSuchAlgorithmException
      * @throws NoSuchProviderException
      * @throws KeyManagementException
      */
+    /**
+     * @deprecated https参数不再使用，是否使用https由url的协议决定，请使用post(url, body)
+     */
+    @Deprecated
     public static String post(String url, String body, boolean https) throws IOException, NoSuchAlgorithmException, NoSuchProviderException, KeyManagementException {
-    	// 创建链接
-    	URL u = new URL(url);
-        HttpURLConnection http = (HttpURLConnection) u.openConnection();
-        // 连接超时
-        http.setConnectTimeout(10000);
-        http.setReadTimeout(10000);
-        http.setRequestMethod("POST");
-        http.setRequestProperty("Content-Type","application/json");
-        if(https) {
-            SSLContext sslContext = SSLContext.getInstance("SSL", "SunJSSE");
-            sslContext.init(null, new TrustManager[]{new MyX509TrustManager()}, new SecureRandom());
-            SSLSocketFactory ssf = sslContext.getSocketFactory();
-            ((HttpsURLConnection)http).setSSLSocketFactory(ssf);
-        }
-        http.setDoOutput(true);
-        http.setDoInput(true);
-        http.connect();
-        // 写入参数
-        try (OutputStream out = http.getOutputStream()) {
-	        out.write(body.getBytes(DEFAULT_CHARSET));
-	        out.flush();
-        }
-        // 获取返回
-        StringBuilder sb = new StringBuilder();
-        try (InputStream is = http.getInputStream()) {
-        	try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, DEFAULT_CHARSET))) {
-        		String str = null;
-        		while((str = reader.readLine()) != null) {
-        			sb.append(str);str = null;
-        		}
-        	}
-        }
-        // 关闭链接
-        if (http != null) {
-            http.disconnect();
-        }
-        return sb.toString();
+        return post(url, body);
     }
     
     public static String post(String url, String body) throws IOException, NoSuchAlgorithmException, NoSuchProviderException, KeyManagementException {
 //    	System.out.println(String.format("POST url=%s, body=%s", url, body));
-    	if(url.startsWith("https")){
-    		return post(url, body, true);
-    	}else{
-    		return post(url, body, false);
-    	}
+        return execute("POST", url, body.getBytes(DEFAULT_CHARSET), RestHttp::readString);
     }
     public static String post(String url, Map<String, String> params, Map<String, String> body) throws IOException, NoSuchAlgorithmException, NoSuchProviderException, KeyManagementException {
     	return post(url+initParams(params), JSON.toJSONString(body));
     }
 
-    /**
-     * Get请求
-     * 
-     * @param url
-     * @param https
-     * @return
-     * @throws NoSuchAlgorithmException
-     * @throws NoSuchProviderException
-     * @throws IOException
-     * @throws KeyManagementException
-     */
-    private static String get(String url /*,String body*/ ,boolean https) throws NoSuchAlgorithmException, NoSuchProviderException, IOException, KeyManagementException {
-    	// 创建链接
-    	URL u = new URL(url);
-        HttpURLConnection http = (HttpURLConnection) u.openConnection();
-        // 连接超时
-        http.setConnectTimeout(50000);
-        http.setReadTimeout(50000);
-        http.setRequestMethod("GET");
-        http.setRequestProperty("Content-Type","application/json");
-        if(https) {
-            SSLContext sslContext = SSLContext.getInstance("SSL", "SunJSSE");
-            sslContext.init(null, new TrustManager[]{new MyX509TrustManager()}, new SecureRandom());
-            SSLSocketFactory ssf = sslContext.getSocketFactory();
-            ((HttpsURLConnection)http).setSSLSocketFactory(ssf);
-        }
-        http.setDoOutput(true);
-        http.setDoInput(true);
-        http.connect();
-        // 获取返回
-        StringBuilder sb = new StringBuilder();
-        try (InputStream is = http.getInputStream()) {
-        	try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, DEFAULT_CHARSET))) {
-        		String str = null;
-        		while((str = reader.readLine()) != null) {
-        			sb.append(str);str = null;
-        		}
-        	}
-        }
-        // 关闭链接
-        if (http != null) {
-            http.disconnect();
-        }
-        return sb.toString();
-    }
     public static String get(String url/*,String body*/) throws KeyManagementException, NoSuchAlgorithmException, NoSuchProviderException, IOException {
 //    	System.out.println(String.format(" GET url=%s, params=%s", url, null));
-    	if(url.startsWith("https")){
-    		return get(url, true);
-        }else{
-        	return get(url, false);
-        }
+    	return execute("GET", url, null, RestHttp::readString);
     }
     
     public static String get(String url, Map<String, String> params/*, Map<String, String> body*/) throws KeyManagementException, NoSuchAlgorithmException, NoSuchProviderException, IOException {
     	return get(url+initParams(params));
     }
+
+    /**
+     * Get请求，由handler直接读取响应体
+     */
+    public static <T> T get(String url, Map<String, String> params, ResponseHandler<T> handler) throws IOException {
+    	return execute("GET", url+initParams(params), null, handler);
+    }
+
+    private static synchronized SSLSocketFactory sslSocketFactory() throws IOException {
+        if (sslSocketFactory == null) {
+            try {
+                SSLContext sslContext = SSLContext.getInstance("SSL", "SunJSSE");
+                sslContext.init(null, new TrustManager[]{new MyX509TrustManager()}, new SecureRandom());
+                sslSocketFactory = sslContext.getSocketFactory();
+            } catch (GeneralSecurityException ex) {
+                throw new IOException(ex);
+            }
+        }
+        return sslSocketFactory;
+    }
+
+    private static synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            executor = new ThreadPoolExecutor(maxConnections, maxConnections, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread thread = new Thread(r, "RestHttp-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private static void drain(InputStream stream) throws IOException {
+        if (stream == null) {
+            return;
+        }
+        byte[] buffer = buffers.get();
+        while (stream.read(buffer) != -1);
+    }
     
     /**
      * 拼接Get参数
@@ -2,12 +2,15 @@ package NEO.Network.Rest;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.alibaba.fastjson.JSON;
 
 import NEO.Helper;
+import NEO.UInt256;
 import NEO.Core.Block;
 import NEO.Core.Transaction;
+import NEO.IO.BinaryReader;
 import NEO.IO.Serializable;
 import NEO.sdk.info.asset.UTXO2Info;
 import NEO.sdk.info.asset.UTXOInfo;
@@ -46,11 +49,10 @@ public class RestNode {
 	}
 	
 	public Transaction getRawTransaction(String txid) throws RestException {
-		String rs = restClient.getTransaction(authType, accessToken, txid);	// DNA-195
-		Result rr = JSON.parseObject(rs, Result.class);
-		if(rr.Error == 0) {
-			try {
-				return Transaction.deserializeFrom(Helper.hexToBytes(rr.Result));
+		RawResult rr = restClient.getTransactionRaw(authType, accessToken, txid);	// DNA-195
+		if(rr.Error == 0 && rr.Result != null) {
+			try (BinaryReader reader = new BinaryReader(rr.Result)) {
+				return Transaction.deserializeFrom(reader);
 			} catch (IOException e) {
 				throw new RestRuntimeException("Transaction.fromJsonD(txid) failed", e);
 			}
@@ -77,26 +79,24 @@ public class RestNode {
 		
 	}
 	public Block getBlock(int height) throws RestException {
-		String rs = restClient.getBlock(authType, accessToken, height);
-		Result rr = JSON.parseObject(rs, Result.class);
-		if(rr.Error != 0) {
+		RawResult rr = restClient.getBlockRaw(authType, accessToken, height);
+		if(rr.Error != 0 || rr.Result == null) {
 			throw new RestRuntimeException(rr.toString());
 		}
 		try {
-			return Serializable.from(NEO.Helper.hexToBytes(rr.Result), Block.class);
+			return Serializable.from(rr.Result, Block.class);
 		} catch (InstantiationException | IllegalAccessException e) {
 			throw new RestRuntimeException("Block.deserialize(height) failed", e);
 		}
 	}
 		
 	public Block getBlock(String hash) throws RestException {
-		String rs = restClient.getBlock(authType, accessToken, hash);
-		Result rr = JSON.parseObject(rs, Result.class);
-		if(rr.Error != 0) {
+		RawResult rr = restClient.getBlockRaw(authType, accessToken, hash);
+		if(rr.Error != 0 || rr.Result == null) {
 			throw new RestRuntimeException(rr.toString());
 		}
 		try {
-			return Serializable.from(NEO.Helper.hexToBytes(rr.Result), Block.class);
+			return Serializable.from(rr.Result, Block.class);
 		} catch (InstantiationException | IllegalAccessException e) {
 			throw new RestRuntimeException("Block.deserialize(hash) failed", e);
 		}
@@ -129,6 +129,39 @@ public class RestNode {
 		throw new RestRuntimeException(rr.toString());
 	}
 	
+	// 异步接口：在RestHttp的后台线程池中执行对应的同步请求，同时进行的请求数受RestHttp.setMaxConnections限制
+	public CompletableFuture<Boolean> sendRawTransactionAsync(String data) {
+		return RestHttp.submit(() -> sendRawTransaction(data));
+	}
+	
+	public CompletableFuture<Boolean> sendRawTransactionAsync(Transaction tx) {
+		return sendRawTransactionAsync(Helper.toHexString(tx.toArray()));
+	}
+	
+	public CompletableFuture<Transaction> getRawTransactionAsync(String txid) {
+		return RestHttp.submit(() -> getRawTransaction(txid));
+	}
+	
+	public CompletableFuture<Transaction> getRawTransactionAsync(UInt256 txid) {
+		return getRawTransactionAsync(txid.toString());
+	}
+	
+	public CompletableFuture<Integer> getBlockHeightAsync() {
+		return RestHttp.submit(this::getBlockHeight);
+	}
+	
+	public CompletableFuture<Block> getBlockAsync(int height) {
+		return RestHttp.submit(() -> getBlock(height));
+	}
+	
+	public CompletableFuture<Block> getBlockAsync(String hash) {
+		return RestHttp.submit(() -> getBlock(hash));
+	}
+	
+	public CompletableFuture<List<UTXOInfo>> getUTXOsAsync(String address, String assetid) {
+		return RestHttp.submit(() -> getUTXOs(address, assetid));
+	}
+	
 	public String getStateUpdate(String namespace, String key) throws RestException {
 		String rs = restClient.getStateUpdate(authType, accessToken, namespace, key);
 		Result rr = JSON.parseObject(rs, Result.class);
@@ -148,13 +181,12 @@ public class RestNode {
 		throw new RestRuntimeException(rr.toString());
 	}
 	public Block getBlockFromDb(int height) throws RestException {
-		String rs = restClient.getBlockFromDb(height);
-		Result4Block rr = JSON.parseObject(rs, Result4Block.class);
-		if(rr.Error != 0) {
+		RawResult rr = restClient.getBlockFromDbRaw(height);
+		if(rr.Error != 0 || rr.Result == null) {
 			throw new RestRuntimeException(rr.toString());
 		}
 		try {
-			return Serializable.from(NEO.Helper.hexToBytes(rr.Result), Block.class);
+			return Serializable.from(rr.Result, Block.class);
 		} catch (InstantiationException | IllegalAccessException e) {
 			throw new RestRuntimeException("Block.deserialize(hash) failed", e);
 		}
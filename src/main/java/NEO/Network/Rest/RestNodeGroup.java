@@ -0,0 +1,128 @@
+package NEO.Network.Rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import NEO.Core.Block;
+import NEO.Core.Transaction;
+import NEO.Network.NodeGroup;
+import NEO.sdk.info.asset.UTXO2Info;
+import NEO.sdk.info.asset.UTXOInfo;
+
+/**
+ * 由多个REST节点组成的节点，查询按延迟路由到最快的节点并发送对冲请求，发送交易使用首选节点，无法连接时自动切换。
+ * RestException表示网络错误，RestRuntimeException表示节点返回的错误，后者不会切换节点。
+ * 未重写的接口只使用第一个节点。
+ */
+public class RestNodeGroup extends RestNode {
+	private final NodeGroup<RestNode> group;
+
+	/**
+	 * <param name="accessToken">所有节点共用的访问令牌</param>
+	 * <param name="urls">节点地址，第一个为发送交易的首选节点</param>
+	 */
+	public RestNodeGroup(String accessToken, String... urls) {
+		super(urls[0].trim(), accessToken);
+		List<RestNode> nodes = new ArrayList<RestNode>();
+		for (String url : urls) {
+			nodes.add(new RestNode(url.trim(), accessToken));
+		}
+		this.group = new NodeGroup<RestNode>(nodes, ex -> ex instanceof RestException);
+	}
+
+	public NodeGroup<RestNode> group() {
+		return group;
+	}
+
+	/**
+	 * 定期查询各节点的区块高度，更新延迟并恢复已经正常的节点
+	 */
+	public void startHealthCheck(long interval, TimeUnit unit) {
+		group.startHealthCheck(RestNode::getBlockHeight, interval, unit);
+	}
+
+	public void stopHealthCheck() {
+		group.stopHealthCheck();
+	}
+
+	@Override
+	public void setAccessToken(String accessToken) {
+		super.setAccessToken(accessToken);
+		// 父类构造函数调用时group还未创建
+		if (group != null) {
+			for (int i = 0; i < group.size(); i++) {
+				group.node(i).setAccessToken(accessToken);
+			}
+		}
+	}
+
+	@Override
+	public void setAuthType(String authType) {
+		super.setAuthType(authType);
+		for (int i = 0; i < group.size(); i++) {
+			group.node(i).setAuthType(authType);
+		}
+	}
+
+	@Override
+	public boolean sendRawTransaction(String data) throws RestException {
+		try {
+			return group.write(p -> p.sendRawTransaction(data));
+		} catch (RestException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException(e.toString());
+		}
+	}
+
+	@Override
+	public Transaction getRawTransaction(String txid) throws RestException {
+		return read(p -> p.getRawTransaction(txid));
+	}
+
+	@Override
+	public String getAsset(String assetid) throws RestException {
+		return read(p -> p.getAsset(assetid));
+	}
+
+	@Override
+	public int getBlockHeight() throws RestException {
+		return read(RestNode::getBlockHeight);
+	}
+
+	@Override
+	public Block getBlock(int height) throws RestException {
+		return read(p -> p.getBlock(height));
+	}
+
+	@Override
+	public Block getBlock(String hash) throws RestException {
+		return read(p -> p.getBlock(hash));
+	}
+
+	@Override
+	public List<UTXOInfo> getUTXOs(String address, String assetid) throws RestException {
+		return read(p -> p.getUTXOs(address, assetid));
+	}
+
+	@Override
+	public List<UTXO2Info> getUTXO(String address) throws RestException {
+		return read(p -> p.getUTXO(address));
+	}
+
+	@Override
+	public long getBalance(String address) throws RestException {
+		return read(p -> p.getBalance(address));
+	}
+
+	private <T> T read(NodeGroup.Call<RestNode, T> call) throws RestException {
+		try {
+			return group.read(call);
+		} catch (RestException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException(e.toString());
+		}
+	}
+}
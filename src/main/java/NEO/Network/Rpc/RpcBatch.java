@@ -0,0 +1,133 @@
+package NEO.Network.Rpc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import NEO.IO.Json.*;
+
+/**
+ *  JSON-RPC 2.0批量调用
+ *
+ *  多个调用放在一个数组中通过一次HTTP请求发送，服务器返回的结果可能乱序，按id与请求对应。
+ *  每个调用单独成功或失败，失败的调用在get时抛出RpcException。
+ */
+public class RpcBatch
+{
+	private final RpcClient rpc;
+	private final JArray requests = new JArray();
+	private final Map<Long, Integer> indexes = new HashMap<Long, Integer>();
+	private JObject[] results;
+	private RpcException[] errors;
+	
+	RpcBatch(RpcClient rpc)
+	{
+		this.rpc = rpc;
+	}
+	
+	/**
+	 *  添加一个调用
+	 *  <param name="method">方法名</param>
+	 *  <param name="params">参数</param>
+	 *  <returns>返回该调用在批量中的位置，用于取得结果</returns>
+	 */
+	public int add(String method, JObject ...params)
+	{
+		if (results != null)
+			throw new IllegalStateException();
+		JObject request = rpc.makeRequest(method, params);
+		indexes.put((long)request.get("id").asNumber(), requests.size());
+		requests.add(request);
+		return requests.size() - 1;
+	}
+	
+	public int size()
+	{
+		return requests.size();
+	}
+	
+	/**
+	 *  发送所有调用
+	 *  @throws RpcException 服务器拒绝了整个批量请求
+	 *  @throws IOException 网络错误或服务器返回的数据无法解析
+	 */
+	public void send() throws RpcException, IOException
+	{
+		if (results != null)
+			throw new IllegalStateException();
+		JObject[] results = new JObject[requests.size()];
+		RpcException[] errors = new RpcException[requests.size()];
+		boolean[] answered = new boolean[requests.size()];
+		if (requests.size() > 0)
+		{
+			JObject response = rpc.send(requests);
+			if (!(response instanceof JArray))
+			{
+				RpcClient.result(response);
+				throw new IOException();
+			}
+			for (JObject item : (JArray)response)
+			{
+				if (item == null || !item.containsProperty("id") || item.get("id") == null)
+					continue;
+				Integer index = indexes.get((long)item.get("id").asNumber());
+				if (index == null)
+					continue;
+				answered[index] = true;
+				try
+				{
+					results[index] = RpcClient.result(item);
+				}
+				catch (RpcException ex)
+				{
+					errors[index] = ex;
+				}
+			}
+		}
+		for (int i = 0; i < answered.length; i++)
+		{
+			if (!answered[i])
+				errors[i] = new RpcException(-32603, "No response for request " + requests.get(i).get("id"));
+		}
+		this.results = results;
+		this.errors = errors;
+	}
+	
+	/**
+	 *  取得指定调用的结果
+	 *  <param name="index">add返回的位置</param>
+	 *  @throws RpcException 该调用失败
+	 */
+	public JObject get(int index) throws RpcException
+	{
+		if (results == null)
+			throw new IllegalStateException();
+		if (errors[index] != null)
+			throw errors[index];
+		return results[index];
+	}
+	
+	/**
+	 *  取得指定调用的错误，调用成功时返回null
+	 */
+	public RpcException getError(int index)
+	{
+		if (results == null)
+			throw new IllegalStateException();
+		return errors[index];
+	}
+	
+	/**
+	 *  所有结果，按add的顺序排列
+	 *  @throws RpcException 任意一个调用失败
+	 */
+	public List<JObject> getAll() throws RpcException
+	{
+		List<JObject> list = new ArrayList<JObject>(requests.size());
+		for (int i = 0; i < requests.size(); i++)
+			list.add(get(i));
+		return list;
+	}
+}
@@ -2,12 +2,16 @@ package NEO.Network.Rpc;
 
 import java.io.*;
 import java.net.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 import NEO.IO.Json.*;
+import NEO.Network.Rest.RestHttp;
 
 public class RpcClient
 {
 	private final URL url;
+	private final AtomicLong nextId = new AtomicLong();
 	
 	public RpcClient(String url) throws MalformedURLException
 	{
@@ -16,37 +20,50 @@ public class RpcClient
 	
 	public JObject call(String method, JObject ...params) throws RpcException, IOException
 	{
-		JObject response = send(makeRequest(method, params));
-		if (response.containsProperty("result"))
-			return response.get("result");
-		else if (response.containsProperty("error"))
-			throw new RpcException((int)response.get("error").get("code").asNumber(), response.get("error").get("message").asString());
-		else
-			throw new IOException();
+		return result(send(makeRequest(method, params)));
+	}
+	
+	/**
+	 *  异步调用，在RestHttp的后台线程池中执行
+	 */
+	public CompletableFuture<JObject> callAsync(String method, JObject ...params)
+	{
+		return RestHttp.submit(() -> call(method, params));
+	}
+	
+	/**
+	 *  创建批量调用，添加的调用在RpcBatch.send时通过一次HTTP请求发送
+	 */
+	public RpcBatch batch()
+	{
+		return new RpcBatch(this);
 	}
 	
-	private static JObject makeRequest(String method, JObject[] params)
+	JObject makeRequest(String method, JObject[] params)
 	{
 		JObject request = new JObject();
 		request.set("jsonrpc", new JString("2.0"));
 		request.set("method", new JString(method));
 		request.set("params", new JArray(params));
-		request.set("id", new JNumber(Math.random()));
+		request.set("id", new JNumber(nextId.incrementAndGet()));
 		return request;
 	}
 	
-	private JObject send(JObject request) throws IOException
+	static JObject result(JObject response) throws RpcException, IOException
+	{
+		if (response == null)
+			throw new IOException();
+		if (response.containsProperty("result"))
+			return response.get("result");
+		else if (response.containsProperty("error"))
+			throw new RpcException((int)response.get("error").get("code").asNumber(), response.get("error").get("message").asString());
+		else
+			throw new IOException();
+	}
+	
+	JObject send(JObject request) throws IOException
 	{
-		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-		connection.setRequestMethod("POST");
-		connection.setDoOutput(true);
-		try (OutputStreamWriter w = new OutputStreamWriter(connection.getOutputStream()))
-		{
-			w.write(request.toString());
-		}
-		try (InputStreamReader r = new InputStreamReader(connection.getInputStream()))
-		{
-			return JObject.parse(r);
-		}
+		// 与RestHttp共用keep-alive连接和每个主机的连接数限制，默认不超时
+		return RestHttp.execute("POST", url.toString(), request.toString().getBytes("UTF-8"), 0, stream -> JObject.parse(new InputStreamReader(stream, "UTF-8")));
 	}
 }
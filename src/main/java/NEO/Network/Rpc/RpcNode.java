@@ -1,22 +1,35 @@
 package NEO.Network.Rpc;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import NEO.*;
 import NEO.Core.*;
 import NEO.IO.Serializable;
 import NEO.IO.Json.*;
+import NEO.Network.Rest.RestHttp;
 import NEO.Wallets.Wallet;
 
 public class RpcNode
 {
 	private final RpcClient rpc;
+	private int batchSize = 100;
 	
 	public RpcNode(RpcClient rpc)
 	{
 		this.rpc = rpc;
 	}
 	
+	/**
+	 *  设置批量查询时每次HTTP请求包含的调用数
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		if (batchSize <= 0)
+			throw new IllegalArgumentException();
+		this.batchSize = batchSize;
+	}
+	
 	public UInt256 getBestBlockHash() throws RpcException, IOException
 	{
 		JObject result = rpc.call("getbestblockhash");
@@ -25,28 +38,34 @@ public class RpcNode
 	
 	public Block getBlock(UInt256 hash) throws RpcException, IOException
 	{
-		JObject result = rpc.call("getblock", new JString(hash.toString()));
-		try
-		{
-			return Serializable.from(Helper.hexToBytes(result.asString()), Block.class);
-		}
-		catch (InstantiationException | IllegalAccessException ex)
-		{
-			throw new RuntimeException(ex);
-		}
+		return toBlock(rpc.call("getblock", new JString(hash.toString())));
 	}
 	
 	public Block getBlock(int index) throws RpcException, IOException
 	{
-		JObject result = rpc.call("getblock", new JNumber(index));
-		try
-		{
-			return Serializable.from(Helper.hexToBytes(result.asString()), Block.class);
-		}
-		catch (InstantiationException | IllegalAccessException ex)
+		return toBlock(rpc.call("getblock", new JNumber(index)));
+	}
+	
+	/**
+	 *  批量获取区块，每batchSize个区块一次HTTP请求
+	 *  <param name="from">起始高度</param>
+	 *  <param name="to">结束高度，不包含</param>
+	 *  <returns>返回按高度排列的区块</returns>
+	 */
+	public Block[] getBlocks(int from, int to) throws RpcException, IOException
+	{
+		Block[] blocks = new Block[Math.max(to - from, 0)];
+		for (int start = 0; start < blocks.length; start += batchSize)
 		{
-			throw new RuntimeException(ex);
+			RpcBatch batch = rpc.batch();
+			int end = Math.min(start + batchSize, blocks.length);
+			for (int i = start; i < end; i++)
+				batch.add("getblock", new JNumber(from + i));
+			batch.send();
+			for (int i = start; i < end; i++)
+				blocks[i] = toBlock(batch.get(i - start));
 		}
+		return blocks;
 	}
 	
 	public int getBlockCount() throws RpcException, IOException
@@ -79,9 +98,37 @@ public class RpcNode
 		return Transaction.deserializeFrom(Helper.hexToBytes(result.asString()));
 	}
 	
+	/**
+	 *  批量获取交易
+	 *  <param name="txids">交易散列值</param>
+	 *  <returns>返回与txids顺序一致的交易，节点上不存在的交易为null</returns>
+	 */
+	public Transaction[] getRawTransactions(UInt256... txids) throws IOException, RpcException
+	{
+		Transaction[] txs = new Transaction[txids.length];
+		for (int start = 0; start < txids.length; start += batchSize)
+		{
+			RpcBatch batch = rpc.batch();
+			int end = Math.min(start + batchSize, txids.length);
+			for (int i = start; i < end; i++)
+				batch.add("getrawtransaction", new JString(txids[i].toString()));
+			batch.send();
+			for (int i = start; i < end; i++)
+			{
+				JObject result = batch.getError(i - start) == null ? batch.get(i - start) : null;
+				txs[i] = result == null ? null : Transaction.deserializeFrom(Helper.hexToBytes(result.asString()));
+			}
+		}
+		return txs;
+	}
+	
 	public TransactionOutput getTxOut(UInt256 txid, int n) throws RpcException, IOException
 	{
-		JObject result = rpc.call("gettxout", new JString(txid.toString()), new JNumber(n));
+		return toTxOut(rpc.call("gettxout", new JString(txid.toString()), new JNumber(n)));
+	}
+	
+	private static TransactionOutput toTxOut(JObject result)
+	{
 		TransactionOutput output = new TransactionOutput();
 		output.assetId = UInt256.parse(result.get("asset").asString());
 		output.value = Fixed8.parse(result.get("value").asString());
@@ -89,9 +136,81 @@ public class RpcNode
 		return output;
 	}
 	
+	/**
+	 *  批量查询交易输出
+	 *  <param name="inputs">要查询的交易输出的引用</param>
+	 *  <returns>返回与inputs顺序一致的交易输出，已花费或不存在的为null</returns>
+	 */
+	public TransactionOutput[] getTxOuts(TransactionInput... inputs) throws IOException, RpcException
+	{
+		TransactionOutput[] outputs = new TransactionOutput[inputs.length];
+		for (int start = 0; start < inputs.length; start += batchSize)
+		{
+			RpcBatch batch = rpc.batch();
+			int end = Math.min(start + batchSize, inputs.length);
+			for (int i = start; i < end; i++)
+				batch.add("gettxout", new JString(inputs[i].prevHash.toString()), new JNumber(Short.toUnsignedInt(inputs[i].prevIndex)));
+			batch.send();
+			for (int i = start; i < end; i++)
+			{
+				JObject result = batch.getError(i - start) == null ? batch.get(i - start) : null;
+				outputs[i] = result == null ? null : toTxOut(result);
+			}
+		}
+		return outputs;
+	}
+	
 	public boolean sendRawTransaction(Transaction tx) throws RpcException, IOException
 	{
 		JObject result = rpc.call("sendrawtransaction", new JString(Helper.toHexString(tx.toArray())));
 		return result.asBoolean();
 	}
+	
+	private static Block toBlock(JObject result)
+	{
+		try
+		{
+			return Serializable.from(Helper.hexToBytes(result.asString()), Block.class);
+		}
+		catch (InstantiationException | IllegalAccessException ex)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+	
+	// 异步接口，同时进行的请求数受RestHttp.setMaxConnections限制
+	public CompletableFuture<Block> getBlockAsync(UInt256 hash)
+	{
+		return RestHttp.submit(() -> getBlock(hash));
+	}
+	
+	public CompletableFuture<Block> getBlockAsync(int index)
+	{
+		return RestHttp.submit(() -> getBlock(index));
+	}
+	
+	public CompletableFuture<Integer> getBlockCountAsync()
+	{
+		return RestHttp.submit(this::getBlockCount);
+	}
+	
+	public CompletableFuture<UInt256> getBlockHashAsync(int index)
+	{
+		return RestHttp.submit(() -> getBlockHash(index));
+	}
+	
+	public CompletableFuture<Transaction> getRawTransactionAsync(UInt256 txid)
+	{
+		return RestHttp.submit(() -> getRawTransaction(txid));
+	}
+	
+	public CompletableFuture<TransactionOutput> getTxOutAsync(UInt256 txid, int n)
+	{
+		return RestHttp.submit(() -> getTxOut(txid, n));
+	}
+	
+	public CompletableFuture<Boolean> sendRawTransactionAsync(Transaction tx)
+	{
+		return RestHttp.submit(() -> sendRawTransaction(tx));
+	}
 }
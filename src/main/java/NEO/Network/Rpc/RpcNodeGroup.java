@@ -0,0 +1,177 @@
+package NEO.Network.Rpc;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import NEO.UInt256;
+import NEO.Core.*;
+import NEO.Network.NodeGroup;
+
+/**
+ *  由多个RPC节点组成的节点，查询按延迟路由到最快的节点并发送对冲请求，发送交易使用首选节点，无法连接时自动切换
+ */
+public class RpcNodeGroup extends RpcNode
+{
+	private final NodeGroup<RpcNode> group;
+
+	/**
+	 *  <param name="urls">节点地址，第一个为发送交易的首选节点</param>
+	 */
+	public RpcNodeGroup(String... urls) throws MalformedURLException
+	{
+		this(clients(urls));
+	}
+
+	private RpcNodeGroup(List<RpcClient> clients)
+	{
+		super(clients.get(0));
+		List<RpcNode> nodes = new ArrayList<RpcNode>();
+		for (RpcClient client : clients)
+			nodes.add(new RpcNode(client));
+		this.group = new NodeGroup<RpcNode>(nodes, ex -> ex instanceof IOException);
+	}
+
+	private static List<RpcClient> clients(String[] urls) throws MalformedURLException
+	{
+		if (urls.length == 0)
+			throw new IllegalArgumentException();
+		List<RpcClient> clients = new ArrayList<RpcClient>();
+		for (String url : urls)
+			clients.add(new RpcClient(url.trim()));
+		return clients;
+	}
+
+	public NodeGroup<RpcNode> group()
+	{
+		return group;
+	}
+
+	/**
+	 *  定期查询各节点的区块高度，更新延迟并恢复已经正常的节点
+	 */
+	public void startHealthCheck(long interval, TimeUnit unit)
+	{
+		group.startHealthCheck(RpcNode::getBlockCount, interval, unit);
+	}
+
+	public void stopHealthCheck()
+	{
+		group.stopHealthCheck();
+	}
+
+	@Override
+	public void setBatchSize(int batchSize)
+	{
+		super.setBatchSize(batchSize);
+		for (int i = 0; i < group.size(); i++)
+			group.node(i).setBatchSize(batchSize);
+	}
+
+	@Override
+	public UInt256 getBestBlockHash() throws RpcException, IOException
+	{
+		return read(RpcNode::getBestBlockHash);
+	}
+
+	@Override
+	public Block getBlock(UInt256 hash) throws RpcException, IOException
+	{
+		return read(p -> p.getBlock(hash));
+	}
+
+	@Override
+	public Block getBlock(int index) throws RpcException, IOException
+	{
+		return read(p -> p.getBlock(index));
+	}
+
+	@Override
+	public Block[] getBlocks(int from, int to) throws RpcException, IOException
+	{
+		return read(p -> p.getBlocks(from, to));
+	}
+
+	@Override
+	public int getBlockCount() throws RpcException, IOException
+	{
+		return read(RpcNode::getBlockCount);
+	}
+
+	@Override
+	public UInt256 getBlockHash(int index) throws RpcException, IOException
+	{
+		return read(p -> p.getBlockHash(index));
+	}
+
+	@Override
+	public int getConnectionCount() throws RpcException, IOException
+	{
+		return read(RpcNode::getConnectionCount);
+	}
+
+	@Override
+	public UInt256[] getRawMemPool() throws RpcException, IOException
+	{
+		return read(RpcNode::getRawMemPool);
+	}
+
+	@Override
+	public Transaction getRawTransaction(UInt256 txid) throws RpcException, IOException
+	{
+		return read(p -> p.getRawTransaction(txid));
+	}
+
+	@Override
+	public Transaction[] getRawTransactions(UInt256... txids) throws IOException, RpcException
+	{
+		return read(p -> p.getRawTransactions(txids));
+	}
+
+	@Override
+	public TransactionOutput getTxOut(UInt256 txid, int n) throws RpcException, IOException
+	{
+		return read(p -> p.getTxOut(txid, n));
+	}
+
+	@Override
+	public TransactionOutput[] getTxOuts(TransactionInput... inputs) throws IOException, RpcException
+	{
+		return read(p -> p.getTxOuts(inputs));
+	}
+
+	@Override
+	public boolean sendRawTransaction(Transaction tx) throws RpcException, IOException
+	{
+		try
+		{
+			return group.write(p -> p.sendRawTransaction(tx));
+		}
+		catch (RpcException | IOException | RuntimeException ex)
+		{
+			throw ex;
+		}
+		catch (Exception ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+
+	private <T> T read(NodeGroup.Call<RpcNode, T> call) throws RpcException, IOException
+	{
+		try
+		{
+			return group.read(call);
+		}
+		catch (RpcException | IOException | RuntimeException ex)
+		{
+			throw ex;
+		}
+		catch (Exception ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+}
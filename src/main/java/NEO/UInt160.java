@@ -44,8 +44,7 @@ public class UInt160 extends UIntBase implements Comparable<UInt160> {
         if (value.length() != 40) {
             throw new IllegalArgumentException();
         }
-        byte[] v = Helper.hexToBytes(value);
-        return new UInt160(Helper.reverse(v));
+        return new UInt160(Helper.hexToBytesReversed(value));
     }
 
     /**
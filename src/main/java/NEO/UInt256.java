@@ -44,8 +44,7 @@ public class UInt256 extends UIntBase implements Comparable<UInt256> {
         if (s.length() != 64) {
             throw new IllegalArgumentException();
         }
-        byte[] v = Helper.hexToBytes(s);
-        return new UInt256(Helper.reverse(v));
+        return new UInt256(Helper.hexToBytesReversed(s));
     }
 
     /**
@@ -59,7 +59,7 @@ public abstract class UIntBase implements Serializable {
      */
     @Override
     public String toString() {
-        return Helper.toHexString(Helper.reverse(data_bytes));
+        return Helper.toReversedHexString(data_bytes);
     }
     
     @Override
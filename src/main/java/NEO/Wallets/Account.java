@@ -4,6 +4,7 @@ import java.math.BigInteger;
 import java.util.Arrays;
 
 import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
 
 import NEO.UInt160;
 import NEO.Core.Scripts.Program;
@@ -31,6 +32,8 @@ public class Account {
      */
     public final UInt160 publicKeyHash;
 
+    private final AccountSigner signer;
+
     public Account(byte[] privateKey) {
         if (privateKey.length != 32 && privateKey.length != 96 && privateKey.length != 104) {
         	throw new IllegalArgumentException();
@@ -38,7 +41,7 @@ public class Account {
         this.privateKey = new byte[32];
         System.arraycopy(privateKey, privateKey.length - 32, this.privateKey, 0, 32);
         if (privateKey.length == 32) {
-            this.publicKey = ECC.secp256r1.getG().multiply(new BigInteger(1, privateKey)).normalize();
+            this.publicKey = new FixedPointCombMultiplier().multiply(ECC.secp256r1.getG(), new BigInteger(1, privateKey)).normalize();
         } else {
         	byte[] encoded = new byte[65];
         	encoded[0] = 0x04;
@@ -46,14 +49,22 @@ public class Account {
             this.publicKey = ECC.secp256r1.getCurve().decodePoint(encoded);
         }
         this.publicKeyHash = Program.toScriptHash(publicKey.getEncoded(true));
+        this.signer = new AccountSigner(this.privateKey);
     }
     
+    /**
+     * signing engine of this account
+     */
+    public AccountSigner signer() {
+        return signer;
+    }
+
     public String export() {
         byte[] data = new byte[38];
         data[0] = (byte) 0x80;
         System.arraycopy(privateKey, 0, data, 1, 32);
         data[33] = (byte) 0x01;
-        byte[] checksum = Digest.sha256(Digest.sha256(data, 0, data.length - 4));
+        byte[] checksum = Digest.hash256(data, 0, data.length - 4);
         System.arraycopy(checksum, 0, data, data.length - 4, 4);
         String wif = Base58.encode(data);
         Arrays.fill(data, (byte) 0);
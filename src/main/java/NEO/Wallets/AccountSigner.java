@@ -0,0 +1,65 @@
+package NEO.Wallets;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.BigIntegers;
+
+import NEO.Core.Signable;
+import NEO.Cryptography.Digest;
+import NEO.Cryptography.ECC;
+
+/**
+ *  账户的签名引擎
+ *
+ *  私钥参数只转换一次；随机数k按RFC 6979由私钥和消息确定性生成(HMacDSAKCalculator)，不依赖SecureRandom；
+ *  基点乘法使用ECDSASigner默认的FixedPointCombMultiplier，其预计算表缓存在ECC.secp256r1的基点上，所有账户共用。
+ *  只保存不可变的私钥参数，每次签名创建新的ECDSASigner(开销很小)，私钥不会留在线程的ThreadLocal中。
+ *  通过Account.signer()获得，线程安全。
+ */
+public final class AccountSigner {
+    static {
+        // 提前生成基点的预计算表，避免第一次签名时的延迟
+        new FixedPointCombMultiplier().multiply(ECC.secp256r1.getG(), BigInteger.ONE);
+    }
+
+    private final ECPrivateKeyParameters key;
+
+    AccountSigner(byte[] privateKey) {
+        this.key = new ECPrivateKeyParameters(new BigInteger(1, privateKey), ECC.secp256r1);
+    }
+
+    /**
+     *  对数据签名
+     *  <param name="data">待签名的数据，签名前先计算SHA256</param>
+     *  <returns>返回64字节的签名(r||s)</returns>
+     */
+    public byte[] sign(byte[] data) {
+        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+        signer.init(true, key);
+        BigInteger[] bi = signer.generateSignature(Digest.sha256(data));
+        byte[] signature = new byte[64];
+        System.arraycopy(BigIntegers.asUnsignedByteArray(32, bi[0]), 0, signature, 0, 32);
+        System.arraycopy(BigIntegers.asUnsignedByteArray(32, bi[1]), 0, signature, 32, 32);
+        return signature;
+    }
+
+    public byte[] sign(Signable signable) {
+        return sign(signable.getHashData());
+    }
+
+    /**
+     *  并行签名多个对象
+     *  <param name="signables">待签名的对象</param>
+     *  <returns>返回与输入顺序一致的签名列表</returns>
+     */
+    public List<byte[]> signAll(List<? extends Signable> signables) {
+        return signables.parallelStream().map(this::sign).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,57 @@
+package NEO.Wallets;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import NEO.UInt160;
+
+/**
+ *  脚本散列值与地址之间的双向LRU缓存，容量为0时不缓存
+ */
+class AddressCache {
+    private int capacity;
+    private final Map<UInt160, String> addresses = new LinkedHashMap<UInt160, String>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UInt160, String> eldest) {
+            return size() > capacity;
+        }
+    };
+    private final Map<String, UInt160> scriptHashes = new LinkedHashMap<String, UInt160>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UInt160> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    AddressCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        addresses.clear();
+        scriptHashes.clear();
+    }
+
+    synchronized String getAddress(UInt160 scriptHash) {
+        return addresses.get(scriptHash);
+    }
+
+    synchronized UInt160 getScriptHash(String address) {
+        return scriptHashes.get(address);
+    }
+
+    synchronized void put(UInt160 scriptHash, String address) {
+        if (capacity > 0) {
+            addresses.put(scriptHash, address);
+            scriptHashes.put(address, scriptHash);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package NEO.Wallets;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import NEO.Core.Block;
+import NEO.Core.Blockchain;
+
+/**
+ *  钱包同步时的区块预取
+ *
+ *  在当前高度之后维持一个最多depth个区块的滑动窗口，其中最多parallelism个同时下载，
+ *  下载和反序列化由Blockchain.getBlockAsync在工作线程中完成，take按高度顺序取出。
+ *  单个高度下载失败时立即重试，不影响窗口中其它高度；重试仍失败时由take抛出异常，下次take重新请求该高度。
+ */
+final class BlockPrefetcher {
+    /**
+     *  每个高度连续请求的最多次数
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    final Blockchain blockchain;
+    private final int depth;
+    private final int parallelism;
+    private final ArrayDeque<CompletableFuture<Block>> window = new ArrayDeque<CompletableFuture<Block>>();
+    private int next;
+    private int limit;
+    private int inFlight = 0;
+    private boolean filling = false;
+    private CompletableFuture<Block> retry = null;
+
+    /**
+     *  <param name="blockchain">区块来源</param>
+     *  <param name="start">第一个要取出的高度</param>
+     *  <param name="depth">窗口大小</param>
+     *  <param name="parallelism">同时下载的最大数量</param>
+     */
+    BlockPrefetcher(Blockchain blockchain, int start, int depth, int parallelism) {
+        if (depth <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.blockchain = blockchain;
+        this.depth = depth;
+        this.parallelism = parallelism;
+        this.next = start;
+        this.limit = start - 1;
+    }
+
+    /**
+     *  下一次take返回的区块高度
+     */
+    synchronized int position() {
+        return next - window.size();
+    }
+
+    /**
+     *  设置已知的最高区块高度，窗口不会超过此高度
+     */
+    synchronized void setLimit(int height) {
+        limit = height;
+        fill();
+    }
+
+    /**
+     *  取出下一个高度的区块，必要时等待下载完成
+     *  <returns>返回区块，如果已经取完limit之前的所有区块则返回null</returns>
+     */
+    Block take() throws Exception {
+        CompletableFuture<Block> head;
+        synchronized (this) {
+            fill();
+            head = window.peekFirst();
+        }
+        if (head == null) {
+            return null;
+        }
+        try {
+            Block block = head.get();
+            synchronized (this) {
+                window.pollFirst();
+                fill();
+            }
+            return block;
+        } catch (ExecutionException ex) {
+            synchronized (this) {
+                // 用占位的future替换失败的请求，由fill在并发数允许时重新请求
+                retry = new CompletableFuture<Block>();
+                window.pollFirst();
+                window.addFirst(retry);
+                fill();
+            }
+            throw ex.getCause() instanceof Exception ? (Exception)ex.getCause() : ex;
+        }
+    }
+
+    private void fill() {
+        // getBlockAsync可能同步完成，回调中再次进入fill时由外层循环继续补充
+        if (filling) {
+            return;
+        }
+        filling = true;
+        try {
+            if (retry != null && inFlight < parallelism) {
+                CompletableFuture<Block> placeholder = retry;
+                retry = null;
+                fetch(position()).whenComplete((block, ex) -> {
+                    if (ex != null) {
+                        placeholder.completeExceptionally(ex);
+                    } else {
+                        placeholder.complete(block);
+                    }
+                });
+            }
+            while (window.size() < depth && next <= limit && inFlight < parallelism) {
+                window.addLast(fetch(next++));
+            }
+        } finally {
+            filling = false;
+        }
+    }
+
+    private CompletableFuture<Block> fetch(int height) {
+        inFlight++;
+        CompletableFuture<Block> future = fetch(height, 1);
+        future.whenComplete((block, ex) -> {
+            synchronized (this) {
+                inFlight--;
+                fill();
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<Block> fetch(int height, int attempt) {
+        CompletableFuture<Block> request;
+        try {
+            request = blockchain.getBlockAsync(height);
+        } catch (RuntimeException ex) {
+            request = new CompletableFuture<Block>();
+            request.completeExceptionally(ex);
+        }
+        return request.handle((block, ex) -> {
+            if (ex == null && block != null) {
+                return CompletableFuture.completedFuture(block);
+            }
+            if (attempt < MAX_ATTEMPTS) {
+                return fetch(height, attempt + 1);
+            }
+            CompletableFuture<Block> failed = new CompletableFuture<Block>();
+            failed.completeExceptionally(ex != null ? ex : new IllegalStateException("block " + height + " not available"));
+            return failed;
+        }).thenCompose(p -> p);
+    }
+}
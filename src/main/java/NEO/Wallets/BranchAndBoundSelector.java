@@ -0,0 +1,91 @@
+package NEO.Wallets;
+
+/**
+ *  查找金额之和正好等于支付金额的一组coin，交易不需要找零输出
+ *
+ *  按金额从大到小做深度优先搜索，每个coin依次尝试选中和不选，已选金额超过支付金额、或者加上剩余所有coin
+ *  仍然不够时回溯；与刚放弃的coin金额相同的coin也不再尝试。搜索的步数不超过maxTries，
+ *  找不到时使用fallback选择(fallback为null时返回null)。
+ */
+public class BranchAndBoundSelector implements CoinSelector {
+    public static final int DEFAULT_MAX_TRIES = 100000;
+
+    private final int maxTries;
+    private final CoinSelector fallback;
+
+    public BranchAndBoundSelector() {
+        this(DEFAULT_MAX_TRIES, new LargestFirstSelector());
+    }
+
+    /**
+     *  @param maxTries 最多搜索的步数
+     *  @param fallback 没有正好相等的组合时使用的策略，可以为null
+     */
+    public BranchAndBoundSelector(int maxTries, CoinSelector fallback) {
+        if (maxTries <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxTries = maxTries;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int[] select(long[] values, long amount) {
+        int[] result = search(values, amount);
+        if (result == null && fallback != null) {
+            result = fallback.select(values, amount);
+        }
+        return result;
+    }
+
+    private int[] search(long[] values, long amount) {
+        int[] order = CoinSelector.sortIndices(values, true);
+        int n = order.length;
+        // remaining[i]: 第i个及之后所有coin的金额之和
+        long[] remaining = new long[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            remaining[i] = remaining[i + 1] + values[order[i]];
+        }
+        boolean[] chosen = new boolean[n];
+        long current = 0;
+        int count = 0;
+        int i = 0;
+        for (int tries = 0; tries < maxTries; tries++) {
+            if (current == amount) {
+                int[] result = new int[count];
+                for (int j = 0, k = 0; j < i; j++) {
+                    if (chosen[j]) {
+                        result[k++] = order[j];
+                    }
+                }
+                return result;
+            }
+            if (current > amount || current + remaining[i] < amount) {
+                // 回溯到最后一个选中的coin，改为不选
+                i--;
+                while (i >= 0 && !chosen[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    return null;
+                }
+                chosen[i] = false;
+                current -= values[order[i]];
+                count--;
+                i++;
+                continue;
+            }
+            long value = values[order[i]];
+            if (i > 0 && !chosen[i - 1] && values[order[i - 1]] == value) {
+                // 与刚放弃的coin金额相同，选中它得到的组合已经尝试过
+                i++;
+                continue;
+            }
+            chosen[i] = true;
+            current += value;
+            count++;
+            i++;
+        }
+        return null;
+    }
+}
@@ -30,17 +30,23 @@ public class Coin implements ITrackable<TransactionInput> {
 
     //[NonSerialized]
     private CoinState state;
+    // 所在的CoinStore，状态改变时更新它的索引
+    CoinStore store;
     public CoinState getState() {
         return state;
     }
     
     public void setState(CoinState value) {
         if (state != value) {
+            CoinState old = state;
             state = value;
             ITrackable<TransactionInput> _this = this;
           	if (_this.getTrackState() == TrackState.None) {
                 _this.setTrackState(TrackState.Changed);
           	}
+          	if (store != null) {
+          		store.onStateChanged(this, old);
+          	}
         }
     }
     
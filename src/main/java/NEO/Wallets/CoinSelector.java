@@ -0,0 +1,55 @@
+package NEO.Wallets;
+
+/**
+ *  选择交易输入的策略
+ *
+ *  金额都是Fixed8的内部值(1 = 0.00000001)，选择过程中只使用long运算，不创建Fixed8对象。
+ *  调用者保证候选coin的金额之和不小于要支付的金额。
+ */
+public interface CoinSelector {
+    /**
+     *  从候选coin中选出金额之和不小于amount的一组
+     *
+     *  @param values 候选coin的金额，顺序任意
+     *  @param amount 要支付的金额，大于0
+     *  @return 选中的coin在values中的下标；没有符合策略的组合时返回null
+     */
+    int[] select(long[] values, long amount);
+
+    /**
+     *  按金额排序的下标，金额相同的保持原来的顺序
+     *
+     *  @param descending 为true时从大到小
+     */
+    static int[] sortIndices(long[] values, boolean descending) {
+        int n = values.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        // 自底向上的归并排序，避免装箱
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int low = 0; low < n - width; low += width << 1) {
+                int mid = low + width, high = Math.min(low + (width << 1), n);
+                int i = low, j = mid, k = low;
+                while (i < mid && j < high) {
+                    long a = values[order[i]], b = values[order[j]];
+                    if (descending ? a >= b : a <= b) {
+                        buffer[k++] = order[i++];
+                    } else {
+                        buffer[k++] = order[j++];
+                    }
+                }
+                while (i < mid) {
+                    buffer[k++] = order[i++];
+                }
+                while (j < high) {
+                    buffer[k++] = order[j++];
+                }
+                System.arraycopy(buffer, low, order, low, high - low);
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,355 @@
+package NEO.Wallets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+import NEO.Fixed8;
+import NEO.UInt160;
+import NEO.UInt256;
+import NEO.Core.TransactionInput;
+import NEO.IO.Caching.TrackState;
+import NEO.IO.Caching.TrackableCollection;
+
+/**
+ *  按状态、资产和地址建立索引的coin集合
+ *
+ *  coin加入集合后，状态的改变(Coin.setState)会通知集合更新索引，每种资产各个状态的金额合计随之增减，
+ *  查询余额不需要遍历所有coin，选择coin时只遍历同一资产、同一状态(和同一地址)的coin。
+ *  变更集合也只记录增加、删除和改变过状态的coin，每个区块提交时不需要遍历所有coin。
+ *  coin的资产、金额和地址在加入集合后不能再修改。
+ *
+ *  查询在读锁下进行，多个线程可以同时查询；修改在写锁下进行。需要让一组修改整体对查询可见时
+ *  (例如处理一个区块)，调用者先取得writeLock()。持有读锁时不能修改coin的状态。
+ */
+public class CoinStore extends TrackableCollection<TransactionInput, Coin> {
+    private static final CoinState[] STATES = CoinState.values();
+
+    private final Map<CoinState, Set<Coin>> byState = new EnumMap<CoinState, Set<Coin>>(CoinState.class);
+    private final Map<UInt256, Map<CoinState, Set<Coin>>> byAsset = new HashMap<UInt256, Map<CoinState, Set<Coin>>>();
+    private final Map<UInt160, Set<Coin>> byScriptHash = new HashMap<UInt160, Set<Coin>>();
+    private final Map<UInt256, long[]> balances = new HashMap<UInt256, long[]>();
+    private final Set<Coin> dirty = new LinkedHashSet<Coin>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CoinStore() {
+    }
+
+    /**
+     *  加载已有的coin，加载后都处于未修改状态
+     */
+    public CoinStore(Coin[] items) {
+        for (Coin item : items) {
+            add(item);
+        }
+        commit();
+    }
+
+    /**
+     *  写锁，可重入；持有写锁时也可以查询
+     */
+    public Lock writeLock() {
+        return lock.writeLock();
+    }
+
+    @Override
+    public boolean add(Coin coin) {
+        lock.writeLock().lock();
+        try {
+            Coin old = get(coin.key());
+            if (old != null) {
+                unindex(old);
+                dirty.remove(old);
+            }
+            boolean added = super.add(coin);
+            coin.store = this;
+            dirty.add(coin);
+            index(coin, coin.getState());
+            byScriptHash.computeIfAbsent(coin.scriptHash, p -> new HashSet<Coin>()).add(coin);
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     *  删除的coin立即从索引中移除，提交后从集合中移除
+     */
+    @Override
+    public boolean remove(Coin coin) {
+        lock.writeLock().lock();
+        try {
+            Coin item = get(coin.key());
+            if (item == null) {
+                return false;
+            }
+            // 尚未提交的coin直接从集合中移除，不再出现在变更集合中
+            boolean added = item.getTrackState() == TrackState.Added;
+            super.remove(item);
+            unindex(item);
+            if (added) {
+                dirty.remove(item);
+            } else {
+                dirty.add(item);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Coin[] getChangeSet(IntFunction<Coin[]> generator) {
+        lock.readLock().lock();
+        try {
+            return dirty.stream().filter(p -> p.getTrackState() != TrackState.None).toArray(generator);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void commit() {
+        lock.writeLock().lock();
+        try {
+            boolean deleted = false;
+            for (Coin coin : dirty) {
+                if (coin.getTrackState() == TrackState.Deleted) {
+                    deleted = true;
+                } else {
+                    coin.setTrackState(TrackState.None);
+                }
+            }
+            dirty.clear();
+            if (deleted) {
+                // 删除很少发生，由父类遍历集合移除
+                super.commit();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Coin coin : this) {
+                coin.store = null;
+            }
+            super.clear();
+            dirty.clear();
+            byState.clear();
+            byAsset.clear();
+            byScriptHash.clear();
+            balances.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Coin get(TransactionInput key) {
+        lock.readLock().lock();
+        try {
+            return super.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(TransactionInput key) {
+        lock.readLock().lock();
+        try {
+            return super.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return super.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *  所有coin的副本，遍历时不受其它线程修改的影响
+     */
+    public Coin[] snapshot() {
+        lock.readLock().lock();
+        try {
+            return toArray(this);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *  处于指定状态之一的所有coin
+     */
+    public Coin[] find(CoinState... states) {
+        lock.readLock().lock();
+        try {
+            if (states.length == 1) {
+                return toArray(byState.get(states[0]));
+            }
+            ArrayList<Coin> result = new ArrayList<Coin>();
+            for (CoinState state : states) {
+                Set<Coin> set = byState.get(state);
+                if (set != null) {
+                    result.addAll(set);
+                }
+            }
+            return toArray(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *  属于指定地址的所有coin
+     */
+    public Coin[] find(UInt160 scriptHash) {
+        lock.readLock().lock();
+        try {
+            return toArray(byScriptHash.get(scriptHash));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *  指定资产、指定状态的coin
+     */
+    public Coin[] find(UInt256 assetId, CoinState state) {
+        lock.readLock().lock();
+        try {
+            Map<CoinState, Set<Coin>> states = byAsset.get(assetId);
+            return toArray(states == null ? null : states.get(state));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *  指定资产、指定状态、属于指定地址的coin
+     *
+     *  @param scriptHash 地址，为null时不限制
+     */
+    public Coin[] find(UInt256 assetId, CoinState state, UInt160 scriptHash) {
+        lock.readLock().lock();
+        try {
+            if (scriptHash == null) {
+                return find(assetId, state);
+            }
+            Map<CoinState, Set<Coin>> states = byAsset.get(assetId);
+            Set<Coin> candidates = states == null ? null : states.get(state);
+            Set<Coin> owned = byScriptHash.get(scriptHash);
+            if (candidates == null || owned == null) {
+                return new Coin[0];
+            }
+            // 遍历较小的集合
+            if (owned.size() < candidates.size()) {
+                return owned.stream().filter(p -> p.getState() == state && p.assetId.equals(assetId)).toArray(Coin[]::new);
+            }
+            return candidates.stream().filter(p -> p.scriptHash.equals(scriptHash)).toArray(Coin[]::new);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *  指定资产、处于指定状态之一的coin的金额合计
+     */
+    public Fixed8 sum(UInt256 assetId, CoinState... states) {
+        lock.readLock().lock();
+        try {
+            long[] sums = balances.get(assetId);
+            long sum = 0;
+            if (sums != null) {
+                for (CoinState state : states) {
+                    sum += sums[state.ordinal()];
+                }
+            }
+            return new Fixed8(sum);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *  由Coin.setState调用
+     */
+    void onStateChanged(Coin coin, CoinState oldState) {
+        lock.writeLock().lock();
+        try {
+            if (get(coin.key()) != coin) {
+                return;
+            }
+            dirty.add(coin);
+            unindex(coin, oldState);
+            index(coin, coin.getState());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Coin coin, CoinState state) {
+        if (state == null) {
+            return;
+        }
+        byState.computeIfAbsent(state, p -> new HashSet<Coin>()).add(coin);
+        byAsset.computeIfAbsent(coin.assetId, p -> new EnumMap<CoinState, Set<Coin>>(CoinState.class))
+            .computeIfAbsent(state, p -> new HashSet<Coin>()).add(coin);
+        balances.computeIfAbsent(coin.assetId, p -> new long[STATES.length])[state.ordinal()] += coin.value.getData();
+    }
+
+    private void unindex(Coin coin, CoinState state) {
+        if (state == null) {
+            return;
+        }
+        Set<Coin> set = byState.get(state);
+        if (set != null) {
+            set.remove(coin);
+        }
+        Map<CoinState, Set<Coin>> states = byAsset.get(coin.assetId);
+        if (states != null && (set = states.get(state)) != null) {
+            set.remove(coin);
+        }
+        long[] sums = balances.get(coin.assetId);
+        if (sums != null) {
+            sums[state.ordinal()] -= coin.value.getData();
+        }
+    }
+
+    private void unindex(Coin coin) {
+        unindex(coin, coin.getState());
+        Set<Coin> owned = byScriptHash.get(coin.scriptHash);
+        if (owned != null) {
+            owned.remove(coin);
+            if (owned.isEmpty()) {
+                byScriptHash.remove(coin.scriptHash);
+            }
+        }
+        coin.store = null;
+    }
+
+    private static Coin[] toArray(Collection<Coin> coins) {
+        return (coins == null ? Collections.<Coin>emptySet() : coins).toArray(new Coin[0]);
+    }
+}
@@ -0,0 +1,156 @@
+package NEO.Wallets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import NEO.UInt256;
+import NEO.Core.Block;
+import NEO.Core.Transaction;
+
+/**
+ *  交易确认跟踪
+ *
+ *  由Wallet在处理每个区块后调用onBlock，等待中的交易在所在区块被处理时完成，结果为区块高度。
+ *  最近确认的交易保留一段时间，在交易确认之后才开始等待也能立即得到结果。
+ *  future在公共ForkJoin池中完成，回调不会在钱包的同步线程中、持有钱包的锁时执行。
+ */
+public class ConfirmationTracker {
+    private static final ScheduledThreadPoolExecutor timer;
+
+    static {
+        timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "ConfirmationTracker.Timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private final Map<UInt256, List<CompletableFuture<Integer>>> pending = new HashMap<UInt256, List<CompletableFuture<Integer>>>();
+    private final Map<UInt256, Integer> recent;
+
+    public ConfirmationTracker() {
+        this(65536);
+    }
+
+    /**
+     *  <param name="recentCapacity">保留的最近确认的交易数量</param>
+     */
+    public ConfirmationTracker(int recentCapacity) {
+        this.recent = new LinkedHashMap<UInt256, Integer>(16, 0.75f, false) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UInt256, Integer> eldest) {
+                return size() > recentCapacity;
+            }
+        };
+    }
+
+    /**
+     *  等待交易确认
+     *  <param name="txid">交易散列值</param>
+     *  <returns>返回交易所在区块的高度</returns>
+     */
+    public CompletableFuture<Integer> track(UInt256 txid) {
+        CompletableFuture<Integer> future = new CompletableFuture<Integer>();
+        synchronized (recent) {
+            Integer height = recent.get(txid);
+            if (height != null) {
+                future.complete(height);
+                return future;
+            }
+            pending.computeIfAbsent(txid, p -> new ArrayList<CompletableFuture<Integer>>()).add(future);
+        }
+        // 超时或被取消的future不再等待
+        future.whenComplete((height, ex) -> {
+            if (ex != null) {
+                remove(txid, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     *  等待交易确认，超时后future以TimeoutException失败
+     *  <param name="txid">交易散列值</param>
+     *  <param name="timeout">超时时间</param>
+     *  <param name="unit">时间单位</param>
+     */
+    public CompletableFuture<Integer> track(UInt256 txid, long timeout, TimeUnit unit) {
+        CompletableFuture<Integer> future = track(txid);
+        if (!future.isDone()) {
+            // 先移出等待列表再完成，future.get()返回时pendingCount已不包含这笔交易
+            ScheduledFuture<?> task = timer.schedule(() -> {
+                remove(txid, future);
+                future.completeExceptionally(new TimeoutException());
+            }, timeout, unit);
+            future.whenComplete((height, ex) -> task.cancel(false));
+        }
+        return future;
+    }
+
+    /**
+     *  等待多笔交易全部确认
+     *  <param name="txids">交易散列值</param>
+     *  <param name="timeout">超时时间，超时时尚未确认的交易以TimeoutException失败</param>
+     *  <param name="unit">时间单位</param>
+     *  <returns>返回每笔交易所在区块的高度</returns>
+     */
+    public CompletableFuture<Map<UInt256, Integer>> trackAll(Collection<UInt256> txids, long timeout, TimeUnit unit) {
+        Map<UInt256, CompletableFuture<Integer>> futures = new LinkedHashMap<UInt256, CompletableFuture<Integer>>();
+        for (UInt256 txid : txids) {
+            futures.put(txid, track(txid, timeout, unit));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<UInt256, Integer> heights = new LinkedHashMap<UInt256, Integer>();
+            futures.forEach((txid, future) -> heights.put(txid, future.join()));
+            return heights;
+        });
+    }
+
+    /**
+     *  等待确认的交易数量
+     */
+    public int pendingCount() {
+        synchronized (recent) {
+            return pending.size();
+        }
+    }
+
+    /**
+     *  区块已被钱包处理
+     */
+    void onBlock(Block block) {
+        int height = block.height;
+        synchronized (recent) {
+            for (Transaction tx : block.transactions) {
+                UInt256 txid = tx.hash();
+                recent.put(txid, height);
+                List<CompletableFuture<Integer>> futures = pending.remove(txid);
+                if (futures != null) {
+                    ForkJoinPool.commonPool().execute(() -> futures.forEach(p -> p.complete(height)));
+                }
+            }
+        }
+    }
+
+    private void remove(UInt256 txid, CompletableFuture<Integer> future) {
+        synchronized (recent) {
+            List<CompletableFuture<Integer>> futures = pending.get(txid);
+            if (futures != null && futures.remove(future) && futures.isEmpty()) {
+                pending.remove(txid);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package NEO.Wallets;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *  用随机逼近的方法求解背包问题，选出金额之和不小于支付金额且超出最少的一组coin
+ *
+ *  只在小于支付金额的coin中最大的maxCandidates个里搜索，重复iterations次；
+ *  结果不如单个足够支付的最小coin时使用该coin。找零尽量少，同时会花掉一部分小额coin。
+ */
+public class KnapsackSelector implements CoinSelector {
+    public static final int DEFAULT_ITERATIONS = 1000;
+    public static final int DEFAULT_MAX_CANDIDATES = 1000;
+
+    private final Random random;
+    private final int iterations;
+    private final int maxCandidates;
+
+    public KnapsackSelector() {
+        this(new Random(), DEFAULT_ITERATIONS, DEFAULT_MAX_CANDIDATES);
+    }
+
+    /**
+     *  @param random 随机数来源
+     *  @param iterations 随机尝试的次数
+     *  @param maxCandidates 参与搜索的coin的最大数量
+     */
+    public KnapsackSelector(Random random, int iterations, int maxCandidates) {
+        if (iterations <= 0 || maxCandidates <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.random = random;
+        this.iterations = iterations;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Override
+    public int[] select(long[] values, long amount) {
+        int[] order = CoinSelector.sortIndices(values, true);
+        // 足够支付的最小coin，以及小于支付金额的coin
+        int lowestLarger = -1;
+        int first = order.length;
+        for (int i = 0; i < order.length; i++) {
+            long value = values[order[i]];
+            if (value == amount) {
+                return new int[] { order[i] };
+            }
+            if (value < amount) {
+                first = i;
+                break;
+            }
+            lowestLarger = order[i];
+        }
+        int n = Math.min(order.length - first, maxCandidates);
+        long[] lower = new long[n];
+        long totalLower = 0;
+        for (int i = 0; i < n; i++) {
+            lower[i] = values[order[first + i]];
+            totalLower += lower[i];
+        }
+        if (totalLower == amount) {
+            return Arrays.copyOfRange(order, first, first + n);
+        }
+        if (totalLower < amount) {
+            if (lowestLarger >= 0) {
+                return new int[] { lowestLarger };
+            }
+            return new LargestFirstSelector().select(values, amount);
+        }
+        boolean[] best = approximateBestSubset(lower, totalLower, amount);
+        long bestSum = 0;
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (best[i]) {
+                bestSum += lower[i];
+                count++;
+            }
+        }
+        if (lowestLarger >= 0 && bestSum != amount && values[lowestLarger] <= bestSum) {
+            return new int[] { lowestLarger };
+        }
+        int[] result = new int[count];
+        for (int i = 0, k = 0; i < n; i++) {
+            if (best[i]) {
+                result[k++] = order[first + i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     *  每次随机选中一部分coin，第二遍补上没有选中的，直到达到支付金额；记录超出最少的组合
+     */
+    private boolean[] approximateBestSubset(long[] lower, long total, long amount) {
+        int n = lower.length;
+        boolean[] best = new boolean[n];
+        Arrays.fill(best, true);
+        long bestSum = total;
+        boolean[] included = new boolean[n];
+        for (int rep = 0; rep < iterations && bestSum != amount; rep++) {
+            Arrays.fill(included, false);
+            long sum = 0;
+            boolean reached = false;
+            for (int pass = 0; pass < 2 && !reached; pass++) {
+                for (int i = 0; i < n; i++) {
+                    if (pass == 0 ? random.nextBoolean() : !included[i]) {
+                        sum += lower[i];
+                        included[i] = true;
+                        if (sum >= amount) {
+                            reached = true;
+                            if (sum < bestSum) {
+                                bestSum = sum;
+                                System.arraycopy(included, 0, best, 0, n);
+                            }
+                            // 去掉这个coin继续尝试更接近的组合
+                            sum -= lower[i];
+                            included[i] = false;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+}
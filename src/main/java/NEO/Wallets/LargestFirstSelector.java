@@ -0,0 +1,41 @@
+package NEO.Wallets;
+
+import java.util.Arrays;
+
+/**
+ *  从大到小选择coin，直到剩余金额小于下一个coin，再用金额最小的一个足够支付剩余金额的coin补足
+ *
+ *  输入数量少，是钱包默认的策略。
+ */
+public class LargestFirstSelector implements CoinSelector {
+
+    @Override
+    public int[] select(long[] values, long amount) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        if (sum < amount) {
+            return null;
+        }
+        int[] order = CoinSelector.sortIndices(values, true);
+        if (sum == amount) {
+            return order;
+        }
+        int i = 0;
+        while (values[order[i]] <= amount) {
+            amount -= values[order[i++]];
+        }
+        if (amount == 0) {
+            return Arrays.copyOf(order, i);
+        }
+        int[] result = Arrays.copyOf(order, i + 1);
+        for (int j = order.length - 1; j >= i; j--) {
+            if (values[order[j]] >= amount) {
+                result[i] = order[j];
+                break;
+            }
+        }
+        return result;
+    }
+}
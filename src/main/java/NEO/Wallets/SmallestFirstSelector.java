@@ -0,0 +1,39 @@
+package NEO.Wallets;
+
+import java.util.Arrays;
+
+/**
+ *  从小到大选择coin，在支付的同时合并零钱
+ *
+ *  输入超过maxInputs个仍不够支付时，改用LargestFirstSelector，避免交易过大。
+ */
+public class SmallestFirstSelector implements CoinSelector {
+    private final int maxInputs;
+
+    public SmallestFirstSelector() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     *  @param maxInputs 最多使用的输入数量
+     */
+    public SmallestFirstSelector(int maxInputs) {
+        if (maxInputs <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxInputs = maxInputs;
+    }
+
+    @Override
+    public int[] select(long[] values, long amount) {
+        int[] order = CoinSelector.sortIndices(values, false);
+        long sum = 0;
+        for (int i = 0; i < order.length && i < maxInputs; i++) {
+            sum += values[order[i]];
+            if (sum >= amount) {
+                return Arrays.copyOf(order, i + 1);
+            }
+        }
+        return new LargestFirstSelector().select(values, amount);
+    }
+}
@@ -5,11 +5,10 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -36,23 +35,28 @@ import NEO.Cryptography.Digest;
 import NEO.Cryptography.ECC;
 import NEO.IO.Serializable;
 import NEO.IO.Caching.TrackState;
-import NEO.IO.Caching.TrackableCollection;
 import NEO.Network.Rest.RestRuntimeException;
 import NEO.sdk.helper.DataFormat;
 
 public abstract class Wallet implements AutoCloseable {
 
     public static final byte COIN_VERSION = 0x17;
+    private static final AddressCache addressCache = new AddressCache(4096);
     private byte[] iv;
     private byte[] masterKey;
     private Map<UInt160, Account> accounts;
     private Map<UInt160, Contract> contracts;
-    private TrackableCollection<TransactionInput, Coin> coins;
-    private int current_height;
+    private CoinStore coins;
+    private volatile int current_height;
 
     private String path;
     private Thread thread;
     private boolean isrunning = false;
+    private int prefetchDepth = 64;
+    private int prefetchParallelism = 8;
+    private volatile CoinSelector coinSelector = new LargestFirstSelector();
+    private final Object newBlockSignal = new Object();
+    private final ConfirmationTracker confirmations = new ConfirmationTracker();
 
     protected final Object locker = new Object();
     
@@ -61,9 +65,9 @@ public abstract class Wallet implements AutoCloseable {
     	if (create) {
             this.iv = AES.generateIV();
             this.masterKey = AES.generateKey();
-            this.accounts = new HashMap<UInt160, Account>();
-            this.contracts = new HashMap<UInt160, Contract>();
-            this.coins = new TrackableCollection<TransactionInput, Coin>();
+            this.accounts = new ConcurrentHashMap<UInt160, Account>();
+            this.contracts = new ConcurrentHashMap<UInt160, Contract>();
+            this.coins = new CoinStore();
             try {
 				this.current_height = Blockchain.current() != null ? Blockchain.current().headerHeight() + 1 : 1;
 			} catch (Exception ex) {
@@ -82,9 +86,9 @@ public abstract class Wallet implements AutoCloseable {
             }
             this.iv = loadStoredData("IV");
 			this.masterKey = AES.decrypt(loadStoredData("MasterKey"), passwordKey, iv);
-            this.accounts = Arrays.stream(loadAccounts()).collect(Collectors.toMap(p -> p.publicKeyHash, p -> p));
-            this.contracts = Arrays.stream(loadContracts()).collect(Collectors.toMap(p -> p.scriptHash(), p -> p));
-            this.coins = new TrackableCollection<TransactionInput, Coin>(loadCoins());
+            this.accounts = Arrays.stream(loadAccounts()).collect(Collectors.toConcurrentMap(p -> p.publicKeyHash, p -> p));
+            this.contracts = Arrays.stream(loadContracts()).collect(Collectors.toConcurrentMap(p -> p.scriptHash(), p -> p));
+            this.coins = new CoinStore(loadCoins());
             this.current_height = ByteBuffer.wrap(loadStoredData("Height")).order(ByteOrder.LITTLE_ENDIAN).getInt();
 //            checkCoinState();
         }
@@ -96,7 +100,7 @@ public abstract class Wallet implements AutoCloseable {
     	if(spending == null || spending.length == 0) {
     		return;
     	}
-    	Arrays.stream(spending).filter(p -> {
+    	Coin[] unspent = Arrays.stream(spending).filter(p -> {
     		Transaction tx = null;
     		try {
     			tx = Blockchain.current().getTransaction(p.input.prevHash);
@@ -104,10 +108,23 @@ public abstract class Wallet implements AutoCloseable {
     			tx = null;
     		}
     		return tx == null;
-    	}).forEach(p -> coins.get(p.input).setState(CoinState.Unspent));
-    	Coin[] changeset = coins.getChangeSet(Coin[]::new);
-    	onSaveTransaction(null, new Coin[0], changeset);
-    	coins.commit();
+    	}).toArray(Coin[]::new);
+    	synchronized (locker) {
+    		Coin[] changeset;
+    		coins.writeLock().lock();
+    		try {
+    			for (Coin coin : unspent) {
+    				if (coins.get(coin.input) == coin && coin.getState() == CoinState.Spending) {
+    					coin.setState(CoinState.Unspent);
+    				}
+    			}
+    			changeset = coins.getChangeSet(Coin[]::new);
+    		} finally {
+    			coins.writeLock().unlock();
+    		}
+    		onSaveTransaction(null, new Coin[0], changeset);
+    		coins.commit();
+    	}
     }
     
     /**
@@ -123,13 +140,71 @@ public abstract class Wallet implements AutoCloseable {
     	}
     }
     
+    /**
+     * 设置同步时的区块预取
+     * 
+     * @param depth 当前高度之后最多预取的区块数
+     * @param parallelism 同时下载的最大区块数
+     */
+    public void setPrefetch(int depth, int parallelism) {
+    	if (depth <= 0 || parallelism <= 0) {
+    		throw new IllegalArgumentException();
+    	}
+    	this.prefetchDepth = depth;
+    	this.prefetchParallelism = parallelism;
+    }
+    
+    /**
+     * 设置构造交易时选择输入的默认策略
+     * 
+     * @param selector 例如LargestFirstSelector(默认)、SmallestFirstSelector、BranchAndBoundSelector、KnapsackSelector
+     */
+    public void setCoinSelector(CoinSelector selector) {
+    	if (selector == null) {
+    		throw new NullPointerException();
+    	}
+    	this.coinSelector = selector;
+    }
+    
+    public CoinSelector getCoinSelector() {
+    	return coinSelector;
+    }
+    
+    /**
+     * 交易确认跟踪，钱包处理区块后通知等待该区块中交易的调用者
+     */
+    public ConfirmationTracker confirmations() {
+    	return confirmations;
+    }
+    
+    /**
+     * 通知钱包有新的区块，例如由WebSocket推送
+     * 
+     * 如果正好是钱包等待的下一个区块则直接处理，否则唤醒同步线程从区块链补齐缺少的区块
+     * 
+     * @param block 新区块
+     */
+    public void notifyNewBlock(Block block) {
+    	synchronized (locker) {
+    		if (isrunning && block.height == current_height) {
+    			processNewBlock(block);
+    		}
+    	}
+    	synchronized (newBlockSignal) {
+    		newBlockSignal.notifyAll();
+    	}
+    }
+    
     /**
      * 关闭同步线程
      */
     @Override
     public void close() {
         isrunning = false;
-        if (thread.getState() != State.NEW) {
+        synchronized (newBlockSignal) {
+        	newBlockSignal.notifyAll();
+        }
+        if (thread != null && thread.getState() != State.NEW) {
 			try {
 				thread.join();
 			} catch (InterruptedException ex) {
@@ -175,20 +250,17 @@ public abstract class Wallet implements AutoCloseable {
 
     public Account createAccount(byte[] privateKey) {
         Account account = new Account(privateKey);
-        synchronized (accounts) {
-            accounts.put(account.publicKeyHash, account);
-        }
+        accounts.put(account.publicKeyHash, account);
         return account;
     }
     
     public void addContract(Contract contract) {
+        // accounts、contracts的读取不加锁，修改在accounts上同步，保证不会加入没有账户的合约
         synchronized (accounts) {
             if (!accounts.containsKey(contract.publicKeyHash)) {
             	throw new RuntimeException();
             }
-            synchronized(contracts) {
-                contracts.put(contract.scriptHash(), contract);
-            }
+            contracts.put(contract.scriptHash(), contract);
         }
     }
 
@@ -197,9 +269,7 @@ public abstract class Wallet implements AutoCloseable {
     }
 
     public boolean containsAccount(UInt160 publicKeyHash) {
-        synchronized (accounts) {
-            return accounts.containsKey(publicKeyHash);
-        }
+        return accounts.containsKey(publicKeyHash);
     }
 
     public boolean containsAddress(String address) {
@@ -207,32 +277,35 @@ public abstract class Wallet implements AutoCloseable {
     }
     
     public boolean containsAddress(UInt160 scriptHash) {
-        synchronized (contracts) {
-            return contracts.containsKey(scriptHash);
-        }
+        return contracts.containsKey(scriptHash);
     }
     
     public boolean deleteAccount(UInt160 publicKeyHash) {
-        synchronized (accounts) {
-            synchronized (contracts) {
+        synchronized (locker) {
+            synchronized (accounts) {
                 for (Contract contract : contracts.values().stream().filter(p -> p.publicKeyHash == publicKeyHash).toArray(Contract[]::new)) {
                     deleteContract(contract.scriptHash());
                 }
+                return accounts.remove(publicKeyHash) != null;
             }
-            return accounts.remove(publicKeyHash) != null;
         }
     }
     
+    /**
+     * 删除合约及其coin；在locker上与区块处理同步，不会在区块写入数据库之前提交其变更
+     */
     public boolean deleteContract(UInt160 scriptHash) {
-        synchronized (contracts) {
-            synchronized (coins) {
-            	Iterator<Coin> iterator = coins.iterator();
-            	while (iterator.hasNext()) {
-            		if (iterator.next().scriptHash.equals(scriptHash)) {
-            			iterator.remove();
-            		}
-            	}
-                coins.commit();
+        synchronized (locker) {
+            synchronized (accounts) {
+                coins.writeLock().lock();
+                try {
+                	for (Coin coin : coins.find(scriptHash)) {
+                		coins.remove(coin);
+                	}
+                    coins.commit();
+                } finally {
+                	coins.writeLock().unlock();
+                }
                 return contracts.remove(scriptHash) != null;
             }
         }
@@ -256,31 +329,30 @@ public abstract class Wallet implements AutoCloseable {
      * 小蚁币相关信息接口
      */
     public Coin[] findCoins() {
-        synchronized (coins) {
-            return coins.stream().filter(p -> p.getState() == CoinState.Unconfirmed || p.getState() == CoinState.Unspent).toArray(Coin[]::new);
-        }
+        return coins.find(CoinState.Unconfirmed, CoinState.Unspent);
     }
     
     public Coin[] getCoin() {
-    	return coins.stream().toArray(Coin[]::new);
+    	return coins.snapshot();
     }
     
     public Coin[] findSpendingCoins() {
-    	synchronized (coins) {
-            return coins.stream().filter(p -> p.getState() == CoinState.Spending).toArray(Coin[]::new);
-        }
+        return coins.find(CoinState.Spending);
     }
     
     public Coin[] findUnconfirmedCoins() {
-        synchronized (coins) {
-            return coins.stream().filter(p -> p.getState() == CoinState.Unconfirmed).toArray(Coin[]::new);
-        }
+        return coins.find(CoinState.Unconfirmed);
     }
 
     public Coin[] findUnspentCoins() {
-        synchronized (coins) {
-            return coins.stream().filter(p -> p.getState() == CoinState.Unspent).toArray(Coin[]::new);
-        }
+        return coins.find(CoinState.Unspent);
+    }
+
+    /**
+     * 指定资产的未花费coin
+     */
+    public Coin[] findUnspentCoins(UInt256 asset_id) {
+        return coins.find(asset_id, CoinState.Unspent);
     }
 
     public Coin[] findUnspentCoins(UInt256 asset_id, Fixed8 amount) {
@@ -288,60 +360,52 @@ public abstract class Wallet implements AutoCloseable {
     }
     
     public Coin[] findUnspentCoins(UInt256 asset_id, Fixed8 amount, UInt160 from) {
-    	synchronized (coins) {
-    		Stream<Coin> unspents = coins.stream().filter(p -> p.getState() == CoinState.Unspent && p.getState() != CoinState.Unconfirmed);
-    		if (from != null) {
-    			unspents = unspents.filter(p -> p.scriptHash.equals(from));
-    		}
-    		return findUnspentCoins(unspents, asset_id, amount);
-    	}
+    	return findUnspentCoins(asset_id, amount, from, coinSelector);
+    }
+
+    public Coin[] findUnspentCoins(UInt256 asset_id, Fixed8 amount, UInt160 from, CoinSelector selector) {
+    	return selectCoins(coins.find(asset_id, CoinState.Unspent, from), amount, selector);
     }
 
     protected static Coin[] findUnspentCoins(Stream<Coin> unspents, UInt256 asset_id, Fixed8 amount) {
-        Coin[] unspents_asset = unspents.filter(p -> p.assetId.equals(asset_id)).toArray(Coin[]::new);
-        Fixed8 sum = Fixed8.sum(unspents_asset, p -> p.value);
-        if (sum.compareTo(amount) < 0) throw new RuntimeException(DataFormat.getErrorDesc4NoBalance(String.format("insuficient balance, sum=%s, amount=%s", sum, amount)));
-        if (sum.equals(amount)) return unspents_asset;
-        Arrays.sort(unspents_asset, (a, b) -> -a.value.compareTo(b.value));
-        int i = 0;
-        while (unspents_asset[i].value.compareTo(amount) <= 0)
-            amount = amount.subtract(unspents_asset[i++].value);
-        if (amount.equals(Fixed8.ZERO)) {
-            return Arrays.stream(unspents_asset).limit(i).toArray(Coin[]::new);
-        } else {
-        	Coin[] result = new Coin[i + 1];
-        	System.arraycopy(unspents_asset, 0, result, 0, i);
-        	for (int j = unspents_asset.length - 1; j >= 0; j--)
-        		if (unspents_asset[j].value.compareTo(amount) >= 0) {
-        			result[i] = unspents_asset[j];
-        			break;
-        		}
-        	return result;
-        }
+        return selectCoins(unspents.filter(p -> p.assetId.equals(asset_id)).toArray(Coin[]::new), amount, new LargestFirstSelector());
+    }
+
+    /**
+     * 用指定的策略从候选coin中选择输入，余额不足或没有符合策略的组合时抛出CoinRuntimeException
+     */
+    protected static Coin[] selectCoins(Coin[] candidates, Fixed8 amount, CoinSelector selector) {
+        long[] values = new long[candidates.length];
+        long sum = 0;
+        for (int i = 0; i < candidates.length; i++) {
+        	values[i] = candidates[i].value.getData();
+        	sum += values[i];
+        }
+        if (sum < amount.getData()) throw new CoinRuntimeException(DataFormat.getErrorDesc4NoBalance(String.format("insuficient balance, sum=%s, amount=%s", new Fixed8(sum), amount)));
+        if (amount.getData() <= 0) return new Coin[0];
+        int[] selected = selector.select(values, amount.getData());
+        if (selected == null) throw new CoinRuntimeException(DataFormat.getErrorDesc4NoBalance(String.format("no coins match the amount, sum=%s, amount=%s", new Fixed8(sum), amount)));
+        Coin[] result = new Coin[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+        	result[i] = candidates[selected[i]];
+        }
+        return result;
     }
     
     public Coin[] getUnclaimedCoins() {
-        synchronized (coins) {
-            return coins.stream().filter(p -> p.getState() == CoinState.Spent).toArray(Coin[]::new);
-        }
+        return coins.find(CoinState.Spent);
     }
 
     public Fixed8 getAvailable(UInt256 asset_id) {
-        synchronized (coins) {
-        	return Fixed8.sum(coins.stream().filter(p -> p.getState() == CoinState.Unspent && p.assetId.equals(asset_id)).toArray(Coin[]::new), p -> p.value);
-        }
+        return coins.sum(asset_id, CoinState.Unspent);
     }
 
     public Fixed8 getBalance(UInt256 asset_id) {
-        synchronized (coins) {
-        	return Fixed8.sum(coins.stream().filter(p -> (p.getState() == CoinState.Unconfirmed || p.getState() == CoinState.Unspent) && p.assetId.equals(asset_id)).toArray(Coin[]::new), p -> p.value);
-        }
+        return coins.sum(asset_id, CoinState.Unconfirmed, CoinState.Unspent);
     }
 
     public UInt160 getChangeAddress() {
-        synchronized (contracts) {
-        	return contracts.values().stream().filter(p -> p.isStandard()).findAny().map(p -> p.scriptHash()).orElse(contracts.keySet().stream().findAny().get());
-        }
+        return contracts.values().stream().filter(p -> p.isStandard()).findAny().map(p -> p.scriptHash()).orElse(contracts.keySet().stream().findAny().get());
     }
 
     /**
@@ -352,27 +416,18 @@ public abstract class Wallet implements AutoCloseable {
     }
 
     public Account getAccount(UInt160 publicKeyHash) {
-        synchronized (accounts) {
-            if (!accounts.containsKey(publicKeyHash)) 
-            	return null;
-            return accounts.get(publicKeyHash);
-        }
+        return accounts.get(publicKeyHash);
     }
 
     public Account getAccountByScriptHash(UInt160 scriptHash) {
-        synchronized (accounts) {
-            synchronized (contracts) {
-                if (!contracts.containsKey(scriptHash)) 
-                	return null;
-                return accounts.get(contracts.get(scriptHash).publicKeyHash);
-            }
-        }
+        Contract contract = contracts.get(scriptHash);
+        if (contract == null) 
+        	return null;
+        return accounts.get(contract.publicKeyHash);
     }
 
     public Account[] getAccounts() {
-        synchronized (accounts) {
-        	return accounts.values().toArray(new Account[accounts.size()]);
-        }
+        return accounts.values().toArray(new Account[0]);
     }
 
     /**
@@ -383,32 +438,22 @@ public abstract class Wallet implements AutoCloseable {
     }
     
     public Contract getContract(UInt160 scriptHash) {
-        synchronized (contracts) {
-            if (!contracts.containsKey(scriptHash)) 
-            	return null;
-            return contracts.get(scriptHash);
-        }
+        return contracts.get(scriptHash);
     }
     
     public Contract[] getContracts() {
-        synchronized (contracts) {
-        	return contracts.values().toArray(new Contract[contracts.size()]);
-        }
+        return contracts.values().toArray(new Contract[0]);
     }
 
     public Contract[] getContracts(UInt160 publicKeyHash) {	// 多签名合约:一个公钥和可以创建多个合约
-        synchronized (contracts) {
-        	return contracts.values().stream().filter(p -> p.publicKeyHash.equals(publicKeyHash)).toArray(Contract[]::new);
-        }
+        return contracts.values().stream().filter(p -> p.publicKeyHash.equals(publicKeyHash)).toArray(Contract[]::new);
     }
     
     /**
      * 地址(全称：合约地址)-账户-合约
      */
     public UInt160[] getAddresses() {
-        synchronized (contracts) {
-        	return contracts.keySet().toArray(new UInt160[contracts.size()]);
-        }
+        return contracts.keySet().toArray(new UInt160[0]);
     }
     public String getAddressByPubKeyHash(UInt160 publicKeyHash) {// 一个公钥可以创建多个合约
     	Contract[] cons = getContracts(publicKeyHash);
@@ -423,7 +468,7 @@ public abstract class Wallet implements AutoCloseable {
         byte[] data = Base58.decode(wif);
         if (data.length != 38 || data[0] != (byte)0x80 || data[33] != 0x01)
             throw new IllegalArgumentException();
-        byte[] checksum = Digest.sha256(Digest.sha256(data, 0, data.length - 4));
+        byte[] checksum = Digest.hash256(data, 0, data.length - 4);
         for (int i = 0; i < 4; i++)
         	if (data[data.length - 4 + i] != checksum[i])
         		throw new IllegalArgumentException();
@@ -441,13 +486,11 @@ public abstract class Wallet implements AutoCloseable {
     }
     
     protected boolean isWalletTransaction(Transaction tx) {
-    	synchronized (contracts) {
-            if (Arrays.stream(tx.outputs).anyMatch(p -> contracts.containsKey(p.scriptHash))) {
-                return true;
-            }
-            if (Arrays.stream(tx.scripts).anyMatch(p -> contracts.containsKey(Program.toScriptHash(p.parameter)))) {
-                return true;
-            }
+        if (Arrays.stream(tx.outputs).anyMatch(p -> contracts.containsKey(p.scriptHash))) {
+            return true;
+        }
+        if (Arrays.stream(tx.scripts).anyMatch(p -> contracts.containsKey(Program.toScriptHash(p.parameter)))) {
+            return true;
         }
         return false;
     }
@@ -469,6 +512,15 @@ public abstract class Wallet implements AutoCloseable {
     }
 
     public <T extends Transaction> T makeTransaction(T tx, Fixed8 fee, UInt160 from) throws CoinException{
+    	return makeTransaction(tx, fee, from, coinSelector);
+    }
+
+    /**
+     * 构造交易，用指定的策略选择输入
+     * 
+     * @param selector 选择输入的策略，例如BranchAndBoundSelector可以避免找零输出
+     */
+    public <T extends Transaction> T makeTransaction(T tx, Fixed8 fee, UInt160 from, CoinSelector selector) throws CoinException{
         if (tx.outputs == null) throw new IllegalArgumentException("tx.output is null");
         if (tx.attributes == null) tx.attributes = new TransactionAttribute[0];
         fee = fee.add(tx.systemFee());
@@ -491,7 +543,7 @@ public abstract class Wallet implements AutoCloseable {
 
         Map<UInt256, Coin[]> pay_coins = null;
         try {
-        	pay_coins = pay_total.entrySet().stream().collect(Collectors.toMap(p -> p.getKey(), p -> findUnspentCoins(p.getKey(), p.getValue(), from)));
+        	pay_coins = pay_total.entrySet().stream().collect(Collectors.toMap(p -> p.getKey(), p -> findUnspentCoins(p.getKey(), p.getValue(), from, selector)));
         } catch (CoinRuntimeException ex) {
         	throw new CoinException(ex.getMessage(), ex);
         }
@@ -511,6 +563,7 @@ public abstract class Wallet implements AutoCloseable {
         }
         tx.inputs = pay_coins.values().stream().flatMap(p -> Arrays.stream(p)).map(p -> p.input).toArray(TransactionInput[]::new);
         tx.outputs = outputs_new.toArray(new TransactionOutput[outputs_new.size()]);
+        tx.invalidateHash();
         return tx;
     }
 
@@ -518,93 +571,115 @@ public abstract class Wallet implements AutoCloseable {
     protected abstract void onSaveTransaction(Transaction tx, Coin[] added, Coin[] changed);				// for wallet
 
     private void processBlocks() {
+    	BlockPrefetcher prefetcher = null;
         while (isrunning) {
         	Blockchain blockchain = Blockchain.current();
-            while (true) {
-            	int height;
-            	try {
-					height = blockchain == null ? 0 : blockchain.height();
+        	int height = -1;
+            while (isrunning) {
+            	// 只在追上已知高度后才重新查询高度，避免每个区块一次额外的请求
+            	if (current_height > height) {
+            		try {
+            			height = blockchain == null ? 0 : blockchain.height();
+            		} catch (Exception ex) {
+            			break;
+            		}
+            		if (current_height > height) {
+            			break;
+            		}
+            	}
+            	if (prefetcher == null || prefetcher.blockchain != blockchain || prefetcher.position() != current_height) {
+            		prefetcher = new BlockPrefetcher(blockchain, current_height, prefetchDepth, prefetchParallelism);
+            	}
+            	prefetcher.setLimit(height);
+                Block block;
+				try {
+					block = prefetcher.take();
 				} catch (Exception ex) {
+					ex.printStackTrace();
 					break;
 				}
-            	if (current_height > height || !isrunning) {
-            		break;
-            	}
                 synchronized (locker) {
-                    Block block;
-					try {
-						block = blockchain.getBlock(current_height);
-					} catch (Exception ex) {
-						ex.printStackTrace();
-						break;
-					}
-                    if (block != null) {
+                    if (block != null && current_height == prefetcher.position() - 1) {
                     	processNewBlock(block);
                     }
                 }
             }
+            // 等待下一次轮询，收到新区块通知时提前开始
             try {
-	            for (int i = 0; i < 20 && isrunning; i++) {
-	                Thread.sleep(100);
-	            }
+            	synchronized (newBlockSignal) {
+            		if (isrunning) {
+            			newBlockSignal.wait(2000);
+            		}
+            	}
             } catch (InterruptedException ex) {
             	break;
             }
         }
     }
+    /**
+     * 处理一个区块，调用者持有locker
+     * 
+     * 只在更新内存中的coin时持有coin的写锁，写入数据库时不持有，查询余额、构造交易不需要等待数据库；
+     * 所有修改coin的操作都在locker上同步，写入数据库的顺序与修改的顺序一致
+     */
     private void processNewBlock(Block block) {
-        Coin[] changeset;
-        synchronized (contracts) {
-            synchronized (coins) {
-            	// 1. 更新内存coin
-            	// tx.output
-                for (Transaction tx : block.transactions) {
-                    for (int index = 0; index < tx.outputs.length; ++index) {
-                        TransactionOutput output = tx.outputs[index];
-                        if (contracts.containsKey(output.scriptHash)) {
-                            TransactionInput key = new TransactionInput();
-                            key.prevHash = tx.hash();
-                            key.prevIndex = (short)index;
-                            if (coins.containsKey(key)) {
-                                coins.get(key).setState(CoinState.Unspent); // change Unconfimed to Unspent
-                            } else {
-                            	Coin coin = new Coin();
-                            	coin.input = key;
-                            	coin.assetId = output.assetId;
-                            	coin.value = output.value;
-                            	coin.scriptHash = output.scriptHash;
-                            	coin.setState(CoinState.Unspent);	// add unspent coin
-                                coins.add(coin);
-                            }  
-                        }
+        Coin[] added, changed, deleted;
+        coins.writeLock().lock();
+        try {
+        	// 1. 更新内存coin
+        	// tx.output
+            for (Transaction tx : block.transactions) {
+                for (int index = 0; index < tx.outputs.length; ++index) {
+                    TransactionOutput output = tx.outputs[index];
+                    if (contracts.containsKey(output.scriptHash)) {
+                        TransactionInput key = new TransactionInput();
+                        key.prevHash = tx.hash();
+                        key.prevIndex = (short)index;
+                        if (coins.containsKey(key)) {
+                            coins.get(key).setState(CoinState.Unspent); // change Unconfimed to Unspent
+                        } else {
+                        	Coin coin = new Coin();
+                        	coin.input = key;
+                        	coin.assetId = output.assetId;
+                        	coin.value = output.value;
+                        	coin.scriptHash = output.scriptHash;
+                        	coin.setState(CoinState.Unspent);	// add unspent coin
+                            coins.add(coin);
+                        }  
                     }
                 }
-                // tx.input
-                for (Transaction tx : block.transactions) {
-                    for (TransactionInput input : tx.getAllInputs().toArray(TransactionInput[]::new)) {
-                        if (coins.containsKey(input)) {
-                        	coins.get(input).setState(CoinState.Spent);	// change spending to spent
-                        }
+            }
+            // tx.input
+            for (Transaction tx : block.transactions) {
+                for (TransactionInput input : tx.getAllInputs().toArray(TransactionInput[]::new)) {
+                    if (coins.containsKey(input)) {
+                    	coins.get(input).setState(CoinState.Spent);	// change spending to spent
                     }
                 }
-                // 2. 更新入库coin/tx/height
-                changeset = coins.getChangeSet(Coin[]::new);
-                Coin[] added = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Added).toArray(Coin[]::new);
-                Coin[] changed = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Changed).toArray(Coin[]::new);
-                Coin[] deleted = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Deleted).toArray(Coin[]::new);
-                onProcessNewBlock(block, added, changed, deleted);
-                coins.commit();
-                current_height++;
             }
+            Coin[] changeset = coins.getChangeSet(Coin[]::new);
+            added = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Added).toArray(Coin[]::new);
+            changed = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Changed).toArray(Coin[]::new);
+            deleted = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Deleted).toArray(Coin[]::new);
+        } finally {
+        	coins.writeLock().unlock();
         }
+        // 2. 更新入库coin/tx/height，失败时变更仍然保留，重新处理这个区块时一起写入
+        onProcessNewBlock(block, added, changed, deleted);
+        coins.commit();
+        current_height++;
+        confirmations.onBlock(block);
     }
 
 	public void rebuild() {
         synchronized (locker) {
-            synchronized (coins) {
+            coins.writeLock().lock();
+            try {
                 coins.clear();
                 coins.commit();
                 current_height = 1;
+            } finally {
+            	coins.writeLock().unlock();
             }
         }
     }
@@ -615,9 +690,10 @@ public abstract class Wallet implements AutoCloseable {
 	 * @return
 	 */
     public boolean saveTransaction(Transaction tx) {
-        Coin[] changeset;
-        synchronized (contracts) {
-            synchronized (coins) {
+        synchronized (locker) {
+            Coin[] added, changed;
+            coins.writeLock().lock();
+            try {
                 if (tx.getAllInputs().anyMatch(p -> !coins.containsKey(p) 
                 		|| coins.get(p).getState() != CoinState.Unspent)) {
                     return false;
@@ -639,15 +715,18 @@ public abstract class Wallet implements AutoCloseable {
                     	coins.add(coin);
                     }
                 }
-                // 更新入库coin/tx
-                changeset = coins.getChangeSet(Coin[]::new);
-                if (changeset.length > 0) {
-                	Coin[] added = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Added).toArray(Coin[]::new);
-                	Coin[] changed = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Changed).toArray(Coin[]::new);
-                    onSaveTransaction(tx, added, changed);
-                    coins.commit();
+                Coin[] changeset = coins.getChangeSet(Coin[]::new);
+                if (changeset.length == 0) {
+                	return true;
                 }
+                added = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Added).toArray(Coin[]::new);
+                changed = Arrays.stream(changeset).filter(p -> p.getTrackState() == TrackState.Changed).toArray(Coin[]::new);
+            } finally {
+            	coins.writeLock().unlock();
             }
+            // 更新入库coin/tx
+            onSaveTransaction(tx, added, changed);
+            coins.commit();
         }
         return true;
     }
@@ -669,16 +748,33 @@ public abstract class Wallet implements AutoCloseable {
         return fSuccess;
     }
 
+    /**
+     *  设置地址与脚本散列值之间转换结果的缓存容量，默认4096，0表示不缓存
+     */
+    public static void setAddressCacheCapacity(int capacity) {
+    	addressCache.setCapacity(capacity);
+    }
+
     public static String toAddress(UInt160 scriptHash) {
+    	String address = addressCache.getAddress(scriptHash);
+    	if (address != null) {
+    		return address;
+    	}
     	byte[] data = new byte[25];
     	data[0] = COIN_VERSION;
     	System.arraycopy(scriptHash.toArray(), 0, data, 1, 20);
-    	byte[] checksum = Digest.sha256(Digest.sha256(data, 0, 21));
+    	byte[] checksum = Digest.hash256(data, 0, 21);
     	System.arraycopy(checksum, 0, data, 21, 4);
-        return Base58.encode(data);
+        address = Base58.encode(data);
+        addressCache.put(scriptHash, address);
+        return address;
     }
 
     public static UInt160 toScriptHash(String address) {
+    	UInt160 scriptHash = addressCache.getScriptHash(address);
+    	if (scriptHash != null) {
+    		return scriptHash;
+    	}
         byte[] data = Base58.decode(address);
         if (data.length != 25) {
             throw new IllegalArgumentException();
@@ -686,7 +782,7 @@ public abstract class Wallet implements AutoCloseable {
         if (data[0] != COIN_VERSION) {
             throw new IllegalArgumentException();
         }
-        byte[] checksum = Digest.sha256(Digest.sha256(data, 0, 21));
+        byte[] checksum = Digest.hash256(data, 0, 21);
         for (int i = 0; i < 4; i++) {
         	if (data[data.length - 4 + i] != checksum[i]) {
         		throw new IllegalArgumentException();
@@ -694,7 +790,9 @@ public abstract class Wallet implements AutoCloseable {
         }
         byte[] buffer = new byte[20];
         System.arraycopy(data, 1, buffer, 0, 20);
-        return new UInt160(buffer);
+        scriptHash = new UInt160(buffer);
+        addressCache.put(scriptHash, address);
+        return scriptHash;
     }
     
     public String dbPath() {
@@ -0,0 +1,230 @@
+package NEO.Websocket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import NEO.Core.Block;
+import NEO.Core.Blockchain;
+import NEO.Websocket.Utils.GetBlockTransactionUtils;
+
+/**
+ * 通过WebSocket订阅新区块
+ *
+ * 节点推送的区块按高度顺序交给监听者，重复的区块被忽略。发现高度不连续(例如断线重连期间产生的区块)时，
+ * 先通过Blockchain.current()补齐缺少的区块；补齐失败时不交付缺口之后的区块，稍后从最后交付的高度重试。
+ * 补齐和交付在单独的线程中进行，不阻塞WebSocket的读线程(否则长时间补齐会耽误ping/pong)。
+ * 错误交给setErrorHandler设置的处理者；节点不可用时补齐会反复重试，同一次中断只报告第一次失败。
+ *
+ * @author 12146
+ *
+ */
+public class BlockSubscriber implements AutoCloseable {
+	/**
+	 * 补齐缺口时同时请求的区块数
+	 */
+	private static final int GAP_FILL_WINDOW = 64;
+	/**
+	 * 补齐失败后重试的间隔，单位毫秒
+	 */
+	static final long RETRY_DELAY = 1000;
+
+	private final WebSocketClient client;
+	private final List<Consumer<Block>> listeners = new CopyOnWriteArrayList<Consumer<Block>>();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "BlockSubscriber");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private String subscribeMessage = "{\"Action\":\"subscribe\",\"SubscribeRawBlock\":true}";
+	private volatile int lastHeight = -1;
+	private volatile Consumer<Exception> errorHandler = Exception::printStackTrace;
+	// 因为缺口没有补齐而暂缓交付的最新区块
+	private Block waiting;
+	private boolean retrying = false;
+	// 上一次补齐失败，尚未成功补齐
+	private boolean failing = false;
+
+	public BlockSubscriber(String url) {
+		this.client = new WebSocketClient(url, new WebSocketClient.Listener() {
+			@Override
+			public void onOpen(WebSocketClient client) {
+				BlockSubscriber.this.onOpen();
+			}
+
+			@Override
+			public void onMessage(String message) {
+				BlockSubscriber.this.onMessage(message);
+			}
+		});
+	}
+
+	/**
+	 * 设置连接后发送的订阅请求
+	 */
+	public void setSubscribeMessage(String subscribeMessage) {
+		this.subscribeMessage = subscribeMessage;
+	}
+
+	public void addListener(Consumer<Block> listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Consumer<Block> listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * 设置错误处理，默认打印到标准错误
+	 */
+	public void setErrorHandler(Consumer<Exception> errorHandler) {
+		if (errorHandler == null) {
+			throw new NullPointerException();
+		}
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * 最后交付的区块高度，还没有收到区块时为-1
+	 */
+	public int lastHeight() {
+		return lastHeight;
+	}
+
+	/**
+	 * 连接节点并开始接收区块
+	 */
+	public void start() throws IOException {
+		client.connect();
+	}
+
+	@Override
+	public void close() {
+		client.close();
+		executor.shutdownNow();
+	}
+
+	private void onOpen() {
+		try {
+			client.send(subscribeMessage);
+		} catch (IOException ex) {
+			errorHandler.accept(ex);
+			return;
+		}
+		// 重连后补齐断线期间的区块
+		execute(this::catchUp);
+	}
+
+	private void onMessage(String message) {
+		Block block;
+		try {
+			block = GetBlockTransactionUtils.from(message);
+		} catch (RuntimeException ex) {
+			errorHandler.accept(ex);
+			return;
+		}
+		if (block != null) {
+			execute(() -> deliver(block));
+		}
+	}
+
+	private void execute(Runnable task) {
+		if (!executor.isShutdown()) {
+			executor.execute(task);
+		}
+	}
+
+	/**
+	 * 交付推送的区块，需要时先补齐缺口；在交付线程中调用
+	 */
+	synchronized void deliver(Block block) {
+		if (lastHeight >= 0 && block.height <= lastHeight) {
+			return;
+		}
+		if (waiting != null && block.height <= waiting.height) {
+			return;
+		}
+		waiting = block;
+		catchUp();
+	}
+
+	/**
+	 * 补齐到暂缓交付的区块(没有时为区块链的当前高度)为止，失败时安排重试
+	 */
+	synchronized void catchUp() {
+		Blockchain blockchain = Blockchain.current();
+		try {
+			if (waiting != null) {
+				if (lastHeight >= 0) {
+					fill(waiting.height - 1);
+				}
+				Block block = waiting;
+				waiting = null;
+				if (block.height > lastHeight) {
+					dispatch(block);
+				}
+			} else if (lastHeight >= 0 && blockchain != null) {
+				fill(blockchain.height());
+			}
+			failing = false;
+		} catch (Exception ex) {
+			if (!failing) {
+				failing = true;
+				errorHandler.accept(ex);
+			}
+			// 只交付到最后一个连续的高度，稍后从这里继续
+			if (!retrying && !executor.isShutdown()) {
+				retrying = true;
+				executor.schedule(() -> {
+					synchronized (this) {
+						retrying = false;
+					}
+					catchUp();
+				}, RETRY_DELAY, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * 按顺序取得并交付lastHeight之后到height为止的区块
+	 */
+	private void fill(int height) throws Exception {
+		Blockchain blockchain = Blockchain.current();
+		if (blockchain == null) {
+			if (lastHeight < height) {
+				throw new IllegalStateException("no blockchain to fill blocks " + (lastHeight + 1) + "-" + height);
+			}
+			return;
+		}
+		while (lastHeight < height) {
+			List<CompletableFuture<Block>> window = new ArrayList<CompletableFuture<Block>>();
+			for (int i = lastHeight + 1; i <= height && window.size() < GAP_FILL_WINDOW; i++) {
+				window.add(blockchain.getBlockAsync(i));
+			}
+			for (CompletableFuture<Block> future : window) {
+				Block block = future.get();
+				if (block == null) {
+					throw new IllegalStateException("block " + (lastHeight + 1) + " not available");
+				}
+				dispatch(block);
+			}
+		}
+	}
+
+	private void dispatch(Block block) {
+		lastHeight = block.height;
+		for (Consumer<Block> listener : listeners) {
+			try {
+				listener.accept(block);
+			} catch (RuntimeException ex) {
+				errorHandler.accept(ex);
+			}
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package NEO.Websocket.Utils;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+import NEO.Helper;
 import NEO.Core.Block;
-import NEO.IO.JsonSerializable;
-import NEO.IO.Json.JObject;
+import NEO.IO.Serializable;
 
 /**
  * Parsing tool class
@@ -11,19 +14,37 @@ import NEO.IO.Json.JObject;
  *
  */
 public class GetBlockTransactionUtils {
+	/**
+	 * 推送新区块的消息类型
+	 */
+	public static final String ACTION_BLOCK = "sendrawblock";
 	
 	/**
 	 * Parse block for transaction
 	 * 
+	 * 消息格式与Rest接口的返回值相同：{"Action":"sendrawblock","Error":0,"Desc":"SUCCESS","Result":"<区块的十六进制序列化数据>"}
+	 * 
 	 * @param ss	json data obtained from websocket server
-	 * @return		transaction list
+	 * @return		block, or null if the message is not a new block notification
 	 */
 	public static Block from(String ss) {
-//		try {
-//			return JsonSerializable.from(JObject.parse(ss), Block.class);
-//		} catch (InstantiationException | IllegalAccessException e) {
-//			throw new RuntimeException("Block Parsing exception");
-//		}
-		return null;
+		JSONObject json;
+		try {
+			json = JSON.parseObject(ss);
+		} catch (RuntimeException e) {
+			return null;
+		}
+		if (json == null || !ACTION_BLOCK.equals(json.getString("Action")) || json.getLongValue("Error") != 0) {
+			return null;
+		}
+		Object result = json.get("Result");
+		if (!(result instanceof String)) {
+			return null;
+		}
+		try {
+			return Serializable.from(Helper.hexToBytes((String)result), Block.class);
+		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException e) {
+			throw new RuntimeException("Block Parsing exception", e);
+		}
 	}
-}
\ No newline at end of file
+}
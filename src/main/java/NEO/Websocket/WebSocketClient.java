@@ -1,6 +1,377 @@
 package NEO.Websocket;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
 
-public class WebSocketClient {
-	
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * WebSocket客户端(RFC 6455)
+ *
+ * 只支持文本消息。连接成功后在后台线程中读取消息并回调Listener；连接断开后按1秒、2秒...最长30秒的间隔自动重连，
+ * 重连成功后再次回调onOpen，订阅类的请求应在onOpen中发送。读超时时发送ping，连续两次超时没有收到任何数据视为连接已断开。
+ *
+ * @author 12146
+ *
+ */
+public class WebSocketClient implements AutoCloseable {
+	private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+	private static final int OP_CONTINUATION = 0x0, OP_TEXT = 0x1, OP_BINARY = 0x2, OP_CLOSE = 0x8, OP_PING = 0x9, OP_PONG = 0xA;
+	private static final int MAX_MESSAGE_SIZE = 64 << 20;
+	private static final int MAX_RECONNECT_DELAY = 30000;
+	private static final SecureRandom random = new SecureRandom();
+
+	/**
+	 * 连接事件和消息的回调，在读线程中执行
+	 */
+	public interface Listener {
+		void onOpen(WebSocketClient client);
+		void onMessage(String message);
+		default void onClose(int code, String reason) {}
+		default void onError(Exception ex) {}
+	}
+
+	private final URI uri;
+	private final Listener listener;
+	private int connectTimeout = 10000;
+	private int readTimeout = 30000;
+	private boolean reconnect = true;
+	private volatile boolean closed = false;
+	private volatile Socket socket;
+	private InputStream in;
+	private OutputStream out;
+	private Thread thread;
+
+	public WebSocketClient(String url, Listener listener) {
+		this.uri = URI.create(url);
+		if (!"ws".equalsIgnoreCase(uri.getScheme()) && !"wss".equalsIgnoreCase(uri.getScheme())) {
+			throw new IllegalArgumentException(url);
+		}
+		this.listener = listener;
+	}
+
+	/**
+	 * 是否在连接断开后自动重连，默认为true
+	 */
+	public void setReconnect(boolean reconnect) {
+		this.reconnect = reconnect;
+	}
+
+	/**
+	 * 设置连接超时和读超时，单位毫秒
+	 */
+	public void setTimeouts(int connect, int read) {
+		this.connectTimeout = connect;
+		this.readTimeout = read;
+	}
+
+	public boolean isOpen() {
+		Socket s = socket;
+		return s != null && !s.isClosed();
+	}
+
+	/**
+	 * 建立连接并启动读线程，第一次连接失败时直接抛出异常，不重连
+	 */
+	public synchronized void connect() throws IOException {
+		if (thread != null) {
+			throw new IllegalStateException();
+		}
+		open();
+		thread = new Thread(this::run);
+		thread.setDaemon(true);
+		thread.setName("WebSocketClient " + uri.getHost());
+		thread.start();
+	}
+
+	/**
+	 * 发送文本消息
+	 */
+	public void send(String text) throws IOException {
+		writeFrame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		if (isOpen()) {
+			try {
+				writeFrame(OP_CLOSE, new byte[] { 0x03, (byte)0xe8 });
+			} catch (IOException ex) {
+			}
+		}
+		closeSocket();
+		Thread t = thread;
+		if (t != null && t != Thread.currentThread()) {
+			t.interrupt();
+		}
+	}
+
+	private void run() {
+		int delay = 1000;
+		while (!closed) {
+			try {
+				readMessages();
+			} catch (IOException ex) {
+				if (!closed) {
+					listener.onError(ex);
+					listener.onClose(1006, ex.getMessage());
+				}
+			}
+			closeSocket();
+			while (!closed && reconnect) {
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException ex) {
+					return;
+				}
+				try {
+					open();
+					delay = 1000;
+					break;
+				} catch (IOException ex) {
+					listener.onError(ex);
+					delay = Math.min(delay * 2, MAX_RECONNECT_DELAY);
+				}
+			}
+			if (!reconnect) {
+				return;
+			}
+		}
+	}
+
+	private void open() throws IOException {
+		boolean secure = "wss".equalsIgnoreCase(uri.getScheme());
+		int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : 80;
+		Socket s = secure ? SSLSocketFactory.getDefault().createSocket() : new Socket();
+		try {
+			s.connect(new InetSocketAddress(uri.getHost(), port), connectTimeout);
+			s.setSoTimeout(readTimeout);
+			s.setTcpNoDelay(true);
+			InputStream input = new BufferedInputStream(s.getInputStream());
+			OutputStream output = s.getOutputStream();
+			byte[] nonce = new byte[16];
+			random.nextBytes(nonce);
+			String key = Base64.getEncoder().encodeToString(nonce);
+			String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+			if (uri.getRawQuery() != null) {
+				path += "?" + uri.getRawQuery();
+			}
+			String request = "GET " + path + " HTTP/1.1\r\n"
+					+ "Host: " + uri.getHost() + (uri.getPort() != -1 ? ":" + port : "") + "\r\n"
+					+ "Upgrade: websocket\r\n"
+					+ "Connection: Upgrade\r\n"
+					+ "Sec-WebSocket-Key: " + key + "\r\n"
+					+ "Sec-WebSocket-Version: 13\r\n\r\n";
+			output.write(request.getBytes(StandardCharsets.US_ASCII));
+			output.flush();
+			checkHandshake(readHeaders(input), key);
+			synchronized (this) {
+				this.in = input;
+				this.out = output;
+				this.socket = s;
+			}
+		} catch (IOException ex) {
+			s.close();
+			throw ex;
+		}
+		listener.onOpen(this);
+	}
+
+	private static String readHeaders(InputStream input) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < 4 || !sb.substring(sb.length() - 4).equals("\r\n\r\n")) {
+			int c = input.read();
+			if (c == -1) {
+				throw new EOFException();
+			}
+			if (sb.length() > 16384) {
+				throw new IOException("Handshake response too large");
+			}
+			sb.append((char)c);
+		}
+		return sb.toString();
+	}
+
+	private static void checkHandshake(String response, String key) throws IOException {
+		String[] lines = response.split("\r\n");
+		if (lines.length == 0 || !lines[0].matches("HTTP/1\\.\\d 101.*")) {
+			throw new IOException("Handshake failed: " + (lines.length == 0 ? "" : lines[0]));
+		}
+		String expected;
+		try {
+			MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+			expected = Base64.getEncoder().encodeToString(sha1.digest((key + GUID).getBytes(StandardCharsets.US_ASCII)));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IOException(ex);
+		}
+		for (String line : lines) {
+			int colon = line.indexOf(':');
+			if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Accept")) {
+				if (line.substring(colon + 1).trim().equals(expected)) {
+					return;
+				}
+				break;
+			}
+		}
+		throw new IOException("Handshake failed: invalid Sec-WebSocket-Accept");
+	}
+
+	private void readMessages() throws IOException {
+		ByteArrayOutputStream message = new ByteArrayOutputStream();
+		int messageType = -1;
+		boolean idle = false;
+		while (!closed) {
+			int b0;
+			try {
+				b0 = in.read();
+			} catch (SocketTimeoutException ex) {
+				if (idle) {
+					throw ex;
+				}
+				idle = true;
+				writeFrame(OP_PING, new byte[0]);
+				continue;
+			}
+			idle = false;
+			if (b0 == -1) {
+				throw new EOFException();
+			}
+			int b1 = readByte();
+			boolean fin = (b0 & 0x80) != 0;
+			int opcode = b0 & 0x0f;
+			long length = b1 & 0x7f;
+			if (length == 126) {
+				length = (readByte() << 8) | readByte();
+			} else if (length == 127) {
+				length = 0;
+				for (int i = 0; i < 8; i++) {
+					length = (length << 8) | readByte();
+				}
+			}
+			if (length < 0 || length + message.size() > MAX_MESSAGE_SIZE) {
+				throw new IOException("Message too large");
+			}
+			byte[] mask = null;
+			if ((b1 & 0x80) != 0) {
+				mask = new byte[4];
+				readFully(mask);
+			}
+			byte[] payload = new byte[(int)length];
+			readFully(payload);
+			if (mask != null) {
+				for (int i = 0; i < payload.length; i++) {
+					payload[i] ^= mask[i & 3];
+				}
+			}
+			switch (opcode) {
+			case OP_PING:
+				writeFrame(OP_PONG, payload);
+				break;
+			case OP_PONG:
+				break;
+			case OP_CLOSE:
+				int code = payload.length >= 2 ? ((payload[0] & 0xff) << 8) | (payload[1] & 0xff) : 1005;
+				String reason = payload.length > 2 ? new String(payload, 2, payload.length - 2, StandardCharsets.UTF_8) : "";
+				try {
+					writeFrame(OP_CLOSE, payload.length >= 2 ? new byte[] { payload[0], payload[1] } : new byte[0]);
+				} catch (IOException ex) {
+				}
+				listener.onClose(code, reason);
+				return;
+			case OP_TEXT:
+			case OP_BINARY:
+			case OP_CONTINUATION:
+				if (opcode != OP_CONTINUATION) {
+					messageType = opcode;
+					message.reset();
+				}
+				message.write(payload, 0, payload.length);
+				if (fin) {
+					if (messageType == OP_TEXT) {
+						listener.onMessage(new String(message.toByteArray(), StandardCharsets.UTF_8));
+					}
+					message.reset();
+				}
+				break;
+			default:
+				throw new IOException("Unknown opcode " + opcode);
+			}
+		}
+	}
+
+	private int readByte() throws IOException {
+		int b = in.read();
+		if (b == -1) {
+			throw new EOFException();
+		}
+		return b;
+	}
+
+	private void readFully(byte[] buffer) throws IOException {
+		int offset = 0;
+		while (offset < buffer.length) {
+			int n = in.read(buffer, offset, buffer.length - offset);
+			if (n == -1) {
+				throw new EOFException();
+			}
+			offset += n;
+		}
+	}
+
+	/**
+	 * 客户端发送的帧必须使用掩码
+	 */
+	private synchronized void writeFrame(int opcode, byte[] payload) throws IOException {
+		if (out == null || socket == null) {
+			throw new IOException("Not connected");
+		}
+		ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 14);
+		frame.write(0x80 | opcode);
+		if (payload.length < 126) {
+			frame.write(0x80 | payload.length);
+		} else if (payload.length < 65536) {
+			frame.write(0x80 | 126);
+			frame.write(payload.length >>> 8);
+			frame.write(payload.length);
+		} else {
+			frame.write(0x80 | 127);
+			for (int i = 7; i >= 0; i--) {
+				frame.write(i >= 4 ? 0 : payload.length >>> (i * 8));
+			}
+		}
+		byte[] mask = new byte[4];
+		random.nextBytes(mask);
+		frame.write(mask, 0, 4);
+		for (int i = 0; i < payload.length; i++) {
+			frame.write(payload[i] ^ mask[i & 3]);
+		}
+		frame.writeTo(out);
+		out.flush();
+	}
+
+	private synchronized void closeSocket() {
+		Socket s = socket;
+		socket = null;
+		out = null;
+		if (s != null) {
+			try {
+				s.close();
+			} catch (IOException ex) {
+			}
+		}
+	}
 }
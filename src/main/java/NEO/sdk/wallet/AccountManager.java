@@ -1,19 +1,24 @@
 package NEO.sdk.wallet;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import NEO.Implementations.Blockchain.RPC.RpcBlockchain;
 import NEO.Network.Rpc.RpcClient;
 import NEO.Network.Rpc.RpcNode;
+import NEO.Network.Rpc.RpcNodeGroup;
 import NEO.Wallets.*;
 import com.alibaba.fastjson.JSON;
 
@@ -37,11 +42,14 @@ import NEO.Core.TransactionInput;
 import NEO.Core.TransactionOutput;
 import NEO.Core.Scripts.Program;
 import NEO.Cryptography.ECC;
+import NEO.Implementations.Blockchains.Caching.CachingBlockchain;
 import NEO.Implementations.Blockchains.Rest.RestBlockchain;
 import NEO.Implementations.Wallets.IUserManager;
 import NEO.Implementations.Wallets.SQLite.UserWallet;
 import NEO.Network.Rest.RestException;
 import NEO.Network.Rest.RestNode;
+import NEO.Network.Rest.RestNodeGroup;
+import NEO.Websocket.BlockSubscriber;
 import NEO.sdk.helper.OnChainSDKHelper;
 import NEO.sdk.info.account.AccountAsset;
 import NEO.sdk.info.account.AccountInfo;
@@ -76,6 +84,7 @@ public class AccountManager {
 	private RestNode restNode;
 	private RpcNode rpcNode;
 	private boolean isWaitSync = true;
+	private BlockSubscriber blockSubscriber;
 	
 	public void setWaitSync(boolean isWaitSync) {
 		this.isWaitSync = isWaitSync;
@@ -99,10 +108,12 @@ public class AccountManager {
 		return wm;
 	}
 
+	/**
+	 * url可以是逗号分隔的多个节点地址，此时使用RpcNodeGroup
+	 */
 	public static RpcNode initRpc(String url) throws MalformedURLException {
-		RpcClient rpcClient = new RpcClient(url);
-		RpcNode rpcNode = new RpcNode(rpcClient);
-		Blockchain.register(new RpcBlockchain(rpcNode));
+		RpcNode rpcNode = url.indexOf(',') >= 0 ? new RpcNodeGroup(url.split(",")) : new RpcNode(new RpcClient(url));
+		Blockchain.register(new CachingBlockchain(new RpcBlockchain(rpcNode)));
 
 		return rpcNode;
 	}
@@ -131,15 +142,22 @@ public class AccountManager {
 	}
 	
 	private void initBlockRestNode(String url, String token) {
-		Blockchain.register(new RestBlockchain(new RestNode(url, token)));
+		Blockchain.register(new CachingBlockchain(new RestBlockchain(newRestNode(url, token))));
 	}
 
 	private void initRestNode(String url, String token) {
-		this.restNode = new RestNode(url, token);
+		this.restNode = newRestNode(url, token);
 	}
 	
 	public void setRestNode(String url, String token) {
-		this.restNode = new RestNode(url, token);
+		this.restNode = newRestNode(url, token);
+	}
+	
+	/**
+	 * url可以是逗号分隔的多个节点地址，此时使用RestNodeGroup
+	 */
+	private static RestNode newRestNode(String url, String token) {
+		return url.indexOf(',') >= 0 ? new RestNodeGroup(token, url.split(",")) : new RestNode(url, token);
 	}
 	
 	private void initWallet(String path) {
@@ -161,9 +179,29 @@ public class AccountManager {
 	}
 	
 	public void stopSyncBlock() {
+		if (blockSubscriber != null) {
+			blockSubscriber.close();
+			blockSubscriber = null;
+		}
 		uw.close();
 	}
 	
+	/**
+	 * 通过WebSocket订阅新区块，收到的区块直接交给钱包处理
+	 * 
+	 * @param wsUrl 节点的WebSocket地址，例如ws://127.0.0.1:20335
+	 * @throws IOException 
+	 */
+	public void subscribeBlocks(String wsUrl) throws IOException {
+		BlockSubscriber subscriber = new BlockSubscriber(wsUrl);
+		subscriber.addListener(uw::notifyNewBlock);
+		subscriber.start();
+		if (blockSubscriber != null) {
+			blockSubscriber.close();
+		}
+		blockSubscriber = subscriber;
+	}
+	
 	public boolean hasFinishedSyncBlock() {
 		try {
 			return uw.hasFinishedSyncBlock();
@@ -204,11 +242,15 @@ public class AccountManager {
 	 * 创建多个账户
 	 */
 	public List<String> createAccount(int n) {
-		return Stream.generate(() -> createAddress()).limit(n).collect(Collectors.toList());
+		return Arrays.stream(uw.createAccounts(n)).map(p -> toAddress(p)).collect(Collectors.toList());
 	}
 	// 
 	private String createAddress() {
-		return uw.getContract(Contract.createSignatureContract(uw.createAccount().publicKey).address()).address();
+		return toAddress(uw.createAccount());
+	}
+	
+	private String toAddress(Account account) {
+		return uw.getContract(Contract.createSignatureContract(account.publicKey).address()).address();
 	}
 	
 	/**
@@ -539,20 +581,43 @@ public class AccountManager {
 	public void wait(String txid) {
 		wait(uw, txid);
 	}
-	// 等待Tx生效
+	
+	/**
+	 * 等待交易被同步至账户管理器中
+	 * 
+	 * @param txid
+	 * @return 交易所在区块的高度
+	 */
+	public CompletableFuture<Integer> waitAsync(String txid) {
+		return uw.confirmations().track(UInt256.parse(txid));
+	}
+	
+	/**
+	 * 等待多笔交易被同步至账户管理器中
+	 * 
+	 * @param txids
+	 * @param timeout 超时时间，单位毫秒
+	 * @return 每笔交易所在区块的高度
+	 */
+	public CompletableFuture<Map<UInt256, Integer>> waitAll(Collection<String> txids, long timeout) {
+		return uw.confirmations().trackAll(txids.stream().map(UInt256::parse).collect(Collectors.toList()), timeout, TimeUnit.MILLISECONDS);
+	}
+	
+	// 等待Tx生效，由钱包处理区块时通知
 	private void wait(IUserManager uw, String txid) {
-		int count = 3;	// 最长等待1分钟
-		while(--count > 0) {
-			Map<Transaction, Integer> txs = uw.LoadTransactions();
-			if(txs != null && txs.keySet().stream().filter(p -> txs.get(p).intValue() > 1).filter(p -> p.hash().toString().equals(txid)).count() == 1) {
-				print("sync finish, txid:"+txid);
-				return;
-			}
-			try {
-				Thread.sleep(1000*5);
-			} catch (InterruptedException e) {
-			}
-			print("sleep.....5s");
+		try {
+			uw.confirmations().track(UInt256.parse(txid), 10, TimeUnit.SECONDS).get();
+			print("sync finish, txid:"+txid);
+			return;
+		} catch (ExecutionException e) {
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// 打开钱包之前已经确认的交易不在跟踪范围内，最后查询一次数据库
+		Map<Transaction, Integer> txs = uw.LoadTransactions();
+		if(txs != null && txs.keySet().stream().filter(p -> txs.get(p).intValue() > 1).filter(p -> p.hash().toString().equals(txid)).count() == 1) {
+			print("sync finish, txid:"+txid);
+			return;
 		}
 		print("sync timeout,txid:"+txid);
 	}
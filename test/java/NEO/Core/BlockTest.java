@@ -14,6 +14,7 @@ public class BlockTest extends TestCase {
         try {
             Block block = Serializable.from(rawData, Block.class);
             assertEquals(1000, block.height);
+            assertEquals(rawData.length, block.size());
         } catch (Exception e) {
             e.printStackTrace();
             fail();
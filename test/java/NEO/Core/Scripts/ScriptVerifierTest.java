@@ -0,0 +1,125 @@
+package NEO.Core.Scripts;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.UInt160;
+import NEO.UInt256;
+import NEO.Core.Blockchain;
+import NEO.Core.ContractTransaction;
+import NEO.Core.SignatureContext;
+import NEO.Core.StubBlockchain;
+import NEO.Core.Transaction;
+import NEO.Core.TransactionAttribute;
+import NEO.Core.TransactionInput;
+import NEO.Core.TransactionOutput;
+import NEO.Cryptography.ECC;
+import NEO.Wallets.Account;
+import NEO.Wallets.Contract;
+
+public class ScriptVerifierTest extends TestCase {
+
+    @Test
+    public void testSignatureContract() {
+        Account account = new Account(ECC.generateKey());
+        Contract contract = Contract.createSignatureContract(account.publicKey);
+        SignedTransaction tx = new SignedTransaction(contract.scriptHash());
+        SignatureContext context = new SignatureContext(tx);
+        context.add(contract, account.publicKey, tx.sign(account));
+        tx.scripts = context.getScripts();
+        assertTrue(tx.verifySignature());
+
+        tx.attributes = new TransactionAttribute[0];
+        tx.nonce = 1;
+        tx.invalidateHash();
+        assertFalse(tx.verifySignature());
+    }
+
+    @Test
+    public void testMultiSigContractAndBatch() {
+        Account[] accounts = { new Account(ECC.generateKey()), new Account(ECC.generateKey()), new Account(ECC.generateKey()) };
+        Contract contract = Contract.createMultiSigContract(accounts[0].publicKeyHash, 2,
+                Arrays.stream(accounts).map(p -> p.publicKey).toArray(org.bouncycastle.math.ec.ECPoint[]::new));
+        // 签名的顺序必须与赎回脚本中公钥的顺序一致
+        Account[] signers = { accounts[0], accounts[2] };
+        Arrays.sort(signers, (a, b) -> Integer.compare(indexOf(contract.redeemScript, a), indexOf(contract.redeemScript, b)));
+        SignedTransaction[] txs = new SignedTransaction[8];
+        for (int i = 0; i < txs.length; i++) {
+            txs[i] = new SignedTransaction(contract.scriptHash());
+            txs[i].nonce = i;
+            try (ScriptBuilder sb = new ScriptBuilder()) {
+                for (Account signer : signers) {
+                    sb.push(txs[i].sign(signer));
+                }
+                Program script = new Program();
+                script.parameter = sb.toArray();
+                script.code = contract.redeemScript;
+                txs[i].scripts = new Program[] { script };
+            }
+        }
+        assertTrue(ScriptVerifier.verifyAll(Arrays.asList(txs)));
+
+        txs[5].scripts = new Program[] { txs[4].scripts[0] };
+        assertFalse(ScriptVerifier.verifyAll(Arrays.asList(txs)));
+    }
+
+    @Test
+    public void testReferenceLookupFailure() {
+        // 查询引用的交易时节点出错，验证失败而不是抛出异常
+        Blockchain.register(new StubBlockchain(0) {
+            @Override
+            public Transaction getTransaction(UInt256 hash) throws Exception {
+                throw new java.io.IOException("connection refused");
+            }
+        });
+        ContractTransaction tx = new ContractTransaction();
+        TransactionInput input = new TransactionInput();
+        input.prevHash = new UInt256(new byte[32]);
+        input.prevIndex = 0;
+        tx.attributes = new TransactionAttribute[0];
+        tx.inputs = new TransactionInput[] { input };
+        tx.outputs = new TransactionOutput[0];
+        tx.scripts = new Program[0];
+        assertFalse(tx.verify());
+        assertFalse(ScriptVerifier.verifyAll(Arrays.asList(tx)));
+    }
+
+    private static int indexOf(byte[] script, Account account) {
+        byte[] key = account.publicKey.getEncoded(true);
+        for (int i = 0; i + key.length <= script.length; i++) {
+            if (Arrays.equals(key, Arrays.copyOfRange(script, i, i + key.length))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *  不依赖区块链查询引用的交易
+     */
+    private static class SignedTransaction extends ContractTransaction {
+        private final UInt160 scriptHash;
+        long nonce;
+
+        SignedTransaction(UInt160 scriptHash) {
+            this.scriptHash = scriptHash;
+            this.attributes = new TransactionAttribute[0];
+            this.inputs = new TransactionInput[0];
+            this.outputs = new TransactionOutput[0];
+            this.scripts = new Program[0];
+        }
+
+        @Override
+        public void serializeUnsigned(NEO.IO.BinaryWriter writer) throws java.io.IOException {
+            super.serializeUnsigned(writer);
+            writer.writeLong(nonce);
+        }
+
+        @Override
+        public UInt160[] getScriptHashesForVerifying() {
+            return new UInt160[] { scriptHash };
+        }
+    }
+}
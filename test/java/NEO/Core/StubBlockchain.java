@@ -0,0 +1,72 @@
+package NEO.Core;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import NEO.Fixed8;
+import NEO.UInt256;
+
+/**
+ *  测试用的区块链，只实现按高度取区块，区块内容只包含高度
+ */
+public class StubBlockchain extends Blockchain {
+    public volatile int height;
+
+    public StubBlockchain(int height) {
+        this.height = height;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public Block getBlock(int height) throws Exception {
+        if (height > this.height) {
+            return null;
+        }
+        Block block = new Block();
+        block.height = height;
+        block.transactions = new Transaction[0];
+        return block;
+    }
+
+    @Override
+    public EnumSet<BlockchainAbility> ability() { return BlockchainAbility.None; }
+    @Override
+    public UInt256 currentBlockHash() { return null; }
+    @Override
+    public boolean isReadOnly() { return true; }
+    @Override
+    protected boolean addBlock(Block block) { throw new UnsupportedOperationException(); }
+    @Override
+    protected void addHeaders(Iterable<Block> headers) { throw new UnsupportedOperationException(); }
+    @Override
+    public void close() { }
+    @Override
+    public boolean containsUnspent(UInt256 hash, int index) { return false; }
+    @Override
+    public Block getBlock(UInt256 hash) { return null; }
+    @Override
+    public UInt256 getBlockHash(int height) { return null; }
+    @Override
+    public UInt256[] getLeafHeaderHashes() { return new UInt256[0]; }
+    @Override
+    public Block getNextBlock(UInt256 hash) { return null; }
+    @Override
+    public UInt256 getNextBlockHash(UInt256 hash) { return null; }
+    @Override
+    public Fixed8 getQuantityIssued(UInt256 asset_id) { return Fixed8.ZERO; }
+    @Override
+    public long getSysFeeAmount(UInt256 hash) { return 0; }
+    @Override
+    public Map<Short, Claimable> getUnclaimed(UInt256 hash) { return null; }
+    @Override
+    public TransactionOutput getUnspent(UInt256 hash, int index) { return null; }
+    @Override
+    public Stream<Vote> getVotes(Stream<Transaction> others) { return Stream.empty(); }
+    @Override
+    public boolean isDoubleSpend(Transaction tx) { return false; }
+}
@@ -0,0 +1,116 @@
+package NEO.Core;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.bouncycastle.math.ec.ECPoint;
+
+import NEO.Helper;
+import NEO.Cryptography.ECC;
+import NEO.IO.BinaryReader;
+import NEO.IO.BinaryWriter;
+import NEO.Wallets.Account;
+
+public class TransactionTest extends TestCase {
+
+    private interface Exclusive {
+        void write(BinaryWriter writer) throws IOException;
+    }
+
+    private static void writePoint(BinaryWriter writer, ECPoint point) throws IOException {
+        writer.writeVarBytes(Helper.removePrevZero(point.getXCoord().toBigInteger().toByteArray()));
+        writer.writeVarBytes(Helper.removePrevZero(point.getYCoord().toBigInteger().toByteArray()));
+    }
+
+    @Test
+    public void testDeserializeEveryType() throws Exception {
+        ECPoint point = new Account(ECC.generateKey()).publicKey;
+        TransactionInput input = new TransactionInput();
+        input.prevHash = new NEO.UInt256(new byte[32]);
+        input.prevIndex = 1;
+        // 各类型交易专有数据的格式
+        Map<TransactionType, Exclusive> types = new EnumMap<TransactionType, Exclusive>(TransactionType.class);
+        types.put(TransactionType.MinerTransaction, w -> w.writeInt(7));
+        types.put(TransactionType.IssueTransaction, w -> {});
+        types.put(TransactionType.ClaimTransaction, w -> w.writeSerializableArray(new TransactionInput[] { input }));
+        types.put(TransactionType.DataFile, w -> {
+            w.writeVarString("Qm");
+            w.writeVarString("file");
+            w.writeVarString("note");
+            writePoint(w, point);
+        });
+        types.put(TransactionType.EnrollmentTransaction, w -> writePoint(w, point));
+        types.put(TransactionType.RegisterTransaction, w -> {
+            w.writeByte(AssetType.GoverningToken.value());
+            w.writeVarString("NEO");
+            w.writeLong(100000000L);
+            w.writeByte((byte)0);
+            writePoint(w, point);
+            w.write(new byte[20]);
+        });
+        types.put(TransactionType.ContractTransaction, w -> {});
+        types.put(TransactionType.RecordTransaction, w -> {
+            w.writeVarString("cert");
+            w.writeVarBytes(new byte[] { 1, 2, 3 });
+        });
+        types.put(TransactionType.StateUpdateTransaction, w -> {
+            w.writeVarBytes(new byte[] { 1 });
+            w.writeVarBytes(new byte[] { 2 });
+            w.writeVarBytes(new byte[] { 3 });
+            writePoint(w, point);
+        });
+        types.put(TransactionType.DestroyTransaction, w -> {});
+        types.put(TransactionType.PublishTransaction, w -> {
+            w.writeVarBytes(new byte[] { 0x51 });
+            w.writeVarBytes(new byte[] { 0, 1 });
+            w.writeByte((byte)0);
+            w.writeBoolean(true);
+            w.writeVarString("name");
+            w.writeVarString("1.0");
+            w.writeVarString("author");
+            w.writeVarString("email");
+            w.writeVarString("description");
+        });
+        types.put(TransactionType.InvocationTransaction, w -> w.writeVarBytes(new byte[] { 0x51 }));
+
+        for (TransactionType type : TransactionType.values()) {
+            byte[] data;
+            try (BinaryWriter writer = new BinaryWriter()) {
+                writer.writeByte(type.value());
+                writer.writeByte((byte)0);
+                if (types.containsKey(type)) {
+                    types.get(type).write(writer);
+                }
+                writer.writeVarInt(0);
+                writer.writeVarInt(0);
+                writer.writeVarInt(0);
+                writer.writeVarInt(0);
+                data = writer.toArray();
+            }
+            if (!types.containsKey(type)) {
+                // 没有实现的交易类型
+                try {
+                    Transaction.deserializeFrom(data);
+                    fail(type.toString());
+                } catch (IOException ex) {
+                }
+                continue;
+            }
+            try (BinaryReader reader = new BinaryReader(data, 0, data.length)) {
+                Transaction tx = Transaction.deserializeFrom(reader);
+                assertEquals(type.toString(), type, tx.type);
+                assertEquals(type.toString(), data.length, reader.position());
+                assertEquals(type.toString(), data.length, tx.size());
+                // 这两种交易的序列化与反序列化格式不一致
+                if (type != TransactionType.MinerTransaction && type != TransactionType.EnrollmentTransaction) {
+                    assertTrue(type.toString(), Arrays.equals(data, tx.toArray()));
+                    assertEquals(tx.getClass(), Transaction.deserializeFrom(tx.toArray()).getClass());
+                }
+            }
+        }
+    }
+}
@@ -22,4 +22,18 @@ public class Base58Test extends TestCase {
         String encoded = Base58.encode(data);
         assertEquals("111158ze8RJ8wMKd35waS6SpefN35LHvJHaR8AA38a9Ry2th1FfYgJGu8DyM5qtz3SRrbzEKLXtjQQCABzMEc35a9kRyiooMmbkvn6SH1yzTHgfXRR17UzuueQo2Jh5VzyhE1L4H1Q5x53YP5UHg1adfo5mDet9i9Ly5KwaDFRyYWxvgeHCf9i8WzU8ZdWfp6oejmaPXEwcA9R5zXn41LyasWuNcJrFwd6TxkiRrcTV5QVZJFeeiiuwdiRNtDL89c99mq8M3z5J4EVDBApJD6ShuqeAyDjkVjo9VUYMR28EHqSSmFbYABFuEQUGjy2Dogw48gZLUiEDj4KpxBDEqSLv1d56g1rjLAu52pQd89rNo9Md3Qy9GNLKH2f8LM8EjhmHgcPH8FyxxCxJnWku4szu8yzAtYP8TEsMC3TbRCK6jtX6wi75q8uTYP4Gkd24UnXBphmo1dKpkmuvZRwdS5H4ewMywvV3J4Fe6hY7QQR2KnVNaV93K57Er7jtj7mRafHc2NoKcGK5j85b4ZXaCU2X1dk6abqDD8aTgj7pT5hJvmJuaZimBVXbxvp6NftkvWR7Hm9jgYuCFB2HuBnaWLoMm7gPQyiFAGL9kR2ZB6NYNVUCzUevLFpxogQtWPtfzJRaeQE6sMwDaiYw7frJiEoTiV8tGfTRYfh78KP5FN938CFPH7B2q2vv5r2gvjmebniAuJuXRxSHyq1SAv3LCZnYEKxbuqKkgxZP45245jnbKKzrw1ATRBXW13Kx5rfJ8x2GSTpyQe2dJBJDDUNRSXbHtNhvd8TsTEoEocFcW7pyNkq675Xq2hh6dsgHsxZTJWheeaUd7KsdnmYDLjtYU1ayTRw92SXAzsGuetLDM6Xf4sizyTFEWSQf3JAgqFqoie2hhtn9n6rXK6Hyq2AzTreaZinrgYFjpcBKstsRq", encoded);
     }
+
+    @Test
+    public void testAddressRoundTrip() {
+        String address = "AQVh2pG732YvtNaxEGkQUei3YA4cvo7d2i";
+        byte[] data = Base58.decode(address);
+        assertEquals(25, data.length);
+        assertEquals(0x17, data[0]);
+        assertEquals(address, Base58.encode(data));
+        assertEquals("1", Base58.encode(new byte[1]));
+        assertEquals("", Base58.encode(new byte[0]));
+        // 全零输入可以还原
+        assertEquals(3, Base58.decode(Base58.encode(new byte[3])).length);
+        assertEquals(0, Base58.decode(Base58.encode(new byte[0])).length);
+    }
 }
\ No newline at end of file
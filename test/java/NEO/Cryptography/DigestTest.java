@@ -0,0 +1,33 @@
+package NEO.Cryptography;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.Helper;
+
+public class DigestTest extends TestCase {
+
+    @Test
+    public void testKnownVectors() {
+        byte[] abc = "abc".getBytes();
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Helper.toHexString(Digest.sha256(abc)));
+        assertEquals("8eb208f7e05d987a9b044a8e98c6b087f15a0bfc", Helper.toHexString(Digest.ripemd160(abc)));
+        assertEquals(Helper.toHexString(Digest.sha256(Digest.sha256(abc))), Helper.toHexString(Digest.hash256(abc)));
+        assertEquals(Helper.toHexString(Digest.ripemd160(Digest.sha256(abc))), Helper.toHexString(Digest.hash160(abc)));
+    }
+
+    @Test
+    public void testOverloadsHashOnlyTheRange() {
+        byte[] data = "xxabcyy".getBytes();
+        String expected = Helper.toHexString(Digest.hash256("abc".getBytes()));
+        assertEquals(expected, Helper.toHexString(Digest.hash256(data, 2, 3)));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).position(2).limit(5);
+        assertEquals(expected, Helper.toHexString(Digest.hash256(buffer)));
+        assertEquals(2, buffer.position());
+        assertEquals(Helper.toHexString(Digest.hash160("abc".getBytes())), Helper.toHexString(Digest.hash160(buffer)));
+        assertEquals(Helper.toHexString(Digest.sha256("abc".getBytes())), Helper.toHexString(Digest.sha256(data, 2, 3)));
+    }
+}
@@ -0,0 +1,34 @@
+package NEO.Cryptography;
+
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.bouncycastle.math.ec.ECPoint;
+
+import NEO.Helper;
+
+public class ECCTest extends TestCase {
+
+    @Test
+    public void testDecodePointIsCachedAndKeepsEncoding() {
+        String hex = "0327da12b5c40200e9f65569476bbff2218da4f32548ff43b6387ec1416a231ee8";
+        ECPoint point = ECC.decodePoint(Helper.hexToBytes(hex));
+        assertSame(point, ECC.decodePoint(Helper.hexToBytes(hex)));
+        assertEquals(hex, Helper.toHexString(point.getEncoded(true)));
+        point.getEncoded(true)[1] = 0;
+        assertEquals(hex, Helper.toHexString(point.getEncoded(true)));
+        ECPoint uncompressed = ECC.decodePoint(point.getEncoded(false));
+        assertEquals(point, uncompressed);
+    }
+
+    @Test
+    public void testDecodedPointArithmetic() {
+        BigInteger k = new BigInteger(1, ECC.generateKey());
+        ECPoint expected = ECC.secp256r1.getG().multiply(k).normalize();
+        ECPoint decoded = ECC.decodePoint(expected.getEncoded(true));
+        assertEquals(expected, decoded);
+        assertEquals(expected.twice().normalize(), decoded.add(decoded).normalize());
+        assertEquals(Helper.toHexString(expected.getEncoded(false)), Helper.toHexString(decoded.getEncoded(false)));
+    }
+}
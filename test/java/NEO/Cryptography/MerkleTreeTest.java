@@ -0,0 +1,64 @@
+package NEO.Cryptography;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.UInt256;
+
+public class MerkleTreeTest extends TestCase {
+
+    @Test
+    public void testComputeRootMatchesPairwiseDefinition() {
+        Random random = new Random(5);
+        for (int n : new int[] { 1, 2, 3, 4, 5, 7, 16, 33, MerkleTree.PARALLEL_THRESHOLD * 2 + 1 }) {
+            UInt256[] hashes = randomHashes(random, n);
+            UInt256 expected = reference(hashes);
+            assertEquals(expected, MerkleTree.computeRoot(hashes));
+            assertEquals(expected, new MerkleTree(hashes).root());
+        }
+    }
+
+    @Test
+    public void testProofs() {
+        UInt256[] hashes = randomHashes(new Random(6), 11);
+        MerkleTree tree = new MerkleTree(hashes);
+        UInt256 root = tree.root();
+        for (int i = 0; i < hashes.length; i++) {
+            MerkleProof proof = tree.getProof(hashes[i]);
+            assertEquals(i, proof.index);
+            assertTrue(proof.verify(root));
+            if ((i ^ 1) < hashes.length) {
+                assertFalse(new MerkleProof(proof.hash, i ^ 1, proof.path).verify(root));
+            }
+        }
+        assertNull(tree.getProof(new UInt256(new byte[32])));
+    }
+
+    private static UInt256[] randomHashes(Random random, int n) {
+        UInt256[] hashes = new UInt256[n];
+        for (int i = 0; i < n; i++) {
+            byte[] data = new byte[32];
+            random.nextBytes(data);
+            hashes[i] = new UInt256(data);
+        }
+        return hashes;
+    }
+
+    private static UInt256 reference(UInt256[] hashes) {
+        while (hashes.length > 1) {
+            UInt256[] next = new UInt256[(hashes.length + 1) / 2];
+            for (int i = 0; i < next.length; i++) {
+                byte[] left = hashes[i * 2].toArray();
+                byte[] right = hashes[Math.min(i * 2 + 1, hashes.length - 1)].toArray();
+                byte[] buffer = new byte[64];
+                System.arraycopy(left, 0, buffer, 0, 32);
+                System.arraycopy(right, 0, buffer, 32, 32);
+                next[i] = new UInt256(Digest.sha256(Digest.sha256(buffer)));
+            }
+            hashes = next;
+        }
+        return hashes[0];
+    }
+}
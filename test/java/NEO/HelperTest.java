@@ -0,0 +1,40 @@
+package NEO;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class HelperTest extends TestCase {
+
+    @Test
+    public void testHexRoundTrip() {
+        byte[] data = new byte[256];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        String hex = Helper.toHexString(data);
+        assertEquals("00010203", hex.substring(0, 8));
+        assertEquals("fdfeff", hex.substring(hex.length() - 6));
+        assertEquals(hex, Helper.toHexString(Helper.hexToBytes(hex.toUpperCase())));
+        assertEquals(Helper.toHexString(Helper.reverse(data)), Helper.toReversedHexString(data));
+        assertEquals(Helper.toHexString(Helper.reverse(data)), Helper.toHexString(Helper.hexToBytesReversed(hex)));
+        try {
+            Helper.hexToBytes("0g");
+            fail();
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    @Test
+    public void testHexToBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        buffer.put((byte) 9);
+        Helper.hexToBuffer("a1b2", buffer);
+        Helper.hexToBuffer("xxc3".getBytes(), 2, 2, buffer);
+        assertEquals("09a1b2c3", Helper.toHexString(buffer.array()));
+        UInt256 hash = UInt256.parse("0x" + Helper.toHexString(new byte[31]) + "01");
+        assertEquals(1, hash.toArray()[0]);
+        assertEquals(Helper.toHexString(new byte[31]) + "01", hash.toString());
+    }
+}
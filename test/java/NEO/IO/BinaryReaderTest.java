@@ -0,0 +1,47 @@
+package NEO.IO;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class BinaryReaderTest extends TestCase {
+
+    @Test
+    public void testBufferModeMatchesStreamMode() throws Exception {
+        byte[] data = NEO.Helper.hexToBytes("ff01020304050607080a0b0c0d03aabbccfd0400deadbeef");
+        try (BinaryReader stream = new BinaryReader(new ByteArrayInputStream(data));
+             BinaryReader buffer = new BinaryReader(ByteBuffer.wrap(data))) {
+            assertEquals(stream.readByte(), buffer.readByte());
+            assertEquals(stream.readLong(), buffer.readLong());
+            assertEquals(stream.readInt(), buffer.readInt());
+            assertEquals(NEO.Helper.toHexString(stream.readVarBytes()), NEO.Helper.toHexString(buffer.readVarBytes()));
+            assertEquals(stream.readVarInt(), buffer.readVarInt());
+            assertEquals(stream.readInt(), buffer.readInt());
+        }
+    }
+
+    @Test
+    public void testPositionAndEof() throws Exception {
+        byte[] data = new byte[] { 3, 1, 2, 3, 9 };
+        try (BinaryReader stream = new BinaryReader(new ByteArrayInputStream(data));
+             BinaryReader buffer = new BinaryReader(data, 0, data.length)) {
+            for (BinaryReader reader : new BinaryReader[] { stream, buffer }) {
+                assertEquals(3, reader.readVarBytes().length);
+                assertEquals(4, reader.position());
+                reader.mark(1);
+                assertEquals(9, reader.readByte());
+                reader.reset();
+                assertEquals(4, reader.position());
+                assertEquals(9, reader.readByte());
+                assertEquals(5, reader.position());
+                try {
+                    reader.readByte();
+                    fail();
+                } catch (java.io.EOFException ex) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package NEO.IO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class BinaryWriterTest extends TestCase {
+
+    @Test
+    public void testMemoryModeMatchesStreamMode() throws Exception {
+        ByteArrayOutputStream ms = new ByteArrayOutputStream();
+        try (BinaryWriter stream = new BinaryWriter(ms);
+             BinaryWriter memory = BinaryWriter.acquire()) {
+            writeSample(stream);
+            writeSample(memory);
+            stream.flush();
+            assertEquals(NEO.Helper.toHexString(ms.toByteArray()), NEO.Helper.toHexString(memory.toArray()));
+            assertEquals(ms.size(), memory.size());
+        }
+    }
+
+    @Test
+    public void testNestedAcquireReturnsFreshWriter() throws Exception {
+        try (BinaryWriter outer = BinaryWriter.acquire()) {
+            outer.writeInt(1);
+            try (BinaryWriter inner = BinaryWriter.acquire()) {
+                assertNotSame(outer, inner);
+                inner.writeLong(2);
+            }
+            assertEquals(4, outer.size());
+        }
+        BinaryWriter first, second;
+        try (BinaryWriter w = BinaryWriter.acquire()) {
+            first = w;
+        }
+        try (BinaryWriter w = BinaryWriter.acquire()) {
+            second = w;
+            assertEquals(0, w.size());
+        }
+        assertSame(first, second);
+    }
+
+    private static void writeSample(BinaryWriter writer) throws IOException {
+        writer.writeByte((byte)0xff);
+        writer.writeBoolean(true);
+        writer.writeShort((short)0x1234);
+        writer.writeInt(0xdeadbeef);
+        writer.writeLong(0x0102030405060708L);
+        writer.writeDouble(1.5);
+        writer.writeVarInt(0x10000);
+        writer.writeVarBytes(new byte[300]);
+        writer.writeVarString("neo");
+        writer.writeFixedString("abc", 8);
+    }
+}
@@ -0,0 +1,140 @@
+package NEO.IO.Json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class JsonParserTest extends TestCase {
+
+    /**
+     *  每次只返回少量字符，覆盖缓冲区边界
+     */
+    private static Reader chunked(String json) {
+        return new StringReader(json) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 3));
+            }
+        };
+    }
+
+    @Test
+    public void testParseTree() throws Exception {
+        String json = " {\"a\" : 1, \"b\":[true,false,null,\"x\\\"y\\u4e2d\\n\"], \"c\":{\"d\":-2.5e1}, 'e':'single'}";
+        for (JObject obj : Arrays.asList(JObject.parse(json), JObject.parse(chunked(json)))) {
+            assertEquals(4, obj.size());
+            assertEquals(Arrays.asList("a", "b", "c", "e"), obj.propertyNames());
+            assertEquals(1.0, obj.get("a").asNumber());
+            JArray b = (JArray) obj.get("b");
+            assertEquals(4, b.size());
+            assertTrue(b.get(0).asBoolean());
+            assertFalse(b.get(1).asBoolean());
+            assertNull(b.get(2));
+            assertEquals("x\"y中\n", b.get(3).asString());
+            assertEquals(-25.0, obj.get("c").get("d").asNumber());
+            assertEquals("single", obj.get("e").asString());
+        }
+    }
+
+    @Test
+    public void testLargeIntegersKeepPrecision() throws Exception {
+        JObject obj = JObject.parse("{\"small\":9007199254740992,\"big\":9007199254740993,\"huge\":-123456789012345678901234567890}");
+        assertTrue(obj.get("small") instanceof JNumber);
+        assertEquals(new BigInteger("9007199254740993"), ((JBigInt) obj.get("big")).value());
+        assertEquals(new BigInteger("-123456789012345678901234567890"), ((JBigInt) obj.get("huge")).value());
+    }
+
+    @Test
+    public void testManyPropertiesAndOverwrite() throws Exception {
+        JObject obj = new JObject();
+        for (int i = 0; i < 20; i++) {
+            obj.set("k" + i, new JNumber(i));
+        }
+        obj.set("k3", new JString("three"));
+        assertEquals(20, obj.size());
+        assertEquals("three", obj.get("k3").asString());
+        assertEquals(19.0, obj.get(new String("k19")).asNumber());
+        assertTrue(obj.containsProperty("k0"));
+        assertFalse(obj.containsProperty("k20"));
+        assertEquals("k0", obj.propertyNames().get(0));
+        assertEquals(obj.toString(), JObject.parse(obj.toString()).toString());
+    }
+
+    @Test
+    public void testLongStringAcrossBuffers() throws Exception {
+        char[] chars = new char[50000];
+        Arrays.fill(chars, 'a');
+        chars[20000] = '\\';
+        chars[20001] = 't';
+        String json = "[\"" + new String(chars) + "\"]";
+        JArray array = (JArray) JObject.parse(new StringReader(json));
+        String value = array.get(0).asString();
+        assertEquals(49999, value.length());
+        assertEquals('\t', value.charAt(20000));
+    }
+
+    @Test
+    public void testPullAndSkip() throws Exception {
+        String json = "{\"skip\":{\"x\":[1,{\"y\":\"}]\"}]},\"id\":7,\"s\":\"str\",\"n\":null,\"result\":[1,2]}";
+        try (JsonParser parser = new JsonParser(chunked(json))) {
+            assertEquals(JsonParser.Token.START_OBJECT, parser.next());
+            assertEquals(JsonParser.Token.NAME, parser.next());
+            assertEquals("skip", parser.name());
+            parser.skipValue();
+            assertEquals(JsonParser.Token.NAME, parser.next());
+            assertEquals("id", parser.name());
+            assertEquals(JsonParser.Token.NUMBER, parser.next());
+            assertTrue(parser.isIntegral());
+            assertEquals(7.0, parser.number());
+            assertEquals(JsonParser.Token.NAME, parser.next());
+            parser.skipValue();
+            assertEquals(JsonParser.Token.NAME, parser.next());
+            parser.skipValue();
+            assertEquals(JsonParser.Token.NAME, parser.next());
+            assertEquals("result", parser.name());
+            JArray result = (JArray) parser.readValue();
+            assertEquals(2, result.size());
+            assertEquals(JsonParser.Token.END_OBJECT, parser.next());
+            assertEquals(JsonParser.Token.END, parser.next());
+        }
+    }
+
+    @Test
+    public void testSelectedFields() throws Exception {
+        JObject obj = JObject.parse(new StringReader("{\"jsonrpc\":\"2.0\",\"result\":{\"tx\":[1,2,3]},\"id\":3}"), "id", "jsonrpc");
+        assertEquals(2, obj.size());
+        assertEquals(3.0, obj.get("id").asNumber());
+        assertFalse(obj.containsProperty("result"));
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        for (String json : new String[] { "{\"a\":1", "{\"a\" 1}", "[1 2]", "{\"a\":tru}", "[\"abc", "-" }) {
+            try {
+                JObject.parse(json);
+                fail(json);
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedNumbers() throws Exception {
+        for (String json : new String[] { "[1-2]", "[1.2.3]", "[--1]", "[1e]", "[-.5]", "[1.]", "[2e+]", "[1+2]", "{\"a\":0-}" }) {
+            try {
+                JObject.parse(new StringReader(json));
+                fail(json);
+            } catch (IOException ex) {
+            }
+        }
+        JArray arr = (JArray)JObject.parse(new StringReader("[-0, 10, 1.5e-3, 2E+2, -7]"));
+        assertEquals(-7, (int)arr.get(4).asNumber());
+        assertEquals(0.0015, arr.get(2).asNumber());
+        assertEquals(200.0, arr.get(3).asNumber());
+    }
+}
@@ -0,0 +1,134 @@
+package NEO.Implementations.Blockchains.Caching;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.UInt256;
+import NEO.Core.ContractTransaction;
+import NEO.Core.StubBlockchain;
+import NEO.Core.Transaction;
+import NEO.Core.TransactionAttribute;
+import NEO.Core.TransactionAttributeUsage;
+import NEO.Core.TransactionInput;
+import NEO.Core.TransactionOutput;
+import NEO.Core.Scripts.Program;
+
+public class CachingBlockchainTest extends TestCase {
+
+    /**
+     *  记录请求次数的区块链，交易查询可以被阻塞以模拟慢速节点
+     */
+    static class CountingBlockchain extends StubBlockchain {
+        final Map<UInt256, Transaction> transactions = new HashMap<UInt256, Transaction>();
+        final AtomicInteger requests = new AtomicInteger();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        CountingBlockchain() {
+            super(0);
+        }
+
+        @Override
+        public Transaction getTransaction(UInt256 hash) throws Exception {
+            requests.incrementAndGet();
+            gate.await(5, TimeUnit.SECONDS);
+            return transactions.get(hash);
+        }
+    }
+
+    private static Transaction transaction(int nonce, int size) {
+        ContractTransaction tx = new ContractTransaction();
+        TransactionAttribute attribute = new TransactionAttribute();
+        attribute.usage = TransactionAttributeUsage.Description;
+        attribute.data = new byte[size];
+        attribute.data[0] = (byte) nonce;
+        attribute.data[1] = (byte) (nonce >> 8);
+        tx.attributes = new TransactionAttribute[] { attribute };
+        tx.inputs = new TransactionInput[0];
+        tx.outputs = new TransactionOutput[0];
+        tx.scripts = new Program[0];
+        return tx;
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        CountingBlockchain inner = new CountingBlockchain();
+        Transaction tx = transaction(1, 100);
+        inner.transactions.put(tx.hash(), tx);
+        CachingBlockchain cache = new CachingBlockchain(inner);
+        assertSame(tx, cache.getTransaction(tx.hash()));
+        assertSame(tx, cache.getTransaction(tx.hash()));
+        assertSame(tx, cache.getTransactionAsync(tx.hash()).get());
+        assertEquals(1, inner.requests.get());
+        assertEquals(2, cache.transactionCache().hitCount());
+        assertEquals(1, cache.transactionCache().missCount());
+        // 查询不到的交易不缓存
+        UInt256 missing = transaction(2, 100).hash();
+        assertNull(cache.getTransaction(missing));
+        assertNull(cache.getTransaction(missing));
+        assertEquals(3, inner.requests.get());
+    }
+
+    @Test
+    public void testBoundedByBytes() throws Exception {
+        CountingBlockchain inner = new CountingBlockchain();
+        List<Transaction> txs = new ArrayList<Transaction>();
+        for (int i = 0; i < 100; i++) {
+            Transaction tx = transaction(i, 1000);
+            txs.add(tx);
+            inner.transactions.put(tx.hash(), tx);
+        }
+        // 交易缓存占一半，即20000字节，大约能容纳19笔交易
+        CachingBlockchain cache = new CachingBlockchain(inner, 40000);
+        for (Transaction tx : txs) {
+            cache.getTransaction(tx.hash());
+        }
+        assertTrue(cache.transactionCache().weight() <= 20000);
+        assertTrue(cache.transactionCache().size() >= 15);
+        assertTrue(cache.transactionCache().evictionCount() > 0);
+        // 最近使用的仍在缓存中，最早的已被淘汰
+        int before = inner.requests.get();
+        cache.getTransaction(txs.get(99).hash());
+        assertEquals(before, inner.requests.get());
+        cache.getTransaction(txs.get(0).hash());
+        assertEquals(before + 1, inner.requests.get());
+    }
+
+    @Test
+    public void testConcurrentRequestsDeduplicated() throws Exception {
+        CountingBlockchain inner = new CountingBlockchain();
+        Transaction tx = transaction(3, 100);
+        inner.transactions.put(tx.hash(), tx);
+        inner.gate = new CountDownLatch(1);
+        CachingBlockchain cache = new CachingBlockchain(inner);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Transaction>> futures = new ArrayList<Future<Transaction>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.getTransaction(tx.hash())));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.deduplicatedCount() < 7 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            inner.gate.countDown();
+            for (Future<Transaction> future : futures) {
+                assertSame(tx, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, inner.requests.get());
+        assertEquals(7, cache.deduplicatedCount());
+    }
+}
@@ -0,0 +1,232 @@
+package NEO.Implementations.Wallets.SQLite;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.Fixed8;
+import NEO.UInt256;
+import NEO.Core.Block;
+import NEO.Core.Transaction;
+import NEO.Core.TransactionInput;
+import NEO.Wallets.Account;
+import NEO.Wallets.Coin;
+import NEO.Wallets.CoinState;
+import NEO.Wallets.Contract;
+
+public class UserWalletTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("wallet").toFile();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testCreateAccountsAndReopen() {
+        String path = new File(dir, "test.db3").getPath();
+        UserWallet wallet = UserWallet.create(path, "password");
+        Account[] created = wallet.createAccounts(20);
+        assertEquals(20, created.length);
+        assertEquals(21, wallet.getAccounts().length);
+        assertEquals(21, wallet.getContracts().length);
+        assertTrue(new File(path + "-wal").exists());
+        wallet.close();
+
+        UserWallet reopened = UserWallet.open(path, "password");
+        try {
+            assertEquals(21, reopened.getAccounts().length);
+            assertEquals(21, reopened.getContracts().length);
+            for (Account account : created) {
+                assertNotNull(reopened.getAccount(account.publicKeyHash));
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentCreateAndDelete() throws Exception {
+        String path = new File(dir, "create-delete.db3").getPath();
+        UserWallet wallet = UserWallet.create(path, "password");
+        int count = 50;
+        Thread creator = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                wallet.createAccount();
+            }
+        });
+        Thread deleter = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                Account account = wallet.createAccount();
+                Contract contract = Arrays.stream(wallet.getContracts()).filter(p -> p.publicKeyHash.equals(account.publicKeyHash)).findFirst().get();
+                assertTrue(wallet.deleteAccount(contract.publicKeyHash));
+            }
+        });
+        creator.setDaemon(true);
+        deleter.setDaemon(true);
+        // 创建账户与删除账户同时进行，不能互相等待
+        creator.start();
+        deleter.start();
+        creator.join(20000);
+        deleter.join(20000);
+        assertFalse(creator.isAlive());
+        assertFalse(deleter.isAlive());
+        assertEquals(count + 1, wallet.getAccounts().length);
+        assertEquals(count + 1, wallet.getContracts().length);
+        wallet.close();
+        UserWallet reopened = UserWallet.open(path, "password");
+        try {
+            assertEquals(count + 1, reopened.getAccounts().length);
+            assertEquals(count + 1, reopened.getContracts().length);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static Block emptyBlock(int height) {
+        Block block = new Block();
+        block.height = height;
+        block.transactions = new Transaction[0];
+        return block;
+    }
+
+    private static Coin coin(UserWallet wallet, int n) {
+        Coin coin = new Coin();
+        coin.input = new TransactionInput();
+        byte[] hash = new byte[32];
+        hash[0] = (byte)n;
+        coin.input.prevHash = new UInt256(hash);
+        coin.input.prevIndex = 0;
+        coin.assetId = new UInt256(new byte[32]);
+        coin.value = new Fixed8(100000000);
+        coin.scriptHash = wallet.getContracts()[0].scriptHash();
+        coin.setState(CoinState.Unspent);
+        return coin;
+    }
+
+    @Test
+    public void testWriteBehind() {
+        String path = new File(dir, "writebehind.db3").getPath();
+        UserWallet wallet = UserWallet.create(path, "password");
+        wallet.setWriteBehind(4, 0);
+        Coin[] none = new Coin[0];
+        try (WalletDataContext ctx = WalletDataContext.open(path)) {
+            for (int height = 1; height <= 3; height++) {
+                wallet.onProcessNewBlock(emptyBlock(height), new Coin[] { coin(wallet, height) }, none, none);
+            }
+            assertEquals(0, ctx.getCoins().length);
+            wallet.onProcessNewBlock(emptyBlock(4), none, none, none);
+            assertEquals(3, ctx.getCoins().length);
+            assertEquals(5, ctx.getKey("Height").value[0]);
+
+            // 同一个coin先增加后修改，只写入最新的状态
+            Coin coin = coin(wallet, 5);
+            wallet.onProcessNewBlock(emptyBlock(5), new Coin[] { coin }, none, none);
+            coin.setState(CoinState.Spent);
+            wallet.onProcessNewBlock(emptyBlock(6), none, new Coin[] { coin }, none);
+            // 先增加后删除，不写入
+            Coin removed = coin(wallet, 6);
+            wallet.onProcessNewBlock(emptyBlock(7), new Coin[] { removed }, none, none);
+            wallet.onProcessNewBlock(emptyBlock(8), none, none, new Coin[] { removed });
+            NEO.Implementations.Wallets.SQLite.Coin[] coins = ctx.getCoins();
+            assertEquals(4, coins.length);
+            assertEquals(CoinState.Spent.ordinal(), coins[3].state);
+            assertEquals(9, ctx.getKey("Height").value[0]);
+
+            wallet.onProcessNewBlock(emptyBlock(9), none, none, none);
+            assertEquals(9, ctx.getKey("Height").value[0]);
+        }
+        wallet.close();
+        UserWallet reopened = UserWallet.open(path, "password");
+        try {
+            assertEquals(10, reopened.getWalletHeight());
+            assertEquals(4, reopened.getCoin().length);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void testSetWriteBehindWhileProcessingBlocks() throws Exception {
+        String path = new File(dir, "concurrent.db3").getPath();
+        UserWallet wallet = UserWallet.create(path, "password");
+        wallet.setWriteBehind(1, 1);
+        Coin[] none = new Coin[0];
+        int blocks = 200;
+        Thread sync = new Thread(() -> {
+            for (int height = 1; height <= blocks; height++) {
+                wallet.onProcessNewBlock(emptyBlock(height), new Coin[] { coin(wallet, height) }, none, none);
+            }
+        });
+        Thread settings = new Thread(() -> {
+            for (int i = 0; sync.isAlive(); i++) {
+                wallet.setWriteBehind(1 + i % 3, 1 + i % 2);
+            }
+        });
+        settings.setDaemon(true);
+        sync.setDaemon(true);
+        // 区块写入、定时写入和修改设置同时进行，不能互相等待
+        sync.start();
+        settings.start();
+        sync.join(20000);
+        settings.join(20000);
+        assertFalse(sync.isAlive());
+        assertFalse(settings.isAlive());
+        wallet.setWriteBehind(1, 0);
+        wallet.close();
+        UserWallet reopened = UserWallet.open(path, "password");
+        try {
+            assertEquals(blocks + 1, reopened.getWalletHeight());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void testSharedContext() {
+        String path = new File(dir, "shared.db3").getPath();
+        WalletDataContext first = WalletDataContext.open(path);
+        WalletDataContext second = WalletDataContext.open(path);
+        assertSame(first, second);
+        second.close();
+        // 还有一个使用者，连接仍然可用
+        assertNull(first.getKey("missing"));
+        first.close();
+        WalletDataContext third = WalletDataContext.open(path);
+        assertNotSame(first, third);
+        third.close();
+    }
+
+    @Test
+    public void testTransactionRollback() {
+        String path = new File(dir, "rollback.db3").getPath();
+        try (WalletDataContext ctx = WalletDataContext.open(path)) {
+            Key key = new Key();
+            key.name = "Height";
+            key.value = new byte[] { 1 };
+            try {
+                ctx.transaction(() -> {
+                    ctx.insertOrUpdate(key);
+                    throw new IllegalStateException();
+                });
+                fail();
+            } catch (IllegalStateException ex) {
+            }
+            assertNull(ctx.getKey("Height"));
+            ctx.transaction(() -> ctx.insertOrUpdate(key));
+            assertEquals(1, ctx.getKey("Height").value[0]);
+        }
+    }
+}
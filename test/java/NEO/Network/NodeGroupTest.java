@@ -0,0 +1,177 @@
+package NEO.Network;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class NodeGroupTest extends TestCase {
+
+    /**
+     *  模拟节点：固定延迟，可设置为无法连接
+     */
+    static class FakeNode {
+        final String name;
+        final long delay;
+        volatile boolean down;
+        final AtomicInteger calls = new AtomicInteger();
+
+        FakeNode(String name, long delay) {
+            this.name = name;
+            this.delay = delay;
+        }
+
+        String get() throws Exception {
+            calls.incrementAndGet();
+            Thread.sleep(delay);
+            if (down) {
+                throw new ConnectException(name + " down");
+            }
+            return name;
+        }
+    }
+
+    private static NodeGroup<FakeNode> group(FakeNode... nodes) {
+        return new NodeGroup<FakeNode>(Arrays.asList(nodes), ex -> ex instanceof IOException);
+    }
+
+    @Test
+    public void testHedgedReadReturnsFasterNode() throws Exception {
+        FakeNode slow = new FakeNode("slow", 2000);
+        FakeNode fast = new FakeNode("fast", 10);
+        NodeGroup<FakeNode> group = group(slow, fast);
+        group.setDefaultHedgeDelay(50);
+        long start = System.currentTimeMillis();
+        assertEquals("fast", group.read(FakeNode::get));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        // 快节点的延迟更低，之后的读请求直接发往快节点
+        for (int i = 0; i < 5; i++) {
+            assertEquals("fast", group.read(FakeNode::get));
+        }
+        assertEquals(1, slow.calls.get());
+    }
+
+    @Test
+    public void testReadRethrowsError() throws Exception {
+        FakeNode a = new FakeNode("a", 0);
+        NodeGroup<FakeNode> group = group(a);
+        CompletableFuture<String> read = CompletableFuture.supplyAsync(() -> {
+            try {
+                return group.read(p -> {
+                    throw new AssertionError("broken");
+                });
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        // 调用抛出Error时read不能一直等待
+        try {
+            read.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof AssertionError);
+        }
+        assertEquals("a", group.read(FakeNode::get));
+    }
+
+    @Test
+    public void testFailingNodeIsEjected() throws Exception {
+        FakeNode bad = new FakeNode("bad", 0);
+        FakeNode good = new FakeNode("good", 20);
+        bad.down = true;
+        NodeGroup<FakeNode> group = group(bad, good);
+        group.setHedging(false);
+        for (int i = 0; i < NodeGroup.FAILURES_BEFORE_EJECT; i++) {
+            assertEquals("good", group.read(FakeNode::get));
+        }
+        assertFalse(group.isHealthy(0));
+        assertTrue(group.isHealthy(1));
+        int calls = bad.calls.get();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("good", group.read(FakeNode::get));
+        }
+        assertEquals(calls, bad.calls.get());
+    }
+
+    @Test
+    public void testWriteFailsOverFromPreferred() throws Exception {
+        FakeNode a = new FakeNode("a", 0);
+        FakeNode b = new FakeNode("b", 0);
+        NodeGroup<FakeNode> group = group(a, b);
+        assertEquals("a", group.write(FakeNode::get));
+        a.down = true;
+        assertEquals("b", group.write(FakeNode::get));
+        group.setPreferred(1);
+        assertEquals("b", group.write(FakeNode::get));
+    }
+
+    @Test
+    public void testWriteNotRetriedAfterRequestSent() throws Exception {
+        FakeNode a = new FakeNode("a", 0);
+        FakeNode b = new FakeNode("b", 0);
+        NodeGroup<FakeNode> group = group(a, b);
+        // 首选节点可能已经接受了交易，读超时后不能再发往其它节点
+        try {
+            group.write(p -> {
+                p.get();
+                throw new SocketTimeoutException("Read timed out");
+            });
+            fail();
+        } catch (SocketTimeoutException ex) {
+        }
+        assertEquals(1, a.calls.get());
+        assertEquals(0, b.calls.get());
+        // 原因链中的连接错误仍然改用其它节点
+        assertEquals("b", group.write(p -> {
+            if (p == a) {
+                throw new IOException(new ConnectException("refused"));
+            }
+            return p.get();
+        }));
+        assertTrue(NodeGroup.isConnectFailure(new SocketTimeoutException("connect timed out")));
+        assertFalse(NodeGroup.isConnectFailure(new IOException("Server returned HTTP response code: 500")));
+    }
+
+    @Test
+    public void testApplicationErrorIsNotRetried() throws Exception {
+        FakeNode a = new FakeNode("a", 0);
+        FakeNode b = new FakeNode("b", 0);
+        NodeGroup<FakeNode> group = group(a, b);
+        group.setHedging(false);
+        try {
+            group.read(p -> {
+                p.get();
+                throw new IllegalStateException("unknown transaction");
+            });
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals("unknown transaction", ex.getMessage());
+        }
+        assertEquals(1, a.calls.get() + b.calls.get());
+        assertTrue(group.isHealthy(0));
+        assertTrue(group.isHealthy(1));
+    }
+
+    @Test
+    public void testAllNodesDown() throws Exception {
+        FakeNode a = new FakeNode("a", 0);
+        FakeNode b = new FakeNode("b", 0);
+        a.down = true;
+        b.down = true;
+        NodeGroup<FakeNode> group = group(a, b);
+        try {
+            group.read(FakeNode::get);
+            fail();
+        } catch (IOException ex) {
+        }
+        assertEquals(1, a.calls.get());
+        assertEquals(1, b.calls.get());
+    }
+}
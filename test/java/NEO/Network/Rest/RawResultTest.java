@@ -0,0 +1,95 @@
+package NEO.Network.Rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import NEO.Helper;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class RawResultTest extends TestCase {
+
+    private static RawResult parse(String json) throws Exception {
+        return RawResult.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testHexResultDecodedToBytes() throws Exception {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        String hex = Helper.toHexString(data);
+        // 每次只返回少量字节，覆盖缓冲区边界
+        InputStream stream = new ByteArrayInputStream(("{ \"Action\" : \"getblockbyheight\", \"Desc\":\"SUCCESS\",\"Error\":0,\"Result\":\"" + hex + "\",\"Version\":\"1.0.0\"}").getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        RawResult result = RawResult.read(stream);
+        assertEquals("getblockbyheight", result.Action);
+        assertEquals("SUCCESS", result.Desc);
+        assertEquals(0, result.Error);
+        assertEquals("1.0.0", result.Version);
+        assertNull(result.ResultText);
+        assertTrue(java.util.Arrays.equals(data, bytes(result.Result)));
+    }
+
+    @Test
+    public void testErrorWithTextResult() throws Exception {
+        RawResult result = parse("{\"Result\":\"abc: not found \\\"x\\\" \\u4e2d\",\"Error\":42001,\"Desc\":\"\u672a\u627e\u5230\",\"Extra\":{\"a\":[1,\"}\",null]},\"Version\":null}");
+        assertEquals(42001, result.Error);
+        assertNull(result.Result);
+        assertEquals("abc: not found \"x\" \u4e2d", result.ResultText);
+        assertEquals("\u672a\u627e\u5230", result.Desc);
+        assertNull(result.Version);
+    }
+
+    @Test
+    public void testNonStringResultSkipped() throws Exception {
+        RawResult result = parse("{\"Error\":0,\"Result\":{\"Height\":1},\"Desc\":\"SUCCESS\"}");
+        assertNull(result.Result);
+        assertNull(result.ResultText);
+        assertEquals("SUCCESS", result.Desc);
+    }
+
+    @Test
+    public void testPresizedFromContentLength() throws Exception {
+        byte[] data = new byte[50000];
+        new Random(2).nextBytes(data);
+        byte[] body = ("{\"Error\":0,\"Result\":\"" + Helper.toHexString(data) + "\"}").getBytes(StandardCharsets.UTF_8);
+        RawResult result = RawResult.read(new ByteArrayInputStream(body), body.length);
+        assertTrue(java.util.Arrays.equals(data, bytes(result.Result)));
+        // 按Content-Length的一半分配，没有扩容
+        assertEquals(body.length / 2, result.Result.array().length);
+        // Content-Length偏小时仍然可以扩容
+        result = RawResult.read(new ByteArrayInputStream(body), 10);
+        assertTrue(java.util.Arrays.equals(data, bytes(result.Result)));
+    }
+
+    @Test
+    public void testHexLikeTextKeepsCase() throws Exception {
+        for (String text : new String[] { "DEADBEEF not found", "Deadbeef: not found", "0aBcDeF1-x", "ABCDEF0", "12 ab" }) {
+            RawResult result = parse("{\"Error\":1,\"Result\":\"" + text + "\"}");
+            assertNull(result.Result);
+            assertEquals(text, result.ResultText);
+        }
+    }
+
+    @Test
+    public void testTruncatedResponse() throws Exception {
+        try {
+            parse("{\"Error\":0,\"Result\":\"00ff");
+            fail();
+        } catch (java.io.IOException ex) {
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package NEO.Network.Rest;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class RestHttpTest extends TestCase {
+
+    @Test
+    public void testKeepAliveReuse() throws Exception {
+        Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"Error\":0}".getBytes("UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            for (int i = 0; i < 10; i++) {
+                assertEquals("{\"Error\":0}", RestHttp.get(url));
+                assertEquals("{\"Error\":0}", RestHttp.post(url, "{}"));
+            }
+            // 顺序的请求都使用同一个连接
+            assertEquals(1, clientPorts.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testMaxConnectionsPerHost() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", exchange -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+            }
+            active.decrementAndGet();
+            byte[] body = "ok".getBytes("UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        RestHttp.setMaxConnections(2);
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(RestHttp.submit(() -> RestHttp.get(url)));
+            }
+            // 同步请求与异步请求共用每个主机的限制
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int i = 0; i < 4; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        RestHttp.get(url);
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("ok", future.get(10, TimeUnit.SECONDS));
+            }
+            for (Thread thread : threads) {
+                thread.join(10000);
+            }
+            assertEquals(2, peak.get());
+        } finally {
+            RestHttp.setMaxConnections(8);
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testResizeWhileRequestsInFlight() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", exchange -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+            }
+            active.decrementAndGet();
+            byte[] body = "ok".getBytes("UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        ExecutorService clients = Executors.newFixedThreadPool(3);
+        RestHttp.setMaxConnections(2);
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(RestHttp.submit(() -> RestHttp.get(url)));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (active.get() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, active.get());
+            // 进行中的请求仍然计入新的限制；同步请求不受后台线程数的限制
+            RestHttp.setMaxConnections(3);
+            for (int i = 0; i < 3; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return RestHttp.get(url);
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }, clients));
+            }
+            Thread.sleep(300);
+            assertEquals(3, active.get());
+            release.countDown();
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("ok", future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(3, peak.get());
+        } finally {
+            release.countDown();
+            clients.shutdown();
+            RestHttp.setMaxConnections(8);
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package NEO.Network.Rpc;
+
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpServer;
+
+import NEO.IO.Json.JArray;
+import NEO.IO.Json.JNumber;
+import NEO.IO.Json.JObject;
+import NEO.IO.Json.JString;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class RpcBatchTest extends TestCase {
+
+    @Test
+    public void testResponsesCorrelatedById() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        // 按相反顺序应答，参数为负数的调用返回错误，参数为0的调用不应答
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            JArray requests = (JArray) JObject.parse(new InputStreamReader(exchange.getRequestBody(), "UTF-8"));
+            batchSizes.add(requests.size());
+            JArray responses = new JArray();
+            for (int i = requests.size() - 1; i >= 0; i--) {
+                JObject request = requests.get(i);
+                double value = ((JArray) request.get("params")).get(0).asNumber();
+                if (value == 0) {
+                    continue;
+                }
+                JObject response = new JObject();
+                response.set("jsonrpc", new JString("2.0"));
+                response.set("id", request.get("id"));
+                if (value < 0) {
+                    JObject error = new JObject();
+                    error.set("code", new JNumber(-5));
+                    error.set("message", new JString("bad " + (int) value));
+                    response.set("error", error);
+                } else {
+                    response.set("result", new JNumber(value * 10));
+                }
+                responses.add(response);
+            }
+            byte[] body = responses.toString().getBytes("UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            RpcClient rpc = new RpcClient("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+            RpcBatch batch = rpc.batch();
+            assertEquals(0, batch.add("echo", new JNumber(1)));
+            assertEquals(1, batch.add("echo", new JNumber(-2)));
+            assertEquals(2, batch.add("echo", new JNumber(3)));
+            assertEquals(3, batch.add("echo", new JNumber(0)));
+            batch.send();
+            assertEquals(Collections.singletonList(4), batchSizes);
+            assertEquals(10.0, batch.get(0).asNumber());
+            assertEquals(30.0, batch.get(2).asNumber());
+            assertEquals(-5, batch.getError(1).code);
+            assertEquals("bad -2", batch.getError(1).getMessage());
+            assertNotNull(batch.getError(3));
+            try {
+                batch.get(1);
+                fail();
+            } catch (RpcException ex) {
+            }
+
+            // id继续递增，新的批量不会与之前的批量混淆
+            RpcBatch next = rpc.batch();
+            next.add("echo", new JNumber(4));
+            next.send();
+            assertEquals(40.0, next.get(0).asNumber());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
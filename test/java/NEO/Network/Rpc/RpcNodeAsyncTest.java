@@ -0,0 +1,118 @@
+package NEO.Network.Rpc;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import NEO.Core.Block;
+import NEO.Core.Blockchain;
+import NEO.Implementations.Blockchain.RPC.RpcBlockchain;
+import NEO.IO.Json.JNumber;
+import NEO.IO.Json.JObject;
+import NEO.IO.Json.JString;
+import NEO.Network.Rest.RestHttp;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class RpcNodeAsyncTest extends TestCase {
+    // BlockTest中高度为1000的区块
+    private static final String BLOCK = "00000000e36a0b74514cf5433ef8afdd64f52f5f149be7b68ffea2a30635e608aa3547cd419524c8559a59d5b9eb379c9b28ddadf212d5a26b840af9c03c63a59cb80f25f2220458e8030000a37e53ca9d1515ec59e75d652b5d3827bf04c165bbe9ef95cca4bf5501fd450140c252df98bc3a569154a00f408a8d70ec03d74dbaf9f41342ea7a6b26153be6b0ac56bf2cca48b79b981847c6f0d28f37e29da7444aa20cbc6f6c5e197166110d4050fbc4d36b74a5b0f826192bff34b9875287f352e5f1bc2d5ad7cf8de184504678113ba4638867c13adb971fb245df7aa858b7d63141f4d3d67f0e67a015a3c54066b7daf7bc24aeb97dcf46cafd0c5fb7a2e17fbb0ec354eacbe4044c99e971166069b731e57f0572cff4db48434da861b827410b4e0bd15f69c83081bd659b2440d2a93db8fa70fb7d9805db56db4704f5e241713035b8d082b7af735e0c556a9af515c3f7e8269e1505cfbc7381037c811645ddcfa38468669b7832df9ae34f524023b8a8e8fd98bce09e994c941de939d08cf51f61a0c851aa1e48852ebf3df1fef4d7c125019aeb68d3fc0c52d0924d5c40532796b6cd1b4dfeaff5b6f006b960f1552102486fd15702c4490a26703112a5cc1d0923fd697a33406bd5a1c00e0013b09a7021024c7b7fb6c310fccf1ba33b082519d82964ea93868d676662d4a59ad548df0e7d2102aaec38470f6aad0042c6e877cfd8087d2676b0f516fddd362801b9bd3936399e2103b209fd4f53a7170ea4444e0cb0a6bb6a53c2bd016926989cf85f9b0fba17a70c2103b8d9d5771d8f513aa0869b9cc8d50986403b78c6da36890638c3d46a5adce04a2102ca0e27697b9c248f6f16e085fd0061e26f44da85b58ee835c110caa5ec3ba5542102df48f60e8f3e01c48ff40b9b7f1310d7a8b2a193188befe1c2e3df740e89509357ae010000a37e53ca00000000";
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    /**
+     * getblock返回固定的区块，getblockcount在50毫秒后返回1234
+     */
+    private HttpServer startServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", exchange -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            JObject request = JObject.parse(new InputStreamReader(exchange.getRequestBody(), "UTF-8"));
+            JObject response = new JObject();
+            response.set("jsonrpc", new JString("2.0"));
+            response.set("id", request.get("id"));
+            if (request.get("method").asString().equals("getblock")) {
+                response.set("result", new JString(BLOCK));
+            } else {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                }
+                response.set("result", new JNumber(1234));
+            }
+            active.decrementAndGet();
+            byte[] body = response.toString().getBytes("UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void testAsyncResults() throws Exception {
+        HttpServer server = startServer();
+        try {
+            RpcNode node = new RpcNode(new RpcClient("http://127.0.0.1:" + server.getAddress().getPort() + "/"));
+            CompletableFuture<Block> block = node.getBlockAsync(1000);
+            CompletableFuture<Integer> count = node.getBlockCountAsync();
+            assertEquals(1000, block.get(10, TimeUnit.SECONDS).height);
+            assertEquals(1234, (int)count.get(10, TimeUnit.SECONDS));
+            // 通过Blockchain接口取得同样的结果
+            Blockchain blockchain = new RpcBlockchain(node);
+            assertEquals(1000, blockchain.getBlockAsync(1000).get(10, TimeUnit.SECONDS).height);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testTransportErrorCompletesExceptionally() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RpcNode node = new RpcNode(new RpcClient("http://127.0.0.1:" + port + "/"));
+        CompletableFuture<Integer> count = node.getBlockCountAsync();
+        try {
+            count.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+        assertTrue(count.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testConcurrencyBound() throws Exception {
+        HttpServer server = startServer();
+        RestHttp.setMaxConnections(2);
+        try {
+            RpcNode node = new RpcNode(new RpcClient("http://127.0.0.1:" + server.getAddress().getPort() + "/"));
+            List<CompletableFuture<Integer>> futures = new ArrayList<CompletableFuture<Integer>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(node.getBlockCountAsync());
+            }
+            for (CompletableFuture<Integer> future : futures) {
+                assertEquals(1234, (int)future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(2, peak.get());
+        } finally {
+            RestHttp.setMaxConnections(8);
+            server.stop(0);
+        }
+    }
+}
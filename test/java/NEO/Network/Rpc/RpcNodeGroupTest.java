@@ -0,0 +1,64 @@
+package NEO.Network.Rpc;
+
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+
+import com.sun.net.httpserver.HttpServer;
+
+import NEO.IO.Json.JNumber;
+import NEO.IO.Json.JObject;
+import NEO.IO.Json.JString;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class RpcNodeGroupTest extends TestCase {
+
+    private static HttpServer server(int blockCount, long delay) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            JObject request = JObject.parse(new InputStreamReader(exchange.getRequestBody(), "UTF-8"));
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+            }
+            JObject response = new JObject();
+            response.set("jsonrpc", new JString("2.0"));
+            response.set("id", request.get("id"));
+            response.set("result", new JNumber(blockCount));
+            byte[] body = response.toString().getBytes("UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @Test
+    public void testReadsSkipSlowAndDeadNodes() throws Exception {
+        int deadPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadPort = socket.getLocalPort();
+        }
+        HttpServer slow = server(1, 3000);
+        HttpServer fast = server(2, 0);
+        try {
+            RpcNodeGroup node = new RpcNodeGroup("http://127.0.0.1:" + deadPort + "/", url(slow), url(fast));
+            node.group().setDefaultHedgeDelay(100);
+            long start = System.currentTimeMillis();
+            assertEquals(2, node.getBlockCount());
+            assertTrue(System.currentTimeMillis() - start < 2000);
+            assertEquals(2, node.getBlockCount());
+        } finally {
+            slow.stop(0);
+            fast.stop(0);
+        }
+    }
+}
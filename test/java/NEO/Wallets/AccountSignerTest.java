@@ -0,0 +1,58 @@
+package NEO.Wallets;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.Helper;
+import NEO.Core.ContractTransaction;
+import NEO.Core.MinerTransaction;
+import NEO.Core.Transaction;
+import NEO.Core.TransactionAttribute;
+import NEO.Core.TransactionInput;
+import NEO.Core.TransactionOutput;
+import NEO.Core.Scripts.ScriptVerifier;
+import NEO.Cryptography.Digest;
+import NEO.Cryptography.ECC;
+
+public class AccountSignerTest extends TestCase {
+
+    @Test
+    public void testDeterministicSignature() {
+        Account account = new Account(ECC.generateKey());
+        byte[] data = "neo".getBytes();
+        byte[] signature = account.signer().sign(data);
+        assertEquals(Helper.toHexString(signature), Helper.toHexString(account.signer().sign(data)));
+        assertTrue(ScriptVerifier.verifySignature(Digest.sha256(data), signature, account.publicKey.getEncoded(true)));
+        assertFalse(ScriptVerifier.verifySignature(Digest.sha256("ne0".getBytes()), signature, account.publicKey.getEncoded(true)));
+    }
+
+    /**
+     *  RFC 6979 附录A.2.5：P-256，SHA-256，消息"sample"
+     */
+    @Test
+    public void testRfc6979KnownAnswer() {
+        Account account = new Account(Helper.hexToBytes("c9afa9d845ba75166b5c215767b1d6934e50c3db36e89b127b8a622b120f6721"));
+        assertEquals("0360fed4ba255a9d31c961eb74c6356d68c049b8923b61fa6ce669622e60f29fb6", Helper.toHexString(account.publicKey.getEncoded(true)));
+        byte[] signature = account.signer().sign("sample".getBytes());
+        assertEquals("efd48b2aacb6a8fd1140dd9cd45e81d69d2c877b56aaf991c34d0ea84eaf3716"
+                + "f7cb1c942d657c41d436c7a1b6e29f65f3e900dbb9aff4064dc4ab2f843acda8", Helper.toHexString(signature));
+    }
+
+    @Test
+    public void testSignAllKeepsOrder() {
+        Account account = new Account(ECC.generateKey());
+        List<Transaction> txs = Arrays.asList(new ContractTransaction(), new MinerTransaction());
+        for (Transaction tx : txs) {
+            tx.attributes = new TransactionAttribute[0];
+            tx.inputs = new TransactionInput[0];
+            tx.outputs = new TransactionOutput[0];
+        }
+        List<byte[]> signatures = account.signer().signAll(txs);
+        for (int i = 0; i < txs.size(); i++) {
+            assertEquals(Helper.toHexString(txs.get(i).sign(account)), Helper.toHexString(signatures.get(i)));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package NEO.Wallets;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import NEO.Core.Block;
+import NEO.Core.StubBlockchain;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class BlockPrefetcherTest extends TestCase {
+
+    @Test
+    public void testInOrderWithFailures() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        ConcurrentHashMap<Integer, Integer> failures = new ConcurrentHashMap<Integer, Integer>();
+        Random random = new Random(1);
+        // 每个高度第一次请求有一定概率失败，高度13总是失败
+        StubBlockchain blockchain = new StubBlockchain(200) {
+            @Override
+            public CompletableFuture<Block> getBlockAsync(int height) {
+                boolean fail = height == 13 || (random.nextInt(5) == 0 && failures.putIfAbsent(height, 1) == null);
+                return CompletableFuture.supplyAsync(() -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(1);
+                        if (fail) {
+                            throw new IllegalStateException("fail " + height);
+                        }
+                        return getBlock(height);
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                }, pool);
+            }
+        };
+        try {
+            BlockPrefetcher prefetcher = new BlockPrefetcher(blockchain, 1, 16, 3);
+            prefetcher.setLimit(12);
+            for (int i = 1; i <= 12; i++) {
+                assertEquals(i, prefetcher.take().height);
+            }
+            assertNull(prefetcher.take());
+            prefetcher.setLimit(200);
+            try {
+                prefetcher.take();
+                fail();
+            } catch (IllegalStateException ex) {
+            }
+            assertEquals(13, prefetcher.position());
+            // 模拟高度13恢复：跳过它之后的区块仍然按顺序取出
+            BlockPrefetcher resumed = new BlockPrefetcher(new StubBlockchain(200), 13, 16, 3);
+            resumed.setLimit(200);
+            for (int i = 13; i <= 200; i++) {
+                assertEquals(i, resumed.take().height);
+            }
+            assertTrue(maxActive.get() <= 3);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
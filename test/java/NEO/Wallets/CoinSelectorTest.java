@@ -0,0 +1,105 @@
+package NEO.Wallets;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class CoinSelectorTest extends TestCase {
+
+    private static long sum(long[] values, int[] selected) {
+        long sum = 0;
+        for (int i : selected) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    private static void assertDistinct(int[] selected) {
+        assertEquals(selected.length, Arrays.stream(selected).distinct().count());
+    }
+
+    @Test
+    public void testSortIndices() {
+        long[] values = { 5, 1, 9, 5, 3 };
+        assertTrue(Arrays.equals(new int[] { 2, 0, 3, 4, 1 }, CoinSelector.sortIndices(values, true)));
+        assertTrue(Arrays.equals(new int[] { 1, 4, 0, 3, 2 }, CoinSelector.sortIndices(values, false)));
+        assertEquals(0, CoinSelector.sortIndices(new long[0], true).length);
+    }
+
+    @Test
+    public void testLargestFirst() {
+        long[] values = { 1, 50, 7, 20, 3 };
+        // 50 + 20，剩余5由金额最小的足够的coin(7)补足
+        int[] selected = new LargestFirstSelector().select(values, 75);
+        assertEquals(3, selected.length);
+        assertEquals(77, sum(values, selected));
+        // 正好相等时不再补足
+        assertEquals(70, sum(values, new LargestFirstSelector().select(values, 70)));
+        assertEquals(5, new LargestFirstSelector().select(values, 81).length);
+        assertNull(new LargestFirstSelector().select(values, 82));
+    }
+
+    @Test
+    public void testSmallestFirst() {
+        long[] values = { 1, 50, 7, 20, 3 };
+        int[] selected = new SmallestFirstSelector().select(values, 10);
+        assertEquals(3, selected.length);
+        assertEquals(11, sum(values, selected));
+        // 超过输入数量上限时改为从大到小，用金额最小的足够支付的coin
+        selected = new SmallestFirstSelector(2).select(values, 10);
+        assertEquals(1, selected.length);
+        assertEquals(20, sum(values, selected));
+    }
+
+    @Test
+    public void testBranchAndBoundFindsExactMatch() {
+        long[] values = { 100, 70, 45, 30, 25, 11, 8, 5 };
+        int[] selected = new BranchAndBoundSelector(100000, null).select(values, 88);
+        assertNotNull(selected);
+        assertDistinct(selected);
+        assertEquals(88, sum(values, selected));
+        // 没有正好相等的组合
+        assertNull(new BranchAndBoundSelector(100000, null).select(new long[] { 10, 10, 10 }, 15));
+        selected = new BranchAndBoundSelector().select(new long[] { 10, 10, 10 }, 15);
+        assertEquals(20, sum(new long[] { 10, 10, 10 }, selected));
+    }
+
+    @Test
+    public void testBranchAndBoundWithManyEqualCoins() {
+        // 大量金额相同的coin，不重复尝试相同的组合
+        long[] values = new long[5000];
+        Arrays.fill(values, 3);
+        values[0] = 7;
+        int[] selected = new BranchAndBoundSelector(10000, null).select(values, 13);
+        assertNotNull(selected);
+        assertEquals(13, sum(values, selected));
+        assertNull(new BranchAndBoundSelector(10000, null).select(values, 2));
+    }
+
+    @Test
+    public void testKnapsack() {
+        KnapsackSelector selector = new KnapsackSelector(new Random(1), 1000, 1000);
+        long[] values = { 4, 9, 15, 23, 40 };
+        assertEquals(23, sum(values, selector.select(values, 23)));
+        int[] selected = selector.select(values, 28);
+        assertDistinct(selected);
+        assertEquals(28, sum(values, selected));
+        // 小额coin不够时使用足够支付的最小coin
+        long[] sparse = { 1, 2, 40, 90 };
+        assertEquals(40, sum(sparse, selector.select(sparse, 30)));
+        Random random = new Random(2);
+        long[] many = new long[3000];
+        long total = 0;
+        for (int i = 0; i < many.length; i++) {
+            many[i] = 1 + random.nextInt(100000);
+            total += many[i];
+        }
+        selected = selector.select(many, total / 3);
+        assertDistinct(selected);
+        long selectedSum = sum(many, selected);
+        assertTrue(selectedSum >= total / 3);
+        assertTrue(selectedSum - total / 3 < 100000);
+    }
+}
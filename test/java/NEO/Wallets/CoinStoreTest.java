@@ -0,0 +1,107 @@
+package NEO.Wallets;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.Fixed8;
+import NEO.UInt160;
+import NEO.UInt256;
+import NEO.Core.TransactionInput;
+import NEO.IO.Caching.TrackState;
+
+public class CoinStoreTest extends TestCase {
+    private static final UInt256 NEO = asset(1);
+    private static final UInt256 GAS = asset(2);
+    private static final UInt160 ALICE = new UInt160(new byte[20]);
+    private static final UInt160 BOB = address(1);
+
+    private static UInt256 asset(int n) {
+        byte[] data = new byte[32];
+        data[31] = (byte)n;
+        return new UInt256(data);
+    }
+
+    private static UInt160 address(int n) {
+        byte[] data = new byte[20];
+        data[19] = (byte)n;
+        return new UInt160(data);
+    }
+
+    private static Coin coin(int n, UInt256 assetId, long value, UInt160 scriptHash, CoinState state) {
+        Coin coin = new Coin();
+        coin.input = new TransactionInput();
+        byte[] hash = new byte[32];
+        hash[0] = (byte)n;
+        hash[1] = (byte)(n >> 8);
+        coin.input.prevHash = new UInt256(hash);
+        coin.input.prevIndex = 0;
+        coin.assetId = assetId;
+        coin.value = new Fixed8(value);
+        coin.scriptHash = scriptHash;
+        coin.setState(state);
+        return coin;
+    }
+
+    @Test
+    public void testBalancesFollowStateChanges() {
+        CoinStore store = new CoinStore(new Coin[] {
+            coin(1, NEO, 10, ALICE, CoinState.Unspent),
+            coin(2, NEO, 20, BOB, CoinState.Unspent),
+            coin(3, GAS, 5, ALICE, CoinState.Unspent),
+        });
+        assertEquals(0, store.getChangeSet(Coin[]::new).length);
+        assertEquals(30, store.sum(NEO, CoinState.Unspent).getData());
+        assertEquals(5, store.sum(GAS, CoinState.Unspent).getData());
+
+        Coin spending = store.get(coin(1, NEO, 10, ALICE, CoinState.Unspent).input);
+        spending.setState(CoinState.Spending);
+        assertEquals(20, store.sum(NEO, CoinState.Unspent).getData());
+        assertEquals(10, store.sum(NEO, CoinState.Spending).getData());
+        assertEquals(1, store.find(CoinState.Spending).length);
+        assertEquals(2, store.find(CoinState.Unspent).length);
+
+        store.add(coin(4, NEO, 7, ALICE, CoinState.Unconfirmed));
+        assertEquals(7, store.sum(NEO, CoinState.Unconfirmed).getData());
+
+        Coin[] changes = store.getChangeSet(Coin[]::new);
+        assertEquals(2, changes.length);
+        store.commit();
+        assertEquals(0, store.getChangeSet(Coin[]::new).length);
+        assertEquals(TrackState.None, spending.getTrackState());
+    }
+
+    @Test
+    public void testFindByAssetAndAddress() {
+        CoinStore store = new CoinStore();
+        for (int i = 0; i < 100; i++) {
+            store.add(coin(i, i % 2 == 0 ? NEO : GAS, i, i % 10 == 0 ? BOB : ALICE, CoinState.Unspent));
+        }
+        assertEquals(50, store.find(NEO, CoinState.Unspent).length);
+        assertEquals(10, store.find(NEO, CoinState.Unspent, BOB).length);
+        assertEquals(40, store.find(NEO, CoinState.Unspent, ALICE).length);
+        assertEquals(0, store.find(GAS, CoinState.Unspent, BOB).length);
+        assertEquals(0, store.find(NEO, CoinState.Unspent, address(9)).length);
+        assertEquals(0, store.find(asset(9), CoinState.Unspent).length);
+    }
+
+    @Test
+    public void testRemove() {
+        CoinStore store = new CoinStore(new Coin[] { coin(1, NEO, 10, ALICE, CoinState.Unspent) });
+        Coin fresh = coin(2, NEO, 20, ALICE, CoinState.Unspent);
+        store.add(fresh);
+        assertTrue(store.remove(fresh));
+        assertFalse(store.containsKey(fresh.input));
+        assertEquals(10, store.sum(NEO, CoinState.Unspent).getData());
+
+        Coin old = store.get(coin(1, NEO, 10, ALICE, CoinState.Unspent).input);
+        assertTrue(store.remove(old));
+        assertEquals(0, store.sum(NEO, CoinState.Unspent).getData());
+        assertEquals(0, store.find(NEO, CoinState.Unspent).length);
+        // 已删除的coin状态再改变也不会影响合计
+        old.setState(CoinState.Spent);
+        assertEquals(0, store.sum(NEO, CoinState.Spent).getData());
+        assertEquals(1, store.getChangeSet(Coin[]::new).length);
+        store.commit();
+        assertEquals(0, store.size());
+    }
+}
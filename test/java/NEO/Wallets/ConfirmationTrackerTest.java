@@ -0,0 +1,74 @@
+package NEO.Wallets;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.UInt256;
+import NEO.Core.Block;
+import NEO.Core.ContractTransaction;
+import NEO.Core.Transaction;
+import NEO.Core.TransactionAttribute;
+import NEO.Core.TransactionAttributeUsage;
+import NEO.Core.TransactionInput;
+import NEO.Core.TransactionOutput;
+
+public class ConfirmationTrackerTest extends TestCase {
+
+    @Test
+    public void testTrackBeforeAndAfterBlock() throws Exception {
+        ConfirmationTracker tracker = new ConfirmationTracker();
+        Block block = block(7, 1, 2);
+        UInt256 first = block.transactions[0].hash();
+        UInt256 second = block.transactions[1].hash();
+        CompletableFuture<Integer> waiting = tracker.track(first);
+        CompletableFuture<Map<UInt256, Integer>> all = tracker.trackAll(Arrays.asList(first, second), 5, TimeUnit.SECONDS);
+        assertFalse(waiting.isDone());
+        assertEquals(2, tracker.pendingCount());
+        tracker.onBlock(block);
+        assertEquals(7, waiting.get(5, TimeUnit.SECONDS).intValue());
+        assertEquals(Integer.valueOf(7), all.get(5, TimeUnit.SECONDS).get(second));
+        assertEquals(0, tracker.pendingCount());
+        // 已确认的交易立即返回
+        assertEquals(7, tracker.track(second).getNow(-1).intValue());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        ConfirmationTracker tracker = new ConfirmationTracker();
+        Block block = block(3, 5);
+        CompletableFuture<Integer> future = tracker.track(block.transactions[0].hash(), 50, TimeUnit.MILLISECONDS);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof TimeoutException);
+        }
+        assertEquals(0, tracker.pendingCount());
+        tracker.onBlock(block);
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    private static Block block(int height, int... nonces) {
+        Block block = new Block();
+        block.height = height;
+        block.transactions = new Transaction[nonces.length];
+        for (int i = 0; i < nonces.length; i++) {
+            ContractTransaction tx = new ContractTransaction();
+            TransactionAttribute attribute = new TransactionAttribute();
+            attribute.usage = TransactionAttributeUsage.Description;
+            attribute.data = new byte[] { (byte) nonces[i] };
+            tx.attributes = new TransactionAttribute[] { attribute };
+            tx.inputs = new TransactionInput[0];
+            tx.outputs = new TransactionOutput[0];
+            block.transactions[i] = tx;
+        }
+        return block;
+    }
+}
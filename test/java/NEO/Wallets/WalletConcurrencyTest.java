@@ -0,0 +1,141 @@
+package NEO.Wallets;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.Fixed8;
+import NEO.UInt256;
+import NEO.Core.Block;
+import NEO.Core.ContractTransaction;
+import NEO.Core.Transaction;
+import NEO.Core.TransactionAttribute;
+import NEO.Core.TransactionInput;
+import NEO.Core.TransactionOutput;
+import NEO.Core.Scripts.Program;
+import NEO.Cryptography.ECC;
+
+public class WalletConcurrencyTest extends TestCase {
+    private static final UInt256 ASSET = new UInt256(new byte[32]);
+
+    /**
+     *  不保存数据的钱包，写入区块时等待测试放行，模拟缓慢的数据库
+     */
+    private static class SlowWallet extends Wallet {
+        final CountDownLatch persisting = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        SlowWallet() throws Exception {
+            super("memory", "password", true);
+        }
+
+        @Override
+        protected Account[] loadAccounts() {
+            return new Account[0];
+        }
+
+        @Override
+        protected Contract[] loadContracts() {
+            return new Contract[0];
+        }
+
+        @Override
+        protected Coin[] loadCoins() {
+            return new Coin[0];
+        }
+
+        @Override
+        protected byte[] loadStoredData(String name) {
+            return null;
+        }
+
+        @Override
+        protected void saveStoredData(String name, byte[] value) {
+        }
+
+        @Override
+        protected void onProcessNewBlock(Block block, Coin[] added, Coin[] changed, Coin[] deleted) {
+            persisting.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+            }
+        }
+
+        @Override
+        protected void onSaveTransaction(Transaction tx, Coin[] added, Coin[] changed) {
+        }
+    }
+
+    @Test
+    public void testReadsDoNotWaitForPersistence() throws Exception {
+        SlowWallet wallet = new SlowWallet();
+        Account account = wallet.createAccount(ECC.generateKey());
+        Contract contract = Contract.createSignatureContract(account.publicKey);
+        wallet.addContract(contract);
+
+        ContractTransaction tx = new ContractTransaction();
+        tx.attributes = new TransactionAttribute[0];
+        tx.inputs = new TransactionInput[0];
+        TransactionOutput output = new TransactionOutput();
+        output.assetId = ASSET;
+        output.value = new Fixed8(500);
+        output.scriptHash = contract.scriptHash();
+        tx.outputs = new TransactionOutput[] { output };
+        tx.scripts = new Program[0];
+        Block block = new Block();
+        block.height = wallet.getWalletHeight();
+        block.transactions = new Transaction[] { tx };
+
+        wallet.start();
+        try {
+            CompletableFuture<Void> processing = CompletableFuture.runAsync(() -> wallet.notifyNewBlock(block));
+            assertTrue(wallet.persisting.await(5, TimeUnit.SECONDS));
+            // 区块正在写入数据库，查询不需要等待
+            CompletableFuture<Fixed8> balance = CompletableFuture.supplyAsync(() -> wallet.getBalance(ASSET));
+            assertEquals(500, balance.get(1, TimeUnit.SECONDS).getData());
+            assertEquals(1, wallet.findUnspentCoins(ASSET).length);
+            assertNotNull(wallet.getAccountByScriptHash(contract.scriptHash()));
+            assertFalse(processing.isDone());
+
+            wallet.release.countDown();
+            processing.get(5, TimeUnit.SECONDS);
+            assertEquals(block.height + 1, wallet.getWalletHeight());
+        } finally {
+            wallet.release.countDown();
+            wallet.close();
+        }
+    }
+
+    @Test
+    public void testDeleteContractWaitsForPersistence() throws Exception {
+        SlowWallet wallet = new SlowWallet();
+        Account account = wallet.createAccount(ECC.generateKey());
+        Contract contract = Contract.createSignatureContract(account.publicKey);
+        wallet.addContract(contract);
+        Block block = new Block();
+        block.height = wallet.getWalletHeight();
+        block.transactions = new Transaction[0];
+
+        wallet.start();
+        try {
+            CompletableFuture<Void> processing = CompletableFuture.runAsync(() -> wallet.notifyNewBlock(block));
+            assertTrue(wallet.persisting.await(5, TimeUnit.SECONDS));
+            // 区块尚未写入时删除合约要等待，不能提前提交区块的变更
+            CompletableFuture<Boolean> deleting = CompletableFuture.supplyAsync(() -> wallet.deleteContract(contract.scriptHash()));
+            Thread.sleep(200);
+            assertFalse(deleting.isDone());
+
+            wallet.release.countDown();
+            processing.get(5, TimeUnit.SECONDS);
+            assertTrue(deleting.get(5, TimeUnit.SECONDS));
+            assertNull(wallet.getContract(contract.scriptHash()));
+        } finally {
+            wallet.release.countDown();
+            wallet.close();
+        }
+    }
+}
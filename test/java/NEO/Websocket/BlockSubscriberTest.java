@@ -0,0 +1,101 @@
+package NEO.Websocket;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import NEO.Core.Block;
+import NEO.Core.Blockchain;
+import NEO.Core.StubBlockchain;
+import NEO.Core.Transaction;
+
+public class BlockSubscriberTest extends TestCase {
+
+    private static Block block(int height) {
+        Block block = new Block();
+        block.height = height;
+        block.transactions = new Transaction[0];
+        return block;
+    }
+
+    /**
+     *  可以模拟节点出错的区块链
+     */
+    private static class FlakyBlockchain extends StubBlockchain {
+        volatile boolean failing;
+
+        FlakyBlockchain(int height) {
+            super(height);
+        }
+
+        @Override
+        public Block getBlock(int height) throws Exception {
+            if (failing) {
+                throw new java.io.IOException("node unavailable");
+            }
+            return super.getBlock(height);
+        }
+    }
+
+    @Test
+    public void testDuplicatesAndGapFill() {
+        Blockchain.register(new StubBlockchain(100));
+        List<Integer> heights = new CopyOnWriteArrayList<Integer>();
+        BlockSubscriber subscriber = new BlockSubscriber("ws://127.0.0.1:1");
+        try {
+            subscriber.addListener(p -> heights.add(p.height));
+            subscriber.deliver(block(10));
+            subscriber.deliver(block(10));
+            subscriber.deliver(block(9));
+            subscriber.deliver(block(11));
+            // 12到14从区块链补齐
+            subscriber.deliver(block(15));
+            subscriber.deliver(block(13));
+            assertEquals(Arrays.asList(10, 11, 12, 13, 14, 15), heights);
+            assertEquals(15, subscriber.lastHeight());
+        } finally {
+            subscriber.close();
+        }
+    }
+
+    @Test
+    public void testFailedFillIsRetried() throws Exception {
+        FlakyBlockchain blockchain = new FlakyBlockchain(100);
+        Blockchain.register(blockchain);
+        List<Integer> heights = new CopyOnWriteArrayList<Integer>();
+        List<Exception> errors = new CopyOnWriteArrayList<Exception>();
+        BlockSubscriber subscriber = new BlockSubscriber("ws://127.0.0.1:1");
+        try {
+            subscriber.addListener(p -> heights.add(p.height));
+            subscriber.setErrorHandler(errors::add);
+            subscriber.deliver(block(10));
+            blockchain.failing = true;
+            subscriber.deliver(block(13));
+            // 缺口没有补齐，不能交付之后的区块
+            assertEquals(Arrays.asList(10), heights);
+            assertEquals(10, subscriber.lastHeight());
+            subscriber.deliver(block(14));
+            assertEquals(10, subscriber.lastHeight());
+            // 等待至少一次定时重试，同一次中断只报告一次
+            Thread.sleep(BlockSubscriber.RETRY_DELAY * 3 / 2);
+            assertEquals(1, errors.size());
+
+            blockchain.failing = false;
+            long deadline = System.currentTimeMillis() + 10 * BlockSubscriber.RETRY_DELAY;
+            while (subscriber.lastHeight() < 14 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(Arrays.asList(10, 11, 12, 13, 14), heights);
+
+            // 恢复之后再次失败时重新报告
+            blockchain.failing = true;
+            subscriber.deliver(block(17));
+            assertEquals(2, errors.size());
+        } finally {
+            subscriber.close();
+        }
+    }
+}
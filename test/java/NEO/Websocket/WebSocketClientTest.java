@@ -0,0 +1,125 @@
+package NEO.Websocket;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class WebSocketClientTest extends TestCase {
+
+    @Test
+    public void testMessagesAndReconnect() throws Exception {
+        BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+        try (ServerSocket server = new ServerSocket(0)) {
+            WebSocketClient client = new WebSocketClient("ws://127.0.0.1:" + server.getLocalPort() + "/ws?x=1", new WebSocketClient.Listener() {
+                @Override
+                public void onOpen(WebSocketClient client) {
+                    events.add("open");
+                }
+
+                @Override
+                public void onMessage(String message) {
+                    events.add(message);
+                }
+            });
+            Thread accept = new Thread(() -> {
+                try {
+                    // 第一个连接：发送一条消息、一条分片消息和ping，然后断开
+                    try (Socket s = server.accept()) {
+                        handshake(s);
+                        OutputStream out = s.getOutputStream();
+                        writeFrame(out, 0x81, "hello".getBytes(StandardCharsets.UTF_8));
+                        writeFrame(out, 0x01, "frag".getBytes(StandardCharsets.UTF_8));
+                        writeFrame(out, 0x80, new byte[300]);
+                        writeFrame(out, 0x89, "p".getBytes(StandardCharsets.UTF_8));
+                        events.add("pong:" + readFrame(s.getInputStream()));
+                        events.add("client:" + readFrame(s.getInputStream()));
+                    }
+                    // 第二个连接：重连后推送一条消息
+                    try (Socket s = server.accept()) {
+                        handshake(s);
+                        writeFrame(s.getOutputStream(), 0x81, "again".getBytes(StandardCharsets.UTF_8));
+                        s.getInputStream().read();
+                    }
+                } catch (IOException ex) {
+                    events.add("server error " + ex);
+                }
+            });
+            accept.start();
+            client.connect();
+            assertEquals("open", events.poll(5, TimeUnit.SECONDS));
+            assertEquals("hello", events.poll(5, TimeUnit.SECONDS));
+            String fragmented = events.poll(5, TimeUnit.SECONDS);
+            assertEquals(304, fragmented.length());
+            assertTrue(fragmented.startsWith("frag"));
+            assertEquals("pong:p", events.poll(5, TimeUnit.SECONDS));
+            client.send("from client");
+            assertEquals("client:from client", events.poll(5, TimeUnit.SECONDS));
+            assertEquals("open", events.poll(5, TimeUnit.SECONDS));
+            assertEquals("again", events.poll(5, TimeUnit.SECONDS));
+            client.close();
+            accept.join(5000);
+        }
+    }
+
+    private static void handshake(Socket s) throws IOException {
+        InputStream in = s.getInputStream();
+        StringBuilder sb = new StringBuilder();
+        while (!sb.toString().endsWith("\r\n\r\n")) {
+            sb.append((char) in.read());
+        }
+        assertTrue(sb.toString().startsWith("GET /ws?x=1 HTTP/1.1\r\n"));
+        String key = null;
+        for (String line : sb.toString().split("\r\n")) {
+            if (line.startsWith("Sec-WebSocket-Key:")) {
+                key = line.substring(18).trim();
+            }
+        }
+        String accept;
+        try {
+            accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1").digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
+        s.getOutputStream().write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeFrame(OutputStream out, int b0, byte[] payload) throws IOException {
+        out.write(b0);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length);
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    private static String readFrame(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        data.readUnsignedByte();
+        int length = data.readUnsignedByte();
+        assertTrue((length & 0x80) != 0);
+        byte[] mask = new byte[4];
+        data.readFully(mask);
+        byte[] payload = new byte[length & 0x7f];
+        data.readFully(payload);
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}